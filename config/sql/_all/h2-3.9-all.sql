@@ -90,6 +90,13 @@ CREATE TABLE m_acc_cert_wi_reference (
   targetType            INTEGER,
   PRIMARY KEY (owner_owner_owner_oid, owner_owner_id, owner_id, relation, targetOid)
 );
+CREATE TABLE m_assignee_count (
+  targetOid     VARCHAR(36)  NOT NULL,
+  relation      VARCHAR(157) NOT NULL,
+  deltaId       VARCHAR(36)  NOT NULL,
+  assigneeCount INTEGER      NOT NULL,
+  PRIMARY KEY (targetOid, relation, deltaId)
+);
 CREATE TABLE m_assignment (
   id                      INTEGER     NOT NULL,
   owner_oid               VARCHAR(36) NOT NULL,
@@ -333,6 +340,10 @@ CREATE TABLE m_object (
   name_orig             VARCHAR(255),
   objectTypeClass       INTEGER,
   polysCount            SMALLINT,
+  promotedString1       VARCHAR(255),
+  promotedString2       VARCHAR(255),
+  promotedString3       VARCHAR(255),
+  promotedString4       VARCHAR(255),
   referencesCount       SMALLINT,
   stringsCount          SMALLINT,
   tenantRef_relation    VARCHAR(157),
@@ -495,6 +506,13 @@ CREATE TABLE m_task_dependent (
   task_oid  VARCHAR(36) NOT NULL,
   dependent VARCHAR(255)
 );
+CREATE TABLE m_task_statistics (
+  taskOid        VARCHAR(36) NOT NULL,
+  progress       BIGINT,
+  expectedTotal  BIGINT,
+  operationStats BLOB,
+  PRIMARY KEY (taskOid)
+);
 CREATE TABLE m_user_employee_type (
   user_oid     VARCHAR(36) NOT NULL,
   employeeType VARCHAR(255)
@@ -819,6 +837,14 @@ CREATE INDEX iObjectCreateTimestamp
   ON m_object (createTimestamp);
 CREATE INDEX iObjectLifecycleState
   ON m_object (lifecycleState);
+CREATE INDEX iObjectPromotedString1
+  ON m_object (promotedString1);
+CREATE INDEX iObjectPromotedString2
+  ON m_object (promotedString2);
+CREATE INDEX iObjectPromotedString3
+  ON m_object (promotedString3);
+CREATE INDEX iObjectPromotedString4
+  ON m_object (promotedString4);
 CREATE INDEX iExtensionBoolean
   ON m_object_ext_boolean (booleanValue);
 CREATE INDEX iExtensionDate
@@ -831,6 +857,8 @@ CREATE INDEX iExtensionReference
   ON m_object_ext_reference (targetoid);
 CREATE INDEX iExtensionString
   ON m_object_ext_string (stringValue);
+CREATE INDEX iTextInfoText
+  ON m_object_text_info (text);
 CREATE INDEX iOpExecTaskOid
   ON m_operation_execution (taskRef_targetOid);
 CREATE INDEX iOpExecInitiatorOid
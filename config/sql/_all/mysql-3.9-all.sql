@@ -103,6 +103,16 @@ CREATE TABLE m_acc_cert_wi_reference (
   DEFAULT CHARACTER SET utf8
   COLLATE utf8_bin
   ENGINE = InnoDB;
+CREATE TABLE m_assignee_count (
+  targetOid     VARCHAR(36)  NOT NULL,
+  relation      VARCHAR(157) NOT NULL,
+  deltaId       VARCHAR(36)  NOT NULL,
+  assigneeCount INTEGER      NOT NULL,
+  PRIMARY KEY (targetOid, relation, deltaId)
+)
+  DEFAULT CHARACTER SET utf8
+  COLLATE utf8_bin
+  ENGINE = InnoDB;
 CREATE TABLE m_assignment (
   id                      INTEGER     NOT NULL,
   owner_oid               VARCHAR(36) NOT NULL,
@@ -409,6 +419,10 @@ CREATE TABLE m_object (
   name_orig             VARCHAR(255),
   objectTypeClass       INTEGER,
   polysCount            SMALLINT,
+  promotedString1       VARCHAR(255),
+  promotedString2       VARCHAR(255),
+  promotedString3       VARCHAR(255),
+  promotedString4       VARCHAR(255),
   referencesCount       SMALLINT,
   stringsCount          SMALLINT,
   tenantRef_relation    VARCHAR(157),
@@ -622,6 +636,16 @@ CREATE TABLE m_task_dependent (
   DEFAULT CHARACTER SET utf8
   COLLATE utf8_bin
   ENGINE = InnoDB;
+CREATE TABLE m_task_statistics (
+  taskOid        VARCHAR(36) NOT NULL,
+  progress       BIGINT,
+  expectedTotal  BIGINT,
+  operationStats LONGBLOB,
+  PRIMARY KEY (taskOid)
+)
+  DEFAULT CHARACTER SET utf8
+  COLLATE utf8_bin
+  ENGINE = InnoDB;
 CREATE TABLE m_user_employee_type (
   user_oid     VARCHAR(36) NOT NULL,
   employeeType VARCHAR(255)
@@ -1032,6 +1056,14 @@ CREATE INDEX iObjectCreateTimestamp
   ON m_object (createTimestamp);
 CREATE INDEX iObjectLifecycleState
   ON m_object (lifecycleState);
+CREATE INDEX iObjectPromotedString1
+  ON m_object (promotedString1);
+CREATE INDEX iObjectPromotedString2
+  ON m_object (promotedString2);
+CREATE INDEX iObjectPromotedString3
+  ON m_object (promotedString3);
+CREATE INDEX iObjectPromotedString4
+  ON m_object (promotedString4);
 CREATE INDEX iExtensionBoolean
   ON m_object_ext_boolean (booleanValue);
 CREATE INDEX iExtensionDate
@@ -1044,6 +1076,8 @@ CREATE INDEX iExtensionReference
   ON m_object_ext_reference (targetoid);
 CREATE INDEX iExtensionString
   ON m_object_ext_string (stringValue);
+CREATE INDEX iTextInfoText
+  ON m_object_text_info (text);
 CREATE INDEX iOpExecTaskOid
   ON m_operation_execution (taskRef_targetOid);
 CREATE INDEX iOpExecInitiatorOid
@@ -29,4 +29,49 @@ CREATE TABLE m_global_metadata (
   COLLATE utf8_bin
   ENGINE = InnoDB;
 
+CREATE INDEX iTextInfoText
+  ON m_object_text_info (text);
+
+ALTER TABLE m_object ADD COLUMN promotedString1 VARCHAR(191);
+ALTER TABLE m_object ADD COLUMN promotedString2 VARCHAR(191);
+ALTER TABLE m_object ADD COLUMN promotedString3 VARCHAR(191);
+ALTER TABLE m_object ADD COLUMN promotedString4 VARCHAR(191);
+
+CREATE INDEX iObjectPromotedString1
+  ON m_object (promotedString1);
+CREATE INDEX iObjectPromotedString2
+  ON m_object (promotedString2);
+CREATE INDEX iObjectPromotedString3
+  ON m_object (promotedString3);
+CREATE INDEX iObjectPromotedString4
+  ON m_object (promotedString4);
+
+CREATE TABLE m_assignee_count (
+  targetOid     VARCHAR(36) CHARSET utf8 COLLATE utf8_bin NOT NULL,
+  relation      VARCHAR(157)                             NOT NULL,
+  deltaId       VARCHAR(36) CHARSET utf8 COLLATE utf8_bin NOT NULL,
+  assigneeCount INTEGER                                  NOT NULL,
+  PRIMARY KEY (targetOid, relation, deltaId)
+)
+  DEFAULT CHARACTER SET utf8mb4
+  COLLATE utf8mb4_bin
+  ENGINE = InnoDB;
+
+INSERT INTO m_assignee_count (targetOid, relation, deltaId, assigneeCount)
+  SELECT targetRef_targetOid, targetRef_relation, 'initial', COUNT(DISTINCT owner_oid)
+  FROM m_assignment
+  WHERE assignmentOwner = 0 AND targetRef_targetOid IS NOT NULL
+  GROUP BY targetRef_targetOid, targetRef_relation;
+
+CREATE TABLE m_task_statistics (
+  taskOid        VARCHAR(36) CHARSET utf8 COLLATE utf8_bin NOT NULL,
+  progress       BIGINT,
+  expectedTotal  BIGINT,
+  operationStats LONGBLOB,
+  PRIMARY KEY (taskOid)
+)
+  DEFAULT CHARACTER SET utf8mb4
+  COLLATE utf8mb4_bin
+  ENGINE = InnoDB;
+
 INSERT INTO m_global_metadata VALUES ('databaseSchemaVersion', '3.9');
@@ -86,6 +86,13 @@ CREATE TABLE m_acc_cert_wi_reference (
   targetType            NUMBER(10, 0),
   PRIMARY KEY (owner_owner_owner_oid, owner_owner_id, owner_id, relation, targetOid)
 ) INITRANS 30;
+CREATE TABLE m_assignee_count (
+  targetOid     VARCHAR2(36 CHAR)  NOT NULL,
+  relation      VARCHAR2(157 CHAR) NOT NULL,
+  deltaId       VARCHAR2(36 CHAR)  NOT NULL,
+  assigneeCount NUMBER(10, 0)      NOT NULL,
+  CONSTRAINT M_ASSIGNEE_COUNT_PK PRIMARY KEY (targetOid, relation, deltaId)
+) INITRANS 30;
 CREATE TABLE m_assignment (
   id                      NUMBER(10, 0)     NOT NULL,
   owner_oid               VARCHAR2(36 CHAR) NOT NULL,
@@ -329,6 +336,10 @@ CREATE TABLE m_object (
   name_orig             VARCHAR2(255 CHAR),
   objectTypeClass       NUMBER(10, 0),
   polysCount            NUMBER(5, 0),
+  promotedString1       VARCHAR2(255 CHAR),
+  promotedString2       VARCHAR2(255 CHAR),
+  promotedString3       VARCHAR2(255 CHAR),
+  promotedString4       VARCHAR2(255 CHAR),
   referencesCount       NUMBER(5, 0),
   stringsCount          NUMBER(5, 0),
   tenantRef_relation    VARCHAR2(157 CHAR),
@@ -491,6 +502,13 @@ CREATE TABLE m_task_dependent (
   task_oid  VARCHAR2(36 CHAR) NOT NULL,
   dependent VARCHAR2(255 CHAR)
 ) INITRANS 30;
+CREATE TABLE m_task_statistics (
+  taskOid        VARCHAR2(36 CHAR) NOT NULL,
+  progress       NUMBER(19, 0),
+  expectedTotal  NUMBER(19, 0),
+  operationStats BLOB,
+  CONSTRAINT M_TASK_STATISTICS_PK PRIMARY KEY (taskOid)
+) INITRANS 30;
 CREATE TABLE m_user_employee_type (
   user_oid     VARCHAR2(36 CHAR) NOT NULL,
   employeeType VARCHAR2(255 CHAR)
@@ -814,6 +832,14 @@ CREATE INDEX iObjectCreateTimestamp
   ON m_object (createTimestamp) INITRANS 30;
 CREATE INDEX iObjectLifecycleState
   ON m_object (lifecycleState) INITRANS 30;
+CREATE INDEX iObjectPromotedString1
+  ON m_object (promotedString1) INITRANS 30;
+CREATE INDEX iObjectPromotedString2
+  ON m_object (promotedString2) INITRANS 30;
+CREATE INDEX iObjectPromotedString3
+  ON m_object (promotedString3) INITRANS 30;
+CREATE INDEX iObjectPromotedString4
+  ON m_object (promotedString4) INITRANS 30;
 CREATE INDEX iExtensionBoolean
   ON m_object_ext_boolean (booleanValue) INITRANS 30;
 CREATE INDEX iExtensionDate
@@ -826,6 +852,8 @@ CREATE INDEX iExtensionReference
   ON m_object_ext_reference (targetoid) INITRANS 30;
 CREATE INDEX iExtensionString
   ON m_object_ext_string (stringValue) INITRANS 30;
+CREATE INDEX iTextInfoText
+  ON m_object_text_info (text) INITRANS 30;
 CREATE INDEX iOpExecTaskOid
   ON m_operation_execution (taskRef_targetOid) INITRANS 30;
 CREATE INDEX iOpExecInitiatorOid
@@ -23,4 +23,43 @@ CREATE TABLE m_global_metadata (
   PRIMARY KEY (name)
 ) INITRANS 30;
 
+CREATE INDEX iTextInfoText
+  ON m_object_text_info (text) INITRANS 30;
+
+ALTER TABLE m_object ADD promotedString1 VARCHAR2(255 CHAR);
+ALTER TABLE m_object ADD promotedString2 VARCHAR2(255 CHAR);
+ALTER TABLE m_object ADD promotedString3 VARCHAR2(255 CHAR);
+ALTER TABLE m_object ADD promotedString4 VARCHAR2(255 CHAR);
+
+CREATE INDEX iObjectPromotedString1
+  ON m_object (promotedString1) INITRANS 30;
+CREATE INDEX iObjectPromotedString2
+  ON m_object (promotedString2) INITRANS 30;
+CREATE INDEX iObjectPromotedString3
+  ON m_object (promotedString3) INITRANS 30;
+CREATE INDEX iObjectPromotedString4
+  ON m_object (promotedString4) INITRANS 30;
+
+CREATE TABLE m_assignee_count (
+  targetOid     VARCHAR2(36 CHAR)  NOT NULL,
+  relation      VARCHAR2(157 CHAR) NOT NULL,
+  deltaId       VARCHAR2(36 CHAR)  NOT NULL,
+  assigneeCount NUMBER(10, 0)      NOT NULL,
+  CONSTRAINT M_ASSIGNEE_COUNT_PK PRIMARY KEY (targetOid, relation, deltaId)
+) INITRANS 30;
+
+INSERT INTO m_assignee_count (targetOid, relation, deltaId, assigneeCount)
+  SELECT targetRef_targetOid, targetRef_relation, 'initial', COUNT(DISTINCT owner_oid)
+  FROM m_assignment
+  WHERE assignmentOwner = 0 AND targetRef_targetOid IS NOT NULL
+  GROUP BY targetRef_targetOid, targetRef_relation;
+
+CREATE TABLE m_task_statistics (
+  taskOid        VARCHAR2(36 CHAR) NOT NULL,
+  progress       NUMBER(19, 0),
+  expectedTotal  NUMBER(19, 0),
+  operationStats BLOB,
+  CONSTRAINT M_TASK_STATISTICS_PK PRIMARY KEY (taskOid)
+) INITRANS 30;
+
 INSERT INTO m_global_metadata VALUES ('databaseSchemaVersion', '3.9');
@@ -86,6 +86,13 @@ CREATE TABLE m_acc_cert_wi_reference (
   targetType            INT4,
   PRIMARY KEY (owner_owner_owner_oid, owner_owner_id, owner_id, relation, targetOid)
 );
+CREATE TABLE m_assignee_count (
+  targetOid     VARCHAR(36)  NOT NULL,
+  relation      VARCHAR(157) NOT NULL,
+  deltaId       VARCHAR(36)  NOT NULL,
+  assigneeCount INT4         NOT NULL,
+  PRIMARY KEY (targetOid, relation, deltaId)
+);
 CREATE TABLE m_assignment (
   id                      INT4        NOT NULL,
   owner_oid               VARCHAR(36) NOT NULL,
@@ -329,6 +336,10 @@ CREATE TABLE m_object (
   name_orig             VARCHAR(255),
   objectTypeClass       INT4,
   polysCount            INT2,
+  promotedString1       VARCHAR(255),
+  promotedString2       VARCHAR(255),
+  promotedString3       VARCHAR(255),
+  promotedString4       VARCHAR(255),
   referencesCount       INT2,
   stringsCount          INT2,
   tenantRef_relation    VARCHAR(157),
@@ -491,6 +502,13 @@ CREATE TABLE m_task_dependent (
   task_oid  VARCHAR(36) NOT NULL,
   dependent VARCHAR(255)
 );
+CREATE TABLE m_task_statistics (
+  taskOid        VARCHAR(36) NOT NULL,
+  progress       INT8,
+  expectedTotal  INT8,
+  operationStats BYTEA,
+  PRIMARY KEY (taskOid)
+);
 CREATE TABLE m_user_employee_type (
   user_oid     VARCHAR(36) NOT NULL,
   employeeType VARCHAR(255)
@@ -814,6 +832,14 @@ CREATE INDEX iObjectCreateTimestamp
   ON m_object (createTimestamp);
 CREATE INDEX iObjectLifecycleState
   ON m_object (lifecycleState);
+CREATE INDEX iObjectPromotedString1
+  ON m_object (promotedString1);
+CREATE INDEX iObjectPromotedString2
+  ON m_object (promotedString2);
+CREATE INDEX iObjectPromotedString3
+  ON m_object (promotedString3);
+CREATE INDEX iObjectPromotedString4
+  ON m_object (promotedString4);
 CREATE INDEX iExtensionBoolean
   ON m_object_ext_boolean (booleanValue);
 CREATE INDEX iExtensionDate
@@ -826,6 +852,8 @@ CREATE INDEX iExtensionReference
   ON m_object_ext_reference (targetoid);
 CREATE INDEX iExtensionString
   ON m_object_ext_string (stringValue);
+CREATE INDEX iTextInfoText
+  ON m_object_text_info (text varchar_pattern_ops);
 CREATE INDEX iOpExecTaskOid
   ON m_operation_execution (taskRef_targetOid);
 CREATE INDEX iOpExecInitiatorOid
@@ -86,6 +86,13 @@ CREATE TABLE m_acc_cert_wi_reference (
   targetType            INT,
   PRIMARY KEY (owner_owner_owner_oid, owner_owner_id, owner_id, relation, targetOid)
 );
+CREATE TABLE m_assignee_count (
+  targetOid     NVARCHAR(36) COLLATE database_default  NOT NULL,
+  relation      NVARCHAR(157) COLLATE database_default NOT NULL,
+  deltaId       NVARCHAR(36) COLLATE database_default  NOT NULL,
+  assigneeCount INT                                    NOT NULL,
+  CONSTRAINT M_ASSIGNEE_COUNT_PK PRIMARY KEY (targetOid, relation, deltaId)
+);
 CREATE TABLE m_assignment (
   id                      INT                                   NOT NULL,
   owner_oid               NVARCHAR(36) COLLATE database_default NOT NULL,
@@ -329,6 +336,10 @@ CREATE TABLE m_object (
   name_orig             NVARCHAR(255) COLLATE database_default,
   objectTypeClass       INT,
   polysCount            SMALLINT,
+  promotedString1       NVARCHAR(255) COLLATE database_default,
+  promotedString2       NVARCHAR(255) COLLATE database_default,
+  promotedString3       NVARCHAR(255) COLLATE database_default,
+  promotedString4       NVARCHAR(255) COLLATE database_default,
   referencesCount       SMALLINT,
   stringsCount          SMALLINT,
   tenantRef_relation    NVARCHAR(157) COLLATE database_default,
@@ -491,6 +502,13 @@ CREATE TABLE m_task_dependent (
   task_oid  NVARCHAR(36) COLLATE database_default NOT NULL,
   dependent NVARCHAR(255) COLLATE database_default
 );
+CREATE TABLE m_task_statistics (
+  taskOid        NVARCHAR(36) COLLATE database_default NOT NULL,
+  progress       BIGINT,
+  expectedTotal  BIGINT,
+  operationStats VARBINARY(MAX),
+  CONSTRAINT M_TASK_STATISTICS_PK PRIMARY KEY (taskOid)
+);
 CREATE TABLE m_user_employee_type (
   user_oid     NVARCHAR(36) COLLATE database_default NOT NULL,
   employeeType NVARCHAR(255) COLLATE database_default
@@ -814,6 +832,14 @@ CREATE INDEX iObjectCreateTimestamp
   ON m_object (createTimestamp);
 CREATE INDEX iObjectLifecycleState
   ON m_object (lifecycleState);
+CREATE INDEX iObjectPromotedString1
+  ON m_object (promotedString1);
+CREATE INDEX iObjectPromotedString2
+  ON m_object (promotedString2);
+CREATE INDEX iObjectPromotedString3
+  ON m_object (promotedString3);
+CREATE INDEX iObjectPromotedString4
+  ON m_object (promotedString4);
 CREATE INDEX iExtensionBoolean
   ON m_object_ext_boolean (booleanValue);
 CREATE INDEX iExtensionDate
@@ -826,6 +852,8 @@ CREATE INDEX iExtensionReference
   ON m_object_ext_reference (targetoid);
 CREATE INDEX iExtensionString
   ON m_object_ext_string (stringValue);
+CREATE INDEX iTextInfoText
+  ON m_object_text_info (text);
 CREATE INDEX iOpExecTaskOid
   ON m_operation_execution (taskRef_targetOid);
 CREATE INDEX iOpExecInitiatorOid
@@ -23,4 +23,43 @@ CREATE TABLE m_global_metadata (
   PRIMARY KEY (name)
 );
 
+CREATE INDEX iTextInfoText
+  ON m_object_text_info (text);
+
+ALTER TABLE m_object ADD promotedString1 NVARCHAR(255) COLLATE database_default;
+ALTER TABLE m_object ADD promotedString2 NVARCHAR(255) COLLATE database_default;
+ALTER TABLE m_object ADD promotedString3 NVARCHAR(255) COLLATE database_default;
+ALTER TABLE m_object ADD promotedString4 NVARCHAR(255) COLLATE database_default;
+
+CREATE INDEX iObjectPromotedString1
+  ON m_object (promotedString1);
+CREATE INDEX iObjectPromotedString2
+  ON m_object (promotedString2);
+CREATE INDEX iObjectPromotedString3
+  ON m_object (promotedString3);
+CREATE INDEX iObjectPromotedString4
+  ON m_object (promotedString4);
+
+CREATE TABLE m_assignee_count (
+  targetOid     NVARCHAR(36) COLLATE database_default  NOT NULL,
+  relation      NVARCHAR(157) COLLATE database_default NOT NULL,
+  deltaId       NVARCHAR(36) COLLATE database_default  NOT NULL,
+  assigneeCount INT                                    NOT NULL,
+  CONSTRAINT M_ASSIGNEE_COUNT_PK PRIMARY KEY (targetOid, relation, deltaId)
+);
+
+INSERT INTO m_assignee_count (targetOid, relation, deltaId, assigneeCount)
+  SELECT targetRef_targetOid, targetRef_relation, 'initial', COUNT(DISTINCT owner_oid)
+  FROM m_assignment
+  WHERE assignmentOwner = 0 AND targetRef_targetOid IS NOT NULL
+  GROUP BY targetRef_targetOid, targetRef_relation;
+
+CREATE TABLE m_task_statistics (
+  taskOid        NVARCHAR(36) COLLATE database_default NOT NULL,
+  progress       BIGINT,
+  expectedTotal  BIGINT,
+  operationStats VARBINARY(MAX),
+  CONSTRAINT M_TASK_STATISTICS_PK PRIMARY KEY (taskOid)
+);
+
 INSERT INTO m_global_metadata VALUES ('databaseSchemaVersion', '3.9');
\ No newline at end of file
@@ -121,6 +121,7 @@ import com.evolveum.midpoint.web.security.WebApplicationConfiguration;
 import com.evolveum.midpoint.web.session.SessionStorage;
 import com.evolveum.midpoint.web.session.UserProfileStorage;
 import com.evolveum.midpoint.web.util.NewWindowNotifyingBehavior;
+import com.evolveum.midpoint.web.util.ObjectCountCache;
 import com.evolveum.midpoint.web.util.validation.MidpointFormValidatorRegistry;
 import com.evolveum.midpoint.wf.api.WorkflowManager;
 import com.evolveum.midpoint.wf.util.QueryUtils;
@@ -300,6 +301,9 @@ public abstract class PageBase extends WebPage implements ModelServiceLocator {
     @SpringBean
     private CacheDispatcher cacheDispatcher;
 
+    @SpringBean
+    private ObjectCountCache objectCountCache;
+
     @SpringBean
     private MidpointFunctions midpointFunctions;
 
@@ -359,12 +363,16 @@ public abstract class PageBase extends WebPage implements ModelServiceLocator {
             @Override
             protected Integer load() {
                 try {
-                    Task task = createSimpleTask(OPERATION_LOAD_WORK_ITEM_COUNT);
-                    S_FilterEntryOrEmpty q = QueryBuilder.queryFor(WorkItemType.class, getPrismContext());
-                    ObjectQuery query = QueryUtils.filterForAssignees(q, getPrincipal(),
-                            OtherPrivilegesLimitationType.F_APPROVAL_WORK_ITEMS, getRelationRegistry()).build();
-                    return getModelService().countContainers(WorkItemType.class, query, null, task, task.getResult());
-                } catch (SchemaException | SecurityViolationException | ExpressionEvaluationException | ObjectNotFoundException | CommunicationException | ConfigurationException e) {
+                    MidPointPrincipal principal = getPrincipal();
+                    // work items are not stored in repository, so the count is refreshed only after it expires or on reset
+                    return objectCountCache.getCount(WorkItemType.class, "assigned", principal != null ? principal.getOid() : null, () -> {
+                        Task task = createSimpleTask(OPERATION_LOAD_WORK_ITEM_COUNT);
+                        S_FilterEntryOrEmpty q = QueryBuilder.queryFor(WorkItemType.class, getPrismContext());
+                        ObjectQuery query = QueryUtils.filterForAssignees(q, principal,
+                                OtherPrivilegesLimitationType.F_APPROVAL_WORK_ITEMS, getRelationRegistry()).build();
+                        return getModelService().countContainers(WorkItemType.class, query, null, task, task.getResult());
+                    }).getValue();
+                } catch (CommonException e) {
                     LoggingUtils.logExceptionAsWarning(LOGGER, "Couldn't load work item count", e);
                     return null;
                 }
@@ -376,12 +384,15 @@ public abstract class PageBase extends WebPage implements ModelServiceLocator {
             @Override
             protected Integer load() {
                 try {
-                    AccessCertificationService acs = getCertificationService();
-                    Task task = createSimpleTask(OPERATION_LOAD_CERT_WORK_ITEM_COUNT);
-                    OperationResult result = task.getResult();
-                    return acs.countOpenWorkItems(new ObjectQuery(), true, null, task, result);
-                } catch (SchemaException | SecurityViolationException | ObjectNotFoundException
-                        | ConfigurationException | CommunicationException | ExpressionEvaluationException e) {
+                    MidPointPrincipal principal = getPrincipal();
+                    // certification work items are stored in campaigns, so campaign modifications invalidate the count
+                    return objectCountCache.getCount(AccessCertificationCampaignType.class, "openWorkItems", principal != null ? principal.getOid() : null, () -> {
+                        AccessCertificationService acs = getCertificationService();
+                        Task task = createSimpleTask(OPERATION_LOAD_CERT_WORK_ITEM_COUNT);
+                        OperationResult result = task.getResult();
+                        return acs.countOpenWorkItems(new ObjectQuery(), true, null, task, result);
+                    }).getValue();
+                } catch (CommonException e) {
                     LoggingUtils.logExceptionAsWarning(LOGGER, "Couldn't load certification work item count", e);
                     return null;
                 }
@@ -390,12 +401,14 @@ public abstract class PageBase extends WebPage implements ModelServiceLocator {
     }
 
     public void resetWorkItemCountModel() {
+        objectCountCache.invalidate(WorkItemType.class);
         if (workItemCountModel != null) {
             workItemCountModel.reset();
         }
     }
 
     public void resetCertWorkItemCountModel() {
+        objectCountCache.invalidate(AccessCertificationCampaignType.class);
         if (certWorkItemCountModel != null) {
             certWorkItemCountModel.reset();
         }
@@ -554,6 +567,10 @@ public abstract class PageBase extends WebPage implements ModelServiceLocator {
         return cacheDispatcher;
     }
 
+    public ObjectCountCache getObjectCountCache() {
+        return objectCountCache;
+    }
+
     @NotNull
     @Override
     public AdminGuiConfigurationType getAdminGuiConfiguration() {
@@ -27,7 +27,9 @@ import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.prism.query.builder.QueryBuilder;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.security.api.AuthorizationConstants;
+import com.evolveum.midpoint.security.api.MidPointPrincipal;
 import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.util.exception.CommonException;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.web.application.AuthorizationAction;
@@ -44,6 +46,7 @@ import com.evolveum.midpoint.web.page.admin.server.PageTasks;
 import com.evolveum.midpoint.web.page.admin.services.PageServices;
 import com.evolveum.midpoint.web.page.admin.users.PageOrgTree;
 import com.evolveum.midpoint.web.page.admin.users.PageUsers;
+import com.evolveum.midpoint.web.util.ObjectCountCache;
 
 /**
  * @author lazyman
@@ -129,28 +132,19 @@ public class PageDashboard extends PageAdminHome {
 	private <F extends FocusType> InfoBoxPanel createFocusInfoBoxPanel(String id, Class<F> type, String bgColor,
 			String icon, String keyPrefix, Class<? extends IRequestablePage> linkPage, OperationResult result, Task task) {
     	InfoBoxType infoBoxType = new InfoBoxType(bgColor, icon, getString(keyPrefix + ".label"));
-    	Integer allCount;
+    	int allCount;
 		try {
-			allCount = getModelService().countObjects(type, null, null, task, result);
-			if (allCount == null) {
-				allCount = 0;
-			}
+			allCount = countObjects(type, "all", null, task, result);
 
 			ObjectQuery queryDisabled = QueryBuilder.queryFor(type, getPrismContext())
 					.item(FocusType.F_ACTIVATION, ActivationType.F_EFFECTIVE_STATUS).eq(ActivationStatusType.DISABLED)
 					.build();
-			Integer disabledCount = getModelService().countObjects(type, queryDisabled, null, task, result);
-			if (disabledCount == null) {
-				disabledCount = 0;
-			}
+			int disabledCount = countObjects(type, "disabled", queryDisabled, task, result);
 
 			ObjectQuery queryArchived = QueryBuilder.queryFor(type, getPrismContext())
 					.item(FocusType.F_ACTIVATION, ActivationType.F_EFFECTIVE_STATUS).eq(ActivationStatusType.ARCHIVED)
 					.build();
-			Integer archivedCount = getModelService().countObjects(type, queryArchived, null, task, result);
-			if (archivedCount == null) {
-				archivedCount = 0;
-			}
+			int archivedCount = countObjects(type, "archived", queryArchived, task, result);
 
 			int activeCount = allCount - disabledCount - archivedCount;
 			int totalCount = allCount - archivedCount;
@@ -182,20 +176,14 @@ public class PageDashboard extends PageAdminHome {
     private Component createResourceInfoBoxPanel(OperationResult result, Task task) {
     	InfoBoxType infoBoxType = new InfoBoxType("object-resource-bg", GuiStyleConstants.CLASS_OBJECT_RESOURCE_ICON,
     			getString("PageDashboard.infobox.resources.label"));
-    	Integer totalCount;
+    	int totalCount;
 		try {
-			totalCount = getModelService().countObjects(ResourceType.class, null, null, task, result);
-			if (totalCount == null) {
-				totalCount = 0;
-			}
+			totalCount = countObjects(ResourceType.class, "all", null, task, result);
 
 			ObjectQuery query = QueryBuilder.queryFor(ResourceType.class, getPrismContext())
 					.item(ResourceType.F_OPERATIONAL_STATE, OperationalStateType.F_LAST_AVAILABILITY_STATUS).eq(AvailabilityStatusType.UP)
 					.build();
-			Integer activeCount = getModelService().countObjects(ResourceType.class, query, null, task, result);
-			if (activeCount == null) {
-				activeCount = 0;
-			}
+			int activeCount = countObjects(ResourceType.class, "up", query, task, result);
 
 			infoBoxType.setNumber(activeCount + " " + getString("PageDashboard.infobox.resources.number"));
 
@@ -219,19 +207,13 @@ public class PageDashboard extends PageAdminHome {
     private Component createTaskInfoBoxPanel(OperationResult result, Task task) {
     	InfoBoxType infoBoxType = new InfoBoxType("object-task-bg", GuiStyleConstants.CLASS_OBJECT_TASK_ICON,
     			getString("PageDashboard.infobox.tasks.label"));
-    	Integer totalCount;
+    	int totalCount;
 		try {
-			totalCount = getModelService().countObjects(TaskType.class, null, null, task, result);
-			if (totalCount == null) {
-				totalCount = 0;
-			}
+			totalCount = countObjects(TaskType.class, "all", null, task, result);
 			ObjectQuery query = QueryBuilder.queryFor(TaskType.class, getPrismContext())
 					.item(TaskType.F_EXECUTION_STATUS).eq(TaskExecutionStatusType.RUNNABLE)
 					.build();
-			Integer activeCount = getModelService().countObjects(TaskType.class, query, null, task, result);
-			if (activeCount == null) {
-				activeCount = 0;
-			}
+			int activeCount = countObjects(TaskType.class, "runnable", query, task, result);
 
 			infoBoxType.setNumber(activeCount + " " + getString("PageDashboard.infobox.tasks.number"));
 
@@ -253,6 +235,18 @@ public class PageDashboard extends PageAdminHome {
 	}
 
 
+    /**
+     * Counts are taken from the node-level cache, because the dashboard is displayed after each login.
+     * The counts are subject to authorizations, so they are cached for each principal separately.
+     */
+    private <O extends ObjectType> int countObjects(Class<O> type, String name, ObjectQuery query, Task task,
+    		OperationResult result) throws CommonException {
+    	MidPointPrincipal principal = getPrincipal();
+    	ObjectCountCache.Count count = getObjectCountCache().getCount(type, name, principal != null ? principal.getOid() : null,
+    			() -> getModelService().countObjects(type, query, null, task, result));
+    	return count.getValueOrZero();
+    }
+
     private void initPersonalInfo() {
         DashboardPanel personalInfo = new DashboardPanel(ID_PERSONAL_INFO, null,
                 createStringResource("PageDashboard.personalInfo"), GuiStyleConstants.CLASS_OBJECT_USER_BOX_CSS_CLASSES,
@@ -1224,7 +1224,7 @@ public class TaskDto extends Selectable implements InlineMenuable {
 	}
 
 	public boolean configuresWorkerThreads() {
-		return isReconciliation() || isImportAccounts() || isRecomputation() || isExecuteChanges() || isShadowIntegrityCheck() || isFocusValidityScanner() || isTriggerScanner();
+		return isReconciliation() || isImportAccounts() || isRecomputation() || isExecuteChanges() || isShadowIntegrityCheck() || isFocusValidityScanner() || isTriggerScanner() || isBulkAction();
 	}
 
 	public boolean configuresWorkToDo() {
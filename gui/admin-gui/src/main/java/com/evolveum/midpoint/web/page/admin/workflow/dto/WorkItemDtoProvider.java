@@ -26,6 +26,7 @@ import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.prism.query.builder.QueryBuilder;
 import com.evolveum.midpoint.prism.query.builder.S_FilterEntryOrEmpty;
 import com.evolveum.midpoint.schema.GetOperationOptions;
+import com.evolveum.midpoint.schema.RetrieveOption;
 import com.evolveum.midpoint.schema.SelectorOptions;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.security.api.MidPointPrincipal;
@@ -55,8 +56,11 @@ import static com.evolveum.midpoint.gui.api.util.WebComponentUtil.isAuthorized;
 import static com.evolveum.midpoint.gui.api.util.WebComponentUtil.safeLongToInteger;
 import static com.evolveum.midpoint.prism.PrismConstants.T_PARENT;
 import static com.evolveum.midpoint.prism.query.OrderDirection.DESCENDING;
+import static com.evolveum.midpoint.xml.ns._public.common.common_3.WorkItemType.F_ADDITIONAL_INFORMATION;
 import static com.evolveum.midpoint.xml.ns._public.common.common_3.WorkItemType.F_ASSIGNEE_REF;
+import static com.evolveum.midpoint.xml.ns._public.common.common_3.WorkItemType.F_CANDIDATE_REF;
 import static com.evolveum.midpoint.xml.ns._public.common.common_3.WorkItemType.F_CREATE_TIMESTAMP;
+import static com.evolveum.midpoint.xml.ns._public.common.common_3.WorkItemType.F_PROCESS_SPECIFIC_PART;
 
 /**
  * @author lazyman
@@ -135,8 +139,12 @@ public class WorkItemDtoProvider extends BaseSortableDataProvider<WorkItemDto> {
             Collection<SelectorOptions<GetOperationOptions>> options =
                     GetOperationOptions.resolveItemsNamed(
                             new ItemPath(F_ASSIGNEE_REF),
+                            new ItemPath(F_CANDIDATE_REF),
                             new ItemPath(T_PARENT, WfContextType.F_OBJECT_REF),
                             new ItemPath(T_PARENT, WfContextType.F_TARGET_REF));
+            // not displayed in the list; no need to fetch all the process variables for them
+            options.addAll(SelectorOptions.createCollection(GetOperationOptions.createRetrieve(RetrieveOption.EXCLUDE),
+                    F_PROCESS_SPECIFIC_PART, F_ADDITIONAL_INFORMATION));
             List<WorkItemType> items = getModel().searchContainers(WorkItemType.class, query, options, task, result);
 
             for (WorkItemType item : items) {
@@ -50,6 +50,7 @@ import com.evolveum.midpoint.prism.PrismReferenceValue;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.prism.query.builder.QueryBuilder;
 import com.evolveum.midpoint.schema.GetOperationOptions;
+import com.evolveum.midpoint.schema.RetrieveOption;
 import com.evolveum.midpoint.schema.SelectorOptions;
 import com.evolveum.midpoint.schema.constants.RelationTypes;
 import com.evolveum.midpoint.schema.result.OperationResult;
@@ -293,8 +294,11 @@ public class PageSelfDashboard extends PageSelf {
                     .build();
             Collection<SelectorOptions<GetOperationOptions>> options =
                     GetOperationOptions.resolveItemsNamed(
+                            new ItemPath(WorkItemType.F_CANDIDATE_REF),
                             new ItemPath(T_PARENT, WfContextType.F_OBJECT_REF),
                             new ItemPath(T_PARENT, WfContextType.F_TARGET_REF));
+            options.addAll(SelectorOptions.createCollection(GetOperationOptions.createRetrieve(RetrieveOption.EXCLUDE),
+                    WorkItemType.F_PROCESS_SPECIFIC_PART, WorkItemType.F_ADDITIONAL_INFORMATION));
             List<WorkItemType> workItems = getModelService().searchContainers(WorkItemType.class, query, options, task, result);
             for (WorkItemType workItem : workItems) {
                 list.add(new WorkItemDto(workItem));
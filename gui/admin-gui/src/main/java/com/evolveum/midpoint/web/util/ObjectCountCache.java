@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.web.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.repo.common.AbstractNodeCache;
+import com.evolveum.midpoint.util.exception.CommonException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+
+/**
+ * Node-level cache of object and container counts displayed in the GUI (dashboard info boxes, menu badges).
+ *
+ * These counts are requested on every render of the respective pages, by all the users. They do not have to be
+ * exact, so they are computed once and then re-used until they expire (timeToLive) or until an object of the counted
+ * type is changed on this node (via CacheDispatcher). Changes made on other nodes are reflected after the expiration.
+ * Each count is returned with the time it was computed at.
+ *
+ * Counts obtained via model are subject to authorizations of the principal, so they are kept for each principal
+ * separately.
+ *
+ * Invalidation is cheap and does not lock: it only records the (sequence number of the) invalidation for the type.
+ * Each count remembers the sequence number current when it started to be computed, and it is used only if no
+ * invalidation of a related type has been recorded since then. Therefore size() includes also the counts that were
+ * invalidated but not recomputed yet.
+ *
+ * Configuration (in midpoint.system section of config.xml):
+ * <ul>
+ *     <li>objectCountCacheTimeToLive - how long (in seconds) the counts are re-used (default 60, 0 = cache disabled),</li>
+ *     <li>objectCountCacheMaxSize - maximum number of cached counts (default 1000).</li>
+ * </ul>
+ */
+@Component
+public class ObjectCountCache extends AbstractNodeCache<List<Object>, ObjectCountCache.Count> {
+
+	// Incremented on each invalidation.
+	private final AtomicLong invalidationSequence = new AtomicLong();
+
+	// Type -> sequence number of its last invalidation.
+	private final ConcurrentMap<Class<?>, Long> typeInvalidations = new ConcurrentHashMap<>();
+
+	// Sequence number of the last invalidation of all the counts.
+	private final AtomicLong allInvalidation = new AtomicLong();
+
+	public ObjectCountCache() {
+		super("objectCountCacheTimeToLive", 60, "objectCountCacheMaxSize", 1000);
+	}
+
+	/**
+	 * Computes the count, e.g. by calling model countObjects method.
+	 */
+	@FunctionalInterface
+	public interface Counter {
+		Integer count() throws CommonException;
+	}
+
+	public static class Count {
+		private final Integer value;
+		private final long timestamp;
+		private final long sequence;
+
+		Count(Integer value, long timestamp, long sequence) {
+			this.value = value;
+			this.timestamp = timestamp;
+			this.sequence = sequence;
+		}
+
+		/**
+		 * The count, as returned by the counter (i.e. possibly null).
+		 */
+		public Integer getValue() {
+			return value;
+		}
+
+		public int getValueOrZero() {
+			return value != null ? value : 0;
+		}
+
+		/**
+		 * When the count was computed.
+		 */
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		@Override
+		public String toString() {
+			return value + " (at " + timestamp + ")";
+		}
+	}
+
+	/**
+	 * Returns the count of given (object or container) type, computing it if it's not cached or it's too old.
+	 *
+	 * @param name Distinguishes different counts (i.e. queries) for the same type.
+	 * @param principalOid Principal whose authorizations are applied by the counter (null if none).
+	 */
+	@NotNull
+	public Count getCount(@NotNull Class<?> type, @NotNull String name, String principalOid, @NotNull Counter counter)
+			throws CommonException {
+		List<Object> key = Arrays.asList(type, name, principalOid);
+		Count cached = get(key, count -> isUpToDate(type, count));
+		if (cached != null) {
+			return cached;
+		}
+		long generation = getGeneration();
+		// if the type is invalidated while the count is being computed, the count is stored but never used
+		Count count = new Count(counter.count(), System.currentTimeMillis(), invalidationSequence.get());
+		put(key, count, count.timestamp + getTimeToLive(), generation);
+		return count;
+	}
+
+	private boolean isUpToDate(Class<?> type, Count count) {
+		if (allInvalidation.get() > count.sequence) {
+			return false;
+		}
+		for (Map.Entry<Class<?>, Long> invalidation : typeInvalidations.entrySet()) {
+			if (invalidation.getValue() > count.sequence
+					&& (invalidation.getKey().isAssignableFrom(type) || type.isAssignableFrom(invalidation.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Invalidates all the counts of given type (or its subtypes and supertypes). Null type means all the counts.
+	 * The counts are not removed here; they are recomputed when requested next time.
+	 */
+	public void invalidate(Class<?> type) {
+		long sequence = invalidationSequence.incrementAndGet();
+		if (type == null) {
+			allInvalidation.accumulateAndGet(sequence, Math::max);
+		} else {
+			typeInvalidations.merge(type, sequence, Math::max);
+		}
+	}
+
+	@Override
+	public <O extends ObjectType> void invalidateCache(Class<O> type, String oid) {
+		invalidate(type);
+	}
+}
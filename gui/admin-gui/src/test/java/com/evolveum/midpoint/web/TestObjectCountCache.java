@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.web;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.test.util.TestUtil;
+import com.evolveum.midpoint.web.util.ObjectCountCache;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.FocusType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+
+/**
+ * Unit tests for the object count cache. No Spring context is needed here.
+ */
+public class TestObjectCountCache {
+
+	private static final String PRINCIPAL_OID = "00000000-0000-0000-0000-000000000002";
+
+	@Test
+	public void test100HitAndMiss() throws Exception {
+		TestUtil.displayTestTitle("test100HitAndMiss");
+		ObjectCountCache cache = new ObjectCountCache();
+		AtomicInteger computed = new AtomicInteger();
+
+		assertEquals("Wrong count", 10, cache.getCount(UserType.class, "all", PRINCIPAL_OID, () -> { computed.incrementAndGet(); return 10; }).getValueOrZero());
+		assertEquals("Wrong cached count", 10, cache.getCount(UserType.class, "all", PRINCIPAL_OID, () -> { computed.incrementAndGet(); return 20; }).getValueOrZero());
+		assertEquals("Count of other principal shared", 30, cache.getCount(UserType.class, "all", null, () -> { computed.incrementAndGet(); return 30; }).getValueOrZero());
+		assertEquals("Count of other query shared", 0, cache.getCount(UserType.class, "disabled", PRINCIPAL_OID, () -> { computed.incrementAndGet(); return null; }).getValueOrZero());
+
+		assertEquals("Wrong number of computations", 3, computed.get());
+		assertEquals("Wrong hits", 1, cache.getHits());
+		assertEquals("Wrong misses", 3, cache.getMisses());
+	}
+
+	@Test
+	public void test110Expiration() throws Exception {
+		TestUtil.displayTestTitle("test110Expiration");
+		ObjectCountCache cache = new ObjectCountCache();
+		cache.setTimeToLive(1);
+
+		cache.getCount(TaskType.class, "all", PRINCIPAL_OID, () -> 1);
+		Thread.sleep(10);
+		assertEquals("Expired count returned", 2, cache.getCount(TaskType.class, "all", PRINCIPAL_OID, () -> 2).getValueOrZero());
+
+		cache.setTimeToLive(0);
+		assertEquals("Disabled cache not cleared", 0, cache.size());
+		cache.getCount(TaskType.class, "all", PRINCIPAL_OID, () -> 3);
+		assertEquals("Disabled cache stores counts", 0, cache.size());
+	}
+
+	@Test
+	public void test200Invalidate() throws Exception {
+		TestUtil.displayTestTitle("test200Invalidate");
+		ObjectCountCache cache = new ObjectCountCache();
+		cache.getCount(UserType.class, "all", PRINCIPAL_OID, () -> 1);
+		cache.getCount(RoleType.class, "all", PRINCIPAL_OID, () -> 1);
+		cache.getCount(FocusType.class, "all", PRINCIPAL_OID, () -> 1);
+
+		cache.invalidateCache(TaskType.class, "00000000-0000-0000-0000-000000000100");
+		assertEquals("Task modification invalidated user count", 1, cache.getCount(UserType.class, "all", PRINCIPAL_OID, () -> 2).getValueOrZero());
+		assertEquals("Task modification invalidated role count", 1, cache.getCount(RoleType.class, "all", PRINCIPAL_OID, () -> 2).getValueOrZero());
+		assertEquals("Task modification invalidated focus count", 1, cache.getCount(FocusType.class, "all", PRINCIPAL_OID, () -> 2).getValueOrZero());
+
+		cache.invalidateCache(UserType.class, "00000000-0000-0000-0000-000000000100");
+		assertEquals("User modification did not invalidate user count", 2, cache.getCount(UserType.class, "all", PRINCIPAL_OID, () -> 2).getValueOrZero());
+		assertEquals("User modification invalidated role count", 1, cache.getCount(RoleType.class, "all", PRINCIPAL_OID, () -> 2).getValueOrZero());
+		assertEquals("User modification did not invalidate focus count", 2, cache.getCount(FocusType.class, "all", PRINCIPAL_OID, () -> 2).getValueOrZero());
+
+		cache.invalidateCache(null, null);
+		assertEquals("Cache not invalidated", 3, cache.getCount(RoleType.class, "all", PRINCIPAL_OID, () -> 3).getValueOrZero());
+		assertEquals("Invalidated counts not replaced", 3, cache.size());
+	}
+
+	@Test
+	public void test210InvalidateDuringComputation() throws Exception {
+		TestUtil.displayTestTitle("test210InvalidateDuringComputation");
+		ObjectCountCache cache = new ObjectCountCache();
+
+		cache.getCount(UserType.class, "all", PRINCIPAL_OID, () -> {
+			cache.invalidateCache(UserType.class, "00000000-0000-0000-0000-000000000100");
+			return 1;
+		});
+		assertEquals("Count computed concurrently with a modification was used", 2,
+				cache.getCount(UserType.class, "all", PRINCIPAL_OID, () -> 2).getValueOrZero());
+	}
+}
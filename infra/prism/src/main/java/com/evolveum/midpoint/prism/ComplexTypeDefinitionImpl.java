@@ -57,6 +57,12 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 	// we reset this flag when cloning
 	protected boolean shared = true;
 
+	// Item definitions indexed by local part of their names (and of composite object element names for references),
+	// in the original order. Used only after the definition is complete (see enableLookupIndex), because
+	// during schema parsing the names of item definitions can still change. Built lazily, dropped on any change.
+	private boolean lookupIndexEnabled;
+	private transient volatile Map<String, List<ItemDefinition>> lookupIndex;
+
 	public ComplexTypeDefinitionImpl(@NotNull QName typeName, @NotNull PrismContext prismContext) {
 		super(typeName, prismContext);
 	}
@@ -80,8 +86,23 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 		return Collections.unmodifiableList(itemDefinitions);
 	}
 
+	@Override
+	public void freeze() {
+		if (isImmutable()) {
+			return;			// also stops the recursion for recursive types
+		}
+		super.freeze();
+		for (ItemDefinition<?> itemDefinition : itemDefinitions) {
+			if (itemDefinition instanceof DefinitionImpl) {
+				((DefinitionImpl) itemDefinition).freeze();
+			}
+		}
+	}
+
 	public void add(ItemDefinition<?> definition) {
+		checkMutable();
 		itemDefinitions.add(definition);
+		invalidateLookupIndex();
 	}
 
 	@Override
@@ -95,6 +116,7 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 	}
 
 	public void setExtensionForType(QName extensionForType) {
+		checkMutable();
 		this.extensionForType = extensionForType;
 	}
 
@@ -104,6 +126,7 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 	}
 
 	public void setReferenceMarker(boolean referenceMarker) {
+		checkMutable();
 		this.referenceMarker = referenceMarker;
 	}
 
@@ -113,6 +136,7 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 	}
 
 	public void setContainerMarker(boolean containerMarker) {
+		checkMutable();
 		this.containerMarker = containerMarker;
 	}
 
@@ -127,6 +151,7 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 	}
 
 	public void setXsdAnyMarker(boolean xsdAnyMarker) {
+		checkMutable();
 		this.xsdAnyMarker = xsdAnyMarker;
 	}
 
@@ -135,6 +160,7 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 	}
 
 	public void setListMarker(boolean listMarker) {
+		checkMutable();
 		this.listMarker = listMarker;
 	}
 
@@ -144,6 +170,7 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 	}
 
 	public void setDefaultNamespace(String defaultNamespace) {
+		checkMutable();
 		this.defaultNamespace = defaultNamespace;
 	}
 
@@ -154,10 +181,12 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 	}
 
 	public void setIgnoredNamespaces(@NotNull List<String> ignoredNamespaces) {
+		checkMutable();
 		this.ignoredNamespaces = ignoredNamespaces;
 	}
 
 	public void setObjectMarker(boolean objectMarker) {
+		checkMutable();
 		this.objectMarker = objectMarker;
 	}
 
@@ -165,8 +194,10 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 
 	//region Creating definitions
 	public PrismPropertyDefinitionImpl createPropertyDefinition(QName name, QName typeName) {
+		checkMutable();
 		PrismPropertyDefinitionImpl propDef = new PrismPropertyDefinitionImpl(name, typeName, prismContext);
 		itemDefinitions.add(propDef);
+		invalidateLookupIndex();
 		return propDef;
 	}
 
@@ -174,8 +205,10 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 	// TODO: maybe check if the name is in different namespace
 	// TODO: maybe create entirely new concept of property reference?
 	public PrismPropertyDefinition createPropertyDefinition(QName name) {
+		checkMutable();
 		PrismPropertyDefinition propDef = new PrismPropertyDefinitionImpl(name, null, prismContext);
 		itemDefinitions.add(propDef);
+		invalidateLookupIndex();
 		return propDef;
 	}
 
@@ -197,7 +230,7 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 	// but beware, consider only local definitions!
 	@Override
 	public <T extends ItemDefinition> T findItemDefinition(@NotNull QName name, @NotNull Class<T> clazz, boolean caseInsensitive) {
-		for (ItemDefinition def : getDefinitions()) {
+		for (ItemDefinition def : caseInsensitive ? getDefinitions() : getLookupCandidates(name)) {
 			if (def.isValidFor(name, clazz, caseInsensitive)) {
 				return (T) def;
 			}
@@ -253,7 +286,7 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 	// path starts with NamedItemPathSegment
 	public <ID extends ItemDefinition> ID findNamedItemDefinition(@NotNull QName firstName, @NotNull ItemPath rest, @NotNull Class<ID> clazz) {
 		ID found = null;
-		for (ItemDefinition def : getDefinitions()) {
+		for (ItemDefinition def : getLookupCandidates(firstName)) {
 			if (def.isValidFor(firstName, clazz, false)) {
 				if (found != null) {
 					throw new IllegalStateException("More definitions found for " + firstName + "/" + rest + " in " + this);
@@ -278,6 +311,55 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 		}
 		return null;
 	}
+
+	/**
+	 * Returns item definitions that can match given name (the caller has to check that). If the lookup index is
+	 * enabled, these are only the definitions with the same local name; otherwise all the definitions.
+	 * Note that unqualified names match qualified ones (and vice versa), so the index cannot be keyed by full QNames.
+	 */
+	private List<? extends ItemDefinition> getLookupCandidates(QName name) {
+		if (!lookupIndexEnabled) {
+			return itemDefinitions;
+		}
+		Map<String, List<ItemDefinition>> index = lookupIndex;
+		if (index == null) {
+			index = createLookupIndex();
+			lookupIndex = index;
+		}
+		List<ItemDefinition> candidates = index.get(name.getLocalPart());
+		return candidates != null ? candidates : Collections.emptyList();
+	}
+
+	private Map<String, List<ItemDefinition>> createLookupIndex() {
+		Map<String, List<ItemDefinition>> index = new HashMap<>();
+		for (ItemDefinition<?> def : itemDefinitions) {
+			String localName = def.getName().getLocalPart();
+			index.computeIfAbsent(localName, k -> new ArrayList<>(1)).add(def);
+			if (def instanceof PrismReferenceDefinition) {
+				QName compositeName = ((PrismReferenceDefinition) def).getCompositeObjectElementName();
+				if (compositeName != null && !compositeName.getLocalPart().equals(localName)) {
+					index.computeIfAbsent(compositeName.getLocalPart(), k -> new ArrayList<>(1)).add(def);
+				}
+			}
+		}
+		return index;
+	}
+
+	private void invalidateLookupIndex() {
+		lookupIndex = null;
+	}
+
+	/**
+	 * Switches on indexed lookup of item definitions. To be called when the definition is complete, i.e. when the names
+	 * of its item definitions will not change any more. (Adding, replacing or removing item definitions is still possible.)
+	 */
+	public void enableLookupIndex() {
+		lookupIndexEnabled = true;
+	}
+
+	public boolean isLookupIndexEnabled() {
+		return lookupIndexEnabled;
+	}
 	//endregion
 
 	/**
@@ -285,6 +367,7 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 	 */
 	@Override
 	public void merge(ComplexTypeDefinition otherComplexTypeDef) {
+		checkMutable();
 		for (ItemDefinition otherItemDef: otherComplexTypeDef.getDefinitions()) {
 			ItemDefinition existingItemDef = findItemDefinition(otherItemDef.getName());
 			if (existingItemDef != null) {
@@ -355,6 +438,7 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 		for (ItemDefinition itemDef: this.itemDefinitions) {
 			ItemDefinition itemClone = itemDef.deepClone(ctdMap, onThisPath, postCloneAction);
 			clone.itemDefinitions.add(itemClone);
+			clone.invalidateLookupIndex();			// the clone can be already visible to lookups (via ctdMap)
 			if (postCloneAction != null) {
 				postCloneAction.accept(itemClone);
 			}
@@ -372,9 +456,11 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 		clone.defaultNamespace = this.defaultNamespace;
 		clone.ignoredNamespaces = this.ignoredNamespaces;
         clone.itemDefinitions.addAll(this.itemDefinitions);
+		clone.lookupIndexEnabled = this.lookupIndexEnabled;
 	}
 
 	public void replaceDefinition(QName propertyName, ItemDefinition newDefinition) {
+		checkMutable();
 		for (int i=0; i<itemDefinitions.size(); i++) {
 			ItemDefinition itemDef = itemDefinitions.get(i);
 			if (itemDef.getName().equals(propertyName)) {
@@ -387,6 +473,7 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 				}
 				// Make sure this is set, not add. set will keep correct ordering
 				itemDefinitions.set(i, newDefinition);
+				invalidateLookupIndex();
 				return;
 			}
 		}
@@ -511,6 +598,7 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 
 	@Override
 	public void trimTo(@NotNull Collection<ItemPath> paths) {
+    	checkMutable();
     	if (shared) {
     		// TODO switch this to warning before releasing this code (3.6.1 or 3.7)
     		throw new IllegalStateException("Couldn't trim shared definition: " + this);
@@ -520,6 +608,7 @@ public class ComplexTypeDefinitionImpl extends TypeDefinitionImpl implements Com
 			ItemPath itemPath = new ItemPath(itemDef.getName());
 			if (!ItemPath.containsSuperpathOrEquivalent(paths, itemPath)) {
 				iterator.remove();
+				invalidateLookupIndex();
 			} else if (itemDef instanceof PrismContainerDefinition) {
 				PrismContainerDefinition<?> itemPcd = (PrismContainerDefinition<?>) itemDef;
 				if (itemPcd.getComplexTypeDefinition() != null) {
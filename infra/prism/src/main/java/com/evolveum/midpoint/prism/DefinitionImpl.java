@@ -86,6 +86,12 @@ public abstract class DefinitionImpl implements Definition {
 
 	protected transient PrismContext prismContext;
 
+	/**
+	 * Immutable definitions can be shared among many objects (e.g. cached definition views). Any attempt
+	 * to modify them results in an IllegalStateException. Clones are mutable again.
+	 */
+	private boolean immutable;
+
 	DefinitionImpl(@NotNull QName typeName, @NotNull PrismContext prismContext) {
 		this.typeName = typeName;
 		this.prismContext = prismContext;
@@ -99,6 +105,7 @@ public abstract class DefinitionImpl implements Definition {
 	}
 
 	public void setTypeName(@NotNull QName typeName) {
+		checkMutable();
 		this.typeName = typeName;
 	}
 
@@ -113,6 +120,7 @@ public abstract class DefinitionImpl implements Definition {
 	}
 
 	public void setProcessing(ItemProcessing processing) {
+		checkMutable();
 		this.processing = processing;
 	}
 
@@ -122,6 +130,7 @@ public abstract class DefinitionImpl implements Definition {
     }
 
     public void setAbstract(boolean isAbstract) {
+        checkMutable();
         this.isAbstract = isAbstract;
     }
 
@@ -131,6 +140,7 @@ public abstract class DefinitionImpl implements Definition {
 	}
 
 	public void setDeprecated(boolean deprecated) {
+		checkMutable();
 		this.deprecated = deprecated;
 	}
 	
@@ -140,6 +150,7 @@ public abstract class DefinitionImpl implements Definition {
 	}
 	
 	public void setDeprecatedSince(String deprecatedSince) {
+		checkMutable();
 		this.deprecatedSince = deprecatedSince;
 	}
 
@@ -149,6 +160,7 @@ public abstract class DefinitionImpl implements Definition {
 	}
 
 	public void setExperimental(boolean experimental) {
+		checkMutable();
 		this.experimental = experimental;
 	}
 	
@@ -158,6 +170,7 @@ public abstract class DefinitionImpl implements Definition {
 	}
 
 	public void setPlannedRemoval(String plannedRemoval) {
+		checkMutable();
 		this.plannedRemoval = plannedRemoval;
 	}
 
@@ -167,10 +180,12 @@ public abstract class DefinitionImpl implements Definition {
 	}
 
 	public void setElaborate(boolean elaborate) {
+		checkMutable();
 		this.elaborate = elaborate;
 	}
 
 	public void setInherited(boolean inherited) {
+        checkMutable();
         this.inherited = inherited;
     }
 
@@ -180,6 +195,7 @@ public abstract class DefinitionImpl implements Definition {
 	}
 
 	public void setEmphasized(boolean emphasized) {
+		checkMutable();
 		this.emphasized = emphasized;
 	}
 
@@ -189,6 +205,7 @@ public abstract class DefinitionImpl implements Definition {
 	}
 
 	public void setDisplayName(String displayName) {
+		checkMutable();
 		this.displayName = displayName;
 	}
 
@@ -198,6 +215,7 @@ public abstract class DefinitionImpl implements Definition {
 	}
 
 	public void setDisplayOrder(Integer displayOrder) {
+		checkMutable();
 		this.displayOrder = displayOrder;
 	}
 
@@ -207,6 +225,7 @@ public abstract class DefinitionImpl implements Definition {
 	}
 
 	public void setHelp(String help) {
+		checkMutable();
 		this.help = help;
 	}
 
@@ -216,6 +235,7 @@ public abstract class DefinitionImpl implements Definition {
     }
 
     public void setDocumentation(String documentation) {
+        checkMutable();
         this.documentation = documentation;
     }
 
@@ -238,6 +258,7 @@ public abstract class DefinitionImpl implements Definition {
     }
 
     public void setRuntimeSchema(boolean isRuntimeSchema) {
+        checkMutable();
         this.isRuntimeSchema = isRuntimeSchema;
     }
 
@@ -267,6 +288,7 @@ public abstract class DefinitionImpl implements Definition {
 
 	@Override
 	public <A> void setAnnotation(QName qname, A value) {
+		checkMutable();
 		if (annotations == null) {
 			// Lazy init. Most definitions will not have any annotations.
 			// We do not want to fill memory with empty hashmaps.
@@ -277,6 +299,24 @@ public abstract class DefinitionImpl implements Definition {
 
 	public abstract void revive(PrismContext prismContext);
 
+	public boolean isImmutable() {
+		return immutable;
+	}
+
+	/**
+	 * Makes this definition immutable, including the definitions it consists of (complex type definition
+	 * and item definitions in it).
+	 */
+	public void freeze() {
+		immutable = true;
+	}
+
+	protected void checkMutable() {
+		if (immutable) {
+			throw new IllegalStateException("An attempt to modify an immutable definition: " + this);
+		}
+	}
+
 	protected void copyDefinitionData(DefinitionImpl clone) {
 		clone.processing = this.processing;
 		clone.typeName = this.typeName;
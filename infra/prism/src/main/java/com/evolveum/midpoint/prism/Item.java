@@ -18,6 +18,7 @@ package com.evolveum.midpoint.prism;
 
 import com.evolveum.midpoint.prism.delta.ItemDelta;
 import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.util.EquivalenceIndexedList;
 import com.evolveum.midpoint.util.DebugDumpable;
 import com.evolveum.midpoint.util.DebugUtil;
 import com.evolveum.midpoint.util.MiscUtil;
@@ -55,7 +56,8 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
     protected QName elementName;
     protected PrismValue parent;
     protected D definition;
-    @NotNull protected final List<V> values = new ArrayList<>();
+    // indexed by equivalence hash, so large multi-valued items (e.g. thousands of references) are not scanned on each add
+    @NotNull protected final EquivalenceIndexedList<V> values = new EquivalenceIndexedList<>();
     private transient Map<String,Object> userData = new HashMap<>();;
 
 	protected boolean immutable;
@@ -307,12 +309,9 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
      * provided value argument may not be.
      */
     public PrismValue findValue(PrismValue value, boolean ignoreMetadata) {
-        for (PrismValue myVal : getValues()) {
-            if (myVal.equalsComplex(value, ignoreMetadata, false)) {
-                return myVal;
-            }
-        }
-        return null;
+        @SuppressWarnings("unchecked")
+        V probe = (V) value;
+        return values.findFirst(probe, myVal -> myVal.equalsComplex(value, ignoreMetadata, false));
     }
 
     public List<? extends PrismValue> findValuesIgnoreMetadata(PrismValue value) {
@@ -393,21 +392,11 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
     }
 
     public boolean contains(V value, boolean ignoreMetadata) {
-    	for (V myValue: getValues()) {
-    		if (myValue.equals(value, ignoreMetadata)) {
-    			return true;
-    		}
-    	}
-    	return false;
+    	return values.findFirst(value, myValue -> myValue.equals(value, ignoreMetadata)) != null;
     }
 
     public boolean containsRealValue(V value) {
-    	for (V myValue: getValues()) {
-    		if (myValue.equalsRealValue(value)) {
-    			return true;
-    		}
-    	}
-    	return false;
+    	return values.findFirst(value, myValue -> myValue.equalsRealValue(value)) != null;
     }
 
     public boolean valuesExactMatch(Collection<V> matchValues, Comparator<V> comparator) {
@@ -418,6 +407,10 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
     	return values.size();
     }
 
+    void invalidateValueIndex() {
+    	values.invalidateIndex();
+    }
+
     public boolean addAll(Collection<V> newValues) throws SchemaException {
 		checkMutability();			// TODO consider weaker condition, like testing if there's a real change
     	boolean changed = false;
@@ -465,20 +458,13 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
 
     public boolean remove(V newValue) {
 		checkMutability();					// TODO consider if there is real change
-    	boolean changed = false;
-    	Iterator<V> iterator = values.iterator();
-    	while (iterator.hasNext()) {
-    		V val = iterator.next();
-			// the same algorithm as when deleting the item value from delete delta
-			// TODO either make equalsRealValue return false if both PCVs have IDs and these IDs are different
-			// TODO or include a special test condition here; see MID-3828
-			if (val.representsSameValue(newValue, false) || val.equalsRealValue(newValue)) {
-    			iterator.remove();
-    			val.setParent(null);
-    			changed = true;
-    		}
-    	}
-    	return changed;
+		// the same algorithm as when deleting the item value from delete delta
+		// TODO either make equalsRealValue return false if both PCVs have IDs and these IDs are different
+		// TODO or include a special test condition here; see MID-3828
+		// (values representing the same value have the same equivalence hash, e.g. the same OID)
+		List<V> toRemove = values.findAll(newValue, val -> val.representsSameValue(newValue, false) || val.equalsRealValue(newValue));
+		toRemove.forEach(val -> val.setParent(null));
+		return values.removeIdentical(toRemove);
     }
 
     public V remove(int index) {
@@ -105,6 +105,7 @@ public abstract class ItemDefinitionImpl<I extends Item> extends DefinitionImpl
 	}
 
 	public void setName(@NotNull QName name) {
+		checkMutable();
 		this.name = name;
 	}
 
@@ -124,6 +125,7 @@ public abstract class ItemDefinitionImpl<I extends Item> extends DefinitionImpl
     }
 
     public void setMinOccurs(int minOccurs) {
+        checkMutable();
         this.minOccurs = minOccurs;
     }
 
@@ -140,6 +142,7 @@ public abstract class ItemDefinitionImpl<I extends Item> extends DefinitionImpl
     }
 
     public void setMaxOccurs(int maxOccurs) {
+        checkMutable();
         this.maxOccurs = maxOccurs;
     }
 
@@ -191,6 +194,7 @@ public abstract class ItemDefinitionImpl<I extends Item> extends DefinitionImpl
 	}
 
 	public void setOperational(boolean operational) {
+		checkMutable();
 		this.operational = operational;
 	}
 
@@ -200,6 +204,7 @@ public abstract class ItemDefinitionImpl<I extends Item> extends DefinitionImpl
 	}
 
 	public void setDynamic(boolean dynamic) {
+		checkMutable();
 		this.dynamic = dynamic;
 	}
 
@@ -225,6 +230,7 @@ public abstract class ItemDefinitionImpl<I extends Item> extends DefinitionImpl
      *
      */
     public void setReadOnly() {
+        checkMutable();
         canAdd = false;
         canRead = true;
         canModify = false;
@@ -232,16 +238,19 @@ public abstract class ItemDefinitionImpl<I extends Item> extends DefinitionImpl
 
     @Override
 	public void setCanRead(boolean read) {
+        checkMutable();
         this.canRead = read;
     }
 
     @Override
     public void setCanModify(boolean modify) {
+        checkMutable();
         this.canModify = modify;
     }
 
     @Override
     public void setCanAdd(boolean add) {
+        checkMutable();
         this.canAdd = add;
     }
 
@@ -260,6 +269,7 @@ public abstract class ItemDefinitionImpl<I extends Item> extends DefinitionImpl
 	}
 
 	public void setSubstitutionHead(QName substitutionHead) {
+		checkMutable();
 		this.substitutionHead = substitutionHead;
 	}
 
@@ -269,6 +279,7 @@ public abstract class ItemDefinitionImpl<I extends Item> extends DefinitionImpl
 	}
 
 	public void setHeterogeneousListItem(boolean heterogeneousListItem) {
+		checkMutable();
 		this.heterogeneousListItem = heterogeneousListItem;
 	}
 
@@ -285,6 +296,7 @@ public abstract class ItemDefinitionImpl<I extends Item> extends DefinitionImpl
 	}
 
 	public void setValueEnumerationRef(PrismReferenceValue valueEnumerationRef) {
+		checkMutable();
 		this.valueEnumerationRef = valueEnumerationRef;
 	}
 
@@ -302,6 +314,7 @@ public abstract class ItemDefinitionImpl<I extends Item> extends DefinitionImpl
 
 	@Override
 	public void adoptElementDefinitionFrom(ItemDefinition otherDef) {
+		checkMutable();
 		if (otherDef == null) {
 			return;
 		}
@@ -531,6 +544,7 @@ public abstract class ItemDefinitionImpl<I extends Item> extends DefinitionImpl
 
 	@Override
 	public void setInherited(boolean inherited) {
+		checkMutable();
 		this.inherited = inherited;
 	}
 }
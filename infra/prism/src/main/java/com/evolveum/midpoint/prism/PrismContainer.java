@@ -798,6 +798,37 @@ public class PrismContainer<C extends Containerable> extends Item<PrismContainer
 		}
 	}
 
+	/**
+	 * Returns true if all the items in this container (recursively) use definitions that are taken directly
+	 * from the definition of their parent container, and all the container values use complex type definitions
+	 * of their containers. I.e. the definitions of the whole content can be replaced by a different instance
+	 * of the same definition tree; see replaceDefinitionTree.
+	 */
+	public boolean hasUniformDefinitionTree() {
+		PrismContainerDefinition<C> definition = getDefinition();
+		if (definition == null) {
+			return false;
+		}
+		for (PrismContainerValue<C> cval : getValues()) {
+			if (!cval.hasUniformDefinitionTree(definition)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces definitions of this container and all its content by corresponding parts of the provided
+	 * definition tree. This is a cheap alternative to deepCloneDefinition when a suitable definition tree
+	 * already exists, e.g. one that is shared by many objects. Applicable only if hasUniformDefinitionTree() is true.
+	 */
+	public void replaceDefinitionTree(PrismContainerDefinition<C> newDefinition) {
+		for (PrismContainerValue<C> cval : getValues()) {
+			cval.replaceDefinitionTree(newDefinition);
+		}
+		setDefinition(newDefinition);
+	}
+
     @Override
 	public boolean containsEquivalentValue(PrismContainerValue<C> value) {
     	if (value.isIdOnly()) {
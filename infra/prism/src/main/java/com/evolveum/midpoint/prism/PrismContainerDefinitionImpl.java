@@ -112,6 +112,7 @@ public class PrismContainerDefinitionImpl<C extends Containerable> extends ItemD
 	}
 
 	public void setCompileTimeClass(Class<C> compileTimeClass) {
+		checkMutable();
 		this.compileTimeClass = compileTimeClass;
 	}
 
@@ -125,9 +126,21 @@ public class PrismContainerDefinitionImpl<C extends Containerable> extends ItemD
     }
 
     public void setComplexTypeDefinition(ComplexTypeDefinition complexTypeDefinition) {
+        checkMutable();
         this.complexTypeDefinition = complexTypeDefinition;
     }
 
+    @Override
+    public void freeze() {
+        if (isImmutable()) {
+            return;
+        }
+        super.freeze();
+        if (complexTypeDefinition instanceof DefinitionImpl) {
+            ((DefinitionImpl) complexTypeDefinition).freeze();
+        }
+    }
+
     @Override
     public boolean isAbstract() {
         if (super.isAbstract()) {
@@ -328,6 +341,7 @@ public class PrismContainerDefinitionImpl<C extends Containerable> extends ItemD
 
 	@Override
 	public void replaceDefinition(QName itemName, ItemDefinition newDefinition) {
+    	checkMutable();
     	ComplexTypeDefinition originalComplexTypeDefinition = getComplexTypeDefinition();
         ComplexTypeDefinition cloneComplexTypeDefinition = originalComplexTypeDefinition.clone();
         setComplexTypeDefinition(cloneComplexTypeDefinition);
@@ -350,6 +364,7 @@ public class PrismContainerDefinitionImpl<C extends Containerable> extends ItemD
     }
 
     private void addDefinition(ItemDefinition itemDef) {
+		checkMutable();
 		if (complexTypeDefinition == null) {
 			throw new UnsupportedOperationException("Cannot add an item definition because there's no complex type definition");
 		} else if (!(complexTypeDefinition instanceof ComplexTypeDefinitionImpl)) {
@@ -1425,6 +1425,47 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
 		item.setDefinition(clonedItemDef);									// sets CTD in values only if null!
 	}
 
+	boolean hasUniformDefinitionTree(PrismContainerDefinition<C> containerDef) {
+		if (complexTypeDefinition != null && complexTypeDefinition != containerDef.getComplexTypeDefinition()) {
+			return false;
+		}
+		if (items != null) {
+			for (Item<?,?> item : items) {
+				ItemDefinition<?> itemDef = item.getDefinition();
+				if (itemDef == null || itemDef != containerDef.findItemDefinition(item.getElementName())) {
+					return false;
+				}
+				if (item instanceof PrismContainer && !((PrismContainer<?>) item).hasUniformDefinitionTree()) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	void replaceDefinitionTree(PrismContainerDefinition<C> newContainerDef) {
+		if (getParent() != null && complexTypeDefinition != null) {
+			replaceComplexTypeDefinition(newContainerDef.getComplexTypeDefinition());
+		}
+		if (items != null) {
+			for (Item<?,?> item : items) {
+				replaceDefinitionTreeItem(item, newContainerDef);
+			}
+		}
+	}
+
+	private <IV extends PrismValue,ID extends ItemDefinition, I extends Item<IV,ID>> void replaceDefinitionTreeItem(I item, PrismContainerDefinition<C> newContainerDef) {
+		ID newItemDef = newContainerDef.findItemDefinition(item.getElementName());
+		if (newItemDef == null) {
+			throw new IllegalStateException("No definition for " + item.getElementName() + " in " + newContainerDef);
+		}
+		if (item instanceof PrismContainer) {
+			((PrismContainer) item).replaceDefinitionTree((PrismContainerDefinition) newItemDef);
+		} else {
+			item.setDefinition(newItemDef);
+		}
+	}
+
 	@Override
 	public boolean equalsComplex(PrismValue other, boolean ignoreMetadata, boolean isLiteral) {
 		if (other == null || !(other instanceof PrismContainerValue<?>)) {
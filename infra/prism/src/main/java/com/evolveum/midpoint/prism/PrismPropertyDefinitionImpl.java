@@ -113,6 +113,7 @@ public class PrismPropertyDefinitionImpl<T> extends ItemDefinitionImpl<PrismProp
 	}
 
 	public void setIndexed(Boolean indexed) {
+		checkMutable();
 		this.indexed = indexed;
 	}
 
@@ -129,6 +130,7 @@ public class PrismPropertyDefinitionImpl<T> extends ItemDefinitionImpl<PrismProp
 	}
 
 	public void setMatchingRuleQName(QName matchingRuleQName) {
+		checkMutable();
 		this.matchingRuleQName = matchingRuleQName;
 	}
 
@@ -112,6 +112,7 @@ public class PrismPropertyValue<T> extends PrismValue implements DebugDumpable,
         this.value = value;
         this.rawElement = null;
         checkValue();
+        equivalenceHashChanged();
     }
 
 	public T getValue() {
@@ -171,6 +172,7 @@ public class PrismPropertyValue<T> extends PrismValue implements DebugDumpable,
 
 	public void setRawElement(XNode rawElement) {
 		this.rawElement = rawElement;
+		equivalenceHashChanged();
 	}
 
 	@Override
@@ -198,6 +200,7 @@ public class PrismPropertyValue<T> extends PrismValue implements DebugDumpable,
 				expression = PrismUtil.parseExpression(rawElement, prismContext);
 			}
 			rawElement = null;
+			equivalenceHashChanged();
 		}
 	}
 
@@ -605,6 +608,53 @@ public class PrismPropertyValue<T> extends PrismValue implements DebugDumpable,
 		return result;
 	}
 
+	/**
+	 * Raw values and values compared in a special way (DOM elements, schemas, raw types) have no equivalence hash.
+	 */
+	@Override
+	public Integer getEquivalenceHash() {
+		if (rawElement != null) {
+			return null;
+		}
+		return getRealValueHash(value);
+	}
+
+	/**
+	 * Equivalence hash consistent with equalsComplex(..., matchingRule), i.e. computed from the normalized value.
+	 * This is possible only for matching rules that declare their normalization consistent with matching;
+	 * for other rules (and for Matchable values, whose match() may be looser than equals()) there is no hash,
+	 * so the values are compared one by one.
+	 */
+	public Integer getEquivalenceHash(MatchingRule<T> matchingRule) {
+		if (matchingRule == null) {
+			return getEquivalenceHash();
+		}
+		if (rawElement != null || !matchingRule.isNormalizationConsistentWithMatch() || value instanceof Matchable) {
+			return null;
+		}
+		if (value == null) {
+			return 0;
+		}
+		try {
+			return getRealValueHash(matchingRule.normalize(value));
+		} catch (SchemaException e) {
+			// equalsComplex falls back to plain equality in this case
+			return null;
+		}
+	}
+
+	private static Integer getRealValueHash(Object realValue) {
+		if (realValue == null) {
+			return 0;
+		} else if (realValue instanceof Element || realValue instanceof SchemaDefinitionType || realValue instanceof RawType) {
+			return null;
+		} else if (realValue instanceof byte[]) {
+			return Arrays.hashCode((byte[]) realValue);
+		} else {
+			return realValue.hashCode();
+		}
+	}
+
 	@Override
     public String debugDump() {
         return toString();
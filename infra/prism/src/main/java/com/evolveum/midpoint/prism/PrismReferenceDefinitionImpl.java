@@ -68,6 +68,7 @@ public class PrismReferenceDefinitionImpl extends ItemDefinitionImpl<PrismRefere
 	}
 
 	public void setTargetTypeName(QName targetTypeName) {
+		checkMutable();
 		this.targetTypeName = targetTypeName;
 	}
 
@@ -77,6 +78,7 @@ public class PrismReferenceDefinitionImpl extends ItemDefinitionImpl<PrismRefere
 	}
 
 	public void setCompositeObjectElementName(QName compositeObjectElementName) {
+		checkMutable();
 		this.compositeObjectElementName = compositeObjectElementName;
 	}
 
@@ -86,6 +88,7 @@ public class PrismReferenceDefinitionImpl extends ItemDefinitionImpl<PrismRefere
 	}
 
 	public void setComposite(boolean isComposite) {
+		checkMutable();
 		this.isComposite = isComposite;
 	}
 
@@ -102,6 +102,7 @@ public class PrismReferenceValue extends PrismValue implements DebugDumpable, Se
 	public void setOid(String oid) {
 		checkMutability();
 		this.oid = oid;
+		equivalenceHashChanged();
 	}
 
 	/**
@@ -120,6 +121,7 @@ public class PrismReferenceValue extends PrismValue implements DebugDumpable, Se
 	public void setObject(PrismObject object) {
 		checkMutability();
 		this.object = object;
+		equivalenceHashChanged();
 	}
 
 	/**
@@ -498,6 +500,16 @@ public class PrismReferenceValue extends PrismValue implements DebugDumpable, Se
 		return result;
 	}
 
+	/**
+	 * Only the OID is hashed, as the relation normalization depends on the prism context (that may be missing).
+	 * References without OID are compared one by one.
+	 */
+	@Override
+	public Integer getEquivalenceHash() {
+		String oid = getOid();
+		return oid != null ? oid.hashCode() : null;
+	}
+
 	@Override
 	public boolean representsSameValue(PrismValue other, boolean lax) {
 		if (other instanceof PrismReferenceValue) {
@@ -17,6 +17,7 @@ package com.evolveum.midpoint.prism;
 
 import com.evolveum.midpoint.prism.delta.ItemDelta;
 import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.util.EquivalenceIndexedList;
 import com.evolveum.midpoint.util.DebugUtil;
 import com.evolveum.midpoint.util.MiscUtil;
 import com.evolveum.midpoint.util.exception.SchemaException;
@@ -231,6 +232,9 @@ public abstract class PrismValue implements IPrismValue {
 	}
 
 	public static <V extends PrismValue> boolean containsRealValue(Collection<V> collection, V value) {
+		if (collection instanceof EquivalenceIndexedList && value != null) {
+			return ((EquivalenceIndexedList<V>) collection).findFirst(value, colVal -> colVal != null && colVal.equalsRealValue(value)) != null;
+		}
 		return containsRealValue(collection, value, Function.identity());
 	}
 
@@ -352,6 +356,27 @@ public abstract class PrismValue implements IPrismValue {
 		return result;
 	}
 
+	/**
+	 * Returns a hash code that is consistent with equalsRealValue (and therefore also with equals), i.e. it ignores
+	 * metadata: if two values are equal (regardless of metadata), their equivalence hashes are the same.
+	 *
+	 * Returns null if such a hash cannot be (cheaply) determined, e.g. for raw values or containers. Such values
+	 * have to be compared one by one. Used for hash-indexing large multi-valued items (see EquivalenceIndexedList).
+	 */
+	@Nullable
+	public Integer getEquivalenceHash() {
+		return null;
+	}
+
+	/**
+	 * To be called when this value changes in a way that can change its equivalence hash.
+	 */
+	protected void equivalenceHashChanged() {
+		if (parent instanceof Item) {
+			((Item<?, ?>) parent).invalidateValueIndex();
+		}
+	}
+
 	public boolean equalsComplex(PrismValue other, boolean ignoreMetadata, boolean isLiteral) {
 		// parent is not considered at all. it is not relevant.
 		// neither the immutable flag
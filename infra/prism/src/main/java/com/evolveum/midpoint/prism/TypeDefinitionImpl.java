@@ -46,6 +46,7 @@ public abstract class TypeDefinitionImpl extends DefinitionImpl implements TypeD
 	}
 
 	public void setSuperType(QName superType) {
+		checkMutable();
 		this.superType = superType;
 	}
 
@@ -56,15 +57,23 @@ public abstract class TypeDefinitionImpl extends DefinitionImpl implements TypeD
 	}
 
 	public void addStaticSubType(TypeDefinition subtype) {
+		checkMutable();
 		staticSubTypes.add(subtype);
 	}
 
+	// e.g. when the definitions were deserialized, as hash codes of the subtypes might be computed on incomplete objects
+	public void clearStaticSubTypes() {
+		checkMutable();
+		staticSubTypes.clear();
+	}
+
 	@Override
 	public Integer getInstantiationOrder() {
 		return instantiationOrder;
 	}
 
 	public void setInstantiationOrder(Integer instantiationOrder) {
+		checkMutable();
 		this.instantiationOrder = instantiationOrder;
 	}
 
@@ -74,6 +83,7 @@ public abstract class TypeDefinitionImpl extends DefinitionImpl implements TypeD
 	}
 
 	public void setCompileTimeClass(Class<?> compileTimeClass) {
+		checkMutable();
 		this.compileTimeClass = compileTimeClass;
 	}
 
@@ -18,6 +18,7 @@ package com.evolveum.midpoint.prism.delta;
 import com.evolveum.midpoint.prism.SimpleVisitable;
 import com.evolveum.midpoint.prism.SimpleVisitor;
 import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.util.EquivalenceIndexedList;
 import com.evolveum.midpoint.util.Cloner;
 import com.evolveum.midpoint.util.DebugDumpable;
 import com.evolveum.midpoint.util.DebugUtil;
@@ -99,22 +100,36 @@ public class DeltaSetTriple<T> implements DebugDumpable, ShortDumpable, Serializ
         	triple.getMinusSet().addAll(valuesOld);
         	return;
         }
+        Collection<T> valuesNewLookup = asLookupCollection(valuesNew);
+        Collection<T> valuesOldLookup = asLookupCollection(valuesOld);
         for (T val : valuesOld) {
-            if (valuesNew.contains(val)) {
+            if (valuesNewLookup.contains(val)) {
                 triple.getZeroSet().add(val);
             } else {
                 triple.getMinusSet().add(val);
             }
         }
         for (T val : valuesNew) {
-            if (!valuesOld.contains(val)) {
+            if (!valuesOldLookup.contains(val)) {
                 triple.getPlusSet().add(val);
             }
         }
     }
 
+    /**
+     * Large lists are indexed, to avoid quadratic number of comparisons.
+     */
+    private static <T> Collection<T> asLookupCollection(Collection<T> values) {
+        if (values instanceof List && !(values instanceof EquivalenceIndexedList)
+                && values.size() >= EquivalenceIndexedList.INDEX_THRESHOLD) {
+            return new EquivalenceIndexedList<>(values);
+        } else {
+            return values;
+        }
+    }
+
     private Collection<T> createSet() {
-        return new ArrayList<>();
+        return new EquivalenceIndexedList<>();
     }
 
     @NotNull
@@ -34,6 +34,7 @@ import com.evolveum.midpoint.prism.path.ItemPath.CompareResult;
 import com.evolveum.midpoint.prism.path.ItemPathSegment;
 import com.evolveum.midpoint.prism.path.NameItemPathSegment;
 import com.evolveum.midpoint.prism.util.CloneUtil;
+import com.evolveum.midpoint.prism.util.EquivalenceIndexedList;
 import com.evolveum.midpoint.util.DebugDumpable;
 import com.evolveum.midpoint.util.DebugUtil;
 import com.evolveum.midpoint.util.Foreachable;
@@ -452,6 +453,9 @@ public abstract class ItemDelta<V extends PrismValue,D extends ItemDefinition> i
 		if (collection == null) {
 			return false;
 		}
+		if (collection instanceof EquivalenceIndexedList && value != null) {
+			return ((EquivalenceIndexedList<V>) collection).findFirst(value, colVal -> isValueEquivalent(colVal, value)) != null;
+		}
 		for (V colVal: collection) {
 			if (isValueEquivalent(colVal, value)) {
 				return true;
@@ -619,7 +623,7 @@ public abstract class ItemDelta<V extends PrismValue,D extends ItemDefinition> i
 	}
 
 	private Collection<V> newValueCollection() {
-		return new ArrayList<>();
+		return new EquivalenceIndexedList<>();
 	}
 
 	public boolean isValueToAdd(V value) {
@@ -902,6 +906,15 @@ public abstract class ItemDelta<V extends PrismValue,D extends ItemDefinition> i
      * Returns null if the delta is not needed at all.
      */
     public ItemDelta<V,D> narrow(PrismObject<? extends Objectable> object, Comparator<V> comparator) {
+    	return narrow(object, comparator, null);
+    }
+
+	/**
+	 * @param hasher Hash function consistent with the comparator (values with different hashes never compare as equal),
+	 *               used to avoid comparing each delta value with each current value. May be null.
+	 */
+    protected ItemDelta<V,D> narrow(PrismObject<? extends Objectable> object, Comparator<V> comparator,
+		    Function<V, Integer> hasher) {
     	Item<V,D> currentItem = (Item<V,D>) object.findItem(getPath());
     	if (currentItem == null) {
     		if (valuesToDelete != null) {
@@ -923,11 +936,13 @@ public abstract class ItemDelta<V extends PrismValue,D extends ItemDefinition> i
     			}
     		} else {
 	    		ItemDelta<V,D> clone = clone();
+	    		EquivalenceIndexedList<V> currentValues = comparator != null && hasher != null ?
+					    new EquivalenceIndexedList<>(currentItem.getValues(), hasher) : null;
 	    		if (clone.valuesToDelete != null) {
 	    			Iterator<V> iterator = clone.valuesToDelete.iterator();
 	    			while (iterator.hasNext()) {
 	    				V valueToDelete = iterator.next();
-	    				if (!currentItem.containsEquivalentValue(valueToDelete, comparator)) {
+	    				if (!containsEquivalentValue(currentItem, currentValues, valueToDelete, comparator)) {
 	    					iterator.remove();
 	    				}
 	    			}
@@ -939,7 +954,7 @@ public abstract class ItemDelta<V extends PrismValue,D extends ItemDefinition> i
 	    			Iterator<V> iterator = clone.valuesToAdd.iterator();
 	    			while (iterator.hasNext()) {
 	    				V valueToAdd = iterator.next();
-	    				if (currentItem.containsEquivalentValue(valueToAdd, comparator)) {
+	    				if (containsEquivalentValue(currentItem, currentValues, valueToAdd, comparator)) {
 	    					iterator.remove();
 	    				}
 	    			}
@@ -952,6 +967,15 @@ public abstract class ItemDelta<V extends PrismValue,D extends ItemDefinition> i
     	}
     }
 
+	private boolean containsEquivalentValue(Item<V,D> currentItem, EquivalenceIndexedList<V> currentValues, V value,
+			Comparator<V> comparator) {
+    	if (currentValues != null) {
+    		return currentValues.findFirst(value, currentValue -> comparator.compare(currentValue, value) == 0) != null;
+	    } else {
+    		return currentItem.containsEquivalentValue(value, comparator);
+	    }
+	}
+
 	/**
 	 * Checks if the delta is redundant w.r.t. current state of the object.
 	 * I.e. if it changes the current object state.
@@ -289,7 +289,7 @@ public class PropertyDelta<T extends Object> extends ItemDelta<PrismPropertyValu
 				return 1;
 			}
 		};
-		return (PropertyDelta<T>) super.narrow(object, comparator);
+		return (PropertyDelta<T>) super.narrow(object, comparator, v -> v.getEquivalenceHash(matchingRule));
 	}
 
 	public boolean isRedundant(PrismObject<? extends Objectable> object, final MatchingRule<T> matchingRule) {
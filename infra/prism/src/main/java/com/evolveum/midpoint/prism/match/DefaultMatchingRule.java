@@ -75,6 +75,15 @@ public class DefaultMatchingRule<T> implements MatchingRule<T> {
 		return original;
 	}
 
+	/**
+	 * Plain equals() vs. identity normalization. (Matchable values are matched in their own way, so
+	 * they are not looked up by normalized values anyway.)
+	 */
+	@Override
+	public boolean isNormalizationConsistentWithMatch() {
+		return true;
+	}
+
 	@Override
 	public boolean matchRegex(T a, String regex) {
 		String valueToMatch = null;
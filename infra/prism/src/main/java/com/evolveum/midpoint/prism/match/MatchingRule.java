@@ -56,4 +56,14 @@ public interface MatchingRule<T> {
 	 * if A matches B then normalize(A) == normalize(B)
 	 */
 	T normalize(T original) throws SchemaException;
+
+	/**
+	 * Returns true if the normalization is fully consistent with matching, i.e. if A matches B
+	 * exactly when normalize(A) equals normalize(B). Only then can values be looked up by the hash of
+	 * their normalized form. This is not the case for most rules (e.g. distinguished names or PolyString
+	 * norms), so it must be explicitly declared by the rule.
+	 */
+	default boolean isNormalizationConsistentWithMatch() {
+		return false;
+	}
 }
@@ -53,6 +53,11 @@ public class PrismSchemaImpl implements PrismSchema {
 	// These definitions are to be resolved after parsing the set of schemas.
 	@NotNull private final List<DefinitionSupplier> delayedItemDefinitions = new ArrayList<>();
 
+	// Definitions indexed by local part of their type names, in the original order. Used only after the schema
+	// is parsed (see enableLookupIndexes), because type names can change while parsing. Built lazily, dropped on any change.
+	private boolean lookupIndexEnabled;
+	private volatile Map<String, List<Definition>> typeLookupIndex;
+
 	protected PrismSchemaImpl(PrismContext prismContext) {
 		this.prismContext = prismContext;
 	}
@@ -111,6 +116,43 @@ public class PrismSchemaImpl implements PrismSchema {
 			ItemDefinition<?> itemDef = (ItemDefinition<?>) def;
 			itemDefinitionMap.put(itemDef.getName(), itemDef);
 		}
+		typeLookupIndex = null;
+		if (lookupIndexEnabled && def instanceof ComplexTypeDefinitionImpl) {
+			((ComplexTypeDefinitionImpl) def).enableLookupIndex();
+		}
+	}
+
+	/**
+	 * Switches on indexed lookups of definitions by type name in this schema, and indexed lookups of item definitions
+	 * in its complex types. To be called when the schema is parsed (and extensions are applied).
+	 */
+	public void enableLookupIndexes() {
+		lookupIndexEnabled = true;
+		for (Definition def : definitions) {
+			if (def instanceof ComplexTypeDefinitionImpl) {
+				((ComplexTypeDefinitionImpl) def).enableLookupIndex();
+			}
+		}
+	}
+
+	/**
+	 * Returns definitions that can match given type name (the caller has to check that).
+	 * Unqualified type names match qualified ones, so the index is keyed by local parts.
+	 */
+	private Collection<Definition> getTypeLookupCandidates(QName typeName) {
+		if (!lookupIndexEnabled) {
+			return definitions;
+		}
+		Map<String, List<Definition>> index = typeLookupIndex;
+		if (index == null) {
+			index = new HashMap<>();
+			for (Definition def : definitions) {
+				index.computeIfAbsent(def.getTypeName().getLocalPart(), k -> new ArrayList<>(1)).add(def);
+			}
+			typeLookupIndex = index;
+		}
+		List<Definition> candidates = index.get(typeName.getLocalPart());
+		return candidates != null ? candidates : Collections.emptyList();
 	}
 
 	@Override
@@ -159,6 +201,9 @@ public class PrismSchemaImpl implements PrismSchema {
 
 		DomToSchemaProcessor processor = new DomToSchemaProcessor(resolver, prismContext);
 		processor.parseSchema(schema, element, isRuntime, allowDelayedItemDefinitions, shortDescription);
+		if (!allowDelayedItemDefinitions) {
+			schema.enableLookupIndexes();		// otherwise the schema is not complete yet; the registry enables the indexes later
+		}
 		return schema;
 	}
 
@@ -378,7 +423,7 @@ public class PrismSchemaImpl implements PrismSchema {
 	@Override
 	public <ID extends ItemDefinition> ID findItemDefinitionByType(@NotNull QName typeName, @NotNull Class<ID> definitionClass) {
 		// TODO: check for multiple definition with the same type
-		for (Definition definition : definitions) {
+		for (Definition definition : getTypeLookupCandidates(typeName)) {
 			if (definitionClass.isAssignableFrom(definition.getClass())) {
 				@SuppressWarnings("unchecked")
 				ID itemDef = (ID) definition;
@@ -458,7 +503,7 @@ public class PrismSchemaImpl implements PrismSchema {
 	@Override
 	@SuppressWarnings("unchecked")
 	public <TD extends TypeDefinition> Collection<TD> findTypeDefinitionsByType(@NotNull QName typeName, @NotNull Class<TD> definitionClass) {
-		return (List) definitions.stream()
+		return (List) getTypeLookupCandidates(typeName).stream()
 				.filter(def -> definitionClass.isAssignableFrom(def.getClass()) && QNameUtil.match(typeName, def.getTypeName()))
 				.collect(Collectors.toList());
 	}
@@ -97,6 +97,8 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
 	// base type name -> CTD with (merged) extension definition
 	final private Map<QName,ComplexTypeDefinition> extensionSchemas = new HashMap<>();
 	private boolean initialized = false;
+	private File schemaSnapshotFile;
+	private boolean loadedFromSnapshot;
 	private DynamicNamespacePrefixMapper namespacePrefixMapper;
 	private String defaultNamespace;
 
@@ -145,6 +147,23 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
 		this.catalogFiles = catalogFiles;
 	}
 
+	public File getSchemaSnapshotFile() {
+		return schemaSnapshotFile;
+	}
+
+	/**
+	 * If set, parsed prism schemas are stored in this file and loaded from it at the next initialization,
+	 * provided that the registered schemas did not change. See SchemaSnapshot.
+	 * Must be called before call to initialize()
+	 */
+	public void setSchemaSnapshotFile(File schemaSnapshotFile) {
+		this.schemaSnapshotFile = schemaSnapshotFile;
+	}
+
+	public boolean isLoadedFromSnapshot() {
+		return loadedFromSnapshot;
+	}
+
 	public String getCatalogResourceName() {
 		return catalogResourceName;
 	}
@@ -383,6 +402,8 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
 			long classesDone = System.currentTimeMillis();
 			LOGGER.trace("compileCompileTimeClassList() done in {} ms", classesDone - javaxSchemasDone);
 
+			enableLookupIndexes();
+
 			initialized = true;
 		} catch (SAXException ex) {
 			if (ex instanceof SAXParseException) {
@@ -393,6 +414,15 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
 		}
 	}
 
+	// Schemas are complete now (extensions applied, missing types resolved), so names of definitions will not change.
+	private void enableLookupIndexes() {
+		for (SchemaDescription schemaDescription : schemaDescriptions) {
+			if (schemaDescription.getSchema() instanceof PrismSchemaImpl) {
+				((PrismSchemaImpl) schemaDescription.getSchema()).enableLookupIndexes();
+			}
+		}
+	}
+
 	private void parseJavaxSchema() throws SAXException, IOException {
 		schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
 		Source[] sources = new Source[schemaDescriptions.size()];
@@ -407,13 +437,23 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
 	}
 
 	private void parsePrismSchemas() throws SchemaException {
-		parsePrismSchemas(schemaDescriptions, true);
-		applySchemaExtensions();
-		for (SchemaDescription schemaDescription : schemaDescriptions) {
-			if (schemaDescription.getSchema() != null) {
-				PrismSchemaImpl schema = (PrismSchemaImpl) schemaDescription.getSchema();
-				resolveMissingTypeDefinitionsInGlobalItemDefinitions(schema);
-				fillInSubtypes(schema);
+		String snapshotChecksum = null;
+		if (schemaSnapshotFile != null) {
+			snapshotChecksum = SchemaSnapshot.computeChecksum(schemaDescriptions);
+			loadedFromSnapshot = loadSnapshot(SchemaSnapshot.load(schemaSnapshotFile, snapshotChecksum));
+		}
+		if (!loadedFromSnapshot) {
+			parsePrismSchemas(schemaDescriptions, true);
+			applySchemaExtensions();
+			for (SchemaDescription schemaDescription : schemaDescriptions) {
+				if (schemaDescription.getSchema() != null) {
+					PrismSchemaImpl schema = (PrismSchemaImpl) schemaDescription.getSchema();
+					resolveMissingTypeDefinitionsInGlobalItemDefinitions(schema);
+					fillInSubtypes(schema);
+				}
+			}
+			if (schemaSnapshotFile != null) {
+				SchemaSnapshot.write(schemaSnapshotFile, snapshotChecksum, createSnapshot());
 			}
 		}
 		if (LOGGER.isTraceEnabled()) {
@@ -428,6 +468,64 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
 		}
 	}
 
+	private SchemaSnapshot.Content createSnapshot() {
+		SchemaSnapshot.Content content = new SchemaSnapshot.Content();
+		for (SchemaDescription schemaDescription : schemaDescriptions) {
+			PrismSchema schema = schemaDescription.getSchema();
+			content.namespaces.add(schema != null ? schema.getNamespace() : null);
+			content.definitions.add(schema != null ? new ArrayList<>(schema.getDefinitions()) : null);
+		}
+		content.extensionSchemas.putAll(extensionSchemas);
+		return content;
+	}
+
+	// Snapshot content corresponds to the schema descriptions one by one, because they are part of the checksum.
+	private boolean loadSnapshot(SchemaSnapshot.Content content) throws SchemaException {
+		if (content == null) {
+			return false;
+		}
+		if (content.definitions.size() != schemaDescriptions.size()) {
+			LOGGER.warn("Schema snapshot {} does not match registered schemas, ignoring it", schemaSnapshotFile);
+			return false;
+		}
+		long started = System.currentTimeMillis();
+		for (int i = 0; i < schemaDescriptions.size(); i++) {
+			List<Definition> definitions = content.definitions.get(i);
+			if (definitions != null) {
+				PrismSchemaImpl schema = new PrismSchemaImpl(prismContext);
+				if (content.namespaces.get(i) != null) {
+					schema.setNamespace(content.namespaces.get(i));
+				}
+				for (Definition definition : definitions) {
+					definition.revive(prismContext);
+					schema.add(definition);
+				}
+				schemaDescriptions.get(i).setSchema(schema);
+			}
+		}
+		for (ComplexTypeDefinition extensionCtd : content.extensionSchemas.values()) {
+			extensionCtd.revive(prismContext);
+		}
+		extensionSchemas.putAll(content.extensionSchemas);
+		// subtype sets were deserialized before their elements were complete, so they are rebuilt
+		for (SchemaDescription schemaDescription : schemaDescriptions) {
+			if (schemaDescription.getSchema() != null) {
+				for (TypeDefinition typeDefinition : schemaDescription.getSchema().getDefinitions(TypeDefinition.class)) {
+					if (typeDefinition instanceof TypeDefinitionImpl) {
+						((TypeDefinitionImpl) typeDefinition).clearStaticSubTypes();
+					}
+				}
+			}
+		}
+		for (SchemaDescription schemaDescription : schemaDescriptions) {
+			if (schemaDescription.getSchema() != null) {
+				fillInSubtypes((PrismSchemaImpl) schemaDescription.getSchema());
+			}
+		}
+		LOGGER.debug("Prism schemas loaded from snapshot {} in {} ms", schemaSnapshotFile, System.currentTimeMillis() - started);
+		return true;
+	}
+
 	private void fillInSubtypes(PrismSchemaImpl schema) {
 		for (TypeDefinition typeDefinition : schema.getDefinitions(TypeDefinition.class)) {
 			if (typeDefinition.getSuperType() == null) {
@@ -1289,12 +1387,9 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
 
 	@Override
 	public SchemaDescription findSchemaDescriptionByNamespace(String namespaceURI) {
-		for (SchemaDescription desc: schemaDescriptions) {
-			if (namespaceURI.equals(desc.getNamespace())) {
-				return desc;
-			}
-		}
-		return null;
+		// parsedSchemas keeps the descriptions in the order of registration, so this is the first one registered
+		Collection<SchemaDescription> descriptions = parsedSchemas.get(namespaceURI);
+		return !descriptions.isEmpty() ? descriptions.iterator().next() : null;
 	}
 
 	@Override
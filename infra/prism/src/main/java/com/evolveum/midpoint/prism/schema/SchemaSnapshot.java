@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.prism.schema;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+
+import com.evolveum.midpoint.prism.ComplexTypeDefinition;
+import com.evolveum.midpoint.prism.ComplexTypeDefinitionImpl;
+import com.evolveum.midpoint.prism.Definition;
+import com.evolveum.midpoint.prism.DefinitionImpl;
+import com.evolveum.midpoint.prism.ItemDefinitionImpl;
+import com.evolveum.midpoint.prism.PrismContainerDefinitionImpl;
+import com.evolveum.midpoint.prism.PrismObjectDefinitionImpl;
+import com.evolveum.midpoint.prism.PrismPropertyDefinitionImpl;
+import com.evolveum.midpoint.prism.PrismReferenceDefinitionImpl;
+import com.evolveum.midpoint.prism.SimpleTypeDefinitionImpl;
+import com.evolveum.midpoint.prism.TypeDefinitionImpl;
+import com.evolveum.midpoint.util.DOMUtil;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+
+/**
+ * Serialized form of prism schemas parsed by the schema registry, used to avoid XSD parsing at startup.
+ *
+ * The snapshot contains definitions of all the prism schemas (after extensions were applied and missing type
+ * definitions resolved) and the extension schemas. It is keyed by a checksum computed from the format version,
+ * the prism code and the content of all registered schema descriptions. If the checksum does not match
+ * (e.g. an extension schema was changed or midPoint was upgraded), or the snapshot cannot be read for any reason,
+ * the schemas are parsed from XSD as usual and the snapshot is rewritten.
+ *
+ * Only classes that can legitimately be part of the definitions are accepted when the snapshot is read
+ * (the file could have been replaced by someone else).
+ */
+class SchemaSnapshot {
+
+	private static final Trace LOGGER = TraceManager.getTrace(SchemaSnapshot.class);
+
+	private static final String HEADER = "midPoint prism schema snapshot";
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * Classes that parse the schemas and that are serialized. Their bytecode is a part of the checksum.
+	 */
+	private static final List<Class<?>> CODE_CLASSES = Arrays.asList(SchemaSnapshot.class, SchemaRegistryImpl.class,
+			DomToSchemaProcessor.class, DomToSchemaPostProcessor.class, SchemaDefinitionFactory.class, SchemaProcessorUtil.class,
+			PrismSchemaImpl.class, DefinitionImpl.class, TypeDefinitionImpl.class, ComplexTypeDefinitionImpl.class,
+			SimpleTypeDefinitionImpl.class, ItemDefinitionImpl.class, PrismContainerDefinitionImpl.class,
+			PrismObjectDefinitionImpl.class, PrismPropertyDefinitionImpl.class, PrismReferenceDefinitionImpl.class);
+
+	/**
+	 * Packages (and classes) whose instances can be read from the snapshot.
+	 */
+	private static final List<String> ALLOWED_CLASS_PREFIXES = Arrays.asList("com.evolveum.midpoint.prism.",
+			"com.evolveum.midpoint.util.", "com.evolveum.prism.xml.ns.", "com.evolveum.midpoint.xml.ns.",
+			"java.lang.", "java.util.", "java.math.", "javax.xml.namespace.QName");
+
+	/**
+	 * Definitions of individual schemas, in the order of schema descriptions (null for non-prism schemas).
+	 */
+	static class Content implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		final List<String> namespaces = new ArrayList<>();
+		final List<List<Definition>> definitions = new ArrayList<>();
+		final Map<QName, ComplexTypeDefinition> extensionSchemas = new HashMap<>();
+	}
+
+	static String computeChecksum(List<SchemaDescription> schemaDescriptions) {
+		MessageDigest digest = createDigest();
+		update(digest, HEADER + ":" + FORMAT_VERSION);
+		update(digest, getCodeVersion());
+		for (SchemaDescription description : schemaDescriptions) {
+			update(digest, description.getSourceDescription());
+			update(digest, description.getNamespace());
+			update(digest, String.valueOf(description.isPrismSchema()));
+			Package compileTimePackage = description.getCompileTimeClassesPackage();
+			update(digest, compileTimePackage != null ? compileTimePackage.getName() : null);
+			if (description.canInputStream()) {
+				try (InputStream stream = description.openInputStream()) {
+					digest.update(IOUtils.toByteArray(stream));
+				} catch (IOException e) {
+					throw new IllegalStateException("Couldn't read schema " + description.getSourceDescription() + ": " + e.getMessage(), e);
+				}
+			} else {
+				update(digest, DOMUtil.serializeDOMToString(description.getDomElement()));
+			}
+		}
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	// Definitions are produced by the prism code, so the snapshot must not outlive it (e.g. after an upgrade).
+	// The class files are read as resources, so this works regardless of how the code is packaged (jar, war, directory).
+	private static String getCodeVersion() {
+		MessageDigest digest = createDigest();
+		update(digest, SchemaSnapshot.class.getPackage().getImplementationVersion());
+		for (Class<?> codeClass : CODE_CLASSES) {
+			String resourceName = "/" + codeClass.getName().replace('.', '/') + ".class";
+			try (InputStream stream = codeClass.getResourceAsStream(resourceName)) {
+				if (stream == null) {
+					throw new IllegalStateException("Couldn't find class file of " + codeClass.getName());
+				}
+				digest.update(IOUtils.toByteArray(stream));
+			} catch (IOException e) {
+				throw new IllegalStateException("Couldn't read class file of " + codeClass.getName() + ": " + e.getMessage(), e);
+			}
+		}
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available: " + e.getMessage(), e);
+		}
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	/**
+	 * Returns the content of the snapshot, or null if there is no usable snapshot for given checksum.
+	 */
+	static Content load(File file, String checksum) {
+		if (!file.exists()) {
+			LOGGER.debug("Schema snapshot {} does not exist", file);
+			return null;
+		}
+		try (ObjectInputStream in = new FilteringObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (!HEADER.equals(in.readUTF()) || in.readInt() != FORMAT_VERSION) {
+				LOGGER.info("Schema snapshot {} has unknown format, ignoring it", file);
+				return null;
+			}
+			if (!checksum.equals(in.readUTF())) {
+				LOGGER.info("Schema snapshot {} is out of date (schemas or midPoint code have changed), ignoring it", file);
+				return null;
+			}
+			return (Content) in.readObject();
+		} catch (IOException | ClassNotFoundException | RuntimeException e) {
+			LOGGER.warn("Couldn't read schema snapshot {}, ignoring it: {}", file, e.getMessage(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Accepts only the classes that can be part of the definitions. (java.io.ObjectInputFilter is not available in Java 8.)
+	 */
+	private static class FilteringObjectInputStream extends ObjectInputStream {
+
+		private FilteringObjectInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			if (!isAllowed(desc.getName())) {
+				throw new InvalidClassException(desc.getName(), "Class is not allowed in schema snapshot");
+			}
+			return super.resolveClass(desc);
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+			throw new InvalidClassException("Proxy classes are not allowed in schema snapshot");
+		}
+
+		private boolean isAllowed(String className) {
+			String elementName = className;
+			if (elementName.startsWith("[")) {
+				while (elementName.startsWith("[")) {
+					elementName = elementName.substring(1);
+				}
+				if (!elementName.startsWith("L")) {
+					return true;            // array of primitives
+				}
+				elementName = elementName.substring(1, elementName.length() - 1);
+			}
+			for (String prefix : ALLOWED_CLASS_PREFIXES) {
+				if (elementName.startsWith(prefix)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the snapshot. Failures are only logged, because the snapshot is only an optimization.
+	 * The snapshot is written to a temporary file first, so other nodes sharing the file never see a partial one.
+	 */
+	static void write(File file, String checksum, Content content) {
+		File tempFile = new File(file.getPath() + ".tmp");
+		try {
+			try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeUTF(HEADER);
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(checksum);
+				out.writeObject(content);
+			}
+			if (file.exists() && !file.delete()) {
+				throw new IOException("Couldn't delete the old snapshot");
+			}
+			if (!tempFile.renameTo(file)) {
+				throw new IOException("Couldn't rename " + tempFile + " to " + file);
+			}
+			LOGGER.debug("Schema snapshot written to {} ({} bytes)", file, file.length());
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Couldn't write schema snapshot {}: {}", file, e.getMessage(), e);
+			//noinspection ResultOfMethodCallIgnored
+			tempFile.delete();
+		}
+	}
+}
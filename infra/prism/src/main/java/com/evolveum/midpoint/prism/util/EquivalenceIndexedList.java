@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.prism.util;
+
+import com.evolveum.midpoint.prism.PrismValue;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * List of (prism) values that is able to look up equivalent values without scanning all of them.
+ *
+ * When the list grows above INDEX_THRESHOLD, a hash index (equivalence hash -> values) is built on the first lookup.
+ * The index is kept up to date when values are appended; any other modification (also via iterators or subLists)
+ * makes it stale, and it is rebuilt on the next lookup. Values without a hash (e.g. raw values or containers)
+ * are kept aside and always compared one by one.
+ *
+ * The matchers used for lookups must be consistent with the hash function: values having different hashes
+ * must never match. By default, PrismValue.getEquivalenceHash() is used, so equals, equalsRealValue and
+ * equals(value, ignoreMetadata) comparisons of prism values can be used.
+ *
+ * Otherwise, this is a plain ArrayList (order, duplicates, equals/hashCode).
+ */
+public class EquivalenceIndexedList<T> extends ArrayList<T> {
+
+	public static final int INDEX_THRESHOLD = 32;
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Function<Object, Integer> DEFAULT_HASHER =
+			value -> value instanceof PrismValue ? ((PrismValue) value).getEquivalenceHash() : null;
+
+	private final transient Function<? super T, Integer> hasher;
+
+	// hash -> value or Bucket of values
+	private transient Map<Integer, Object> index;
+	private transient List<T> unhashable;
+	private transient int indexedModCount = -1;
+
+	public EquivalenceIndexedList() {
+		this.hasher = DEFAULT_HASHER;
+	}
+
+	public EquivalenceIndexedList(@NotNull Collection<? extends T> values) {
+		super(values);
+		this.hasher = DEFAULT_HASHER;
+	}
+
+	/**
+	 * Creates a (usually short-lived) list indexed by a custom hash function, e.g. one respecting a matching rule.
+	 */
+	public EquivalenceIndexedList(@NotNull Collection<? extends T> values, @NotNull Function<? super T, Integer> hasher) {
+		super(values);
+		this.hasher = hasher;
+	}
+
+	/**
+	 * Returns a value for which the matcher returns true. The value argument is used only to compute the hash.
+	 */
+	public T findFirst(T value, @NotNull Predicate<? super T> matcher) {
+		Integer hash = value != null ? hash(value) : null;
+		if (hash == null || !ensureIndex()) {
+			for (T existing : this) {
+				if (matcher.test(existing)) {
+					return existing;
+				}
+			}
+			return null;
+		}
+		for (T candidate : getBucket(hash)) {
+			if (matcher.test(candidate)) {
+				return candidate;
+			}
+		}
+		for (T candidate : unhashable) {
+			if (matcher.test(candidate)) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns all the values for which the matcher returns true (in no particular order).
+	 */
+	@NotNull
+	public List<T> findAll(T value, @NotNull Predicate<? super T> matcher) {
+		Collection<T> candidates;
+		Integer hash = value != null ? hash(value) : null;
+		if (hash == null || !ensureIndex()) {
+			candidates = this;
+		} else {
+			candidates = new ArrayList<>(getBucket(hash));
+			candidates.addAll(unhashable);
+		}
+		List<T> rv = new ArrayList<>();
+		for (T candidate : candidates) {
+			if (matcher.test(candidate)) {
+				rv.add(candidate);
+			}
+		}
+		return rv;
+	}
+
+	/**
+	 * Removes given values (compared by identity) in a single pass.
+	 */
+	public boolean removeIdentical(@NotNull Collection<? extends T> values) {
+		if (values.isEmpty()) {
+			return false;
+		}
+		Set<Object> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+		toRemove.addAll(values);
+		return removeIf(toRemove::contains);
+	}
+
+	/**
+	 * To be called when a value in the list changed in a way that could change its hash.
+	 */
+	public void invalidateIndex() {
+		dropIndex();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean contains(Object o) {
+		if (o == null) {
+			return super.contains(null);
+		}
+		return findFirst((T) o, o::equals) != null;
+	}
+
+	@Override
+	public boolean add(T value) {
+		boolean indexUpToDate = isIndexUpToDate();
+		super.add(value);
+		if (indexUpToDate) {
+			addToIndex(value);
+			indexedModCount = modCount;
+		}
+		return true;
+	}
+
+	@Override
+	public T set(int i, T value) {
+		T previous = super.set(i, value);
+		modCount++;         // not a structural modification for ArrayList, but the index gets stale
+		return previous;
+	}
+
+	@Override
+	public Object clone() {
+		EquivalenceIndexedList<?> clone = (EquivalenceIndexedList<?>) super.clone();
+		clone.dropIndex();
+		return clone;
+	}
+
+	private Integer hash(T value) {
+		return hasher != null ? hasher.apply(value) : null;
+	}
+
+	private boolean isIndexUpToDate() {
+		return index != null && indexedModCount == modCount;
+	}
+
+	private boolean ensureIndex() {
+		if (size() < INDEX_THRESHOLD) {
+			dropIndex();
+			return false;
+		}
+		if (!isIndexUpToDate()) {
+			index = new HashMap<>(size() * 2);
+			unhashable = new ArrayList<>();
+			for (T value : this) {
+				addToIndex(value);
+			}
+			indexedModCount = modCount;
+		}
+		return true;
+	}
+
+	private void dropIndex() {
+		index = null;
+		unhashable = null;
+		indexedModCount = -1;
+	}
+
+	private void addToIndex(T value) {
+		Integer hash = value != null ? hash(value) : null;
+		if (hash == null) {
+			unhashable.add(value);
+		} else {
+			Object existing = index.putIfAbsent(hash, value);
+			if (existing instanceof Bucket) {
+				((Bucket) existing).add(value);
+			} else if (existing != null) {
+				Bucket bucket = new Bucket();
+				bucket.add(existing);
+				bucket.add(value);
+				index.put(hash, bucket);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Collection<T> getBucket(int hash) {
+		Object existing = index.get(hash);
+		if (existing == null) {
+			return Collections.emptyList();
+		} else if (existing instanceof Bucket) {
+			return (Collection<T>) existing;
+		} else {
+			return Collections.singletonList((T) existing);
+		}
+	}
+
+	/**
+	 * Values sharing the same hash. A dedicated class, so it is not confused with values that are lists themselves.
+	 */
+	private static class Bucket extends ArrayList<Object> {
+	}
+}
@@ -129,6 +129,11 @@ public class XPathType {
 //    	return super.equals(obj);
     }
 
+    @Override
+    public int hashCode() {
+    	return content != null ? content.hashCode() : 0;
+    }
+
     @Override
     public String toString() {
     	return "[path: "+content+"]";
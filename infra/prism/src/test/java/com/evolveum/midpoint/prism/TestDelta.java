@@ -19,6 +19,7 @@ import static com.evolveum.midpoint.prism.PrismInternalTestUtil.*;
 import static org.testng.AssertJUnit.*;
 
 import java.util.Collection;
+import java.util.Collections;
 
 import javax.xml.datatype.XMLGregorianCalendar;
 
@@ -30,15 +31,22 @@ import org.testng.annotations.Test;
 import com.evolveum.midpoint.prism.foo.ActivationType;
 import com.evolveum.midpoint.prism.foo.AssignmentType;
 import com.evolveum.midpoint.prism.foo.UserType;
+import com.evolveum.midpoint.prism.match.DistinguishedNameMatchingRule;
+import com.evolveum.midpoint.prism.match.MatchingRule;
+import com.evolveum.midpoint.prism.match.MatchingRuleRegistry;
+import com.evolveum.midpoint.prism.match.MatchingRuleRegistryFactory;
+import com.evolveum.midpoint.prism.match.PolyStringNormMatchingRule;
 import com.evolveum.midpoint.prism.path.IdItemPathSegment;
 import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.path.NameItemPathSegment;
 import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.util.EquivalenceIndexedList;
 import com.evolveum.midpoint.prism.util.PrismAsserts;
 import com.evolveum.midpoint.prism.util.PrismTestUtil;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
 import com.evolveum.midpoint.util.DOMUtil;
 import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
 
 /**
  * @author semancik
@@ -1839,4 +1847,52 @@ public class TestDelta extends AbstractPrismTest {
         assertAssignmentReplace(narrowedDelta, 0);
 	}
 
+	/**
+	 * Narrowing a delta against a large multi-valued property (indexed by equivalence hash) must respect
+	 * matching rules whose normalization is not consistent with matching.
+	 */
+	@Test
+	public void testPropertyDeltaNarrowMatchingRule() throws Exception {
+		final String TEST_NAME = "testPropertyDeltaNarrowMatchingRule";
+		displayTestTitle(TEST_NAME);
+
+		// GIVEN
+		MatchingRuleRegistry registry = MatchingRuleRegistryFactory.createRegistry();
+		MatchingRule<String> dnRule = registry.getMatchingRule(DistinguishedNameMatchingRule.NAME, DOMUtil.XSD_STRING);
+		MatchingRule<String> defaultRule = registry.getMatchingRule(null, DOMUtil.XSD_STRING);
+		MatchingRule<PolyString> polyStringNormRule = registry.getMatchingRule(PolyStringNormMatchingRule.NAME, PolyStringType.COMPLEX_TYPE);
+
+		PrismObject<UserType> user = createUserFoo();
+		PrismProperty<String> additionalNames = user.findOrCreateProperty(UserType.F_ADDITIONAL_NAMES);
+		for (int i = 0; i < EquivalenceIndexedList.INDEX_THRESHOLD + 8; i++) {
+			additionalNames.add(new PrismPropertyValue<>("cn=user" + i + ",dc=example,dc=com"));
+		}
+
+		PropertyDelta<String> delta = PropertyDelta.createDelta(new ItemPath(UserType.F_ADDITIONAL_NAMES), user.getDefinition());
+		delta.addValueToAdd(new PrismPropertyValue<>("CN=user5, DC=example, DC=com"));
+		delta.addValueToAdd(new PrismPropertyValue<>("cn=user7,dc=example,dc=com"));
+		delta.addValueToAdd(new PrismPropertyValue<>("cn=other,dc=example,dc=com"));
+		display("delta", delta);
+
+		// WHEN
+		displayWhen(TEST_NAME);
+		PropertyDelta<String> narrowedByDn = delta.narrow(user, dnRule);
+		PropertyDelta<String> narrowedByDefault = delta.narrow(user, defaultRule);
+
+		// THEN
+		displayThen(TEST_NAME);
+		display("Narrowed delta (DN)", narrowedByDn);
+		display("Narrowed delta (default)", narrowedByDefault);
+		ItemPath path = new ItemPath(UserType.F_ADDITIONAL_NAMES);
+		PrismAsserts.assertPropertyAdd(Collections.singletonList(narrowedByDn), path, "cn=other,dc=example,dc=com");
+		PrismAsserts.assertPropertyAdd(Collections.singletonList(narrowedByDefault), path,
+				"CN=user5, DC=example, DC=com", "cn=other,dc=example,dc=com");
+		assertNull("DN rule value has equivalence hash",
+				new PrismPropertyValue<>("cn=user5,dc=example,dc=com").getEquivalenceHash(dnRule));
+		assertNull("PolyString norm rule value has equivalence hash",
+				new PrismPropertyValue<>(new PolyString("Foo", "foo")).getEquivalenceHash(polyStringNormRule));
+		assertNotNull("Default rule value has no equivalence hash",
+				new PrismPropertyValue<>("cn=user5,dc=example,dc=com").getEquivalenceHash(defaultRule));
+	}
+
 }
@@ -16,14 +16,28 @@
 package com.evolveum.midpoint.prism;
 
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.*;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.xml.namespace.QName;
 
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Test;
 
+import com.evolveum.midpoint.prism.delta.DeltaSetTriple;
+import com.evolveum.midpoint.prism.delta.PropertyDelta;
 import com.evolveum.midpoint.prism.foo.AssignmentType;
 import com.evolveum.midpoint.prism.foo.UserType;
+import com.evolveum.midpoint.prism.match.MatchingRule;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.util.DOMUtil;
 import com.evolveum.midpoint.util.PrettyPrinter;
 
 /**
@@ -33,6 +47,8 @@ import com.evolveum.midpoint.util.PrettyPrinter;
 public class TestPerformance {
 
 	private static final int ITERATIONS = 10000;
+	private static final int DEFINITIONS = 300;
+	private static final int VALUES = 5000;
 
 
 	@BeforeSuite
@@ -98,4 +114,137 @@ public class TestPerformance {
 		System.out.println(user.debugDump());
 	}
 
+	/**
+	 * Item definition lookups in a large complex type (like an object class of a big resource schema),
+	 * without and with the lookup index. Results must be the same.
+	 */
+	@Test
+	public void testPerfFindItemDefinition() throws Exception {
+		final String TEST_NAME = "testPerfFindItemDefinition";
+		PrismInternalTestUtil.displayTestTitle(TEST_NAME);
+
+		// GIVEN
+		PrismContext ctx = constructInitializedPrismContext();
+		PrismObjectDefinition<UserType> userDefinition = getFooSchema(ctx).findObjectDefinitionByElementName(new QName(NS_FOO,"user"));
+		assertTrue("Lookup index not enabled for user definition",
+				((ComplexTypeDefinitionImpl) userDefinition.getComplexTypeDefinition()).isLookupIndexEnabled());
+
+		ComplexTypeDefinitionImpl ctd = new ComplexTypeDefinitionImpl(new QName(NS_FOO, "LargeObjectClass"), ctx);
+		for (int i = 0; i < DEFINITIONS; i++) {
+			ctd.createPropertyDefinition(new QName(NS_FOO, "attribute" + i), DOMUtil.XSD_STRING);
+		}
+		QName[] names = new QName[DEFINITIONS + 3];
+		for (int i = 0; i < DEFINITIONS; i++) {
+			names[i] = i % 2 == 0 ? new QName(NS_FOO, "attribute" + i) : new QName("attribute" + i);
+		}
+		names[DEFINITIONS] = new QName("http://other", "attribute1");
+		names[DEFINITIONS + 1] = new QName(NS_FOO, "nonexistent");
+		names[DEFINITIONS + 2] = new QName("nonexistent");
+
+		// WHEN
+		ItemDefinition[] unindexed = new ItemDefinition[names.length];
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			for (int j = 0; j < names.length; j++) {
+				unindexed[j] = ctd.findItemDefinition(names[j]);
+			}
+		}
+		long unindexedTime = System.nanoTime() - start;
+
+		ctd.enableLookupIndex();
+		ItemDefinition[] indexed = new ItemDefinition[names.length];
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			for (int j = 0; j < names.length; j++) {
+				indexed[j] = ctd.findItemDefinition(names[j]);
+			}
+		}
+		long indexedTime = System.nanoTime() - start;
+
+		// THEN
+		System.out.println("Lookups without index: " + unindexedTime / 1000000 + " ms, with index: " + indexedTime / 1000000 + " ms");
+		for (int j = 0; j < names.length; j++) {
+			assertSame("Different result for " + names[j], unindexed[j], indexed[j]);
+		}
+		assertNotNull("Unqualified lookup failed", indexed[1]);
+		assertNull("Lookup with wrong namespace succeeded", indexed[DEFINITIONS]);
+		assertNull("Lookup of nonexistent item succeeded", indexed[DEFINITIONS + 2]);
+
+		ctd.createPropertyDefinition(new QName(NS_FOO, "added"), DOMUtil.XSD_STRING);
+		assertNotNull("Definition added after the index was built not found", ctd.findItemDefinition(new QName("added")));
+	}
+
+	/**
+	 * Large multi-valued property and reference (values are looked up via equivalence hash index).
+	 */
+	@Test
+	public void testPerfLargeMultivaluedItems() throws Exception {
+		final String TEST_NAME = "testPerfLargeMultivaluedItems";
+		PrismInternalTestUtil.displayTestTitle(TEST_NAME);
+
+		// GIVEN
+		PrismContext ctx = constructInitializedPrismContext();
+		PrismObjectDefinition<UserType> userDefinition = getFooSchema(ctx).findObjectDefinitionByElementName(new QName(NS_FOO,"user"));
+		PrismObject<UserType> user = userDefinition.instantiate();
+		PrismProperty<String> additionalNames = user.findOrCreateProperty(UserType.F_ADDITIONAL_NAMES);
+		PrismReference accountRef = user.findOrCreateReference(UserType.F_ACCOUNT_REF);
+
+		// WHEN
+		long start = System.nanoTime();
+		for (int i = 0; i < VALUES; i++) {
+			additionalNames.add(new PrismPropertyValue<>("name" + i));
+			accountRef.add(new PrismReferenceValue("oid" + i));
+		}
+		for (int i = 0; i < VALUES; i++) {
+			assertFalse("Duplicate value added", additionalNames.add(new PrismPropertyValue<>("name" + i)));
+			assertFalse("Duplicate reference added", accountRef.add(new PrismReferenceValue("oid" + i)));
+		}
+		long addTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < VALUES; i += 2) {
+			assertTrue("Value not removed", additionalNames.remove(new PrismPropertyValue<>("name" + i)));
+			assertTrue("Reference not removed", accountRef.remove(new PrismReferenceValue("oid" + i)));
+		}
+		long removeTime = System.nanoTime() - start;
+
+		// THEN
+		System.out.println("Adding " + VALUES + " values (twice): " + addTime / 1000000 + " ms, removing half of them: "
+				+ removeTime / 1000000 + " ms");
+		assertEquals("Wrong # of values", VALUES / 2, additionalNames.size());
+		assertEquals("Wrong # of references", VALUES / 2, accountRef.size());
+		assertTrue("Value not found", additionalNames.contains(new PrismPropertyValue<>("name1")));
+		assertFalse("Removed value found", additionalNames.contains(new PrismPropertyValue<>("name0")));
+		assertNotNull("Reference not found", accountRef.findValue(new PrismReferenceValue("oid1"), true));
+
+		// values modified after being added must be still found
+		accountRef.getValues().get(0).setOid("changed");
+		assertTrue("Modified reference not found", accountRef.containsEquivalentValue(new PrismReferenceValue("changed")));
+		assertFalse("Reference found under original OID", accountRef.containsEquivalentValue(new PrismReferenceValue("oid1")));
+
+		// WHEN
+		PropertyDelta<String> delta = PropertyDelta.createDelta(new ItemPath(UserType.F_ADDITIONAL_NAMES), userDefinition);
+		for (int i = 0; i < VALUES; i++) {
+			delta.addValueToAdd(new PrismPropertyValue<>("name" + i));
+		}
+		start = System.nanoTime();
+		PropertyDelta<String> narrowed = delta.narrow(user, (MatchingRule<String>) null);
+		long narrowTime = System.nanoTime() - start;
+
+		List<PrismReferenceValue> refsNew = new ArrayList<>();
+		for (int i = 0; i < VALUES; i++) {
+			refsNew.add(new PrismReferenceValue("oid" + (i + VALUES / 2)));
+		}
+		start = System.nanoTime();
+		DeltaSetTriple<PrismReferenceValue> triple = DeltaSetTriple.diff(accountRef.getValues(), refsNew);
+		long diffTime = System.nanoTime() - start;
+
+		// THEN
+		System.out.println("Narrowing delta: " + narrowTime / 1000000 + " ms, diff: " + diffTime / 1000000 + " ms");
+		assertEquals("Wrong # of values to add in narrowed delta", VALUES / 2, narrowed.getValuesToAdd().size());
+		assertFalse("Existing value left in narrowed delta", narrowed.isValueToAdd(new PrismPropertyValue<>("name1")));
+		assertEquals("Wrong # of values in minus set", VALUES / 4, triple.getMinusSet().size());
+		assertEquals("Wrong # of values in zero set", VALUES / 4, triple.getZeroSet().size());
+		assertEquals("Wrong # of values in plus set", VALUES - VALUES / 4, triple.getPlusSet().size());
+	}
 }
@@ -21,6 +21,7 @@ import static org.testng.AssertJUnit.assertTrue;
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.*;
 import static org.testng.AssertJUnit.assertNotNull;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Map;
 
@@ -40,6 +41,7 @@ import com.evolveum.midpoint.prism.foo.UserType;
 import com.evolveum.midpoint.prism.schema.PrismSchema;
 import com.evolveum.midpoint.prism.schema.SchemaDescription;
 import com.evolveum.midpoint.prism.schema.SchemaRegistry;
+import com.evolveum.midpoint.prism.schema.SchemaRegistryImpl;
 import com.evolveum.midpoint.prism.util.PrismAsserts;
 import com.evolveum.midpoint.prism.xml.DynamicNamespacePrefixMapper;
 import com.evolveum.midpoint.util.DOMUtil;
@@ -265,6 +267,40 @@ public class TestPrismContext {
 		assertNotNull("No foo XSD DOM", fooXsd);
 	}
 
+	@Test
+	public void testSchemaSnapshot() throws Exception {
+		System.out.println("===[ testSchemaSnapshot ]===");
+
+		// GIVEN
+		File snapshotFile = new File("target/schema-snapshot-test.ser");
+		snapshotFile.delete();
+		PrismContextImpl parsedContext = constructPrismContext();
+		((SchemaRegistryImpl) parsedContext.getSchemaRegistry()).setSchemaSnapshotFile(snapshotFile);
+		parsedContext.initialize();
+		assertFalse("Schemas were loaded from non-existing snapshot", ((SchemaRegistryImpl) parsedContext.getSchemaRegistry()).isLoadedFromSnapshot());
+		assertTrue("Snapshot was not written", snapshotFile.exists());
+
+		// WHEN
+		PrismContextImpl loadedContext = constructPrismContext();
+		((SchemaRegistryImpl) loadedContext.getSchemaRegistry()).setSchemaSnapshotFile(snapshotFile);
+		loadedContext.initialize();
+
+		// THEN
+		assertTrue("Schemas were not loaded from snapshot", ((SchemaRegistryImpl) loadedContext.getSchemaRegistry()).isLoadedFromSnapshot());
+		PrismObjectDefinition<UserType> parsedUserDefinition = parsedContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(UserType.class);
+		PrismObjectDefinition<UserType> loadedUserDefinition = loadedContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(UserType.class);
+		assertNotNull("No user definition in snapshot", loadedUserDefinition);
+		assertEquals("Wrong user definition from snapshot", parsedUserDefinition, loadedUserDefinition);
+		assertEquals("Wrong prism context in definition", loadedContext, loadedUserDefinition.getPrismContext());
+
+		PrismPropertyDefinition stringTypeDef = loadedContext.getSchemaRegistry().findPropertyDefinitionByElementName(EXTENSION_STRING_TYPE_ELEMENT);
+		PrismAsserts.assertDefinition(stringTypeDef, EXTENSION_STRING_TYPE_ELEMENT, DOMUtil.XSD_STRING, 0, -1);
+
+		PrismObject<UserType> user = loadedContext.parseObject(USER_JACK_FILE_XML);
+		user.checkConsistence();
+		assertEquals("Wrong user parsed with schemas from snapshot", parsedContext.parseObject(USER_JACK_FILE_XML), user);
+	}
+
 	// This is not supposed to work with foo schema. It container ObjectReferenceType which does
 	// not survive roundtrip
 //	@Test
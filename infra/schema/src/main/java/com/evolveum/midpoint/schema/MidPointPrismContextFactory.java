@@ -101,9 +101,17 @@ public class MidPointPrismContextFactory implements PrismContextFactory {
 		schemaRegistry.setNamespacePrefixMapper(new GlobalDynamicNamespacePrefixMapper());
 		registerBuiltinSchemas(schemaRegistry);
         registerExtensionSchemas(schemaRegistry);
+		schemaRegistry.setSchemaSnapshotFile(getSchemaSnapshotFile());
 		return schemaRegistry;
 	}
 
+	/**
+	 * File to store parsed schemas in, to speed up the next start. Null means that no snapshot is used.
+	 */
+	protected File getSchemaSnapshotFile() {
+		return null;
+	}
+
     protected void registerExtensionSchemas(SchemaRegistryImpl schemaRegistry) throws SchemaException, FileNotFoundException {
     	if (extraSchemaDir != null && extraSchemaDir.exists()) {
     		schemaRegistry.registerPrismSchemasFromDirectory(extraSchemaDir);
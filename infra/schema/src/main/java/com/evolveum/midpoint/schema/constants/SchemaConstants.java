@@ -288,6 +288,7 @@ public abstract class SchemaConstants {
 			NS_MODEL_EXTENSION, "freshnessInterval"); // unused? TODO consider
 														// removing
 	public static final QName MODEL_EXTENSION_DRY_RUN = new QName(NS_MODEL_EXTENSION, "dryRun");
+	public static final QName MODEL_EXTENSION_SKIP_UNCHANGED = new QName(NS_MODEL_EXTENSION, "skipUnchanged");
         public static final QName SYNC_TOKEN_RETRY_UNHANDLED = new QName(NS_MODEL_EXTENSION, "retryLiveSyncErrors");
 	public static final QName MODEL_EXTENSION_FINISH_OPERATIONS_ONLY = new QName(NS_MODEL_EXTENSION, "finishOperationsOnly");
 	public static final QName MODEL_EXTENSION_KIND = new QName(NS_MODEL_EXTENSION, "kind");
@@ -295,6 +296,7 @@ public abstract class SchemaConstants {
 	public static final QName MODEL_EXTENSION_OBJECTCLASS = new QName(NS_MODEL_EXTENSION, "objectclass");
 	public static final QName MODEL_EXTENSION_LAST_SCAN_TIMESTAMP_PROPERTY_NAME = new QName(
 			NS_MODEL_EXTENSION, "lastScanTimestamp");
+	public static final QName MODEL_EXTENSION_TRIGGER_LOOK_AHEAD = new QName(NS_MODEL_EXTENSION, "triggerLookAhead");
 
 	public static final String NS_MODEL_DISABLE_REASON = NS_MODEL + "/disableReason";
 	public static final String MODEL_DISABLE_REASON_EXPLICIT =
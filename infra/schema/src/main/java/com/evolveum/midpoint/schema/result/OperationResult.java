@@ -15,10 +15,14 @@
  */
 package com.evolveum.midpoint.schema.result;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import javax.xml.namespace.QName;
 
@@ -42,9 +46,11 @@ import com.evolveum.midpoint.schema.constants.ObjectTypes;
 import com.evolveum.midpoint.schema.util.ParamsTypeUtil;
 import com.evolveum.midpoint.util.exception.CommonException;
 import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationResultRecordingLevelType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationResultType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.SingleLocalizableMessageType;
 
@@ -65,6 +71,14 @@ import static org.apache.commons.collections4.CollectionUtils.emptyIfNull;
  * in the invocations, retry or otherwise compensate for the errors or decide
  * how severe the error was and it is possible to proceed.
  *
+ * The amount of information recorded is driven by the recording level (see {@link OperationResultRecordingLevelType}).
+ * Subresults inherit the level of their parent; root results get the level set for the current thread
+ * (normally the level configured for the task being executed). On minimal and off levels, parameters,
+ * context, returns and details are not recorded at all, and subresults that carry no error information
+ * are not kept: a subresult is added to its parent only when it gets such a status (e.g. an error), and closed
+ * subresults that carry no error information are discarded. Parameters that are expensive to compute should be added as lazy ones
+ * (e.g. {@link #addLazyParam(String, Supplier)}); they are rendered only when the result is really looked at.
+ *
  * @author lazyman
  * @author Radovan Semancik
  *
@@ -85,6 +99,8 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 
     private static int subresultStripThreshold = DEFAULT_SUBRESULT_STRIP_THRESHOLD;
 
+	private static final ThreadLocal<OperationResultRecordingLevelType> THREAD_RECORDING_LEVEL = new ThreadLocal<>();
+
 	public static final String CONTEXT_IMPLEMENTATION_CLASS = "implementationClass";
 	public static final String CONTEXT_PROGRESS = "progress";
 	public static final String CONTEXT_OID = "oid";
@@ -117,6 +133,16 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 	private Map<String, Collection<String>> context;
 	private Map<String, Collection<String>> returns;
 
+	// Not rendered yet. Rendered into the maps above when they are accessed (or when the result is serialized).
+	private transient Map<String, Supplier<?>> lazyParams;
+	private transient Map<String, Supplier<?>> lazyContext;
+	private transient Map<String, Supplier<?>> lazyReturns;
+
+	@NotNull private OperationResultRecordingLevelType recordingLevel;
+
+	// On minimal and off levels: the parent this result is added to as soon as it gets a status worth keeping.
+	private transient OperationResult pendingParent;
+
 	private long token;
 	private String messageCode;
 	private String message;
@@ -212,7 +238,7 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 		this.userFriendlyMessage = userFriendlyMessage;
 		this.cause = cause;
 		this.subresults = subresults;
-		this.details = new ArrayList<>();
+		this.recordingLevel = getThreadRecordingLevel();
 	}
 
 	public static OperationResult keepRootOnly(OperationResult result) {
@@ -225,7 +251,13 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 
 	public OperationResult createSubresult(String operation) {
 		OperationResult subresult = new OperationResult(operation);
-		addSubresult(subresult);
+		subresult.recordingLevel = recordingLevel;
+		if (isRecordingDetails()) {
+			addSubresult(subresult);
+		} else {
+			// attached only when it gets a status worth keeping (see setStatus), so successful subresults are never stored
+			subresult.pendingParent = this;
+		}
 		return subresult;
 	}
 
@@ -250,6 +282,49 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 		this.asynchronousOperationReference = asynchronousOperationReference;
 	}
 
+	@NotNull
+	public OperationResultRecordingLevelType getRecordingLevel() {
+		return recordingLevel;
+	}
+
+	/**
+	 * Sets the recording level for this result. Subresults created from now on inherit it.
+	 * Null means the default (normal) level.
+	 */
+	public void setRecordingLevel(OperationResultRecordingLevelType recordingLevel) {
+		this.recordingLevel = recordingLevel != null ? recordingLevel : OperationResultRecordingLevelType.NORMAL;
+	}
+
+	/**
+	 * Are parameters, context, returns and details recorded?
+	 */
+	public boolean isRecordingDetails() {
+		return recordingLevel == OperationResultRecordingLevelType.NORMAL || recordingLevel == OperationResultRecordingLevelType.FULL;
+	}
+
+	/**
+	 * Returns the recording level for root results created in the current thread.
+	 */
+	@NotNull
+	public static OperationResultRecordingLevelType getThreadRecordingLevel() {
+		OperationResultRecordingLevelType level = THREAD_RECORDING_LEVEL.get();
+		return level != null ? level : OperationResultRecordingLevelType.NORMAL;
+	}
+
+	/**
+	 * Sets the recording level for root results created in the current thread. Null means the default (normal) level.
+	 * Returns the previous value (possibly null), so it can be restored afterwards.
+	 */
+	public static OperationResultRecordingLevelType setThreadRecordingLevel(OperationResultRecordingLevelType level) {
+		OperationResultRecordingLevelType previous = THREAD_RECORDING_LEVEL.get();
+		if (level != null) {
+			THREAD_RECORDING_LEVEL.set(level);
+		} else {
+			THREAD_RECORDING_LEVEL.remove();
+		}
+		return previous;
+	}
+
 	/**
 	 * This method partially duplicates functionality of computeStatus. However, computeStatus
 	 * currently does not propagate taskOid from tasks switched to background, because switchToBackground
@@ -384,9 +459,33 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
     }
 
 	public void addSubresult(OperationResult subresult) {
+		if (!isRecordingDetails()) {
+			discardUninterestingSubresults();
+		}
 		getSubresults().add(subresult);
 	}
 
+	/**
+	 * On minimal level, removes closed subresults that carry no error information (success, not applicable).
+	 * On off level, only fatal and partial errors are kept (plus subresults that are not closed yet).
+	 */
+	private void discardUninterestingSubresults() {
+		if (subresults == null) {
+			return;
+		}
+		subresults.removeIf(sub -> sub == null || !isInteresting(sub));
+	}
+
+	private boolean isInteresting(OperationResult sub) {
+		OperationResultStatus subStatus = sub.getStatus();
+		if (recordingLevel == OperationResultRecordingLevelType.OFF) {
+			return subStatus == OperationResultStatus.FATAL_ERROR || subStatus == OperationResultStatus.PARTIAL_ERROR
+					|| subStatus == OperationResultStatus.UNKNOWN || subStatus == OperationResultStatus.IN_PROGRESS;
+		} else {
+			return subStatus != OperationResultStatus.SUCCESS && subStatus != OperationResultStatus.NOT_APPLICABLE;
+		}
+	}
+
 	public OperationResult findSubresult(String operation) {
 		if (subresults == null) {
 			return null;
@@ -423,6 +522,11 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 
 	public void setStatus(OperationResultStatus status) {
 		this.status = status;
+		if (pendingParent != null && pendingParent.isInteresting(this)) {
+			OperationResult parent = pendingParent;
+			pendingParent = null;
+			parent.addSubresult(this);
+		}
 	}
 
 	/**
@@ -540,9 +644,16 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 	 * Computes operation result status based on subtask status.
 	 */
 	public void computeStatus() {
+		computeStatusInternal();
+		if (!isRecordingDetails()) {
+			discardUninterestingSubresults();
+		}
+	}
+
+	private void computeStatusInternal() {
 		if (getSubresults().isEmpty()) {
 			if (status == OperationResultStatus.UNKNOWN) {
-				status = OperationResultStatus.SUCCESS;
+				setStatus(OperationResultStatus.SUCCESS);
 			}
 			return;
 		}
@@ -563,7 +674,7 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 				allNotApplicable = false;
 			}
 			if (sub.getStatus() == OperationResultStatus.FATAL_ERROR) {
-				status = OperationResultStatus.FATAL_ERROR;
+				setStatus(OperationResultStatus.FATAL_ERROR);
 				if (message == null) {
 					message = sub.getMessage();
 				} else {
@@ -573,7 +684,7 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 				return;
 			}
 			if (sub.getStatus() == OperationResultStatus.IN_PROGRESS) {
-				status = OperationResultStatus.IN_PROGRESS;
+				setStatus(OperationResultStatus.IN_PROGRESS);
 				if (message == null) {
 					message = sub.getMessage();
 				} else {
@@ -611,11 +722,11 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 		}
 
 		if (allNotApplicable && !getSubresults().isEmpty()) {
-			status = OperationResultStatus.NOT_APPLICABLE;
+			setStatus(OperationResultStatus.NOT_APPLICABLE);
 		} else if (allSuccess && !getSubresults().isEmpty()) {
-			status = OperationResultStatus.SUCCESS;
+			setStatus(OperationResultStatus.SUCCESS);
 		} else {
-			status = newStatus;
+			setStatus(newStatus);
 			if (message == null) {
 				message = newMessage;
 			} else {
@@ -661,7 +772,7 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 	public void computeStatusComposite() {
 		if (getSubresults().isEmpty()) {
 			if (status == OperationResultStatus.UNKNOWN) {
-				status = OperationResultStatus.NOT_APPLICABLE;
+				setStatus(OperationResultStatus.NOT_APPLICABLE);
 			}
 			return;
 		}
@@ -725,19 +836,19 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 		}
 
 		if (allNotApplicable) {
-			status = OperationResultStatus.NOT_APPLICABLE;
+			setStatus(OperationResultStatus.NOT_APPLICABLE);
 		} else if (allFatalError) {
-            status = OperationResultStatus.FATAL_ERROR;
+            setStatus(OperationResultStatus.FATAL_ERROR);
         } else if (hasInProgress) {
-            status = OperationResultStatus.IN_PROGRESS;
+            setStatus(OperationResultStatus.IN_PROGRESS);
         } else if (hasError) {
-            status = OperationResultStatus.PARTIAL_ERROR;
+            setStatus(OperationResultStatus.PARTIAL_ERROR);
         } else if (hasWarning) {
-            status = OperationResultStatus.WARNING;
+            setStatus(OperationResultStatus.WARNING);
         } else if (hasHandledError) {
-            status = OperationResultStatus.HANDLED_ERROR;
+            setStatus(OperationResultStatus.HANDLED_ERROR);
         } else {
-            status = OperationResultStatus.SUCCESS;
+            setStatus(OperationResultStatus.SUCCESS);
         }
 	}
 
@@ -746,7 +857,7 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 		String origMessage = message;
 		computeStatus();
 		OperationResultStatus computedStatus = status;
-		status = origStatus;
+		setStatus(origStatus);
 		message = origMessage;
 		return computedStatus;
 	}
@@ -789,7 +900,7 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 
 	public void recordNotApplicableIfUnknown() {
 		if (isUnknown()) {
-			status = OperationResultStatus.NOT_APPLICABLE;
+			setStatus(OperationResultStatus.NOT_APPLICABLE);
 		}
 	}
 
@@ -805,6 +916,10 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 		if (params == null) {
 			params = new HashMap<>();
 		}
+		if (lazyParams != null) {
+			renderLazyValues(lazyParams, params);
+			lazyParams = null;
+		}
 		return params;
 	}
 
@@ -827,31 +942,52 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 	}
 
 	public void addParam(String name, String value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getParams().put(name, collectionize(value));
 	}
 
 	public void addParam(String name, PrismObject<? extends ObjectType> value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getParams().put(name, collectionize(stringify(value)));
 	}
 
 	public void addParam(String name, ObjectType value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getParams().put(name, collectionize(stringify(value)));
 	}
 
 	public void addParam(String name, boolean value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getParams().put(name, collectionize(stringify(value)));
 	}
 
 	public void addParam(String name, long value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getParams().put(name, collectionize(stringify(value)));
 	}
 
 	public void addParam(String name, int value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getParams().put(name, collectionize(stringify(value)));
 	}
 
 	@SuppressWarnings("unchecked")
 	public void addParam(String name, Class<?> value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		if (ObjectType.class.isAssignableFrom(value)) {
 			getParams().put(name, collectionize(ObjectTypes.getObjectType((Class<? extends ObjectType>)value).getObjectTypeUri()));
 		} else {
@@ -860,67 +996,130 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 	}
 
 	public void addParam(String name, QName value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getParams().put(name, collectionize(value == null ? null : QNameUtil.qNameToUri(value)));
 	}
 
 	public void addParam(String name, PolyString value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getParams().put(name, collectionize(value == null ? null : value.getOrig()));
 	}
 
 	public void addParam(String name, ObjectQuery value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getParams().put(name, collectionize(stringify(value)));
 	}
 
 	public void addParam(String name, ObjectDelta<?> value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getParams().put(name, collectionize(stringify(value)));
 	}
 
 
 	public void addParam(String name, String... values) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getParams().put(name, collectionize(values));
 	}
 
 	public void addArbitraryObjectAsParam(String paramName, Object paramValue) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getParams().put(paramName, collectionize(stringify(paramValue)));
     }
 
     public void addArbitraryObjectCollectionAsParam(String name, Collection<?> value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getParams().put(name, stringifyCol(value));
     }
 
+	/**
+	 * Adds a parameter whose value is computed (and converted to string) only when the parameters are really needed,
+	 * e.g. when the result is stored, displayed or dumped. Collections are rendered value by value.
+	 */
+	public void addLazyParam(String name, Supplier<?> valueSupplier) {
+		if (!isRecordingDetails()) {
+			return;
+		}
+		if (lazyParams == null) {
+			lazyParams = new LinkedHashMap<>();
+		}
+		lazyParams.put(name, valueSupplier);
+		if (params != null) {
+			params.remove(name);
+		}
+	}
+
     public Map<String, Collection<String>> getContext() {
 		if (context == null) {
 			context = new HashMap<>();
 		}
+		if (lazyContext != null) {
+			renderLazyValues(lazyContext, context);
+			lazyContext = null;
+		}
 		return context;
 	}
 
 	public void addContext(String name, String value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getContext().put(name, collectionize(value));
 	}
 
 	public void addContext(String name, PrismObject<? extends ObjectType> value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getContext().put(name, collectionize(stringify(value)));
 	}
 
 	public void addContext(String name, ObjectType value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getContext().put(name, collectionize(stringify(value)));
 	}
 
 	public void addContext(String name, boolean value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getContext().put(name, collectionize(stringify(value)));
 	}
 
 	public void addContext(String name, long value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getContext().put(name, collectionize(stringify(value)));
 	}
 
 	public void addContext(String name, int value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getContext().put(name, collectionize(stringify(value)));
 	}
 
 	@SuppressWarnings("unchecked")
 	public void addContext(String name, Class<?> value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		if (ObjectType.class.isAssignableFrom(value)) {
 			getContext().put(name, collectionize(ObjectTypes.getObjectType((Class<? extends ObjectType>)value).getObjectTypeUri()));
 		} else {
@@ -929,38 +1128,80 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 	}
 
 	public void addContext(String name, QName value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getContext().put(name, collectionize(value == null ? null : QNameUtil.qNameToUri(value)));
 	}
 
 	public void addContext(String name, PolyString value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getContext().put(name, collectionize(value == null ? null : value.getOrig()));
 	}
 
 	public void addContext(String name, ObjectQuery value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getContext().put(name, collectionize(stringify(value)));
 	}
 
 	public void addContext(String name, ObjectDelta<?> value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getContext().put(name, collectionize(stringify(value)));
 	}
 
 
 	public void addContext(String name, String... values) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getContext().put(name, collectionize(values));
 	}
 
 	public void addArbitraryObjectAsContext(String name, Object value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getContext().put(name, collectionize(stringify(value)));
     }
 
     public void addArbitraryObjectCollectionAsContext(String paramName, Collection<?> paramValue) {
+		if (!isRecordingDetails()) {
+			return;
+		}
     	getContext().put(paramName, stringifyCol(paramValue));
     }
 
+	/**
+	 * Adds a context item whose value is computed (and converted to string) only when the context items are really needed,
+	 * e.g. when the result is stored, displayed or dumped. Collections are rendered value by value.
+	 */
+	public void addLazyContext(String name, Supplier<?> valueSupplier) {
+		if (!isRecordingDetails()) {
+			return;
+		}
+		if (lazyContext == null) {
+			lazyContext = new LinkedHashMap<>();
+		}
+		lazyContext.put(name, valueSupplier);
+		if (context != null) {
+			context.remove(name);
+		}
+	}
+
 	public Map<String, Collection<String>> getReturns() {
 		if (returns == null) {
 			returns = new HashMap<>();
 		}
+		if (lazyReturns != null) {
+			renderLazyValues(lazyReturns, returns);
+			lazyReturns = null;
+		}
 		return returns;
 	}
 
@@ -983,31 +1224,52 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 	}
 
 	public void addReturn(String name, String value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getReturns().put(name, collectionize(value));
 	}
 
 	public void addReturn(String name, PrismObject<? extends ObjectType> value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getReturns().put(name, collectionize(stringify(value)));
 	}
 
 	public void addReturn(String name, ObjectType value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getReturns().put(name, collectionize(stringify(value)));
 	}
 
 	public void addReturn(String name, boolean value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getReturns().put(name, collectionize(stringify(value)));
 	}
 
 	public void addReturn(String name, long value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getReturns().put(name, collectionize(stringify(value)));
 	}
 
 	public void addReturn(String name, int value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getReturns().put(name, collectionize(stringify(value)));
 	}
 
 	@SuppressWarnings("unchecked")
 	public void addReturn(String name, Class<?> value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		if (ObjectType.class.isAssignableFrom(value)) {
 			getReturns().put(name, collectionize(ObjectTypes.getObjectType((Class<? extends ObjectType>)value).getObjectTypeUri()));
 		} else {
@@ -1016,34 +1278,104 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 	}
 
 	public void addReturn(String name, QName value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getReturns().put(name, collectionize(value == null ? null : QNameUtil.qNameToUri(value)));
 	}
 
 	public void addReturn(String name, PolyString value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getReturns().put(name, collectionize(value == null ? null : value.getOrig()));
 	}
 
 	public void addReturn(String name, ObjectQuery value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getReturns().put(name, collectionize(stringify(value)));
 	}
 
 	public void addReturn(String name, ObjectDelta<?> value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getReturns().put(name, collectionize(stringify(value)));
 	}
 
 
 	public void addReturn(String name, String... values) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getReturns().put(name, collectionize(values));
 	}
 
 	public void addArbitraryObjectAsReturn(String name, Object value) {
+		if (!isRecordingDetails()) {
+			return;
+		}
 		getReturns().put(name, collectionize(stringify(value)));
     }
 
     public void addArbitraryObjectCollectionAsReturn(String paramName, Collection<?> paramValue) {
+		if (!isRecordingDetails()) {
+			return;
+		}
     	getReturns().put(paramName, stringifyCol(paramValue));
     }
 
+	/**
+	 * Adds a return value whose value is computed (and converted to string) only when the return values are really needed,
+	 * e.g. when the result is stored, displayed or dumped. Collections are rendered value by value.
+	 */
+	public void addLazyReturn(String name, Supplier<?> valueSupplier) {
+		if (!isRecordingDetails()) {
+			return;
+		}
+		if (lazyReturns == null) {
+			lazyReturns = new LinkedHashMap<>();
+		}
+		lazyReturns.put(name, valueSupplier);
+		if (returns != null) {
+			returns.remove(name);
+		}
+	}
+
+	private void renderLazyValues(Map<String, Supplier<?>> lazyValues, Map<String, Collection<String>> target) {
+		for (Map.Entry<String, Supplier<?>> entry : lazyValues.entrySet()) {
+			Object value;
+			try {
+				value = entry.getValue().get();
+			} catch (RuntimeException e) {
+				LoggingUtils.logUnexpectedException(LOGGER, "Couldn't compute value of {} in {}", e, entry.getKey(), operation);
+				value = "(" + e + ")";
+			}
+			if (value instanceof Collection) {
+				target.put(entry.getKey(), stringifyCol((Collection<?>) value));
+			} else {
+				target.put(entry.getKey(), collectionize(stringify(value)));
+			}
+		}
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		// lazy values are transient, so they have to be rendered before the result is serialized
+		getParams();
+		getContext();
+		getReturns();
+		out.defaultWriteObject();
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		if (recordingLevel == null) {		// serialized by older version
+			recordingLevel = OperationResultRecordingLevelType.NORMAL;
+		}
+	}
+
     private String stringify(Object value) {
 		if (value == null) {
 			return null;
@@ -1127,15 +1459,15 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 
 	public void recordSuccess() {
 		// Success, no message or other explanation is needed.
-		status = OperationResultStatus.SUCCESS;
+		setStatus(OperationResultStatus.SUCCESS);
 	}
 
     public void recordInProgress() {
-        status = OperationResultStatus.IN_PROGRESS;
+        setStatus(OperationResultStatus.IN_PROGRESS);
     }
 
     public void recordUnknown() {
-        status = OperationResultStatus.UNKNOWN;
+        setStatus(OperationResultStatus.UNKNOWN);
     }
 
     public void recordFatalError(Throwable cause) {
@@ -1148,7 +1480,7 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 	 */
 	public void muteError() {
 		if (isError()) {
-			status = OperationResultStatus.HANDLED_ERROR;
+			setStatus(OperationResultStatus.HANDLED_ERROR);
 		}
 	}
 
@@ -1175,7 +1507,7 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 	}
 
 	public void recordStatus(OperationResultStatus status, Throwable cause) {
-		this.status = status;
+		setStatus(status);
 		this.cause = cause;
 		// No other message was given, so use message from the exception
 		// not really correct, but better than nothing.
@@ -1207,7 +1539,7 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 	}
 
 	public void recordStatus(OperationResultStatus status, String message, Throwable cause) {
-		this.status = status;
+		setStatus(status);
 		this.message = message;
 		this.cause = cause;
 	}
@@ -1238,7 +1570,7 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 	}
 
 	public void recordStatus(OperationResultStatus status, String message) {
-		this.status = status;
+		setStatus(status);
 		this.message = message;
 	}
 
@@ -1263,13 +1595,22 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 
 	public void appendDetail(String detailLine) {
 		// May be switched to a more structured method later
-		details.add(detailLine);
+		if (isRecordingDetails()) {
+			getDetail().add(detailLine);
+		}
 	}
 
 	public List<String> getDetail() {
+		if (details == null) {
+			details = new ArrayList<>();
+		}
 		return details;
 	}
 
+	private boolean hasDetails() {
+		return details != null && !details.isEmpty();
+	}
+
 	public static OperationResult createOperationResult(OperationResultType result) throws SchemaException {
 		if (result == null) {
             return null;
@@ -1332,11 +1673,11 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 		resultType.setMessage(opResult.getMessage());
 		resultType.setMessageCode(opResult.getMessageCode());
 
-		if (opResult.getCause() != null || !opResult.details.isEmpty()) {
+		if (opResult.getCause() != null || opResult.hasDetails()) {
 			StringBuilder detailsb = new StringBuilder();
 
 			// Record text messages in details (if present)
-			if (!opResult.details.isEmpty()) {
+			if (opResult.hasDetails()) {
 				for (String line : opResult.details) {
 					detailsb.append(line);
 					detailsb.append("\n");
@@ -1414,6 +1755,8 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 		// We implement quite a complex algorithm to ensure "incremental stripping", i.e. calling summarize() repeatedly
 		// on an OperationResult to which new standard entries are continually added. The requirement is that there must
 		// be at most one summarization record, and it must be placed after all standard records of given type.
+		//
+		// On full recording level, nothing is stripped here.
 		Map<OperationStatusKey, OperationStatusCounter> recordsCounters = new HashMap<>();
 		iterator = getSubresults().iterator();
 		while (iterator.hasNext()) {
@@ -1422,7 +1765,7 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 			if (recordsCounters.containsKey(key)) {
 				OperationStatusCounter counter = recordsCounters.get(key);
 				if (!sr.representsHiddenRecords()) {
-					if (counter.shownRecords < subresultStripThreshold) {
+					if (counter.shownRecords < subresultStripThreshold || recordingLevel == OperationResultRecordingLevelType.FULL) {
 						counter.shownRecords++;
 						counter.shownCount += sr.count;
 					} else {
@@ -1646,7 +1989,7 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 			sb.append("\n");
 		}
 
-		for (String line : details) {
+		for (String line : emptyIfNull(details)) {
 			DebugUtil.indentDebugDump(sb, indent + 2);
 			sb.append("[d]");
 			sb.append(line);
@@ -1723,7 +2066,7 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 
 	public void setBackgroundTaskOid(String oid) {
 		setAsynchronousOperationReference(TASK_OID_PREFIX + oid);
-		addReturn(RETURN_BACKGROUND_TASK_OID, oid); // deprecated
+		getReturns().put(RETURN_BACKGROUND_TASK_OID, collectionize(oid)); // deprecated; recorded regardless of the recording level
 	}
 
 	@Deprecated // use asynchronous operation reference
@@ -1795,9 +2138,10 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
         OperationResult clone = new OperationResult(operation);
 
         clone.status = status;
-        clone.params = cloneParams(params);
-        clone.context = cloneParams(context);
-        clone.returns = cloneParams(returns);
+        clone.params = cloneParams(getParams());
+        clone.context = cloneParams(getContext());
+        clone.returns = cloneParams(getReturns());
+        clone.recordingLevel = recordingLevel;
         clone.token = token;
         clone.messageCode = messageCode;
         clone.message = message;
@@ -1844,17 +2188,17 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 		result = prime * result
 				+ ((asynchronousOperationReference == null) ? 0 : asynchronousOperationReference.hashCode());
 		result = prime * result + ((cause == null) ? 0 : cause.hashCode());
-		result = prime * result + ((context == null) ? 0 : context.hashCode());
+		result = prime * result + getContext().hashCode();
 		result = prime * result + count;
-		result = prime * result + ((details == null) ? 0 : details.hashCode());
+		result = prime * result + emptyIfNull(details).hashCode();
 		result = prime * result + hiddenRecordsCount;
 		result = prime * result + ((userFriendlyMessage == null) ? 0 : userFriendlyMessage.hashCode());
 		result = prime * result + ((message == null) ? 0 : message.hashCode());
 		result = prime * result + ((messageCode == null) ? 0 : messageCode.hashCode());
 		result = prime * result + (minor ? 1231 : 1237);
 		result = prime * result + ((operation == null) ? 0 : operation.hashCode());
-		result = prime * result + ((params == null) ? 0 : params.hashCode());
-		result = prime * result + ((returns == null) ? 0 : returns.hashCode());
+		result = prime * result + getParams().hashCode();
+		result = prime * result + getReturns().hashCode();
 		result = prime * result + ((status == null) ? 0 : status.hashCode());
 		result = prime * result + ((subresults == null) ? 0 : subresults.hashCode());
 		result = prime * result + (summarizeErrors ? 1231 : 1237);
@@ -1890,21 +2234,13 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 		} else if (!cause.equals(other.cause)) {
 			return false;
 		}
-		if (context == null) {
-			if (other.context != null) {
-				return false;
-			}
-		} else if (!context.equals(other.context)) {
+		if (!getContext().equals(other.getContext())) {		// lazy values are rendered and the maps allocated here
 			return false;
 		}
 		if (count != other.count) {
 			return false;
 		}
-		if (details == null) {
-			if (other.details != null) {
-				return false;
-			}
-		} else if (!details.equals(other.details)) {
+		if (!emptyIfNull(details).equals(emptyIfNull(other.details))) {		// details are allocated lazily
 			return false;
 		}
 		if (hiddenRecordsCount != other.hiddenRecordsCount) {
@@ -1941,18 +2277,10 @@ public class OperationResult implements Serializable, DebugDumpable, ShortDumpab
 		} else if (!operation.equals(other.operation)) {
 			return false;
 		}
-		if (params == null) {
-			if (other.params != null) {
-				return false;
-			}
-		} else if (!params.equals(other.params)) {
+		if (!getParams().equals(other.getParams())) {
 			return false;
 		}
-		if (returns == null) {
-			if (other.returns != null) {
-				return false;
-			}
-		} else if (!returns.equals(other.returns)) {
+		if (!getReturns().equals(other.getReturns())) {
 			return false;
 		}
 		if (status != other.status) {
@@ -23,15 +23,20 @@ import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.schema.result.OperationResultStatus;
 import com.evolveum.midpoint.util.PrettyPrinter;
 import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationResultRecordingLevelType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationResultType;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Test;
 import org.xml.sax.SAXException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
 
 /**
  * @author mederly
@@ -206,6 +211,149 @@ public class TestOperationResult {
 		checkResultConversion(root, true);
 	}
 
+	@Test
+	public void testMinimalRecording() throws Exception {
+		System.out.println("===[ testMinimalRecording ]===");
+
+		// GIVEN
+		OperationResult root = new OperationResult("dummy");
+		root.setRecordingLevel(OperationResultRecordingLevelType.MINIMAL);
+
+		// WHEN
+		for (int i = 1; i <= 30; i++) {
+			OperationResult sub = root.createSubresult("sub");
+			sub.addParam("value", i);
+			sub.addLazyParam("lazyValue", () -> {
+				throw new AssertionError("Lazy parameter should not be computed");
+			});
+			sub.appendDetail("detail");
+			if (i == 10) {
+				sub.recordWarning("Warning");
+			} else if (i == 20) {
+				sub.recordFatalError("Fatal");
+			} else {
+				sub.recordSuccess();
+			}
+		}
+		root.computeStatus();
+
+		// THEN
+		System.out.println(root.debugDump());
+		assertEquals("Wrong overall status", OperationResultStatus.FATAL_ERROR, root.getStatus());
+		assertEquals("Wrong # of subresults", 2, root.getSubresults().size());
+		OperationResult warning = root.getSubresults().get(0);
+		assertEquals("Wrong status of first subresult", OperationResultStatus.WARNING, warning.getStatus());
+		assertEquals("Wrong recording level of subresult", OperationResultRecordingLevelType.MINIMAL, warning.getRecordingLevel());
+		assertTrue("Parameters recorded", warning.getParams().isEmpty());
+		assertTrue("Details recorded", warning.getDetail().isEmpty());
+		assertEquals("Wrong status of second subresult", OperationResultStatus.FATAL_ERROR, root.getSubresults().get(1).getStatus());
+
+		OperationResult pending = root.createSubresult("pending");
+		assertEquals("Subresult without interesting status was added", 2, root.getSubresults().size());
+		pending.recordPartialError("Partial");
+		assertEquals("Subresult with an error was not added", 3, root.getSubresults().size());
+
+		checkResultConversion(root, true);
+	}
+
+	@Test
+	public void testOffRecording() throws Exception {
+		System.out.println("===[ testOffRecording ]===");
+
+		// GIVEN
+		OperationResultRecordingLevelType previous = OperationResult.setThreadRecordingLevel(OperationResultRecordingLevelType.OFF);
+		OperationResult root;
+		try {
+			root = new OperationResult("dummy");
+		} finally {
+			OperationResult.setThreadRecordingLevel(previous);
+		}
+
+		// WHEN
+		OperationResult open = root.createSubresult("open");
+		root.createSubresult("warning").recordWarning("Warning");
+		root.createSubresult("partial").recordPartialError("Partial");
+		root.createSubresult("success").recordSuccess();
+		open.recordSuccess();
+		root.computeStatus();
+
+		// THEN
+		System.out.println(root.debugDump());
+		assertEquals("Wrong recording level", OperationResultRecordingLevelType.OFF, root.getRecordingLevel());
+		assertEquals("Thread recording level was not restored", OperationResultRecordingLevelType.NORMAL,
+				new OperationResult("other").getRecordingLevel());
+		assertEquals("Wrong overall status", OperationResultStatus.PARTIAL_ERROR, root.getStatus());
+		assertEquals("Wrong # of subresults", 1, root.getSubresults().size());
+		assertEquals("Wrong remaining subresult", "partial", root.getSubresults().get(0).getOperation());
+	}
+
+	@Test
+	public void testLazyParams() throws Exception {
+		System.out.println("===[ testLazyParams ]===");
+
+		// GIVEN
+		OperationResult root = new OperationResult("dummy");
+		AtomicInteger evaluations = new AtomicInteger();
+
+		// WHEN
+		root.addLazyParam("value", () -> "computed" + evaluations.incrementAndGet());
+		root.addLazyContext("values", () -> Arrays.asList("a", "b"));
+		root.addLazyReturn("count", () -> 42);
+		root.recordSuccess();
+
+		// THEN
+		assertEquals("Lazy parameter computed too early", 0, evaluations.get());
+		assertEquals("Wrong lazy parameter", "computed1", root.getParamSingle("value"));
+		assertEquals("Wrong lazy parameter (second access)", "computed1", root.getParamSingle("value"));
+		assertEquals("Lazy parameter computed more than once", 1, evaluations.get());
+		assertEquals("Wrong lazy context", Arrays.asList("a", "b"), new ArrayList<>(root.getContext().get("values")));
+		assertEquals("Wrong lazy return", "42", root.getReturnSingle("count"));
+
+		checkResultConversion(root, true);
+	}
+
+	@Test
+	public void testLazyParamsEquality() throws Exception {
+		System.out.println("===[ testLazyParamsEquality ]===");
+
+		// GIVEN
+		OperationResult lazy = new OperationResult("dummy");
+		lazy.addLazyParam("value", () -> "x");
+		OperationResult eager = new OperationResult("dummy");
+		eager.addParam("value", "x");
+		OperationResult empty1 = new OperationResult("dummy");
+		OperationResult empty2 = new OperationResult("dummy");
+		empty2.getParams();
+
+		// THEN
+		assertEquals("Results with lazy and eager parameter differ", eager, lazy);
+		assertEquals("Hash codes with lazy and eager parameter differ", eager.hashCode(), lazy.hashCode());
+		assertEquals("Results without parameters differ", empty1, empty2);
+		assertEquals("Hash codes without parameters differ", empty1.hashCode(), empty2.hashCode());
+	}
+
+	@Test
+	public void testFullRecording() throws Exception {
+		System.out.println("===[ testFullRecording ]===");
+
+		// GIVEN
+		OperationResult root = new OperationResult("dummy");
+		root.setRecordingLevel(OperationResultRecordingLevelType.FULL);
+		for (int i = 1; i <= 30; i++) {
+			OperationResult sub = root.createSubresult("sub");
+			sub.addParam("value", i);
+			sub.recordSuccess();
+		}
+		root.computeStatus();
+
+		// WHEN
+		root.summarize(true);
+
+		// THEN
+		assertEquals("Subresults were stripped", 30, root.getSubresults().size());
+		assertEquals("Wrong parameter", "30", root.getSubresults().get(29).getParamSingle("value"));
+	}
+
 	private void checkResultConversion(OperationResult result, boolean assertEquals) throws SchemaException {
 		// WHEN
 		OperationResultType resultType = result.createOperationResultType();
@@ -29,6 +29,7 @@ import org.springframework.security.web.authentication.preauth.PreAuthenticatedA
 
 import com.evolveum.midpoint.model.api.context.AbstractAuthenticationContext;
 import com.evolveum.midpoint.security.api.ConnectionEnvironment;
+import com.evolveum.midpoint.security.api.MidPointPrincipal;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
 
 /**
@@ -48,4 +49,11 @@ public interface AuthenticationEvaluator<T extends AbstractAuthenticationContext
 
 	PreAuthenticatedAuthenticationToken authenticateUserPreAuthenticated(ConnectionEnvironment connEnv, String enteredUsername);
 
+	/**
+	 * Records successful authentication of a principal whose credentials were already verified by this evaluator
+	 * a short while ago (e.g. a principal taken from an authentication cache). Last successful login is updated
+	 * and the login is audited in the same way as for a regular authentication.
+	 */
+	void recordAuthenticationSuccess(ConnectionEnvironment connEnv, T authnCtx, @NotNull MidPointPrincipal principal);
+
 }
@@ -49,4 +49,5 @@ public class ModelPublicConstants {
 	public static final String SCRIPT_EXECUTION_TASK_HANDLER_URI = SchemaConstants.NS_MODEL + "/scripting/handler-3";
 	public static final String ITERATIVE_SCRIPT_EXECUTION_TASK_HANDLER_URI = SchemaConstants.NS_MODEL + "/iterative-scripting/handler-3";
 	public static final String EXECUTE_DELTAS_TASK_HANDLER_URI = SchemaConstants.NS_MODEL + "/execute-deltas/handler-3";
+	public static final String ASSIGNEE_COUNT_CHECK_TASK_HANDLER_URI = SchemaConstants.NS_MODEL + "/assignee-count-check/handler-3";
 }
@@ -1151,7 +1151,7 @@ public class ModelController implements ModelService, TaskService, WorkflowServi
 					workflowManager.augmentTaskObject(object, options, task, result);
 				}
 				executeResolveOptions(object.asObjectable(), options, task, result);
-				schemaTransformer.applySchemasAndSecurity(object, rootOptions, options, null, task, parentResult1);
+				schemaTransformer.applySchemasAndSecurity(object, rootOptions, options, null, true, task, parentResult1);
 			} catch (SchemaException | ObjectNotFoundException | SecurityViolationException | ExpressionEvaluationException
 					| CommunicationException | ConfigurationException ex) {
 				parentResult1.recordFatalError(ex);
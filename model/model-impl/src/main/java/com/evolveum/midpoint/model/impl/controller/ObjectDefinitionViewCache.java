@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.model.impl.controller;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.prism.DefinitionImpl;
+import com.evolveum.midpoint.prism.PrismObjectDefinition;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.repo.common.AbstractNodeCache;
+import com.evolveum.midpoint.security.enforcer.api.ObjectSecurityConstraints;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AuthorizationPhaseType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectTemplateType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SystemConfigurationType;
+
+/**
+ * Cache of object definitions with security constraints and object template applied ("definition views").
+ *
+ * SchemaTransformer gives each object returned from the model its own copy of the object definition, because
+ * security constraints and object template are applied to it. Deep cloning of e.g. UserType definition is expensive,
+ * and search results usually contain many objects with the same effective constraints. Such objects can share
+ * a single definition view. The view is determined by:
+ * <ul>
+ *     <li>the original object definition,</li>
+ *     <li>compiled security constraints (compared by value),</li>
+ *     <li>authorization phases that were applied,</li>
+ *     <li>access restrictions that item-level security processing puts on definitions of items present in the object,</li>
+ *     <li>OIDs and versions of the object template and all the included templates.</li>
+ * </ul>
+ * Views trimmed to the items present in the object (DefinitionProcessingOption.ONLY_IF_EXISTS) are cached as well,
+ * keyed by the full view key and the set of (name-only) item paths.
+ *
+ * Cached definitions are shared, so they must not be modified. Therefore they are frozen when the view is created
+ * (an attempt to modify them throws IllegalStateException), and they are given only to search results,
+ * not e.g. to objects retrieved by getObject that are often edited afterwards. Who needs to modify such
+ * a definition has to clone it first.
+ *
+ * All the inputs are part of the key, so there is no need for explicit invalidation. Yet the cache is cleared when
+ * an object template or the system configuration is modified, to release views that cannot be used any more.
+ *
+ * Configuration (in midpoint.system section of config.xml):
+ * <ul>
+ *     <li>objectDefinitionViewCacheMaxSize - maximum number of cached views (default 100, 0 = cache disabled).</li>
+ * </ul>
+ */
+@Component
+public class ObjectDefinitionViewCache extends AbstractNodeCache<Object, ObjectDefinitionViewCache.View> {
+
+	public ObjectDefinitionViewCache() {
+		super(null, 0, "objectDefinitionViewCacheMaxSize", 100);
+	}
+
+	@Override
+	protected View get(Object key) {
+		return super.get(key);
+	}
+
+	/**
+	 * Stores the view. If another thread has stored a view for the same key in the meanwhile, that one is returned
+	 * (and should be used), so the objects share the definition as much as possible.
+	 */
+	View put(Object key, View view) {
+		return putIfAbsent(key, view);
+	}
+
+	@Override
+	public <O extends ObjectType> void invalidateCache(Class<O> type, String oid) {
+		if (type == null || ObjectTemplateType.class.equals(type) || SystemConfigurationType.class.equals(type)) {
+			clear();
+		}
+	}
+
+	static class View {
+		final PrismObjectDefinition<?> definition;
+		final List<String> templateProblems;
+
+		View(PrismObjectDefinition<?> definition, List<String> templateProblems) {
+			if (definition instanceof DefinitionImpl) {
+				((DefinitionImpl) definition).freeze();
+			}
+			this.definition = definition;
+			this.templateProblems = templateProblems;
+		}
+	}
+
+	static class ViewKey {
+		private final PrismObjectDefinition<?> objectDefinition;         // compared by identity
+		private final ObjectSecurityConstraints securityConstraints;
+		private final List<AuthorizationPhaseType> phases;
+		private final List<Set<AccessRestriction>> restrictions;        // for each of the phases
+		private final String templateFingerprint;
+
+		ViewKey(PrismObjectDefinition<?> objectDefinition, ObjectSecurityConstraints securityConstraints,
+				List<AuthorizationPhaseType> phases, List<Set<AccessRestriction>> restrictions, String templateFingerprint) {
+			this.objectDefinition = objectDefinition;
+			this.securityConstraints = securityConstraints;
+			this.phases = phases;
+			this.restrictions = restrictions;
+			this.templateFingerprint = templateFingerprint;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof ViewKey)) {
+				return false;
+			}
+			ViewKey that = (ViewKey) o;
+			return objectDefinition == that.objectDefinition && securityConstraints.equals(that.securityConstraints)
+					&& phases.equals(that.phases) && restrictions.equals(that.restrictions)
+					&& Objects.equals(templateFingerprint, that.templateFingerprint);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(System.identityHashCode(objectDefinition), securityConstraints, phases, restrictions,
+					templateFingerprint);
+		}
+	}
+
+	static class TrimmedViewKey {
+		private final ViewKey viewKey;
+		private final Collection<ItemPath> paths;
+
+		TrimmedViewKey(ViewKey viewKey, Collection<ItemPath> paths) {
+			this.viewKey = viewKey;
+			this.paths = paths;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof TrimmedViewKey)) {
+				return false;
+			}
+			TrimmedViewKey that = (TrimmedViewKey) o;
+			return viewKey.equals(that.viewKey) && paths.equals(that.paths);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(viewKey, paths);
+		}
+	}
+
+	/**
+	 * Access flags (read, add, modify) that are to be cleared on the definition of given item.
+	 */
+	static class AccessRestriction {
+		private final ItemPath path;        // name-only
+		private final boolean denyRead;
+		private final boolean denyAdd;
+		private final boolean denyModify;
+
+		AccessRestriction(ItemPath path, boolean denyRead, boolean denyAdd, boolean denyModify) {
+			this.path = path;
+			this.denyRead = denyRead;
+			this.denyAdd = denyAdd;
+			this.denyModify = denyModify;
+		}
+
+		ItemPath getPath() {
+			return path;
+		}
+
+		boolean isDenyRead() {
+			return denyRead;
+		}
+
+		boolean isDenyAdd() {
+			return denyAdd;
+		}
+
+		boolean isDenyModify() {
+			return denyModify;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof AccessRestriction)) {
+				return false;
+			}
+			AccessRestriction that = (AccessRestriction) o;
+			return denyRead == that.denyRead && denyAdd == that.denyAdd && denyModify == that.denyModify
+					&& path.equals(that.path);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(path, denyRead, denyAdd, denyModify);
+		}
+	}
+}
@@ -79,6 +79,9 @@ public class SchemaTransformer {
 	@Autowired
 	private PrismContext prismContext;
 
+	@Autowired
+	private ObjectDefinitionViewCache definitionViewCache;
+
 	// TODO why are the following two methods distinct? Clarify their names.
 	public <T extends ObjectType> void applySchemasAndSecurityToObjectTypes(List<T> objectTypes,
 			GetOperationOptions rootOptions, Collection<SelectorOptions<GetOperationOptions>> options,
@@ -88,7 +91,7 @@ public class SchemaTransformer {
 			PrismObject<T> object = (PrismObject<T>) objectTypes.get(i).asPrismObject();
 			object = object.cloneIfImmutable();
 			objectTypes.set(i, object.asObjectable());
-			applySchemasAndSecurity(object, rootOptions, options, phase, task, result);
+			applySchemasAndSecurity(object, rootOptions, options, phase, true, task, result);
 		}
 	}
 
@@ -151,7 +154,7 @@ public class SchemaTransformer {
 			Collection<SelectorOptions<GetOperationOptions>> options, AuthorizationPhaseType phase, Task task, OperationResult result) throws SecurityViolationException {
 		OperationResult subresult = new OperationResult(SchemaTransformer.class.getName()+".applySchemasAndSecurityToObjects");
 		try {
-            applySchemasAndSecurity(object, rootOptions, options, phase, task, subresult);
+            applySchemasAndSecurity(object, rootOptions, options, phase, true, task, subresult);
         } catch (IllegalArgumentException | IllegalStateException | SchemaException |ConfigurationException |ObjectNotFoundException | ExpressionEvaluationException | CommunicationException e) {
             LOGGER.error("Error post-processing object {}: {}", object, e.getMessage(), e);
             OperationResultType fetchResult = object.asObjectable().getFetchResult();
@@ -186,36 +189,38 @@ public class SchemaTransformer {
 			Collection<SelectorOptions<GetOperationOptions>> options,
 			AuthorizationPhaseType phase, Task task, OperationResult parentResult)
 					throws SchemaException, SecurityViolationException, ConfigurationException, ObjectNotFoundException, ExpressionEvaluationException, CommunicationException {
+		applySchemasAndSecurity(object, rootOptions, options, phase, false, task, parentResult);
+	}
+
+	/**
+	 * If shareDefinition is true, the object may get a definition that is shared with other objects having the same
+	 * security constraints and object template (see ObjectDefinitionViewCache). Such a definition must not be modified.
+	 * This is meant for search results, where deep cloning of the definition for each object is too expensive.
+	 */
+	public <O extends ObjectType> void applySchemasAndSecurity(PrismObject<O> object, GetOperationOptions rootOptions,
+			Collection<SelectorOptions<GetOperationOptions>> options,
+			AuthorizationPhaseType phase, boolean shareDefinition, Task task, OperationResult parentResult)
+					throws SchemaException, SecurityViolationException, ConfigurationException, ObjectNotFoundException, ExpressionEvaluationException, CommunicationException {
 		LOGGER.trace("applySchemasAndSecurity({}) starting", object);
     	OperationResult result = parentResult.createMinorSubresult(SchemaTransformer.class.getName()+".applySchemasAndSecurity");
     	authorizeOptions(rootOptions, object, null, phase, task, result);
     	validateObject(object, rootOptions, result);
 
     	ObjectSecurityConstraints securityConstraints = compileSecurityConstraints(object, task, result);
-    	PrismObjectDefinition<O> objectDefinition = object.deepCloneDefinition(true, this::setFullAccessFlags);
-    	
-    	if (phase == null) {
-    		if (!GetOperationOptions.isExecutionPhase(rootOptions)) {
-    			applySchemasAndSecurityPhase(object, securityConstraints, objectDefinition, rootOptions, AuthorizationPhaseType.REQUEST, task, result);
-    		}
-    		applySchemasAndSecurityPhase(object, securityConstraints, objectDefinition, rootOptions, AuthorizationPhaseType.EXECUTION, task, result);
-    	} else {
-    		if (phase == AuthorizationPhaseType.REQUEST && GetOperationOptions.isExecutionPhase(rootOptions)) {
-    			// Skip application of security constraints for request phase.
-    			// The caller asked to skip evaluation of request authorization, so everything is allowed here.
-    		} else {
-    			applySchemasAndSecurityPhase(object, securityConstraints, objectDefinition, rootOptions, phase, task, result);
-    		}
-    	}
+    	List<AuthorizationPhaseType> phases = determinePhases(phase, rootOptions);
 
-		ObjectTemplateType objectTemplateType;
-		try {
-			objectTemplateType = determineObjectTemplate(object, AuthorizationPhaseType.REQUEST, result);
-		} catch (ConfigurationException | ObjectNotFoundException e) {
-			result.recordFatalError(e);
-			throw e;
+		ObjectDefinitionViewCache.ViewKey viewKey = null;
+		if (shareDefinition && definitionViewCache.isEnabled() && object.hasUniformDefinitionTree()) {
+			viewKey = applySharedSchemasAndSecurity(object, securityConstraints, phases, result);
+		} else {
+			PrismObjectDefinition<O> objectDefinition = object.deepCloneDefinition(true, this::setFullAccessFlags);
+			for (AuthorizationPhaseType currentPhase : phases) {
+				applySchemasAndSecurityPhase(object, securityConstraints, objectDefinition, null, currentPhase, result);
+			}
+
+			ObjectTemplateType objectTemplateType = determineObjectTemplateChecked(object, result);
+			applyObjectTemplateToObject(object, objectTemplateType, result);
 		}
-		applyObjectTemplateToObject(object, objectTemplateType, result);
 
 		if (CollectionUtils.isNotEmpty(options)) {
 			Map<DefinitionProcessingOption, Collection<ItemPath>> definitionProcession = SelectorOptions.extractOptionValues(options, (o) -> o.getDefinitionProcessing());
@@ -228,7 +233,11 @@ public class SchemaTransformer {
 					throw new UnsupportedOperationException("'ONLY_IF_EXISTS' definition processing is currently supported on root level only; not on " + onlyIfExists);
 				}
 				Collection<ItemPath> full = definitionProcession.get(DefinitionProcessingOption.FULL);
-				object.trimDefinitionTree(full);
+				if (viewKey != null) {
+					applySharedTrimmedDefinition(object, viewKey, full);
+				} else {
+					object.trimDefinitionTree(full);
+				}
 			}
 		}
 
@@ -236,6 +245,143 @@ public class SchemaTransformer {
 		result.recordSuccessIfUnknown();
 		LOGGER.trace("applySchemasAndSecurity finishing");			// to allow folding in log viewer
     }
+
+	private List<AuthorizationPhaseType> determinePhases(AuthorizationPhaseType phase, GetOperationOptions rootOptions) {
+		List<AuthorizationPhaseType> phases = new ArrayList<>(2);
+		if (phase == null) {
+			if (!GetOperationOptions.isExecutionPhase(rootOptions)) {
+				phases.add(AuthorizationPhaseType.REQUEST);
+			}
+			phases.add(AuthorizationPhaseType.EXECUTION);
+		} else {
+			if (phase == AuthorizationPhaseType.REQUEST && GetOperationOptions.isExecutionPhase(rootOptions)) {
+				// Skip application of security constraints for request phase.
+				// The caller asked to skip evaluation of request authorization, so everything is allowed here.
+			} else {
+				phases.add(phase);
+			}
+		}
+		return phases;
+	}
+
+	private <O extends ObjectType> ObjectTemplateType determineObjectTemplateChecked(PrismObject<O> object, OperationResult result)
+			throws SchemaException, ConfigurationException, ObjectNotFoundException {
+		try {
+			return determineObjectTemplate(object, AuthorizationPhaseType.REQUEST, result);
+		} catch (ConfigurationException | ObjectNotFoundException e) {
+			result.recordFatalError(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Does the same as the unshared branch of applySchemasAndSecurity, but the object gets a definition view
+	 * from ObjectDefinitionViewCache instead of its own deep clone of the definition.
+	 *
+	 * The items of the object are processed as usual (forbidden values are removed), but the access restrictions
+	 * that the item-level processing would put on the definitions are only recorded. They become a part of the view key,
+	 * and they are replayed (in the original order) when the view is being created.
+	 */
+	private <O extends ObjectType> ObjectDefinitionViewCache.ViewKey applySharedSchemasAndSecurity(PrismObject<O> object,
+			ObjectSecurityConstraints securityConstraints, List<AuthorizationPhaseType> phases, OperationResult result)
+			throws SchemaException, SecurityViolationException, ConfigurationException, ObjectNotFoundException {
+		List<Set<ObjectDefinitionViewCache.AccessRestriction>> restrictions = new ArrayList<>(phases.size());
+		for (AuthorizationPhaseType currentPhase : phases) {
+			Set<ObjectDefinitionViewCache.AccessRestriction> phaseRestrictions = new HashSet<>();
+			applySchemasAndSecurityPhase(object, securityConstraints, null, phaseRestrictions, currentPhase, result);
+			restrictions.add(phaseRestrictions);
+		}
+
+		ObjectTemplateType objectTemplateType = determineObjectTemplateChecked(object, result);
+		String templateFingerprint = getTemplateFingerprint(objectTemplateType, result);
+
+		PrismObjectDefinition<O> originalDefinition = object.getDefinition();
+		ObjectDefinitionViewCache.ViewKey viewKey = new ObjectDefinitionViewCache.ViewKey(originalDefinition,
+				securityConstraints, phases, restrictions, templateFingerprint);
+		ObjectDefinitionViewCache.View view = definitionViewCache.get(viewKey);
+		if (view == null) {
+			PrismObjectDefinition<O> viewDefinition = originalDefinition.deepClone(true, this::setFullAccessFlags);
+			for (int i = 0; i < phases.size(); i++) {
+				applyAccessRestrictions(viewDefinition, restrictions.get(i));
+				applySecurityConstraintsToObjectDefinition(viewDefinition, securityConstraints, phases.get(i));
+			}
+			List<String> templateProblems = new ArrayList<>();
+			applyObjectTemplateToDefinition(viewDefinition, objectTemplateType, templateProblems, result);
+			view = definitionViewCache.put(viewKey, new ObjectDefinitionViewCache.View(viewDefinition, templateProblems));
+		}
+		for (String templateProblem : view.templateProblems) {
+			OperationResult subResult = result.createMinorSubresult(SchemaTransformer.class.getName() + ".applyObjectTemplateToObject");
+			subResult.recordPartialError(templateProblem);
+		}
+		//noinspection unchecked
+		object.replaceDefinitionTree((PrismObjectDefinition<O>) view.definition);
+		return viewKey;
+	}
+
+	private <O extends ObjectType> void applySharedTrimmedDefinition(PrismObject<O> object, ObjectDefinitionViewCache.ViewKey viewKey,
+			Collection<ItemPath> alwaysKeep) {
+		Set<ItemPath> paths = new HashSet<>();
+		for (ItemPath path : CollectionUtils.emptyIfNull(alwaysKeep)) {
+			paths.add(path.namedSegmentsOnly());
+		}
+		object.accept(visitable -> {
+			if (visitable instanceof PrismValue) {
+				paths.add(((PrismValue) visitable).getPath().namedSegmentsOnly());
+			}
+		});
+		ObjectDefinitionViewCache.TrimmedViewKey trimmedViewKey = new ObjectDefinitionViewCache.TrimmedViewKey(viewKey, paths);
+		ObjectDefinitionViewCache.View trimmedView = definitionViewCache.get(trimmedViewKey);
+		if (trimmedView == null) {
+			PrismObjectDefinition<O> trimmedDefinition = object.getDefinition().deepClone(true, null);
+			if (trimmedDefinition.getComplexTypeDefinition() != null) {
+				trimmedDefinition.getComplexTypeDefinition().trimTo(paths);
+			}
+			trimmedView = definitionViewCache.put(trimmedViewKey,
+					new ObjectDefinitionViewCache.View(trimmedDefinition, Collections.emptyList()));
+		}
+		//noinspection unchecked
+		object.replaceDefinitionTree((PrismObjectDefinition<O>) trimmedView.definition);
+	}
+
+	private void applyAccessRestrictions(PrismObjectDefinition<?> objectDefinition, Set<ObjectDefinitionViewCache.AccessRestriction> restrictions) {
+		for (ObjectDefinitionViewCache.AccessRestriction restriction : restrictions) {
+			ItemDefinition<?> itemDef = objectDefinition.findItemDefinition(restriction.getPath());
+			if (itemDef == null) {
+				continue;		// should not happen, as the object has uniform definition tree
+			}
+			if (restriction.isDenyRead()) {
+				((ItemDefinitionImpl) itemDef).setCanRead(false);
+			}
+			if (restriction.isDenyAdd()) {
+				((ItemDefinitionImpl) itemDef).setCanAdd(false);
+			}
+			if (restriction.isDenyModify()) {
+				((ItemDefinitionImpl) itemDef).setCanModify(false);
+			}
+		}
+	}
+
+	/**
+	 * OIDs and versions of the template and all the included templates. Used to recognize object definition views
+	 * that are no longer valid.
+	 */
+	private String getTemplateFingerprint(ObjectTemplateType objectTemplateType, OperationResult result) throws ObjectNotFoundException, SchemaException {
+		if (objectTemplateType == null) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		appendTemplateFingerprint(sb, objectTemplateType, result);
+		return sb.toString();
+	}
+
+	private void appendTemplateFingerprint(StringBuilder sb, ObjectTemplateType objectTemplateType, OperationResult result) throws ObjectNotFoundException, SchemaException {
+		sb.append(objectTemplateType.getOid()).append(':').append(objectTemplateType.getVersion()).append('(');
+		for (ObjectReferenceType includeRef: objectTemplateType.getIncludeRef()) {
+			PrismObject<ObjectTemplateType> subTemplate = cacheRepositoryService.getObject(ObjectTemplateType.class, includeRef.getOid(), null, result);
+			appendTemplateFingerprint(sb, subTemplate.asObjectable(), result);
+		}
+		sb.append(')');
+	}
 	
 	public <O extends ObjectType> void applySchemasAndSecurity(LensContext<O> context,
 			AuthorizationPhaseType phase, Task task, OperationResult parentResult) throws SecurityViolationException, SchemaException, ConfigurationException, ObjectNotFoundException, ExpressionEvaluationException, CommunicationException {
@@ -292,9 +438,14 @@ public class SchemaTransformer {
 		itemDef.setCanModify(true);
 	}
 
+	/**
+	 * Applies security constraints to the items of the object. The definitions are updated as well: either
+	 * directly (objectDefinition is provided) or the restrictions on item definitions are recorded (restrictions
+	 * are provided) so they can be applied to a shared definition later.
+	 */
 	private <O extends ObjectType> void applySchemasAndSecurityPhase(PrismObject<O> object, ObjectSecurityConstraints securityConstraints, PrismObjectDefinition<O> objectDefinition,
-			GetOperationOptions rootOptions, AuthorizationPhaseType phase, Task task, OperationResult result)
-					throws SchemaException, SecurityViolationException, ConfigurationException, ObjectNotFoundException {
+			Set<ObjectDefinitionViewCache.AccessRestriction> restrictions, AuthorizationPhaseType phase, OperationResult result)
+					throws SecurityViolationException {
 		Validate.notNull(phase);
 		try {
 			AuthorizationDecisionType globalReadDecision = securityConstraints.findAllItemsDecision(ModelAuthorizationAction.AUTZ_ACTIONS_URLS_GET, phase);
@@ -307,19 +458,29 @@ public class SchemaTransformer {
 			AuthorizationDecisionType globalAddDecision = securityConstraints.findAllItemsDecision(ModelAuthorizationAction.ADD.getUrl(), phase);
 			AuthorizationDecisionType globalModifyDecision = securityConstraints.findAllItemsDecision(ModelAuthorizationAction.MODIFY.getUrl(), phase);
 			applySecurityConstraints(object.getValue().getItems(), securityConstraints, globalReadDecision,
-					globalAddDecision, globalModifyDecision, phase);
+					globalAddDecision, globalModifyDecision, phase, restrictions);
 			if (object.isEmpty()) {
 				// let's make it explicit
 				SecurityUtil.logSecurityDeny(object, "because the subject has not access to any item");
 				throw new AuthorizationException("Access denied");
 			}
 
-			applySecurityConstraintsItemDef(objectDefinition, new IdentityHashMap<>(), ItemPath.EMPTY_PATH, securityConstraints, globalReadDecision, globalAddDecision, globalModifyDecision, phase);
+			if (objectDefinition != null) {
+				applySecurityConstraintsItemDef(objectDefinition, new IdentityHashMap<>(), ItemPath.EMPTY_PATH, securityConstraints, globalReadDecision, globalAddDecision, globalModifyDecision, phase);
+			}
 		} catch (SecurityViolationException | RuntimeException e) {
 			result.recordFatalError(e);
 			throw e;
 		}
 	}
+
+	private <O extends ObjectType> void applySecurityConstraintsToObjectDefinition(PrismObjectDefinition<O> objectDefinition,
+			ObjectSecurityConstraints securityConstraints, AuthorizationPhaseType phase) {
+		AuthorizationDecisionType globalReadDecision = securityConstraints.findAllItemsDecision(ModelAuthorizationAction.AUTZ_ACTIONS_URLS_GET, phase);
+		AuthorizationDecisionType globalAddDecision = securityConstraints.findAllItemsDecision(ModelAuthorizationAction.ADD.getUrl(), phase);
+		AuthorizationDecisionType globalModifyDecision = securityConstraints.findAllItemsDecision(ModelAuthorizationAction.MODIFY.getUrl(), phase);
+		applySecurityConstraintsItemDef(objectDefinition, new IdentityHashMap<>(), ItemPath.EMPTY_PATH, securityConstraints, globalReadDecision, globalAddDecision, globalModifyDecision, phase);
+	}
 	
 	private <O extends ObjectType> ObjectSecurityConstraints compileSecurityConstraints(PrismObject<O> object, Task task, OperationResult result) throws SecurityViolationException, SchemaException, ConfigurationException, ObjectNotFoundException, ExpressionEvaluationException, CommunicationException {
     	try {
@@ -341,6 +502,13 @@ public class SchemaTransformer {
 	public void applySecurityConstraints(List<Item<?,?>> items, ObjectSecurityConstraints securityConstraints,
 			AuthorizationDecisionType defaultReadDecision, AuthorizationDecisionType defaultAddDecision, AuthorizationDecisionType defaultModifyDecision,
 			AuthorizationPhaseType phase) {
+		applySecurityConstraints(items, securityConstraints, defaultReadDecision, defaultAddDecision, defaultModifyDecision, phase, null);
+	}
+
+	// If restrictions are not null, item definitions are not updated. The restrictions are recorded instead.
+	private void applySecurityConstraints(List<Item<?,?>> items, ObjectSecurityConstraints securityConstraints,
+			AuthorizationDecisionType defaultReadDecision, AuthorizationDecisionType defaultAddDecision, AuthorizationDecisionType defaultModifyDecision,
+			AuthorizationPhaseType phase, Set<ObjectDefinitionViewCache.AccessRestriction> restrictions) {
 		LOGGER.trace("applySecurityConstraints(items): items={}, phase={}, defaults R={}, A={}, M={}",
 				items, phase, defaultReadDecision, defaultAddDecision, defaultModifyDecision);
 		if (items == null) {
@@ -361,7 +529,14 @@ public class SchemaTransformer {
 			AuthorizationDecisionType itemModifyDecision = computeItemDecision(securityConstraints, nameOnlyItemPath, ModelAuthorizationAction.AUTZ_ACTIONS_URLS_MODIFY, defaultReadDecision, phase);
 			LOGGER.trace("applySecurityConstraints(item): {}: decisions R={}, A={}, M={}",
 					itemPath, itemReadDecision, itemAddDecision, itemModifyDecision);
-			if (itemDef != null) {
+			if (itemDef != null && restrictions != null) {
+				if (itemReadDecision != AuthorizationDecisionType.ALLOW || itemAddDecision != AuthorizationDecisionType.ALLOW
+						|| itemModifyDecision != AuthorizationDecisionType.ALLOW) {
+					restrictions.add(new ObjectDefinitionViewCache.AccessRestriction(nameOnlyItemPath,
+							itemReadDecision != AuthorizationDecisionType.ALLOW, itemAddDecision != AuthorizationDecisionType.ALLOW,
+							itemModifyDecision != AuthorizationDecisionType.ALLOW));
+				}
+			} else if (itemDef != null) {
 				if (itemReadDecision != AuthorizationDecisionType.ALLOW) {
 					((ItemDefinitionImpl) itemDef).setCanRead(false);
 				}
@@ -390,7 +565,7 @@ public class SchemaTransformer {
 						PrismContainerValue<?> cval = vi.next();
 						List<Item<?,?>> subitems = cval.getItems();
 						if (subitems != null && !subitems.isEmpty()) {	// second condition is to prevent removal of originally empty values
-							applySecurityConstraints(subitems, securityConstraints, subDefaultReadDecision, itemAddDecision, itemModifyDecision, phase);
+							applySecurityConstraints(subitems, securityConstraints, subDefaultReadDecision, itemAddDecision, itemModifyDecision, phase, restrictions);
 							if (subitems.isEmpty()) {
 								vi.remove();
 							}
@@ -538,12 +713,18 @@ public class SchemaTransformer {
     }
 
     public <O extends ObjectType> void applyObjectTemplateToDefinition(PrismObjectDefinition<O> objectDefinition, ObjectTemplateType objectTemplateType, OperationResult result) throws ObjectNotFoundException, SchemaException {
+		applyObjectTemplateToDefinition(objectDefinition, objectTemplateType, null, result);
+	}
+
+	// If problems is not null, the problems are collected there instead of being recorded in the operation result.
+	private <O extends ObjectType> void applyObjectTemplateToDefinition(PrismObjectDefinition<O> objectDefinition, ObjectTemplateType objectTemplateType,
+			List<String> problems, OperationResult result) throws ObjectNotFoundException, SchemaException {
 		if (objectTemplateType == null) {
 			return;
 		}
 		for (ObjectReferenceType includeRef: objectTemplateType.getIncludeRef()) {
 			PrismObject<ObjectTemplateType> subTemplate = cacheRepositoryService.getObject(ObjectTemplateType.class, includeRef.getOid(), null, result);
-			applyObjectTemplateToDefinition(objectDefinition, subTemplate.asObjectable(), result);
+			applyObjectTemplateToDefinition(objectDefinition, subTemplate.asObjectable(), problems, result);
 		}
 		for (ObjectTemplateItemDefinitionType templateItemDefType: objectTemplateType.getItem()) {
                 ItemPathType ref = templateItemDefType.getRef();
@@ -555,8 +736,13 @@ public class SchemaTransformer {
                 if (itemDef != null) {
                     applyObjectTemplateItem(itemDef, templateItemDefType, "item " + itemPath + " in object type " + objectDefinition.getTypeName() + " as specified in item definition in " + objectTemplateType);
                 } else {
-                    OperationResult subResult = result.createMinorSubresult(SchemaTransformer.class.getName() + ".applyObjectTemplateToDefinition");
-                    subResult.recordPartialError("No definition for item " + itemPath + " in object type " + objectDefinition.getTypeName() + " as specified in item definition in " + objectTemplateType);
+                    String message = "No definition for item " + itemPath + " in object type " + objectDefinition.getTypeName() + " as specified in item definition in " + objectTemplateType;
+                    if (problems != null) {
+                        problems.add(message);
+                    } else {
+                        OperationResult subResult = result.createMinorSubresult(SchemaTransformer.class.getName() + ".applyObjectTemplateToDefinition");
+                        subResult.recordPartialError(message);
+                    }
                     continue;
                 }
 		}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.model.impl.integrity;
+
+import com.evolveum.midpoint.model.api.ModelPublicConstants;
+import com.evolveum.midpoint.model.impl.util.ModelImplUtils;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.api.*;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Checks the assignee counts maintained by the repository (used when evaluating min/max assignees constraints)
+ * against the assignments stored, and repairs them (unless dryRun is set). Repairing also compacts the data kept
+ * for the counts, so the task should be run regularly.
+ */
+@Component
+public class AssigneeCountCheckTaskHandler implements TaskHandler {
+
+	private static final Trace LOGGER = TraceManager.getTrace(AssigneeCountCheckTaskHandler.class);
+
+	private static final String DOT_CLASS = AssigneeCountCheckTaskHandler.class.getName() + ".";
+
+	@Autowired private TaskManager taskManager;
+	@Autowired @Qualifier("cacheRepositoryService") private RepositoryService repositoryService;
+
+	@Override
+	public TaskRunResult run(Task task) {
+
+		OperationResult result = task.getResult().createSubresult(DOT_CLASS + "run");
+		TaskRunResult runResult = new TaskRunResult();
+
+		try {
+			boolean repair = !ModelImplUtils.isDryRun(task);
+			int problems = repositoryService.testAssigneeCountConsistency(repair, result);
+			LOGGER.info("Assignee count check finished: {} inconsistent count(s) found{}", problems,
+					problems > 0 && repair ? " and repaired" : "");
+			result.computeStatusIfUnknown();
+			runResult.setRunResultStatus(TaskRunResult.TaskRunResultStatus.FINISHED);
+		} catch (SchemaException | RuntimeException e) {
+			String message = "An exception occurred when checking assignee counts, in task " + task;
+			LoggingUtils.logUnexpectedException(LOGGER, message, e);
+			result.recordFatalError(message, e);
+			runResult.setRunResultStatus(TaskRunResult.TaskRunResultStatus.PERMANENT_ERROR);
+		}
+		task.getResult().recomputeStatus();
+		runResult.setOperationResult(task.getResult());
+		return runResult;
+	}
+
+	@Override
+	public String getCategoryName(Task task) {
+		return TaskCategory.UTIL;
+	}
+
+	@PostConstruct
+	private void initialize() {
+		taskManager.registerHandler(ModelPublicConstants.ASSIGNEE_COUNT_CHECK_TASK_HANDLER_URI, this);
+	}
+}
@@ -102,6 +102,7 @@ public class AssignmentEvaluator<F extends FocusType> {
 	private final String channel;
 	private final ObjectResolver objectResolver;
 	private final SystemObjectCache systemObjectCache;
+	private final RoleStructureCache roleStructureCache;
 	private final RelationRegistry relationRegistry;
 	private final PrismContext prismContext;
 	private final MappingFactory mappingFactory;
@@ -120,6 +121,7 @@ public class AssignmentEvaluator<F extends FocusType> {
 		channel = builder.channel;
 		objectResolver = builder.objectResolver;
 		systemObjectCache = builder.systemObjectCache;
+		roleStructureCache = builder.roleStructureCache;
 		relationRegistry = builder.relationRegistry;
 		prismContext = builder.prismContext;
 		mappingFactory = builder.mappingFactory;
@@ -688,7 +690,11 @@ public class AssignmentEvaluator<F extends FocusType> {
 			LOGGER.trace("Resolving target {}:{} from repository", targetClass.getSimpleName(), oid);
 			PrismObject<O> target;
 			try {
-				target = repository.getObject(targetClass, oid, null, ctx.result);
+				if (roleStructureCache != null) {
+					target = roleStructureCache.getObject(targetClass, oid, repository, ctx.result);
+				} else {
+					target = repository.getObject(targetClass, oid, null, ctx.result);
+				}
 	        } catch (SchemaException e) {
 	        	throw new SchemaException(e.getMessage() + " in " + segment.sourceDescription, e);
 	        }
@@ -720,6 +726,10 @@ public class AssignmentEvaluator<F extends FocusType> {
 				throw new SchemaException("The OID is null and filter could not be evaluated in assignment targetRef in "+segment.source);
 			}
 
+			if (roleStructureCache != null && !ExpressionUtil.hasExpressions(origFilter)) {
+				// static filter, so the result does not depend on the focus
+				return roleStructureCache.searchObjects(targetClass, evaluatedFilter, repository, ctx.result);
+			}
 			return repository.searchObjects(targetClass, ObjectQuery.createObjectQuery(evaluatedFilter), null, ctx.result);
 			// we don't check for no targets here; as we don't care for referential integrity
 		} finally {
@@ -1311,6 +1321,7 @@ public class AssignmentEvaluator<F extends FocusType> {
 		private String channel;
 		private ObjectResolver objectResolver;
 		private SystemObjectCache systemObjectCache;
+		private RoleStructureCache roleStructureCache;
 		private RelationRegistry relationRegistry;
 		private PrismContext prismContext;
 		private MappingFactory mappingFactory;
@@ -1353,6 +1364,11 @@ public class AssignmentEvaluator<F extends FocusType> {
 			return this;
 		}
 
+		public Builder<F> roleStructureCache(RoleStructureCache val) {
+			roleStructureCache = val;
+			return this;
+		}
+
 		public Builder<F> relationRegistry(RelationRegistry val) {
 			relationRegistry = val;
 			return this;
@@ -249,7 +249,7 @@ public class ChangeExecutor {
 
 				OperationResult subResult = result.createSubresult(
 						OPERATION_EXECUTE_PROJECTION + "." + projCtx.getObjectTypeClass().getSimpleName());
-				subResult.addArbitraryObjectAsContext("discriminator", projCtx.getResourceShadowDiscriminator());
+				subResult.addLazyContext("discriminator", projCtx::getResourceShadowDiscriminator);
 				if (projCtx.getResource() != null) {
 					subResult.addParam("resource", projCtx.getResource());
 				}
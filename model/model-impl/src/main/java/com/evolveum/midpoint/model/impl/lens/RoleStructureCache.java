@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.model.impl.lens;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.query.ObjectFilter;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.repo.common.AbstractNodeCache;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AbstractRoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+
+/**
+ * Node-level cache of the role structure, i.e. assignment targets (roles, orgs, services) and results of static
+ * (expression-free) targetRef filters. It is shared by evaluation of assignments of all the focal objects.
+ *
+ * The same roles, inducements and metaroles are walked through for each user that has a given business role,
+ * so without this cache each of them is read from the repository (and parsed) again for each recomputed user.
+ * Only the resolution of targets is shared: conditions, focus mappings, constructions and the like depend on
+ * the focus, so they are still evaluated for each focus separately.
+ *
+ * Cached targets are immutable and they are handed out without cloning, like read-only objects from the repository
+ * cache. The assignment evaluation only reads them.
+ *
+ * Objects changed on this node are invalidated via CacheDispatcher. Changes made on other nodes are detected by
+ * comparing the object version after the time to live elapses. Filter results are dropped on any change of
+ * an abstract role and they are not re-used after the time to live elapses.
+ *
+ * Configuration (in midpoint.system section of config.xml):
+ * <ul>
+ *     <li>roleStructureCacheTimeToLive - how long (in seconds) the cached data are used without checking (default 10, 0 = cache disabled),</li>
+ *     <li>roleStructureCacheMaxSize - maximum number of cached targets and filter results (default 10000).</li>
+ * </ul>
+ */
+@Component
+public class RoleStructureCache extends AbstractNodeCache<Object, RoleStructureCache.CachedItem> {
+
+	private static final Trace LOGGER = TraceManager.getTrace(RoleStructureCache.class);
+
+	/**
+	 * Targets are keyed by OID, filter results by (type, filter) list.
+	 */
+	abstract static class CachedItem {
+	}
+
+	private static class Target extends CachedItem {
+		private final PrismObject<? extends ObjectType> object;         // immutable
+
+		private Target(PrismObject<? extends ObjectType> object) {
+			this.object = object;
+		}
+	}
+
+	private static class FilterResult extends CachedItem {
+		private final List<String> oids;
+
+		private FilterResult(List<String> oids) {
+			this.oids = oids;
+		}
+	}
+
+	public RoleStructureCache() {
+		super("roleStructureCacheTimeToLive", 10, "roleStructureCacheMaxSize", 10000);
+	}
+
+	/**
+	 * Only abstract roles are cached. Other targets (e.g. users in case of deputy assignments) change too often.
+	 */
+	public boolean isCacheable(@NotNull Class<?> type) {
+		return isEnabled() && AbstractRoleType.class.isAssignableFrom(type);
+	}
+
+	/**
+	 * Returns the object with given OID, reading it from the repository only if it's not cached (or it was changed).
+	 * Objects of cacheable types are returned immutable.
+	 */
+	@NotNull
+	public <O extends ObjectType> PrismObject<O> getObject(@NotNull Class<O> type, @NotNull String oid,
+			@NotNull RepositoryService repository, OperationResult result) throws ObjectNotFoundException, SchemaException {
+		if (!isCacheable(type)) {
+			return repository.getObject(type, oid, null, result);
+		}
+		Entry<CachedItem> entry = getEntry(oid);
+		if (entry != null && entry.getValue() instanceof Target) {
+			PrismObject<? extends ObjectType> cached = ((Target) entry.getValue()).object;
+			if (type.isAssignableFrom(cached.getCompileTimeClass())) {
+				long now = System.currentTimeMillis();
+				if (!entry.isExpired(now)) {
+					recordHit();
+					//noinspection unchecked
+					return (PrismObject<O>) cached;
+				}
+				String currentVersion;
+				try {
+					currentVersion = repository.getVersion(type, oid, result);
+				} catch (ObjectNotFoundException | RuntimeException e) {
+					invalidateObject(oid);
+					throw e;
+				}
+				if (Objects.equals(currentVersion, cached.getVersion())) {
+					entry.setExpiresAt(now + getTimeToLive());
+					recordHit();
+					//noinspection unchecked
+					return (PrismObject<O>) cached;
+				}
+			}
+		}
+		recordMiss();
+		long generation = getGeneration();
+		PrismObject<O> object = repository.getObject(type, oid, null, result);
+		store(object, generation);
+		return object;
+	}
+
+	/**
+	 * Returns objects matching given filter. The filter must not depend on the focus (i.e. it must contain
+	 * no expressions), as its results are shared.
+	 */
+	@NotNull
+	public <O extends ObjectType> List<PrismObject<O>> searchObjects(@NotNull Class<O> type, @NotNull ObjectFilter filter,
+			@NotNull RepositoryService repository, OperationResult result) throws SchemaException {
+		if (!isCacheable(type)) {
+			return repository.searchObjects(type, ObjectQuery.createObjectQuery(filter), null, result);
+		}
+		List<Object> key = Arrays.asList(type, filter.debugDump());
+		CachedItem cached = get(key);
+		if (cached instanceof FilterResult) {
+			List<String> oids = ((FilterResult) cached).oids;
+			try {
+				List<PrismObject<O>> objects = new ArrayList<>(oids.size());
+				for (String oid : oids) {
+					objects.add(getObject(type, oid, repository, result));
+				}
+				return objects;
+			} catch (ObjectNotFoundException e) {
+				// deleted in the meanwhile (on other node); let's search again
+				result.muteLastSubresultError();
+				LOGGER.trace("Object from cached result of {} was not found, searching again", key, e);
+			}
+		}
+		long generation = getGeneration();
+		List<PrismObject<O>> objects = repository.searchObjects(type, ObjectQuery.createObjectQuery(filter), null, result);
+		List<String> oids = new ArrayList<>(objects.size());
+		for (PrismObject<O> object : objects) {
+			oids.add(object.getOid());
+			store(object, generation);
+		}
+		put(key, new FilterResult(oids), generation);
+		return objects;
+	}
+
+	private void store(PrismObject<? extends ObjectType> object, long generation) {
+		object.setImmutable(true);
+		if (object.getOid() != null) {
+			put(object.getOid(), new Target(object), generation);
+		}
+	}
+
+	/**
+	 * Removes the object and all the filter results, as the object could have started or stopped matching the filters.
+	 */
+	private void invalidateObject(String oid) {
+		invalidate(item -> item instanceof FilterResult
+				|| item instanceof Target && oid.equals(((Target) item).object.getOid()), true);
+	}
+
+	@Override
+	public <O extends ObjectType> void invalidateCache(Class<O> type, String oid) {
+		if (type != null && !AbstractRoleType.class.isAssignableFrom(type) && !type.isAssignableFrom(AbstractRoleType.class)) {
+			return;
+		}
+		if (oid != null) {
+			invalidateObject(oid);
+		} else {
+			clear();
+		}
+	}
+}
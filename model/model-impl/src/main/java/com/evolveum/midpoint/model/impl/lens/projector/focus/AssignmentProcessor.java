@@ -53,6 +53,7 @@ import com.evolveum.midpoint.model.impl.lens.LensContext;
 import com.evolveum.midpoint.model.impl.lens.LensFocusContext;
 import com.evolveum.midpoint.model.impl.lens.LensProjectionContext;
 import com.evolveum.midpoint.model.impl.lens.LensUtil;
+import com.evolveum.midpoint.model.impl.lens.RoleStructureCache;
 import com.evolveum.midpoint.prism.CloneStrategy;
 import com.evolveum.midpoint.prism.ItemDefinition;
 import com.evolveum.midpoint.prism.PrismContainerDefinition;
@@ -125,6 +126,9 @@ public class AssignmentProcessor {
     @Autowired
 	private SystemObjectCache systemObjectCache;
 
+    @Autowired
+	private RoleStructureCache roleStructureCache;
+
     @Autowired
     private RelationRegistry relationRegistry;
 
@@ -1100,6 +1104,7 @@ public class AssignmentProcessor {
 				.channel(context.getChannel())
 				.objectResolver(objectResolver)
 				.systemObjectCache(systemObjectCache)
+				.roleStructureCache(roleStructureCache)
 				.relationRegistry(relationRegistry)
 				.prismContext(prismContext)
 				.mappingFactory(mappingFactory)
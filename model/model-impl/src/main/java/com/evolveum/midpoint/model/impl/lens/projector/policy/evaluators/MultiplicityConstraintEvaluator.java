@@ -181,20 +181,19 @@ public class MultiplicityConstraintEvaluator implements PolicyConstraintEvaluato
 		if (relation == null || !containsRelation(constraint.getValue(), relation)) {
 			return null;
 		}
-		String focusOid = context.getFocusContext() != null ? context.getFocusContext().getOid() : null;
+		PrismObject<F> focusCurrent = context.getFocusContext() != null ? context.getFocusContext().getObjectCurrent() : null;
 		boolean isMin = QNameUtil.match(constraint.getName(), PolicyConstraintsType.F_MIN_ASSIGNEES);
 		boolean isMax = QNameUtil.match(constraint.getName(), PolicyConstraintsType.F_MAX_ASSIGNEES);
 		if (!isMin && !isMax) {
 			throw new AssertionError("!isMin and !isMax");
 		}
-		// TODO cache repository call results
 		if (isMin) {
 			Integer requiredMultiplicity = XsdTypeMapper.multiplicityToInteger(constraint.getValue().getMultiplicity());
 			if (requiredMultiplicity <= 0) {
 				return null;            // unbounded or 0
 			}
 			// Complain only if the situation is getting worse
-			int currentAssigneesExceptMyself = getNumberOfAssigneesExceptMyself(targetRole, focusOid, relation, result);
+			int currentAssigneesExceptMyself = getNumberOfAssigneesExceptMyself(targetRole, focusCurrent, relation, result);
 			if (currentAssigneesExceptMyself < requiredMultiplicity && plusMinus == PlusMinusZero.MINUS) {
 				return new EvaluatedMultiplicityTrigger(PolicyConstraintKindType.MIN_ASSIGNEES_VIOLATION,
 						constraint.getValue(),
@@ -211,7 +210,7 @@ public class MultiplicityConstraintEvaluator implements PolicyConstraintEvaluato
 				return null;			// unbounded
 			}
 			// Complain only if the situation is getting worse
-			int currentAssigneesExceptMyself = getNumberOfAssigneesExceptMyself(targetRole, focusOid, relation, result);
+			int currentAssigneesExceptMyself = getNumberOfAssigneesExceptMyself(targetRole, focusCurrent, relation, result);
 			if (currentAssigneesExceptMyself >= requiredMultiplicity && plusMinus == PLUS) {
 				return new EvaluatedMultiplicityTrigger(PolicyConstraintKindType.MAX_ASSIGNEES_VIOLATION,
 						constraint.getValue(),
@@ -237,12 +236,24 @@ public class MultiplicityConstraintEvaluator implements PolicyConstraintEvaluato
 
 	/**
 	 * Returns numbers of assignees with the given relation name.
+	 *
+	 * Uses the assignee count maintained by the repository, if available. The count includes the focus itself
+	 * if its current (i.e. stored) version is assigned to the target, so it has to be subtracted in that case.
 	 */
-	private int getNumberOfAssigneesExceptMyself(AbstractRoleType target, String selfOid, QName relation, OperationResult result)
-			throws SchemaException {
+	private int getNumberOfAssigneesExceptMyself(AbstractRoleType target, PrismObject<? extends FocusType> selfCurrent,
+			QName relation, OperationResult result) throws SchemaException {
 		if (target.getOid() == null) {
 			return 0;
 		}
+		Integer maintainedCount = repositoryService.countAssignees(target.getOid(), relation, result);
+		if (maintainedCount != null) {
+			if (selfCurrent != null && isAssigned(selfCurrent.asObjectable(), target.getOid(), relation)) {
+				return Math.max(maintainedCount - 1, 0);
+			} else {
+				return maintainedCount;
+			}
+		}
+		String selfOid = selfCurrent != null ? selfCurrent.getOid() : null;
 		S_AtomicFilterExit q = QueryBuilder.queryFor(FocusType.class, prismContext)
 				.item(FocusType.F_ASSIGNMENT, AssignmentType.F_TARGET_REF).ref(
 						new PrismReferenceValue(target.getOid()).relation(relation));
@@ -253,6 +264,17 @@ public class MultiplicityConstraintEvaluator implements PolicyConstraintEvaluato
 		return repositoryService.countObjects(FocusType.class, query, null, result);
 	}
 
+	private boolean isAssigned(FocusType focus, String targetOid, QName relation) {
+		for (AssignmentType assignment : focus.getAssignment()) {
+			ObjectReferenceType targetRef = assignment.getTargetRef();
+			if (targetRef != null && targetOid.equals(targetRef.getOid())
+					&& QNameUtil.match(relationRegistry.normalizeRelation(targetRef.getRelation()), relationRegistry.normalizeRelation(relation))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private <F extends FocusType> LocalizableMessage getMessage(JAXBElement<MultiplicityPolicyConstraintType> constraintElement,
 			PolicyRuleEvaluationContext<F> rctx, OperationResult result, String key1, String key2,
 			PrismObject<?> target, Object... args)
@@ -36,4 +36,12 @@ public interface ActionExecutor {
      * @param parentResult
      */
     PipelineData execute(ActionExpressionType command, PipelineData input, ExecutionContext context, OperationResult parentResult) throws ScriptExecutionException;
+
+    /**
+     * Returns true if the action processes input items independently of each other, i.e. if executing it on items
+     * one by one (e.g. as they are found by a search) gives the same result as executing it on the whole input.
+     */
+    default boolean canProcessItemsSeparately(ActionExpressionType command) {
+        return false;
+    }
 }
@@ -43,11 +43,12 @@ public class ExecutionContext {
     private final ScriptingExpressionEvaluationOptionsType options;
     private final Task task;
     private final ScriptingExpressionEvaluator scriptingExpressionEvaluator;
-    private final StringBuilder consoleOutput = new StringBuilder();
+    private final StringBuilder consoleOutput;                                      // shared with worker contexts
     private final Map<String, PipelineData> globalVariables = new HashMap<>();      // will probably remain unused
     private final Map<String, Object> initialVariables;                             // used e.g. when there are no data in a pipeline; these are frozen - i.e. made immutable if possible; to be cloned-on-use
     private PipelineData finalOutput;                                        // used only when passing result to external clients (TODO do this more cleanly)
     private final boolean recordProgressAndIterationStatistics;
+    private final boolean worker;                                                   // true if used by a worker thread of a parallel search
 
     public ExecutionContext(ScriptingExpressionEvaluationOptionsType options, Task task,
             ScriptingExpressionEvaluator scriptingExpressionEvaluator,
@@ -58,6 +59,31 @@ public class ExecutionContext {
         this.privileged = privileged;
         this.initialVariables = initialVariables;
         this.recordProgressAndIterationStatistics = recordProgressAndIterationStatistics;
+        this.consoleOutput = new StringBuilder();
+        this.worker = false;
+    }
+
+    private ExecutionContext(ExecutionContext parent, Task workerTask) {
+        this.options = parent.options;
+        this.task = workerTask;
+        this.scriptingExpressionEvaluator = parent.scriptingExpressionEvaluator;
+        this.privileged = parent.privileged;
+        this.initialVariables = parent.initialVariables;
+        this.recordProgressAndIterationStatistics = parent.recordProgressAndIterationStatistics;
+        this.consoleOutput = parent.consoleOutput;
+        this.worker = true;
+    }
+
+    /**
+     * Creates a context for processing items in given worker task (a lightweight subtask of this context's task).
+     * Console output is shared with this context.
+     */
+    public ExecutionContext createWorkerContext(Task workerTask) {
+        return new ExecutionContext(this, workerTask);
+    }
+
+    public boolean isWorker() {
+        return worker;
     }
 
 	public Task getTask() {
@@ -89,11 +115,15 @@ public class ExecutionContext {
     }
 
     public String getConsoleOutput() {
-        return consoleOutput.toString();
+        synchronized (consoleOutput) {
+            return consoleOutput.toString();
+        }
     }
 
     public void println(Object o) {
-        consoleOutput.append(o).append("\n");
+        synchronized (consoleOutput) {
+            consoleOutput.append(o).append("\n");
+        }
         if (o != null) {
             LOGGER.info("Script console message: {}", o);          // temporary, until some better way of logging bulk action executions is found
         }
@@ -231,13 +231,55 @@ public class ScriptingExpressionEvaluator {
         }
     }
 
+    /**
+     * If a search is followed by expressions that process items one by one, these are evaluated for each object
+     * as soon as it is found (just like an expression embedded in the search). So the objects found are not collected
+     * before being passed forward, and they can be even processed in parallel (see SearchEvaluator).
+     */
     private PipelineData executePipeline(ExpressionPipelineType pipeline, PipelineData data, ExecutionContext context, OperationResult result) throws ScriptExecutionException {
-        for (JAXBElement<? extends ScriptingExpressionType> expressionType : pipeline.getScriptingExpression()) {
-            data = evaluateExpression(expressionType, data, context, result);
+        List<JAXBElement<? extends ScriptingExpressionType>> expressions = pipeline.getScriptingExpression();
+        for (int i = 0; i < expressions.size(); i++) {
+            ScriptingExpressionType expression = expressions.get(i).getValue();
+            List<JAXBElement<? extends ScriptingExpressionType>> rest = expressions.subList(i + 1, expressions.size());
+            if (expression instanceof SearchExpressionType && ((SearchExpressionType) expression).getScriptingExpression() == null
+                    && !rest.isEmpty() && rest.stream().allMatch(e -> canProcessItemsSeparately(e.getValue()))) {
+                return executeSearchWithRestOfPipeline((SearchExpressionType) expression, rest, data, context, result);
+            }
+            data = evaluateExpression(expression, data, context, result);
         }
         return data;
     }
 
+    private PipelineData executeSearchWithRestOfPipeline(SearchExpressionType search,
+            List<JAXBElement<? extends ScriptingExpressionType>> rest, PipelineData input, ExecutionContext context,
+            OperationResult parentResult) throws ScriptExecutionException {
+        ScriptingExpressionType expressionForEachObject;
+        if (rest.size() == 1) {
+            expressionForEachObject = rest.get(0).getValue();
+        } else {
+            ExpressionPipelineType restPipeline = new ExpressionPipelineType();
+            restPipeline.getScriptingExpression().addAll(rest);
+            expressionForEachObject = restPipeline;
+        }
+        context.checkTaskStop();
+        OperationResult globalResult = parentResult.createMinorSubresult(DOT_CLASS + "evaluateExpression");
+        PipelineData output = searchEvaluator.evaluate(search, expressionForEachObject, input, context, globalResult);
+        globalResult.computeStatusIfUnknown();
+        return output;
+    }
+
+    private boolean canProcessItemsSeparately(ScriptingExpressionType expression) {
+        if (expression instanceof ActionExpressionType) {
+            ActionExecutor executor = actionExecutors.get(((ActionExpressionType) expression).getType());
+            return executor != null && executor.canProcessItemsSeparately((ActionExpressionType) expression);
+        } else if (expression instanceof ExpressionPipelineType) {
+            return ((ExpressionPipelineType) expression).getScriptingExpression().stream()
+                    .allMatch(e -> canProcessItemsSeparately(e.getValue()));
+        } else {
+            return expression instanceof SelectExpressionType || expression instanceof FilterContentExpressionType;
+        }
+    }
+
     private PipelineData executeSequence(ExpressionSequenceType sequence, PipelineData input, ExecutionContext context, OperationResult result) throws ScriptExecutionException {
         PipelineData lastOutput = null;
         List<JAXBElement<? extends ScriptingExpressionType>> scriptingExpression = sequence.getScriptingExpression();
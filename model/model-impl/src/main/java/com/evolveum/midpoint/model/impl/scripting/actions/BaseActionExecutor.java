@@ -132,6 +132,18 @@ public abstract class BaseActionExecutor implements ActionExecutor {
 		}
 	}
 
+	/**
+	 * Actions derived from this class process items one by one, unless stated otherwise.
+	 */
+	@Override
+	public boolean canProcessItemsSeparately(ActionExpressionType command) {
+		return true;
+	}
+
+	protected boolean hasParameter(ActionExpressionType command, String name) {
+		return command.getParameter().stream().anyMatch(p -> name.equals(p.getName()));
+	}
+
 	protected void checkRootAuthorization(ExecutionContext context,
 			OperationResult globalResult, String actionName) throws ScriptExecutionException {
 		if (context.isPrivileged()) {
@@ -63,6 +63,11 @@ public class NotifyExecutor extends BaseActionExecutor {
         scriptingExpressionEvaluator.registerActionExecutor(NAME, this);
     }
 
+    @Override
+    public boolean canProcessItemsSeparately(ActionExpressionType expression) {
+        return !hasParameter(expression, PARAM_FOR_WHOLE_INPUT);        // to be safe, we do not evaluate the parameter here
+    }
+
     @Override
     public PipelineData execute(ActionExpressionType expression, PipelineData input, ExecutionContext context, OperationResult globalResult) throws ScriptExecutionException {
 
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.model.impl.scripting.expressions;
+
+import com.evolveum.midpoint.model.api.ScriptExecutionException;
+import com.evolveum.midpoint.model.impl.scripting.ExecutionContext;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.repo.cache.RepositoryCache;
+import com.evolveum.midpoint.schema.ResultHandler;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.result.OperationResultStatus;
+import com.evolveum.midpoint.task.api.LightweightTaskHandler;
+import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.task.api.TaskManager;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Passes objects found by a search to worker threads (lightweight subtasks of the context task) that process
+ * them in parallel. The queue between the search and the workers is bounded, so the search is slowed down
+ * if the workers cannot keep up with it; found objects are not accumulated in memory.
+ *
+ * Modeled after AbstractSearchIterativeResultHandler.
+ */
+class ParallelSearchResultHandler<T extends ObjectType> implements ResultHandler<T> {
+
+	private static final Trace LOGGER = TraceManager.getTrace(ParallelSearchResultHandler.class);
+
+	private static final String OPERATION_PROCESS = ParallelSearchResultHandler.class.getName() + ".process";
+
+	private static final long WORKER_THREAD_WAIT_FOR_REQUEST = 500L;
+	private static final long REQUEST_QUEUE_OFFER_TIMEOUT = 1000L;
+
+	@FunctionalInterface
+	interface ObjectProcessor<T extends ObjectType> {
+		void process(PrismObject<T> object, ExecutionContext workerContext, OperationResult result) throws ScriptExecutionException;
+	}
+
+	private final ExecutionContext context;
+	private final ObjectProcessor<T> processor;
+	private final BlockingQueue<PrismObject<T>> requestQueue;
+	private final List<OperationResult> workerSpecificResults = new ArrayList<>();
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+	private final AtomicInteger objectsProcessed = new AtomicInteger();
+	private final long initialProgress;
+	private volatile boolean allItemsSubmitted = false;
+
+	ParallelSearchResultHandler(ExecutionContext context, int threadsCount, ObjectProcessor<T> processor) {
+		this.context = context;
+		this.processor = processor;
+		this.requestQueue = new ArrayBlockingQueue<>(threadsCount * 2);
+		Task coordinatorTask = context.getTask();
+		this.initialProgress = coordinatorTask.getProgress();
+		for (int i = 0; i < threadsCount; i++) {
+			// worker specific results are put under the main result only after the processing is done (because of concurrency issues)
+			OperationResult workerSpecificResult = new OperationResult(OPERATION_PROCESS);
+			workerSpecificResult.addContext("subtaskIndex", i+1);
+			workerSpecificResults.add(workerSpecificResult);
+
+			Task subtask = coordinatorTask.createSubtask(new WorkerHandler(workerSpecificResult));
+			subtask.setCategory(coordinatorTask.getCategory());
+			subtask.setResult(new OperationResult(OPERATION_PROCESS + "Worker", OperationResultStatus.IN_PROGRESS, (String) null));
+			subtask.setName("Worker thread " + (i+1) + " of " + threadsCount);
+			subtask.startLightweightHandler();
+			LOGGER.trace("Worker subtask {} created", subtask);
+		}
+	}
+
+	@Override
+	public boolean handle(PrismObject<T> object, OperationResult parentResult) {
+		context.checkTaskStop();
+		try {
+			while (!requestQueue.offer(object, REQUEST_QUEUE_OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				if (failure.get() != null) {
+					return false;
+				}
+				context.checkTaskStop();
+			}
+		} catch (InterruptedException e) {
+			LOGGER.trace("Interrupted when submitting {}", object);
+			return false;
+		}
+		return failure.get() == null;
+	}
+
+	/**
+	 * Waits until all the submitted objects are processed and puts results of workers under the given result.
+	 */
+	void completeProcessing(TaskManager taskManager, OperationResult result) {
+		allItemsSubmitted = true;
+		taskManager.waitForTransientChildren(context.getTask(), result);
+		for (OperationResult workerSpecificResult : workerSpecificResults) {
+			workerSpecificResult.computeStatus();
+			workerSpecificResult.summarize();
+			result.addSubresult(workerSpecificResult);
+		}
+	}
+
+	/**
+	 * Rethrows the exception that stopped the processing (if any).
+	 */
+	void checkFailure() throws ScriptExecutionException {
+		Throwable t = failure.get();
+		if (t instanceof ScriptExecutionException) {
+			throw (ScriptExecutionException) t;
+		} else if (t instanceof RuntimeException) {
+			throw (RuntimeException) t;
+		} else if (t != null) {
+			throw new ScriptExecutionException("Couldn't process object found by the search: " + t.getMessage(), t);
+		}
+	}
+
+	/**
+	 * Updates the progress of the coordinator task, like AbstractSearchIterativeResultHandler does.
+	 * (The progress of the worker task itself is recorded by the actions, just like in the single-thread case.)
+	 */
+	private void recordObjectProcessed() {
+		int processed = objectsProcessed.incrementAndGet();
+		if (!context.isRecordProgressAndIterationStatistics()) {
+			return;
+		}
+		Task coordinatorTask = context.getTask();
+		synchronized (coordinatorTask) {
+			coordinatorTask.setProgress(initialProgress + processed);
+			coordinatorTask.storeOperationStatsIfNeeded();  // includes savePendingModifications
+		}
+	}
+
+	private class WorkerHandler implements LightweightTaskHandler {
+
+		private final OperationResult workerSpecificResult;
+
+		private WorkerHandler(OperationResult workerSpecificResult) {
+			this.workerSpecificResult = workerSpecificResult;
+		}
+
+		@Override
+		public void run(Task workerTask) {
+			ExecutionContext workerContext = context.createWorkerContext(workerTask);
+			while (workerTask.canRun() && failure.get() == null) {
+				PrismObject<T> object;
+				try {
+					object = requestQueue.poll(WORKER_THREAD_WAIT_FOR_REQUEST, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					LOGGER.trace("Interrupted when waiting for next request", e);
+					return;
+				}
+				if (object != null) {
+					RepositoryCache.enter();
+					try {
+						processor.process(object, workerContext, workerSpecificResult);
+					} catch (ScriptExecutionException | RuntimeException e) {
+						LOGGER.trace("Processing of {} failed, stopping the workers", object, e);
+						failure.compareAndSet(null, e);
+					} finally {
+						RepositoryCache.exit();
+						recordObjectProcessed();
+					}
+				} else if (allItemsSubmitted) {
+					LOGGER.trace("queue is empty and nothing more is expected - exiting");
+					return;
+				}
+			}
+		}
+	}
+}
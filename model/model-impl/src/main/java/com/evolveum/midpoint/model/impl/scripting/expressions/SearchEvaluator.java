@@ -20,9 +20,11 @@ import com.evolveum.midpoint.model.api.PipelineItem;
 import com.evolveum.midpoint.model.api.ScriptExecutionException;
 import com.evolveum.midpoint.model.impl.scripting.ExecutionContext;
 import com.evolveum.midpoint.model.impl.scripting.PipelineData;
+import com.evolveum.midpoint.model.impl.scripting.expressions.ParallelSearchResultHandler.ObjectProcessor;
 import com.evolveum.midpoint.model.impl.scripting.helpers.ExpressionHelper;
 import com.evolveum.midpoint.model.impl.scripting.helpers.OperationsHelper;
 import com.evolveum.midpoint.prism.PrismContainerValue;
+import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.marshaller.QueryConvertor;
 import com.evolveum.midpoint.prism.query.ObjectFilter;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
@@ -34,7 +36,9 @@ import com.evolveum.midpoint.schema.GetOperationOptions;
 import com.evolveum.midpoint.schema.ResultHandler;
 import com.evolveum.midpoint.schema.SelectorOptions;
 import com.evolveum.midpoint.schema.constants.ObjectTypes;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.api.Task;
 import com.evolveum.midpoint.util.exception.*;
 import com.evolveum.midpoint.util.logging.LoggingUtils;
 import com.evolveum.midpoint.util.logging.Trace;
@@ -70,9 +74,21 @@ public class SearchEvaluator extends BaseExpressionEvaluator {
 
     private static final String PARAM_NO_FETCH = "noFetch";
 
-    public <T extends ObjectType> PipelineData evaluate(SearchExpressionType searchExpression, PipelineData input,
+    public PipelineData evaluate(SearchExpressionType searchExpression, PipelineData input,
 			ExecutionContext context, OperationResult globalResult)
 		    throws ScriptExecutionException {
+	    JAXBElement<?> childExpression = searchExpression.getScriptingExpression();
+	    return evaluate(searchExpression, childExpression != null ? (ScriptingExpressionType) childExpression.getValue() : null,
+			    input, context, globalResult);
+    }
+
+	/**
+	 * Evaluates the search, sending each object found through given expression (if not null); this expression is
+	 * either the one embedded in the search or the rest of the pipeline the search is part of.
+	 */
+    public <T extends ObjectType> PipelineData evaluate(SearchExpressionType searchExpression, ScriptingExpressionType expressionForEachObject,
+		    PipelineData input, ExecutionContext context, OperationResult globalResult)
+		    throws ScriptExecutionException {
         Validate.notNull(searchExpression.getType());
 
 	    List<PipelineItem> data = input.getData();
@@ -127,32 +143,30 @@ public class SearchEvaluator extends BaseExpressionEvaluator {
 		    	objectQuery = null;
 		    }
 
-		    final String variableName = searchExpression.getVariable();
+		    // TODO searchExpression.getVariable()
+
+		    ObjectProcessor<T> processor = (object, ctx, result) ->
+				    processObject(object, item, expressionForEachObject, searchExpression, outputData, ctx, result);
+
+		    ParallelSearchResultHandler<T> parallelHandler;
+		    int workerThreads = expressionForEachObject != null ? getWorkerThreads(context) : 0;
+		    if (workerThreads > 0) {
+			    LOGGER.debug("Processing objects found by the search in {} worker thread(s)", workerThreads);
+			    parallelHandler = new ParallelSearchResultHandler<>(context, workerThreads, processor);
+		    } else {
+			    parallelHandler = null;
+		    }
 
 		    ResultHandler<T> handler = (object, parentResult) -> {
 			    context.checkTaskStop();
 			    atLeastOne.setValue(true);
-			    if (searchExpression.getScriptingExpression() != null) {
-				    if (variableName != null) {
-					    // TODO
-				    }
-				    JAXBElement<?> childExpression = searchExpression.getScriptingExpression();
+			    if (parallelHandler != null) {
+				    return parallelHandler.handle(object, parentResult);
+			    } else if (expressionForEachObject != null) {
 				    try {
-					    PipelineData expressionResult = scriptingExpressionEvaluator.evaluateExpression(
-							    (ScriptingExpressionType) childExpression.getValue(),
-							    PipelineData.create(object.getValue(), item.getVariables()), context, globalResult);
-					    if (!BooleanUtils.isFalse(searchExpression.isAggregateOutput())) {
-						    outputData.addAllFrom(expressionResult);
-					    }
-					    globalResult.setSummarizeSuccesses(true);
-					    globalResult.summarize();
+					    processor.process(object, context, globalResult);
 				    } catch (ScriptExecutionException e) {
-					    // todo think about this
-					    if (context.isContinueOnAnyError()) {
-						    LoggingUtils.logUnexpectedException(LOGGER, "Exception when evaluating item from search result list.", e);
-					    } else {
-						    throw new SystemException(e);
-					    }
+					    throw new SystemException(e);
 				    }
 			    } else {
 				    outputData.addValue(object.getValue(), item.getVariables());
@@ -166,6 +180,13 @@ public class SearchEvaluator extends BaseExpressionEvaluator {
 		    } catch (SchemaException | ObjectNotFoundException | SecurityViolationException | CommunicationException | ConfigurationException | ExpressionEvaluationException e) {
 			    // TODO continue on any error?
 			    throw new ScriptExecutionException("Couldn't execute searchObjects operation: " + e.getMessage(), e);
+		    } finally {
+			    if (parallelHandler != null) {
+				    parallelHandler.completeProcessing(taskManager, globalResult);
+			    }
+		    }
+		    if (parallelHandler != null) {
+			    parallelHandler.checkFailure();
 		    }
 	    }
 
@@ -175,4 +196,40 @@ public class SearchEvaluator extends BaseExpressionEvaluator {
         return outputData;
     }
 
+	private <T extends ObjectType> void processObject(PrismObject<T> object, PipelineItem item, ScriptingExpressionType expression,
+			SearchExpressionType searchExpression, PipelineData outputData, ExecutionContext context, OperationResult result)
+			throws ScriptExecutionException {
+		try {
+			PipelineData expressionResult = scriptingExpressionEvaluator.evaluateExpression(expression,
+					PipelineData.create(object.getValue(), item.getVariables()), context, result);
+			if (!BooleanUtils.isFalse(searchExpression.isAggregateOutput())) {
+				synchronized (outputData) {         // objects can be processed by more worker threads
+					outputData.addAllFrom(expressionResult);
+				}
+			}
+			result.setSummarizeSuccesses(true);
+			result.summarize();
+		} catch (ScriptExecutionException e) {
+			// todo think about this
+			if (context.isContinueOnAnyError()) {
+				LoggingUtils.logUnexpectedException(LOGGER, "Exception when evaluating item from search result list.", e);
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Objects can be processed in parallel if the script runs in a persistent task that has workerThreads
+	 * extension property set. Searches evaluated by worker threads themselves are not parallelized again.
+	 */
+	private int getWorkerThreads(ExecutionContext context) {
+		Task task = context.getTask();
+		if (context.isWorker() || task == null || !task.isPersistent()) {
+			return 0;
+		}
+		Integer workerThreads = task.getExtensionPropertyRealValue(SchemaConstants.MODEL_EXTENSION_WORKER_THREADS);
+		return workerThreads != null ? workerThreads : 0;
+	}
+
 }
@@ -138,6 +138,17 @@ public abstract class AuthenticationEvaluatorImpl<C extends AbstractCredentialTy
 		}
 	}
 
+	@Override
+	public void recordAuthenticationSuccess(ConnectionEnvironment connEnv, T authnCtx, @NotNull MidPointPrincipal principal) {
+		CredentialsType credentials = principal.getUser().getCredentials();
+		C credential = credentials != null ? getCredential(credentials) : null;
+		if (credential != null) {
+			recordPasswordAuthenticationSuccess(principal, connEnv, credential, getCredentialsPolicy(principal, authnCtx));
+		} else {
+			recordAuthenticationSuccess(principal, connEnv);
+		}
+	}
+
 	private boolean checkCredentials(MidPointPrincipal principal, T authnCtx, ConnectionEnvironment connEnv) {
 
 		UserType userType = principal.getUser();
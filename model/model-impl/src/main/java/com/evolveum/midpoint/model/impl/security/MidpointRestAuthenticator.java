@@ -69,10 +69,19 @@ public abstract class MidpointRestAuthenticator<T extends AbstractAuthentication
 	@Autowired private SecurityHelper securityHelper;
 	@Autowired private TaskManager taskManager;
 	@Autowired private ModelService model;
+	@Autowired private RestAuthenticationCache restAuthenticationCache;
 
 	protected abstract AuthenticationEvaluator<T> getAuthenticationEvaluator();
 	protected abstract T createAuthenticationContext(AuthorizationPolicy policy, ContainerRequestContext requestCtx);
 
+	/**
+	 * Returns the entered credential in a form that can be used as a part of authentication cache key.
+	 * Null means that results of this authentication method must not be cached.
+	 */
+	protected String getCacheableCredential(T authenticationContext) {
+		return null;
+	}
+
 	 public void handleRequest(AuthorizationPolicy policy, Message m, ContainerRequestContext requestCtx) {
 
 	    	if (policy == null){
@@ -102,9 +111,23 @@ public abstract class MidpointRestAuthenticator<T extends AbstractAuthentication
 
 	        ConnectionEnvironment connEnv = ConnectionEnvironment.create(SchemaConstants.CHANNEL_REST_URI);
 	        connEnv.setSessionIdOverride(task.getTaskIdentifier());
-	        UsernamePasswordAuthenticationToken token;
+	        String cacheableCredential = getCacheableCredential(authenticationContext);
+	        // Obtained before the lookup, so a principal that was authenticated while the cache was invalidated is not cached.
+	        long cacheGeneration = restAuthenticationCache.getGeneration();
+	        MidPointPrincipal cachedPrincipal = restAuthenticationCache.get(enteredUsername, cacheableCredential);
+	        MidPointPrincipal principal;
 	        try {
-	        	token = getAuthenticationEvaluator().authenticate(connEnv, authenticationContext);
+	        	principal = restAuthenticationCache.runAuthentication(() -> {
+		        	if (cachedPrincipal == null) {
+		        		UsernamePasswordAuthenticationToken token = getAuthenticationEvaluator().authenticate(connEnv, authenticationContext);
+		        		return (MidPointPrincipal) token.getPrincipal();
+		        	} else {
+		        		LOGGER.trace("Using cached principal for username '{}'", enteredUsername);
+		        		// Credentials are not verified again, but the login is still recorded and audited.
+		        		getAuthenticationEvaluator().recordAuthenticationSuccess(connEnv, authenticationContext, cachedPrincipal);
+		        		return cachedPrincipal;
+		        	}
+	        	});
 	        } catch (UsernameNotFoundException | BadCredentialsException e) {
 	        	LOGGER.trace("Exception while authenticating username '{}' to REST service: {}", enteredUsername, e.getMessage(), e);
 	        	requestCtx.abortWith(Response.status(Status.UNAUTHORIZED).header("WWW-Authenticate", "Basic authentication failed. Cannot authenticate user.").build());
@@ -116,14 +139,18 @@ public abstract class MidpointRestAuthenticator<T extends AbstractAuthentication
 				return;
 	        }
 
-	        UserType user = ((MidPointPrincipal)token.getPrincipal()).getUser();
+	        UserType user = principal.getUser();
 	        task.setOwner(user.asPrismObject());
 
 	        //  m.put(RestServiceUtil.MESSAGE_PROPERTY_TASK_NAME, task);
-	        if (!authorizeUser(user, null, enteredUsername, connEnv, requestCtx)){
+	        if (!authorizeUser(principal, enteredUsername, connEnv, requestCtx)){
 	        	return;
 	        }
 
+	        // Recording the login modifies the user, which invalidates the cache entry. So we put it back here
+	        // (also for cached principals), with the user object that contains the updated login information.
+	        restAuthenticationCache.put(enteredUsername, cacheableCredential, principal, cacheGeneration);
+
 	        String oid = requestCtx.getHeaderString("Switch-To-Principal");
 	        OperationResult result = task.getResult();
 	        if (StringUtils.isNotBlank(oid)){
@@ -153,9 +180,12 @@ public abstract class MidpointRestAuthenticator<T extends AbstractAuthentication
 
 	    }
 
-	   private boolean authorizeUser(UserType user, PrismObject<UserType> proxyUser, String enteredUsername, ConnectionEnvironment connEnv, ContainerRequestContext requestCtx) {
-	    	authenticateUser(user.asPrismObject(), enteredUsername, connEnv, requestCtx);
-	        return authorizeUser(AuthorizationConstants.AUTZ_REST_ALL_URL, user, null, enteredUsername, connEnv, requestCtx);
+	   private boolean authorizeUser(MidPointPrincipal principal, String enteredUsername, ConnectionEnvironment connEnv, ContainerRequestContext requestCtx) {
+		   // The principal was just compiled by the authentication evaluator (or taken from the cache),
+		   // there is no need to compile it again from the user object.
+		   securityContextManager.setupPreAuthenticatedSecurityContext(principal);
+		   LOGGER.trace("Authenticated to REST service as {}", principal.getUser());
+	       return authorizeUser(AuthorizationConstants.AUTZ_REST_ALL_URL, principal.getUser(), null, enteredUsername, connEnv, requestCtx);
 	    }
 
 	   private void authenticateUser(PrismObject<UserType> user, String enteredUsername, ConnectionEnvironment connEnv, ContainerRequestContext requestCtx) {
@@ -201,4 +231,8 @@ public abstract class MidpointRestAuthenticator<T extends AbstractAuthentication
 	    public TaskManager getTaskManager() {
 			return taskManager;
 		}
+
+		public RestAuthenticationCache getRestAuthenticationCache() {
+			return restAuthenticationCache;
+		}
 }
@@ -26,4 +26,9 @@ public class MidpointRestPasswordAuthenticator extends MidpointRestAuthenticator
 		return new PasswordAuthenticationContext(policy.getUserName(), policy.getPassword());
 	}
 
+	@Override
+	protected String getCacheableCredential(PasswordAuthenticationContext authenticationContext) {
+		return authenticationContext.getPassword();
+	}
+
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.model.impl.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.datatype.Duration;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.common.AbstractNodeCache;
+import com.evolveum.midpoint.schema.util.MiscSchemaUtil;
+import com.evolveum.midpoint.security.api.MidPointPrincipal;
+import com.evolveum.midpoint.security.api.SecurityUtil;
+import com.evolveum.midpoint.util.exception.SystemException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AbstractRoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ActivationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.CredentialsType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.PasswordCredentialsPolicyType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.PasswordType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SecurityPolicyType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SystemConfigurationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ValuePolicyType;
+
+/**
+ * Short-lived cache of successfully verified REST credentials and the principals compiled for them.
+ *
+ * Verifying a (hashed) password and compiling the principal's authorizations is expensive. Integrations that
+ * call the REST API at high rate with the same credentials would pay this price on every request. This cache
+ * remembers the result of a successful authentication for a short, configurable time.
+ *
+ * The cache never stores the entered credential. Entries are keyed by a HMAC of the username and the credential,
+ * computed with a random key that lives only in the memory of this node. An entry is removed when:
+ * <ul>
+ *     <li>its time-to-live expires,</li>
+ *     <li>the user's validity (activation/validTo) or password (maxAge of the password policy) expires,</li>
+ *     <li>the user is modified or deleted (this includes password change, lockout or disabling),</li>
+ *     <li>any role, org, service, security policy, value policy or the system configuration is modified.</li>
+ * </ul>
+ * Changes made on other cluster nodes are not propagated here, they are bounded by the time-to-live only.
+ * This is also the reason why the cache is switched off by default (TTL = 0).
+ *
+ * An authentication that was running while the cache was invalidated must not store its (possibly outdated)
+ * principal. Therefore the caller obtains {@link #getGeneration()} before the authentication and hands it over
+ * to {@link #put(String, String, MidPointPrincipal, long)}. Modifications of the user made by the authentication
+ * itself (recording of the login) are not counted, if the authentication is run via {@link #runAuthentication(Supplier)}.
+ *
+ * Principals are stored and handed out as private copies, so a request that modifies its principal
+ * (or the user object in it) does not affect other requests.
+ *
+ * Configuration (in midpoint.system section of config.xml):
+ * <ul>
+ *     <li>restAuthenticationCacheTTL - time-to-live of the entries in seconds (default 0 = cache disabled),</li>
+ *     <li>restAuthenticationCacheMaxSize - maximum number of entries (default 1000).</li>
+ * </ul>
+ */
+@Component
+public class RestAuthenticationCache extends AbstractNodeCache<String, MidPointPrincipal> {
+
+	private static final Trace LOGGER = TraceManager.getTrace(RestAuthenticationCache.class);
+
+	private static final String MAC_ALGORITHM = "HmacSHA256";
+
+	private final SecretKeySpec macKey;
+
+	// Set while the current thread authenticates a user (and records the login into the user object).
+	private final ThreadLocal<Boolean> authenticationRunning = new ThreadLocal<>();
+
+	private final AtomicLong invalidations = new AtomicLong();
+
+	public RestAuthenticationCache() {
+		super("restAuthenticationCacheTTL", 0, "restAuthenticationCacheMaxSize", 1000);
+		byte[] keyBytes = new byte[32];
+		new SecureRandom().nextBytes(keyBytes);
+		macKey = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+	}
+
+	/**
+	 * Returns cached principal for given username and credential, or null if there is no valid entry.
+	 * Entries of users whose validity or password expired in the meantime are not valid.
+	 */
+	public MidPointPrincipal get(String username, String credential) {
+		if (!isEnabled() || username == null || credential == null) {
+			return null;
+		}
+		MidPointPrincipal principal = get(createKey(username, credential));
+		if (principal == null) {
+			return null;
+		}
+		LOGGER.trace("REST authentication cache hit for {}", username);
+		return copy(principal);
+	}
+
+	/**
+	 * Runs the authentication in the current thread. Modifications of users done by the authentication
+	 * (i.e. recording of the login) do not increment the generation, so the authenticated principal can be
+	 * cached afterwards. Cached entries of the user are still removed.
+	 */
+	public <R> R runAuthentication(Supplier<R> authentication) {
+		Boolean previous = authenticationRunning.get();
+		authenticationRunning.set(Boolean.TRUE);
+		try {
+			return authentication.get();
+		} finally {
+			if (previous == null) {
+				authenticationRunning.remove();
+			} else {
+				authenticationRunning.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Remembers a principal that was just successfully authenticated using given username and credential.
+	 * Nothing is stored if the cache was invalidated since the expectedGeneration was obtained.
+	 */
+	public void put(String username, String credential, MidPointPrincipal principal, long expectedGeneration) {
+		if (!isEnabled() || username == null || credential == null || principal == null || principal.getOid() == null) {
+			return;
+		}
+		long expiresAt = Math.min(getDefaultExpiration(), getValidUntil(principal));
+		put(createKey(username, credential), copy(principal), expiresAt, expectedGeneration);
+	}
+
+	public void invalidateUser(String userOid) {
+		boolean ownLogin = Boolean.TRUE.equals(authenticationRunning.get());
+		if (userOid == null) {
+			invalidate(principal -> true, !ownLogin);
+		} else {
+			invalidate(principal -> userOid.equals(principal.getOid()), !ownLogin);
+		}
+	}
+
+	public long getInvalidations() {
+		return invalidations.get();
+	}
+
+	@Override
+	public <O extends ObjectType> void invalidateCache(Class<O> type, String oid) {
+		if (!isEnabled() || type == null) {
+			return;
+		}
+		if (UserType.class.isAssignableFrom(type)) {
+			invalidations.incrementAndGet();
+			invalidateUser(oid);
+		} else if (AbstractRoleType.class.isAssignableFrom(type) || SecurityPolicyType.class.equals(type)
+				|| ValuePolicyType.class.equals(type) || SystemConfigurationType.class.equals(type)) {
+			// Authorizations and security policies of any user may depend on these.
+			invalidations.incrementAndGet();
+			clear();
+		}
+	}
+
+	/**
+	 * Returns the time when the authentication of the principal stops being valid regardless of any modification:
+	 * end of user validity or password expiration. The cached entry must not outlive it, so such user
+	 * is authenticated again (and refused) as soon as it happens.
+	 */
+	private long getValidUntil(MidPointPrincipal principal) {
+		long validUntil = Long.MAX_VALUE;
+		UserType user = principal.getUser();
+		ActivationType activation = user.getActivation();
+		if (activation != null && activation.getValidTo() != null) {
+			validUntil = XmlTypeConverter.toMillis(activation.getValidTo());
+		}
+		PasswordCredentialsPolicyType passwordPolicy =
+				SecurityUtil.getEffectivePasswordCredentialsPolicy(principal.getApplicableSecurityPolicy());
+		Duration maxAge = passwordPolicy != null ? passwordPolicy.getMaxAge() : null;
+		CredentialsType credentials = user.getCredentials();
+		PasswordType password = credentials != null ? credentials.getPassword() : null;
+		if (maxAge != null && password != null) {
+			XMLGregorianCalendar changeTimestamp = MiscSchemaUtil.getChangeTimestamp(password.getMetadata());
+			if (changeTimestamp != null) {
+				validUntil = Math.min(validUntil, XmlTypeConverter.toMillis(XmlTypeConverter.addDuration(changeTimestamp, maxAge)));
+			}
+		}
+		return validUntil;
+	}
+
+	private MidPointPrincipal copy(MidPointPrincipal principal) {
+		return principal.cloneWithUser(principal.getUser().asPrismObject().clone().asObjectable());
+	}
+
+	private String createKey(String username, String credential) {
+		try {
+			Mac mac = Mac.getInstance(MAC_ALGORITHM);
+			mac.init(macKey);
+			mac.update(username.getBytes(StandardCharsets.UTF_8));
+			mac.update((byte) 0);
+			mac.update(credential.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(mac.doFinal());
+		} catch (GeneralSecurityException e) {
+			throw new SystemException("Couldn't compute REST authentication cache key: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "RestAuthenticationCache(size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses()
+				+ ", invalidations=" + invalidations + ")";
+	}
+}
@@ -31,6 +31,7 @@ import com.evolveum.midpoint.model.impl.lens.AssignmentEvaluator;
 import com.evolveum.midpoint.model.impl.lens.LensContext;
 import com.evolveum.midpoint.model.impl.lens.LensContextPlaceholder;
 import com.evolveum.midpoint.model.impl.lens.LensUtil;
+import com.evolveum.midpoint.model.impl.lens.RoleStructureCache;
 import com.evolveum.midpoint.model.impl.lens.projector.MappingEvaluator;
 import com.evolveum.midpoint.prism.PrismContainerDefinition;
 import com.evolveum.midpoint.prism.PrismContainerValue;
@@ -108,6 +109,7 @@ public class UserProfileServiceImpl implements UserProfileService, UserDetailsSe
 
 	@Autowired @Qualifier("modelObjectResolver") private ObjectResolver objectResolver;
 	@Autowired private SystemObjectCache systemObjectCache;
+	@Autowired private RoleStructureCache roleStructureCache;
 	@Autowired private RelationRegistry relationRegistry;
 	@Autowired private MappingFactory mappingFactory;
 	@Autowired private MappingEvaluator mappingEvaluator;
@@ -242,6 +244,7 @@ public class UserProfileServiceImpl implements UserProfileService, UserDetailsSe
 							.channel(null)
 							.objectResolver(objectResolver)
 							.systemObjectCache(systemObjectCache)
+							.roleStructureCache(roleStructureCache)
 							.relationRegistry(relationRegistry)
 							.prismContext(prismContext)
 							.mappingFactory(mappingFactory)
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.model.impl.sync;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.apache.commons.codec.binary.Hex;
+
+import com.evolveum.midpoint.prism.Item;
+import com.evolveum.midpoint.prism.PrismContainerValue;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.prism.PrismReference;
+import com.evolveum.midpoint.prism.PrismReferenceValue;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.constants.ObjectTypes;
+import com.evolveum.midpoint.schema.processor.ResourceAttributeContainer;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.util.ShadowUtil;
+import com.evolveum.midpoint.util.QNameUtil;
+import com.evolveum.midpoint.util.exception.ConfigurationException;
+import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ActivationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AssignmentType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.FocusType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectPolicyConfigurationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectReferenceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectTemplateType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowAssociationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SystemConfigurationType;
+
+/**
+ * Computes the synchronization fingerprint, i.e. a digest of everything the synchronization of a linked
+ * resource object depends on:
+ *
+ * - attributes, associations and activation of the resource object (as fetched from the resource),
+ * - OID and version of the owner,
+ * - versions of the roles (and orgs) the owner is assigned or is a member of,
+ * - versions of the resource, system configuration and the applicable object templates,
+ * - the nearest future validity boundary (validFrom/validTo) of the owner, its assignments and the resource object.
+ *
+ * The validity boundary is there because crossing it changes the effective status or the assignment validity
+ * without any change of the objects. Once the boundary passes, the fingerprint changes and the object is synchronized.
+ *
+ * If the fingerprint computed during reconciliation (or import) matches the one stored in the shadow
+ * after the last successful synchronization, the clockwork run would find nothing to do, so it can be skipped.
+ *
+ * Versions of other objects (e.g. meta-roles or objects used only in expressions) are not part of the fingerprint.
+ */
+public final class SynchronizationFingerprint {
+
+	private static final String FORMAT_PREFIX = "2:";
+
+	private SynchronizationFingerprint() {
+	}
+
+	public static <F extends FocusType> String compute(SynchronizationContext<F> syncCtx, PrismObject<ShadowType> shadow,
+			PrismObject<F> owner, long now, RepositoryService repositoryService, OperationResult result)
+			throws SchemaException, ConfigurationException {
+		MessageDigest digest = createDigest();
+
+		update(digest, "attributes");
+		ResourceAttributeContainer attributes = ShadowUtil.getAttributesContainer(shadow);
+		if (attributes != null) {
+			update(digest, attributes.getValue());
+		}
+		update(digest, "associations");
+		List<String> associations = new ArrayList<>();
+		for (ShadowAssociationType association : shadow.asObjectable().getAssociation()) {
+			MessageDigest associationDigest = createDigest();
+			update(associationDigest, QNameUtil.qNameToUri(association.getName()));
+			update(associationDigest, association.getShadowRef() != null ? association.getShadowRef().getOid() : null);
+			if (association.getIdentifiers() != null) {
+				update(associationDigest, association.getIdentifiers().asPrismContainerValue());
+			}
+			associations.add(Hex.encodeHexString(associationDigest.digest()));
+		}
+		Collections.sort(associations);
+		associations.forEach(a -> update(digest, a));
+		update(digest, "activation");
+		if (shadow.asObjectable().getActivation() != null) {
+			update(digest, shadow.asObjectable().getActivation().asPrismContainerValue());
+		}
+
+		update(digest, "owner");
+		update(digest, owner.getOid());
+		update(digest, owner.getVersion());
+
+		// OID -> type; sorted, so the order of assignments does not matter
+		Map<String, Class<? extends ObjectType>> related = new TreeMap<>();
+		F ownerBean = owner.asObjectable();
+		for (AssignmentType assignment : ownerBean.getAssignment()) {
+			addRelated(related, assignment.getTargetRef(), ObjectType.class);
+		}
+		ownerBean.getRoleMembershipRef().forEach(ref -> addRelated(related, ref, ObjectType.class));
+		ownerBean.getParentOrgRef().forEach(ref -> addRelated(related, ref, ObjectType.class));
+		addRelated(related, syncCtx.getResource(), ResourceType.class);
+		PrismObject<SystemConfigurationType> systemConfiguration = syncCtx.getSystemConfiguration();
+		if (systemConfiguration != null) {
+			addRelated(related, systemConfiguration, SystemConfigurationType.class);
+			for (ObjectPolicyConfigurationType policy : systemConfiguration.asObjectable().getDefaultObjectPolicyConfiguration()) {
+				addRelated(related, policy.getObjectTemplateRef(), ObjectTemplateType.class);
+			}
+		}
+		if (syncCtx.getReaction() != null) {
+			addRelated(related, syncCtx.getObjectTemplateRef(), ObjectTemplateType.class);
+		}
+		update(digest, "related");
+		for (Map.Entry<String, Class<? extends ObjectType>> entry : related.entrySet()) {
+			update(digest, entry.getKey());
+			update(digest, getVersion(entry.getValue(), entry.getKey(), repositoryService, result));
+		}
+
+		update(digest, "validity");
+		List<ActivationType> activations = new ArrayList<>();
+		activations.add(shadow.asObjectable().getActivation());
+		activations.add(ownerBean.getActivation());
+		ownerBean.getAssignment().forEach(assignment -> activations.add(assignment.getActivation()));
+		update(digest, String.valueOf(getNextValidityBoundary(activations, now)));
+
+		return FORMAT_PREFIX + Hex.encodeHexString(digest.digest());
+	}
+
+	private static Long getNextValidityBoundary(List<ActivationType> activations, long now) {
+		Long next = null;
+		for (ActivationType activation : activations) {
+			if (activation == null) {
+				continue;
+			}
+			for (XMLGregorianCalendar boundary : Arrays.asList(activation.getValidFrom(), activation.getValidTo())) {
+				if (boundary != null) {
+					long millis = XmlTypeConverter.toMillis(boundary);
+					if (millis > now && (next == null || millis < next)) {
+						next = millis;
+					}
+				}
+			}
+		}
+		return next;
+	}
+
+	private static void addRelated(Map<String, Class<? extends ObjectType>> related, ObjectReferenceType ref,
+			Class<? extends ObjectType> defaultType) {
+		if (ref == null || ref.getOid() == null) {
+			return;
+		}
+		Class<? extends ObjectType> type = defaultType;
+		if (ref.getType() != null) {
+			type = ObjectTypes.getObjectTypeFromTypeQName(ref.getType()).getClassDefinition();
+		}
+		related.putIfAbsent(ref.getOid(), type);
+	}
+
+	private static void addRelated(Map<String, Class<? extends ObjectType>> related, PrismObject<?> object,
+			Class<? extends ObjectType> type) {
+		if (object != null && object.getOid() != null) {
+			related.put(object.getOid(), type);
+		}
+	}
+
+	private static String getVersion(Class<? extends ObjectType> type, String oid, RepositoryService repositoryService,
+			OperationResult result) throws SchemaException {
+		try {
+			return repositoryService.getVersion(type, oid, result);
+		} catch (ObjectNotFoundException e) {
+			// deleted (or dangling) reference is a valid state as well
+			result.muteLastSubresultError();
+			return "(none)";
+		}
+	}
+
+	private static void update(MessageDigest digest, PrismContainerValue<?> value) {
+		if (value == null) {
+			return;
+		}
+		List<Item<?, ?>> items = new ArrayList<>(value.getItems());
+		items.sort((i1, i2) -> QNameUtil.qNameToUri(i1.getElementName()).compareTo(QNameUtil.qNameToUri(i2.getElementName())));
+		for (Item<?, ?> item : items) {
+			List<String> values = new ArrayList<>();
+			if (item instanceof PrismProperty) {
+				for (Object realValue : ((PrismProperty<?>) item).getRealValues()) {
+					values.add(valueToString(realValue));
+				}
+			} else if (item instanceof PrismReference) {
+				for (PrismReferenceValue referenceValue : ((PrismReference) item).getValues()) {
+					values.add(referenceValue.getOid());
+				}
+			} else {
+				// containers are not expected here (and not needed for the change detection)
+				continue;
+			}
+			Collections.sort(values);
+			update(digest, QNameUtil.qNameToUri(item.getElementName()));
+			update(digest, String.valueOf(values.size()));
+			values.forEach(v -> update(digest, v));
+		}
+	}
+
+	private static String valueToString(Object realValue) {
+		if (realValue instanceof byte[]) {
+			return Base64.getEncoder().encodeToString((byte[]) realValue);
+		} else if (realValue instanceof PolyString) {
+			return ((PolyString) realValue).getOrig();
+		} else {
+			return String.valueOf(realValue);
+		}
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available: " + e.getMessage(), e);
+		}
+	}
+}
@@ -20,6 +20,7 @@ package com.evolveum.midpoint.model.impl.sync;
 import static com.evolveum.midpoint.schema.internals.InternalsConfig.consistencyChecks;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -80,6 +81,7 @@ import com.evolveum.midpoint.schema.util.MiscSchemaUtil;
 import com.evolveum.midpoint.schema.util.ShadowUtil;
 import com.evolveum.midpoint.task.api.Task;
 import com.evolveum.midpoint.util.QNameUtil;
+import com.evolveum.midpoint.util.exception.CommonException;
 import com.evolveum.midpoint.util.exception.CommunicationException;
 import com.evolveum.midpoint.util.exception.ConfigurationException;
 import com.evolveum.midpoint.util.exception.ExpressionEvaluationException;
@@ -125,6 +127,12 @@ public class SynchronizationServiceImpl implements SynchronizationService {
 
 	private static final Trace LOGGER = TraceManager.getTrace(SynchronizationServiceImpl.class);
 
+	private static final String OP_SAVE_FINGERPRINT = SynchronizationServiceImpl.class.getName() + ".saveFingerprint";
+
+	// channels that deliver complete resource objects (without deltas), so the synchronization fingerprint can be used
+	private static final List<String> FINGERPRINT_CHANNELS = Arrays.asList(SchemaConstants.CHANGE_CHANNEL_RECON_URI,
+			QNameUtil.qNameToUri(SchemaConstants.CHANGE_CHANNEL_IMPORT));
+
 	@Autowired private ActionManager<Action> actionManager;
 	@Autowired private CorrelationConfirmationEvaluator correlationConfirmationEvaluator;
 	@Autowired private ContextFactory contextFactory;
@@ -200,12 +208,21 @@ public class SynchronizationServiceImpl implements SynchronizationService {
 				syncCtx.setCurrentShadow(newCurrentShadow);
 			}
 
+			boolean useFingerprint = isFingerprintApplicable(syncCtx, change);
+			if (useFingerprint && !checkChangedSinceLastSync(syncCtx, eventInfo)) {
+				return;
+			}
+
 			SynchronizationSituationType newSituation = reactToChange(syncCtx, change,
 					logDebug);
 			eventInfo.setNewSituation(newSituation);
 			eventInfo.record(task);
 			subResult.computeStatus();
 
+			if (useFingerprint && subResult.isSuccess()) {
+				saveFingerprint(syncCtx, subResult);
+			}
+
 		} catch (SystemException ex) {
 			// avoid unnecessary re-wrap
 			eventInfo.setException(ex);
@@ -403,6 +420,69 @@ public class SynchronizationServiceImpl implements SynchronizationService {
 		return true;
 	}
 	
+	private <F extends FocusType> boolean isFingerprintApplicable(SynchronizationContext<F> syncCtx,
+			ResourceObjectShadowChangeDescription change) {
+		return change.getObjectDelta() == null && syncCtx.getCurrentShadow() != null && syncCtx.isShadowExistsInRepo()
+				&& FINGERPRINT_CHANNELS.contains(change.getSourceChannel())
+				&& ModelImplUtils.isSkipUnchanged(syncCtx.getTask());
+	}
+
+	/**
+	 * Returns false if the linked resource object, its owner and related objects did not change since the last
+	 * successful synchronization (according to the fingerprint stored in the shadow), so the clockwork need not be run.
+	 */
+	private <F extends FocusType> boolean checkChangedSinceLastSync(SynchronizationContext<F> syncCtx,
+			SynchronizationEventInformation eventInfo) throws SchemaException, ConfigurationException {
+		PrismObject<ShadowType> shadow = syncCtx.getCurrentShadow();
+		F owner = syncCtx.getCurrentOwner();
+		String storedFingerprint = shadow.asObjectable().getSynchronizationFingerprint();
+		if (syncCtx.getSituation() != SynchronizationSituationType.LINKED || owner == null || owner.getVersion() == null
+				|| storedFingerprint == null) {
+			return true;
+		}
+		OperationResult subResult = syncCtx.getResult();
+		//noinspection unchecked
+		String fingerprint = SynchronizationFingerprint.compute(syncCtx, shadow, (PrismObject<F>) owner.asPrismObject(),
+				clock.currentTimeMillis(), repositoryService, subResult);
+		if (!storedFingerprint.equals(fingerprint)) {
+			LOGGER.trace("Synchronization fingerprint of {} has changed: {} -> {}", shadow, storedFingerprint, fingerprint);
+			return true;
+		}
+		subResult.recordStatus(OperationResultStatus.SUCCESS, "Skipped, nothing has changed since the last synchronization");
+		eventInfo.record(syncCtx.getTask());
+		LOGGER.debug("SYNCHRONIZATION: DONE (unchanged since last synchronization) for {}", shadow);
+		return false;
+	}
+
+	/**
+	 * Stores the fingerprint after successful synchronization. The fingerprint is only an optimization,
+	 * so any failure here is just reported as a warning.
+	 */
+	private <F extends FocusType> void saveFingerprint(SynchronizationContext<F> syncCtx, OperationResult parentResult) {
+		PrismObject<ShadowType> shadow = syncCtx.getCurrentShadow();
+		OperationResult result = parentResult.createMinorSubresult(OP_SAVE_FINGERPRINT);
+		try {
+			PrismObject<F> owner = repositoryService.searchShadowOwner(shadow.getOid(),
+					SelectorOptions.createCollection(GetOperationOptions.createAllowNotFound()), result);
+			if (owner == null) {
+				result.recordNotApplicableIfUnknown();
+				return;
+			}
+			String fingerprint = SynchronizationFingerprint.compute(syncCtx, shadow, owner, clock.currentTimeMillis(),
+					repositoryService, result);
+			if (!fingerprint.equals(shadow.asObjectable().getSynchronizationFingerprint())) {
+				List<PropertyDelta<?>> modifications = new ArrayList<>();
+				modifications.add(PropertyDelta.createModificationReplaceProperty(ShadowType.F_SYNCHRONIZATION_FINGERPRINT,
+						shadow.getDefinition(), fingerprint));
+				repositoryService.modifyObject(ShadowType.class, shadow.getOid(), modifications, result);
+			}
+			result.recordSuccess();
+		} catch (CommonException | RuntimeException e) {
+			LoggingUtils.logExceptionAsWarning(LOGGER, "Couldn't save synchronization fingerprint of {}", e, shadow);
+			result.recordWarning("Couldn't save synchronization fingerprint: " + e.getMessage(), e);
+		}
+	}
+
 	private <F extends FocusType> List<PropertyDelta<?>> createShadowIntentAndSynchronizationTimestampDelta(SynchronizationContext<F> syncCtx, boolean saveIntent) throws SchemaException {
 		Validate.notNull(syncCtx.getApplicableShadow(), "No current nor old shadow present: ");
 		List<PropertyDelta<?>> modifications = SynchronizationUtils.createSynchronizationTimestampsDelta(syncCtx.getApplicableShadow());
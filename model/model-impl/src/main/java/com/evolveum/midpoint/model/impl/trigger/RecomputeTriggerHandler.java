@@ -82,4 +82,11 @@ public class RecomputeTriggerHandler implements TriggerHandler {
 
 	}
 
+	/**
+	 * The object is recomputed as a whole, so one recomputation is enough for any number of triggers.
+	 */
+	@Override
+	public boolean canCoalesce() {
+		return true;
+	}
 }
@@ -29,4 +29,12 @@ public interface TriggerHandler {
 
 	<O extends ObjectType> void handle(PrismObject<O> object, TriggerType trigger, Task task, OperationResult result);
 
+	/**
+	 * If true, several triggers of this handler that are due at the same time for the same object are handled
+	 * by single invocation (with the earliest of them). All of them are removed after that.
+	 */
+	default boolean canCoalesce() {
+		return false;
+	}
+
 }
@@ -22,23 +22,31 @@ import com.evolveum.midpoint.prism.PrismContainer;
 import com.evolveum.midpoint.prism.PrismContainerDefinition;
 import com.evolveum.midpoint.prism.PrismContainerValue;
 import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismProperty;
 import com.evolveum.midpoint.prism.delta.ChangeType;
 import com.evolveum.midpoint.prism.delta.ContainerDelta;
 import com.evolveum.midpoint.prism.delta.ItemDelta;
+import com.evolveum.midpoint.prism.delta.builder.DeltaBuilder;
+import com.evolveum.midpoint.prism.delta.builder.S_ItemEntry;
 import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.query.ObjectFilter;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.prism.query.builder.QueryBuilder;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.api.ModificationPrecondition;
+import com.evolveum.midpoint.repo.api.PreconditionViolationException;
+import com.evolveum.midpoint.repo.api.VersionPrecondition;
 import com.evolveum.midpoint.schema.internals.InternalCounters;
 import com.evolveum.midpoint.schema.internals.InternalMonitor;
 import com.evolveum.midpoint.schema.result.OperationConstants;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.schema.util.MiscSchemaUtil;
 import com.evolveum.midpoint.schema.util.ObjectTypeUtil;
 import com.evolveum.midpoint.task.api.Task;
 import com.evolveum.midpoint.task.api.TaskRunResult;
 import com.evolveum.midpoint.util.exception.*;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
@@ -49,6 +57,7 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.Duration;
 import javax.xml.datatype.XMLGregorianCalendar;
 import java.util.*;
 
@@ -73,6 +82,12 @@ public class TriggerScannerTaskHandler extends AbstractScannerTaskHandler<Object
 	private static final transient Trace LOGGER = TraceManager.getTrace(TriggerScannerTaskHandler.class);
 
 	@Autowired private TriggerHandlerRegistry triggerHandlerRegistry;
+	@Autowired private TriggerScheduler triggerScheduler;
+
+	private static final int MAX_CLAIM_ATTEMPTS = 5;
+
+	// after this time, a trigger claimed for firing can be claimed again (e.g. when the claiming node crashed)
+	static final long CLAIM_TIMEOUT = 3600000L;
 
 	public TriggerScannerTaskHandler() {
         super(ObjectType.class, "Trigger scan", OperationConstants.TRIGGER_SCAN);
@@ -135,6 +150,44 @@ public class TriggerScannerTaskHandler extends AbstractScannerTaskHandler<Object
 			throws SchemaException {
 		super.finish(handler, runResult, task, opResult);
 		cleanupProcessedOids(task);
+		if (task.canRun()) {
+			scheduleUpcomingTriggers(handler, task, opResult);
+		}
+	}
+
+	/**
+	 * Looks for triggers that will be due before the end of the look-ahead interval, and passes them
+	 * to the trigger scheduler, so they are fired in time.
+	 */
+	private void scheduleUpcomingTriggers(AbstractScannerResultHandler<ObjectType> handler, Task task, OperationResult opResult)
+			throws SchemaException {
+		PrismProperty<Duration> lookAheadProperty = task.getExtensionProperty(SchemaConstants.MODEL_EXTENSION_TRIGGER_LOOK_AHEAD);
+		Duration lookAhead = lookAheadProperty != null ? lookAheadProperty.getRealValue() : null;
+		if (lookAhead == null) {
+			return;
+		}
+		XMLGregorianCalendar from = handler.getThisScanTimestamp();
+		XMLGregorianCalendar until = XmlTypeConverter.addDuration(from, lookAhead);
+		triggerScheduler.activate(XmlTypeConverter.toMillis(until), task.getOwner());
+
+		ObjectQuery query = QueryBuilder.queryFor(ObjectType.class, prismContext)
+				.item(F_TRIGGER, F_TIMESTAMP).gt(from)
+				.and().item(F_TRIGGER, F_TIMESTAMP).le(until)
+				.build();
+		repositoryService.searchObjectsIterative(ObjectType.class, query, (object, parentResult) -> {
+			Long earliest = null;
+			for (TriggerType trigger : object.asObjectable().getTrigger()) {
+				if (trigger.getTimestamp() != null && isHot(trigger.getTimestamp(), from, until)) {
+					long timestamp = XmlTypeConverter.toMillis(trigger.getTimestamp());
+					earliest = earliest != null ? Math.min(earliest, timestamp) : timestamp;
+				}
+			}
+			if (earliest != null) {
+				triggerScheduler.schedule(object.getCompileTimeClass(), object.getOid(), earliest);
+			}
+			return true;
+		}, null, true, opResult);
+		LOGGER.debug("Scheduled triggers up to {}, {} objects are scheduled now", until, triggerScheduler.getScheduledCount());
 	}
 
 	@Override
@@ -145,7 +198,20 @@ public class TriggerScannerTaskHandler extends AbstractScannerTaskHandler<Object
 				coordinatorTask, TriggerScannerTaskHandler.class.getName(), "trigger", "trigger task", taskManager) {
 			@Override
 			protected boolean handleObject(PrismObject<ObjectType> object, Task workerTask, OperationResult result) {
-				fireTriggers(this, object, workerTask, coordinatorTask, result);
+				String oid = object.getOid();
+				try {
+					triggerScheduler.startFiringWhenPossible(oid);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+				try {
+					// if the object was changed in the meantime (e.g. its triggers were fired by the scheduler),
+					// it is re-read when claiming the triggers
+					fireTriggers(object, null, getThisScanTimestamp(), coordinatorTask, workerTask, result);
+				} finally {
+					triggerScheduler.finishFiring(oid);
+				}
 				return true;
 			}
 		};
@@ -153,47 +219,173 @@ public class TriggerScannerTaskHandler extends AbstractScannerTaskHandler<Object
         return handler;
 	}
 
-	private void fireTriggers(AbstractScannerResultHandler<ObjectType> handler, PrismObject<ObjectType> object, Task workerTask, Task coordinatorTask,
-			OperationResult result) {
+	/**
+	 * Fires triggers of the object that are due, i.e. their timestamp is in (hotFrom, hotUntil]. The hotFrom can be null.
+	 *
+	 * The due triggers are claimed first: they are marked by the firing node and firing start timestamp by single
+	 * repository modification conditioned on the object version. So if the triggers are fired concurrently by someone else
+	 * (the scheduler, or the scanner on another node), only one of the parties succeeds; the other one re-reads the object
+	 * and finds the triggers claimed. Triggers of a handler that can coalesce them are handled by single invocation.
+	 * Triggers are removed only after they were handled successfully; claims of the other ones are released, so they are
+	 * retried later. If the node crashes in the meantime (or the triggers cannot be removed or released), the claim expires
+	 * after {@link #CLAIM_TIMEOUT} and the triggers are fired again.
+	 *
+	 * @param coordinatorTask Scanner task, used to avoid firing the same trigger repeatedly in one scan (can be null).
+	 */
+	void fireTriggers(PrismObject<ObjectType> object, XMLGregorianCalendar hotFrom, XMLGregorianCalendar hotUntil,
+			Task coordinatorTask, Task workerTask, OperationResult result) {
 		PrismContainer<TriggerType> triggerContainer = object.findContainer(F_TRIGGER);
 		if (triggerContainer == null) {
 			LOGGER.warn("Strange thing, attempt to fire triggers on {}, but it does not have trigger container", object);
+		} else if (triggerContainer.getValues().isEmpty()) {
+			LOGGER.warn("Strange thing, attempt to fire triggers on {}, but it does not have any triggers in trigger container", object);
 		} else {
-			List<PrismContainerValue<TriggerType>> triggerCVals = triggerContainer.getValues();
-			if (triggerCVals.isEmpty()) {
-				LOGGER.warn("Strange thing, attempt to fire triggers on {}, but it does not have any triggers in trigger container", object);
-			} else {
-				LOGGER.trace("Firing triggers for {} ({} triggers)", object, triggerCVals.size());
-				List<TriggerType> triggers = getSortedTriggers(triggerCVals);
-				for (TriggerType trigger: triggers) {
-					XMLGregorianCalendar timestamp = trigger.getTimestamp();
-					if (timestamp == null) {
-						LOGGER.warn("Trigger without a timestamp in {}", object);
-					} else {
-						if (isHot(handler, timestamp)) {
-							boolean remove = fireTrigger(trigger, object, workerTask, coordinatorTask, result);
-							if (remove) {
-								removeTrigger(object, trigger.asPrismContainerValue(), workerTask, triggerContainer.getDefinition());
-							}
-						} else {
-							LOGGER.trace("Trigger {} is not hot (timestamp={}, thisScanTimestamp={}, lastScanTimestamp={})",
-									trigger, timestamp, handler.getThisScanTimestamp(), handler.getLastScanTimestamp());
-						}
+			PrismContainerDefinition<TriggerType> triggerContainerDef = triggerContainer.getDefinition();
+			List<TriggerType> triggers = new ArrayList<>();
+			PrismObject<ObjectType> current = claimHotTriggers(object, hotFrom, hotUntil, workerTask, triggers);
+			if (current == null) {
+				return;
+			}
+			LOGGER.trace("Firing triggers for {} ({} triggers)", current, triggers.size());
+			List<TriggerType> triggersToRemove = new ArrayList<>();
+			List<TriggerType> triggersToRelease = new ArrayList<>();
+			Set<String> coalescedHandlers = new HashSet<>();
+			for (TriggerType trigger: triggers) {
+				if (coalescedHandlers.contains(trigger.getHandlerUri())) {
+					LOGGER.debug("Trigger {} in {} coalesced with the previous one: id={}", trigger.getHandlerUri(),
+							current, trigger.getId());
+					triggersToRemove.add(trigger);
+				} else if (fireTrigger(trigger, current, workerTask, coordinatorTask, result)) {
+					triggersToRemove.add(trigger);
+					if (canCoalesce(trigger)) {
+						coalescedHandlers.add(trigger.getHandlerUri());
+					}
+				} else {
+					triggersToRelease.add(trigger);
+				}
+			}
+			if (!triggersToRemove.isEmpty()) {
+				removeTriggers(current, triggersToRemove, triggerContainerDef);
+			}
+			if (!triggersToRelease.isEmpty()) {
+				releaseTriggers(current, triggersToRelease);
+			}
+		}
+	}
+
+	/**
+	 * Marks due triggers as being fired by this node, provided the object was not changed since it was read. If it was,
+	 * it is re-read and the attempt is repeated (a couple of times).
+	 *
+	 * @param claimedTriggers Collects the triggers that were claimed (with the claim marker set).
+	 * @return The object whose triggers were claimed, or null if there are no due triggers to fire (any more).
+	 */
+	private PrismObject<ObjectType> claimHotTriggers(PrismObject<ObjectType> object, XMLGregorianCalendar hotFrom,
+			XMLGregorianCalendar hotUntil, Task task, List<TriggerType> claimedTriggers) {
+		PrismObject<ObjectType> current = object;
+		for (int attempt = 1; ; attempt++) {
+			XMLGregorianCalendar now = clock.currentTimeXMLGregorianCalendar();
+			List<TriggerType> triggers = getHotTriggers(current, hotFrom, hotUntil, now);
+			if (triggers.isEmpty()) {
+				LOGGER.trace("No hot unclaimed triggers in {} (hotFrom={}, hotUntil={})", current, hotFrom, hotUntil);
+				return null;
+			}
+			// This is detached result. It will not take part of the task result. We do not really care.
+			OperationResult result = new OperationResult(TriggerScannerTaskHandler.class.getName()+".claimTriggers");
+			try {
+				String nodeId = taskManager.getNodeId();
+				S_ItemEntry deltaBuilder = DeltaBuilder.deltaFor(current.getCompileTimeClass(), prismContext);
+				for (TriggerType trigger : triggers) {
+					// triggers stored in repository always have IDs; the ones without them cannot be claimed
+					// and are simply removed after firing
+					if (trigger.getId() != null) {
+						deltaBuilder = deltaBuilder
+								.item(F_TRIGGER, trigger.getId(), TriggerType.F_FIRING_START_TIMESTAMP).replace(now)
+								.item(F_TRIGGER, trigger.getId(), TriggerType.F_FIRING_NODE).replace(nodeId);
 					}
+					trigger.setFiringStartTimestamp(now);
+					trigger.setFiringNode(nodeId);
+				}
+				ModificationPrecondition<ObjectType> precondition =
+						current.getVersion() != null ? new VersionPrecondition<>(current.getVersion()) : null;
+				repositoryService.modifyObject(current.getCompileTimeClass(), current.getOid(),
+						deltaBuilder.asItemDeltas(), precondition, null, result);
+				task.recordObjectActionExecuted(current, ChangeType.MODIFY, null);
+				claimedTriggers.addAll(triggers);
+				return current;
+			} catch (PreconditionViolationException e) {
+				if (attempt >= MAX_CLAIM_ATTEMPTS) {
+					LOGGER.debug("Couldn't claim triggers of {} in {} attempts, leaving them for the next scan", current, attempt);
+					return null;
 				}
+				LOGGER.trace("{} was changed in the meantime, re-reading it", current);
+				try {
+					current = repositoryService.getObject(current.getCompileTimeClass(), current.getOid(), null, result);
+				} catch (ObjectNotFoundException e1) {
+					LOGGER.trace("{} is gone, no triggers to fire", current);
+					return null;
+				} catch (SchemaException e1) {
+					LoggingUtils.logUnexpectedException(LOGGER, "Couldn't re-read {} to fire its triggers", e1, current);
+					return null;
+				}
+			} catch (ObjectNotFoundException e) {
+				// Object is gone. Ergo there are no triggers left.
+				task.recordObjectActionExecuted(current, ChangeType.MODIFY, e);
+				LOGGER.trace("Unable to claim triggers of {}: {} (but this is probably OK)", current, e.getMessage(), e);
+				return null;
+			} catch (SchemaException | ObjectAlreadyExistsException e) {
+				task.recordObjectActionExecuted(current, ChangeType.MODIFY, e);
+				LOGGER.error("Unable to claim triggers of {}: {}", current, e.getMessage(), e);
+				return null;
+			} catch (Throwable t) {
+				task.recordObjectActionExecuted(current, ChangeType.MODIFY, t);
+				throw t;
+			} finally {
+				task.markObjectActionExecutedBoundary();		// maybe OK (absolute correctness is not quite important here)
 			}
 		}
 	}
 
-	private List<TriggerType> getSortedTriggers(List<PrismContainerValue<TriggerType>> triggerCVals) {
+	// sorted by timestamp; triggers claimed by someone else (with the claim not expired yet) are not considered hot
+	private List<TriggerType> getHotTriggers(PrismObject<ObjectType> object, XMLGregorianCalendar hotFrom,
+			XMLGregorianCalendar hotUntil, XMLGregorianCalendar now) {
 		List<TriggerType> rv = new ArrayList<>();
-		triggerCVals.forEach(cval -> rv.add(cval.clone().asContainerable()));
+		PrismContainer<TriggerType> triggerContainer = object.findContainer(F_TRIGGER);
+		if (triggerContainer == null) {
+			return rv;
+		}
+		for (PrismContainerValue<TriggerType> triggerCVal : triggerContainer.getValues()) {
+			TriggerType trigger = triggerCVal.clone().asContainerable();
+			XMLGregorianCalendar timestamp = trigger.getTimestamp();
+			if (timestamp == null) {
+				LOGGER.warn("Trigger without a timestamp in {}", object);
+			} else if (!isHot(timestamp, hotFrom, hotUntil)) {
+				LOGGER.trace("Trigger {} is not hot (timestamp={}, hotFrom={}, hotUntil={})",
+						trigger, timestamp, hotFrom, hotUntil);
+			} else if (isClaimed(trigger, now)) {
+				LOGGER.trace("Trigger {} is being fired by {} since {}, skipping it", trigger, trigger.getFiringNode(),
+						trigger.getFiringStartTimestamp());
+			} else {
+				rv.add(trigger);
+			}
+		}
 		rv.sort(Comparator.comparingLong(t -> XmlTypeConverter.toMillis(t.getTimestamp())));
 		return rv;
 	}
 
-	private boolean isHot(AbstractScannerResultHandler<ObjectType> handler, XMLGregorianCalendar timestamp) {
-		return handler.getThisScanTimestamp().compare(timestamp) != DatatypeConstants.LESSER;
+	private boolean isClaimed(TriggerType trigger, XMLGregorianCalendar now) {
+		XMLGregorianCalendar firingStart = trigger.getFiringStartTimestamp();
+		return firingStart != null && XmlTypeConverter.toMillis(firingStart) + CLAIM_TIMEOUT > XmlTypeConverter.toMillis(now);
+	}
+
+	private boolean isHot(XMLGregorianCalendar timestamp, XMLGregorianCalendar hotFrom, XMLGregorianCalendar hotUntil) {
+		return hotUntil.compare(timestamp) != DatatypeConstants.LESSER
+				&& (hotFrom == null || hotFrom.compare(timestamp) == DatatypeConstants.LESSER);
+	}
+
+	private boolean canCoalesce(TriggerType trigger) {
+		TriggerHandler handler = trigger.getHandlerUri() != null ? triggerHandlerRegistry.getHandler(trigger.getHandlerUri()) : null;
+		return handler != null && handler.canCoalesce();
 	}
 
 	// returns true if the trigger can be removed
@@ -205,7 +397,7 @@ public class TriggerScannerTaskHandler extends AbstractScannerTaskHandler<Object
 			return false;
 		}
 		LOGGER.debug("Firing trigger {} in {}: id={}", handlerUri, object, trigger.getId());
-		if (triggerAlreadySeen(coordinatorTask, handlerUri, object.getOid()+":"+trigger.getId())) {
+		if (coordinatorTask != null && triggerAlreadySeen(coordinatorTask, handlerUri, object.getOid()+":"+trigger.getId())) {
 			LOGGER.debug("Handler {} already executed for {}:{}", handlerUri, ObjectTypeUtil.toShortString(object), trigger.getId());
 			// We don't request the trigger removal here. If the trigger was previously seen and processed correctly,
 			// it was already removed. But if it was seen and failed, we want to keep it!
@@ -233,30 +425,44 @@ public class TriggerScannerTaskHandler extends AbstractScannerTaskHandler<Object
 		}
 	}
 
-	private void removeTrigger(PrismObject<ObjectType> object, PrismContainerValue<TriggerType> triggerCVal, Task task,
+	// removes triggers that were handled successfully; if this fails, they are fired again after their claim expires
+	private void removeTriggers(PrismObject<ObjectType> object, List<TriggerType> triggers,
 			PrismContainerDefinition<TriggerType> triggerContainerDef) {
 		ContainerDelta<TriggerType> triggerDelta = triggerContainerDef.createEmptyDelta(new ItemPath(F_TRIGGER));
-		triggerDelta.addValuesToDelete(triggerCVal.clone());
+		triggers.forEach(trigger -> triggerDelta.addValuesToDelete(trigger.asPrismContainerValue().clone()));
 		Collection<? extends ItemDelta> modifications = MiscSchemaUtil.createCollection(triggerDelta);
 		// This is detached result. It will not take part of the task result. We do not really care.
-		OperationResult result = new OperationResult(TriggerScannerTaskHandler.class.getName()+".removeTrigger");
+		OperationResult result = new OperationResult(TriggerScannerTaskHandler.class.getName()+".removeTriggers");
 		try {
 			repositoryService.modifyObject(object.getCompileTimeClass(), object.getOid(), modifications, result);
-			result.computeStatus();
-			task.recordObjectActionExecuted(object, ChangeType.MODIFY, null);
 		} catch (ObjectNotFoundException e) {
-			// Object is gone. Ergo there are no triggers left. Ergo the trigger was removed.
-			// Ergo this is not really an error.
-			task.recordObjectActionExecuted(object, ChangeType.MODIFY, e);
-			LOGGER.trace("Unable to remove trigger from {}: {} (but this is probably OK)", object, e.getMessage(), e);
+			LOGGER.trace("Unable to remove triggers from {}: {} (but this is probably OK)", object, e.getMessage(), e);
+		} catch (SchemaException | ObjectAlreadyExistsException e) {
+			LOGGER.error("Unable to remove triggers from {}, they will be fired again after their claim expires: {}: {}",
+					object, triggers, e.getMessage(), e);
+		}
+	}
+
+	// releases claims of triggers that were not handled successfully, so they are retried in the next scan;
+	// if this fails, they are retried after their claim expires
+	private void releaseTriggers(PrismObject<ObjectType> object, List<TriggerType> triggers) {
+		// This is detached result. It will not take part of the task result. We do not really care.
+		OperationResult result = new OperationResult(TriggerScannerTaskHandler.class.getName()+".releaseTriggers");
+		try {
+			S_ItemEntry deltaBuilder = DeltaBuilder.deltaFor(object.getCompileTimeClass(), prismContext);
+			for (TriggerType trigger : triggers) {
+				if (trigger.getId() != null) {
+					deltaBuilder = deltaBuilder
+							.item(F_TRIGGER, trigger.getId(), TriggerType.F_FIRING_START_TIMESTAMP).replace()
+							.item(F_TRIGGER, trigger.getId(), TriggerType.F_FIRING_NODE).replace();
+				}
+			}
+			repositoryService.modifyObject(object.getCompileTimeClass(), object.getOid(), deltaBuilder.asItemDeltas(), result);
+		} catch (ObjectNotFoundException e) {
+			LOGGER.trace("Unable to release triggers of {}: {} (but the object is gone, so this is OK)", object, e.getMessage(), e);
 		} catch (SchemaException | ObjectAlreadyExistsException e) {
-			task.recordObjectActionExecuted(object, ChangeType.MODIFY, e);
-			LOGGER.error("Unable to remove trigger from {}: {}", object, e.getMessage(), e);
-		} catch (Throwable t) {
-			task.recordObjectActionExecuted(object, ChangeType.MODIFY, t);
-			throw t;
-		} finally {
-			task.markObjectActionExecutedBoundary();		// maybe OK (absolute correctness is not quite important here)
+			LOGGER.error("Unable to release triggers of {}, they will be retried after their claim expires: {}: {}",
+					object, triggers, e.getMessage(), e);
 		}
 	}
 
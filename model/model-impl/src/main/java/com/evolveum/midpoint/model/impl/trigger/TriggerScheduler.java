@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.model.impl.trigger;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.common.Clock;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.security.api.SecurityContextManager;
+import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.task.api.TaskManager;
+import com.evolveum.midpoint.util.exception.CommonException;
+import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+
+/**
+ * Node-local scheduler of triggers that are due in the near future.
+ *
+ * If the trigger scanner task has triggerLookAhead set, it searches also for triggers that will be due before
+ * the end of the look-ahead interval, and schedules their objects here. Triggers created by model operations
+ * on this node in the meantime are scheduled as well (see {@link TriggerSchedulerHook}). Objects are kept
+ * in a delay queue and a dedicated thread fires their triggers as soon as they are due, under the identity
+ * of the scanner task owner.
+ *
+ * This is only an optimization: everything not fired here (e.g. after node restart or when the queue is full)
+ * is fired by the next scan. Triggers are claimed in the repository before they are fired (see
+ * {@link TriggerScannerTaskHandler#fireTriggers}), so each of them is fired once even if the scanner or another
+ * node processes the same object at the same time. In addition, firing triggers of an object here and by
+ * the scanner is mutually exclusive on this node, to avoid needless claim conflicts.
+ */
+@Component
+public class TriggerScheduler {
+
+	private static final transient Trace LOGGER = TraceManager.getTrace(TriggerScheduler.class);
+
+	private static final String OP_FIRE_TRIGGERS = TriggerScheduler.class.getName() + ".fireTriggers";
+
+	private static final int MAX_SCHEDULED_OBJECTS = 100000;
+	private static final long RETRY_DELAY = 1000L;
+
+	@Autowired private TriggerScannerTaskHandler triggerScannerTaskHandler;
+	@Autowired private TaskManager taskManager;
+	@Autowired private SecurityContextManager securityContextManager;
+	@Autowired @Qualifier("cacheRepositoryService") private RepositoryService repositoryService;
+	@Autowired private Clock clock;
+
+	private final DelayQueue<ScheduledObject> queue = new DelayQueue<>();
+
+	// OID -> the earliest timestamp the object is scheduled for
+	private final Map<String, Long> scheduled = new ConcurrentHashMap<>();
+
+	// OIDs of objects whose triggers are just being fired (here or by the scanner); guarded by itself
+	private final Set<String> firing = new HashSet<>();
+
+	// scheduling is active (i.e. the scanner will not look at triggers before this time) until this time
+	private volatile long activeUntil;
+	private volatile PrismObject<UserType> owner;
+
+	private Thread thread;
+	private volatile boolean stopped;
+
+	private class ScheduledObject implements Delayed {
+
+		private final Class<? extends ObjectType> type;
+		private final String oid;
+		private final long timestamp;
+
+		private ScheduledObject(Class<? extends ObjectType> type, String oid, long timestamp) {
+			this.type = type;
+			this.oid = oid;
+			this.timestamp = timestamp;
+		}
+
+		@Override
+		public long getDelay(@NotNull TimeUnit unit) {
+			return unit.convert(timestamp - clock.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public int compareTo(@NotNull Delayed o) {
+			return Long.compare(timestamp, ((ScheduledObject) o).timestamp);
+		}
+
+		@Override
+		public String toString() {
+			return type.getSimpleName() + ":" + oid + "@" + XmlTypeConverter.createXMLGregorianCalendar(timestamp);
+		}
+	}
+
+	/**
+	 * Activates scheduling of triggers due before given time. Called by the scanner task after each scan.
+	 */
+	synchronized void activate(long until, PrismObject<UserType> taskOwner) {
+		activeUntil = Math.max(activeUntil, until);
+		owner = taskOwner;
+		if (thread == null) {
+			stopped = false;
+			thread = new Thread(this::run, "Trigger scheduler");
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	public boolean isActive() {
+		return activeUntil > clock.currentTimeMillis();
+	}
+
+	/**
+	 * Schedules firing of the object triggers at given time. Times after the end of the look-ahead interval
+	 * are ignored, as these triggers will be found by the scanner.
+	 */
+	public void schedule(Class<? extends ObjectType> type, String oid, long timestamp) {
+		if (timestamp > activeUntil || oid == null) {
+			return;
+		}
+		Long existing = scheduled.get(oid);
+		if (existing != null && existing <= timestamp) {
+			return;
+		}
+		if (scheduled.size() >= MAX_SCHEDULED_OBJECTS) {
+			LOGGER.debug("Too many scheduled objects, not scheduling {} (it will be processed by the scanner)", oid);
+			return;
+		}
+		scheduled.put(oid, timestamp);
+		queue.add(new ScheduledObject(type, oid, timestamp));
+		LOGGER.trace("Scheduled triggers of {}:{} at {}", type.getSimpleName(), oid, timestamp);
+	}
+
+	int getScheduledCount() {
+		return scheduled.size();
+	}
+
+	/**
+	 * Marks the object as being fired. Returns false if it's already being fired by someone else.
+	 */
+	boolean startFiring(String oid) {
+		synchronized (firing) {
+			return firing.add(oid);
+		}
+	}
+
+	/**
+	 * Waits until the object is not being fired by the scheduler, and marks it as being fired.
+	 */
+	void startFiringWhenPossible(String oid) throws InterruptedException {
+		synchronized (firing) {
+			while (!firing.add(oid)) {
+				firing.wait();
+			}
+		}
+	}
+
+	void finishFiring(String oid) {
+		synchronized (firing) {
+			firing.remove(oid);
+			firing.notifyAll();
+		}
+	}
+
+	private void run() {
+		LOGGER.debug("Trigger scheduler started");
+		while (!stopped) {
+			ScheduledObject scheduledObject;
+			try {
+				scheduledObject = queue.take();
+			} catch (InterruptedException e) {
+				continue;
+			}
+			scheduled.remove(scheduledObject.oid, scheduledObject.timestamp);
+			try {
+				fire(scheduledObject);
+			} catch (Throwable t) {
+				LoggingUtils.logUnexpectedException(LOGGER, "Couldn't fire triggers of {}", t, scheduledObject);
+			}
+		}
+		LOGGER.debug("Trigger scheduler stopped");
+	}
+
+	private void fire(ScheduledObject scheduledObject) throws CommonException {
+		if (!startFiring(scheduledObject.oid)) {
+			// the scanner is just processing the object; let's look at it again later
+			LOGGER.trace("{} is being processed by the scanner, postponing", scheduledObject);
+			queue.add(new ScheduledObject(scheduledObject.type, scheduledObject.oid,
+					clock.currentTimeMillis() + RETRY_DELAY));
+			return;
+		}
+		try {
+			PrismObject<UserType> taskOwner = owner;
+			if (taskOwner == null) {
+				return;
+			}
+			Task task = taskManager.createTaskInstance(OP_FIRE_TRIGGERS);
+			task.setOwner(taskOwner);
+			OperationResult result = task.getResult();
+			securityContextManager.runAs(() -> {
+				fireInternal(scheduledObject, task, result);
+				return null;
+			}, taskOwner);
+		} finally {
+			finishFiring(scheduledObject.oid);
+		}
+	}
+
+	private void fireInternal(ScheduledObject scheduledObject, Task task, OperationResult result) {
+		PrismObject<ObjectType> object;
+		try {
+			//noinspection unchecked
+			object = (PrismObject<ObjectType>) repositoryService.getObject(scheduledObject.type, scheduledObject.oid, null, result);
+		} catch (ObjectNotFoundException e) {
+			LOGGER.trace("Object {} is gone, no triggers to fire", scheduledObject);
+			return;
+		} catch (CommonException | RuntimeException e) {
+			LoggingUtils.logUnexpectedException(LOGGER, "Couldn't get {} to fire its triggers", e, scheduledObject);
+			return;
+		}
+		triggerScannerTaskHandler.fireTriggers(object, null, clock.currentTimeXMLGregorianCalendar(), null, task, result);
+	}
+
+	@PreDestroy
+	public synchronized void shutdown() {
+		stopped = true;
+		if (thread != null) {
+			thread.interrupt();
+			thread = null;
+		}
+	}
+}
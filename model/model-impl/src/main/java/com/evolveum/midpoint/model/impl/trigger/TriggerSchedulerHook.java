@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.model.impl.trigger;
+
+import javax.annotation.PostConstruct;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.evolveum.midpoint.model.api.context.ModelContext;
+import com.evolveum.midpoint.model.api.context.ModelElementContext;
+import com.evolveum.midpoint.model.api.context.ModelProjectionContext;
+import com.evolveum.midpoint.model.api.context.ModelState;
+import com.evolveum.midpoint.model.api.hooks.ChangeHook;
+import com.evolveum.midpoint.model.api.hooks.HookOperationMode;
+import com.evolveum.midpoint.model.api.hooks.HookRegistry;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TriggerType;
+
+/**
+ * Passes triggers of objects changed by model operations to the trigger scheduler (if it is active on this node),
+ * so they do not have to wait for the next trigger scan.
+ */
+@Component
+public class TriggerSchedulerHook implements ChangeHook {
+
+	private static final Trace LOGGER = TraceManager.getTrace(TriggerSchedulerHook.class);
+
+	private static final String HOOK_URI = SchemaConstants.NS_MODEL + "/trigger-scheduler-hook-3";
+
+	@Autowired private HookRegistry hookRegistry;
+	@Autowired private TriggerScheduler triggerScheduler;
+
+	@PostConstruct
+	public void init() {
+		hookRegistry.registerChangeHook(HOOK_URI, this);
+		LOGGER.trace("TriggerSchedulerHook registered.");
+	}
+
+	@Override
+	public <O extends ObjectType> HookOperationMode invoke(@NotNull ModelContext<O> context, @NotNull Task task,
+			@NotNull OperationResult result) {
+		if (context.getState() != ModelState.FINAL || !triggerScheduler.isActive()) {
+			return HookOperationMode.FOREGROUND;
+		}
+		if (context.getFocusContext() != null) {
+			scheduleTriggers(context.getFocusContext());
+		}
+		for (ModelProjectionContext projectionContext : context.getProjectionContexts()) {
+			scheduleTriggers(projectionContext);
+		}
+		return HookOperationMode.FOREGROUND;
+	}
+
+	private void scheduleTriggers(ModelElementContext<?> elementContext) {
+		PrismObject<? extends ObjectType> object = elementContext.getObjectNew();
+		String oid = elementContext.getOid();
+		if (object == null || oid == null) {
+			return;
+		}
+		for (TriggerType trigger : object.asObjectable().getTrigger()) {
+			if (trigger.getTimestamp() != null) {
+				triggerScheduler.schedule(object.getCompileTimeClass(), oid,
+						XmlTypeConverter.toMillis(trigger.getTimestamp()));
+			}
+		}
+	}
+
+	@Override
+	public void invokeOnException(@NotNull ModelContext context, @NotNull Throwable throwable, @NotNull Task task,
+			@NotNull OperationResult result) {
+		// Nothing to do
+	}
+}
@@ -81,6 +81,7 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
 import com.evolveum.prism.xml.ns._public.query_3.SearchFilterType;
 import com.evolveum.prism.xml.ns._public.types_3.EvaluationTimeType;
 
+import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 import org.jetbrains.annotations.NotNull;
@@ -642,6 +643,15 @@ public class ModelImplUtils {
 		return item.getValues().iterator().next().getValue();
 	}
 
+	public static boolean isSkipUnchanged(Task task) {
+		Boolean skipUnchanged = task.getExtensionPropertyRealValue(SchemaConstants.MODEL_EXTENSION_SKIP_UNCHANGED);
+		if (skipUnchanged == null && task.isLightweightAsynchronousTask() && task.getParentForLightweightAsynchronousTask() != null) {
+			skipUnchanged = task.getParentForLightweightAsynchronousTask()
+					.getExtensionPropertyRealValue(SchemaConstants.MODEL_EXTENSION_SKIP_UNCHANGED);
+		}
+		return BooleanUtils.isTrue(skipUnchanged);
+	}
+
 	public static ModelExecuteOptions getModelExecuteOptions(Task task) throws SchemaException {
 		Validate.notNull(task, "Task must not be null.");
 		if (task.getExtension() == null) {
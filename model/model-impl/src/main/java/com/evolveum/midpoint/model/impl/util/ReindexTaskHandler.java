@@ -86,6 +86,20 @@ public class ReindexTaskHandler extends AbstractSearchIterativeModelTaskHandler<
         return true;
     }
 
+    // The repository is told about the reindex only if all objects were processed, i.e. no query, no buckets,
+    // no errors and no interruption.
+    @Override
+    protected void finish(ReindexResultHandler handler, TaskRunResult runResult, Task task, OperationResult opResult)
+            throws SchemaException {
+        super.finish(handler, runResult, task, opResult);
+        if (task.canRun() && handler.getErrors() == 0 && getType(task) == ObjectType.class
+                && task.getWorkManagement() == null
+                && createQueryFromTaskIfExists(handler, runResult, task, opResult) == null) {
+            LOGGER.info("All objects were reindexed, recording it in the repository");
+            repositoryService.recordAllObjectsReindexed(opResult);
+        }
+    }
+
     @Override
     public String getCategoryName(Task task) {
         return TaskCategory.UTIL;
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.model.impl.controller;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+import com.evolveum.midpoint.model.api.ModelAuthorizationAction;
+import com.evolveum.midpoint.prism.ItemDefinition;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismObjectDefinition;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.security.api.Authorization;
+import com.evolveum.midpoint.security.enforcer.impl.ObjectSecurityConstraintsImpl;
+import com.evolveum.midpoint.test.util.TestUtil;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AssignmentType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AuthorizationPhaseType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AuthorizationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectTemplateType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+
+/**
+ * Unit tests for the object definition view cache and the definition sharing it relies on. No Spring context is needed here.
+ */
+public class TestObjectDefinitionViewCache {
+
+	private static final List<AuthorizationPhaseType> PHASES = Collections.singletonList(AuthorizationPhaseType.EXECUTION);
+	private static final List<Set<ObjectDefinitionViewCache.AccessRestriction>> NO_RESTRICTIONS =
+			Collections.singletonList(Collections.emptySet());
+
+	@BeforeSuite
+	public void setup() throws SchemaException, SAXException, IOException {
+		PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+	}
+
+	@Test
+	public void test100HitAndMiss() {
+		TestUtil.displayTestTitle("test100HitAndMiss");
+		ObjectDefinitionViewCache cache = new ObjectDefinitionViewCache();
+		PrismObjectDefinition<UserType> userDefinition = getUserDefinition();
+		ObjectDefinitionViewCache.View view = createView(userDefinition);
+
+		cache.put(createKey(userDefinition, createReadConstraints(), null), view);
+
+		assertSame("Wrong view for equivalent constraints", view,
+				cache.get(createKey(userDefinition, createReadConstraints(), null)));
+		assertNull("View returned for different constraints",
+				cache.get(createKey(userDefinition, new ObjectSecurityConstraintsImpl(), null)));
+		assertNull("View returned for different template",
+				cache.get(createKey(userDefinition, createReadConstraints(), "12345678-d34d-b33f-f00d-987987987988:1()")));
+		assertNull("View returned for equal but different definition instance",
+				cache.get(createKey(userDefinition.clone(), createReadConstraints(), null)));
+		assertEquals("Wrong hits", 1, cache.getHits());
+		assertEquals("Wrong misses", 3, cache.getMisses());
+	}
+
+	@Test
+	public void test110FirstViewWins() {
+		TestUtil.displayTestTitle("test110FirstViewWins");
+		ObjectDefinitionViewCache cache = new ObjectDefinitionViewCache();
+		PrismObjectDefinition<UserType> userDefinition = getUserDefinition();
+		ObjectDefinitionViewCache.View first = createView(userDefinition);
+
+		cache.put(createKey(userDefinition, createReadConstraints(), null), first);
+		ObjectDefinitionViewCache.View stored = cache.put(createKey(userDefinition, createReadConstraints(), null), createView(userDefinition));
+
+		assertSame("Second view replaced the first one", first, stored);
+		assertEquals("Wrong size", 1, cache.size());
+	}
+
+	@Test
+	public void test120MaxSize() {
+		TestUtil.displayTestTitle("test120MaxSize");
+		ObjectDefinitionViewCache cache = new ObjectDefinitionViewCache();
+		cache.setMaxSize(1);
+		PrismObjectDefinition<UserType> userDefinition = getUserDefinition();
+
+		cache.put(createKey(userDefinition, createReadConstraints(), null), createView(userDefinition));
+		cache.put(createKey(userDefinition, new ObjectSecurityConstraintsImpl(), null), createView(userDefinition));
+
+		assertEquals("Wrong size", 1, cache.size());
+		assertNull("Least recently used view was not evicted", cache.get(createKey(userDefinition, createReadConstraints(), null)));
+
+		cache.setMaxSize(0);
+		assertFalse("Cache not disabled", cache.isEnabled());
+		assertEquals("Disabled cache not cleared", 0, cache.size());
+	}
+
+	@Test
+	public void test200InvalidateTemplate() {
+		TestUtil.displayTestTitle("test200InvalidateTemplate");
+		ObjectDefinitionViewCache cache = new ObjectDefinitionViewCache();
+		PrismObjectDefinition<UserType> userDefinition = getUserDefinition();
+		cache.put(createKey(userDefinition, createReadConstraints(), null), createView(userDefinition));
+
+		cache.invalidateCache(RoleType.class, "12345678-d34d-b33f-f00d-987987987988");
+		assertEquals("Role modification cleared the cache", 1, cache.size());
+
+		cache.invalidateCache(ObjectTemplateType.class, "12345678-d34d-b33f-f00d-987987987988");
+		assertEquals("Template modification did not clear the cache", 0, cache.size());
+	}
+
+	@Test
+	public void test210ViewIsImmutable() {
+		TestUtil.displayTestTitle("test210ViewIsImmutable");
+		PrismObjectDefinition<UserType> userDefinition = getUserDefinition();
+		ObjectDefinitionViewCache.View view = createView(userDefinition);
+
+		ItemPath descriptionPath = new ItemPath(UserType.F_ASSIGNMENT, AssignmentType.F_DESCRIPTION);
+		ItemDefinition<?> descriptionDefinition = view.definition.findItemDefinition(descriptionPath);
+		try {
+			descriptionDefinition.setCanRead(false);
+			fail("Shared definition was modified");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertTrue("Wrong canRead in the view", descriptionDefinition.canRead());
+		assertTrue("Wrong canRead in the schema registry", userDefinition.findItemDefinition(descriptionPath).canRead());
+
+		PrismObjectDefinition<?> clone = view.definition.deepClone(true, null);
+		clone.findItemDefinition(descriptionPath).setCanRead(false);
+		assertFalse("Clone of the view is not modifiable", clone.findItemDefinition(descriptionPath).canRead());
+	}
+
+	@Test
+	public void test300ReplaceDefinitionTree() throws Exception {
+		TestUtil.displayTestTitle("test300ReplaceDefinitionTree");
+		PrismObject<UserType> user = new UserType(PrismTestUtil.getPrismContext())
+				.name("jack")
+				.givenName("Jack")
+				.beginAssignment()
+					.description("some assignment")
+				.end()
+				.asPrismObject();
+		PrismObjectDefinition<UserType> sharedDefinition = user.getDefinition().deepClone(true, null);
+
+		assertTrue("User does not have uniform definition tree", user.hasUniformDefinitionTree());
+		user.replaceDefinitionTree(sharedDefinition);
+
+		assertSame("Wrong object definition", sharedDefinition, user.getDefinition());
+		assertSame("Wrong name definition", sharedDefinition.findItemDefinition(UserType.F_NAME),
+				user.findProperty(UserType.F_NAME).getDefinition());
+		ItemPath descriptionPath = new ItemPath(UserType.F_ASSIGNMENT, AssignmentType.F_DESCRIPTION);
+		assertSame("Wrong assignment description definition", sharedDefinition.findItemDefinition(descriptionPath),
+				user.findContainer(UserType.F_ASSIGNMENT).getValue().findProperty(AssignmentType.F_DESCRIPTION).getDefinition());
+		assertTrue("User does not have uniform definition tree after replacement", user.hasUniformDefinitionTree());
+	}
+
+	private PrismObjectDefinition<UserType> getUserDefinition() {
+		PrismObjectDefinition<UserType> definition = PrismTestUtil.getPrismContext().getSchemaRegistry()
+				.findObjectDefinitionByCompileTimeClass(UserType.class);
+		assertNotNull("No user definition", definition);
+		return definition;
+	}
+
+	private ObjectDefinitionViewCache.ViewKey createKey(PrismObjectDefinition<UserType> definition,
+			ObjectSecurityConstraintsImpl constraints, String templateFingerprint) {
+		return new ObjectDefinitionViewCache.ViewKey(definition, constraints, PHASES, NO_RESTRICTIONS, templateFingerprint);
+	}
+
+	private ObjectDefinitionViewCache.View createView(PrismObjectDefinition<UserType> definition) {
+		// the view is frozen, so it must not share anything with the schema registry
+		return new ObjectDefinitionViewCache.View(definition.deepClone(true, null), Collections.emptyList());
+	}
+
+	private ObjectSecurityConstraintsImpl createReadConstraints() {
+		AuthorizationType authorizationType = new AuthorizationType();
+		authorizationType.getAction().add(ModelAuthorizationAction.READ.getUrl());
+		ObjectSecurityConstraintsImpl constraints = new ObjectSecurityConstraintsImpl();
+		constraints.applyAuthorization(new Authorization(authorizationType));
+		return constraints;
+	}
+}
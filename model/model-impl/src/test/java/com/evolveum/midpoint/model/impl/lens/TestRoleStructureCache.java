@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.model.impl.lens;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.query.ObjectFilter;
+import com.evolveum.midpoint.prism.query.builder.QueryBuilder;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.SearchResultList;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.test.util.TestUtil;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+
+/**
+ * Unit tests for the role structure cache. No Spring context is needed here, the repository is mocked.
+ */
+public class TestRoleStructureCache {
+
+	private static final String ROLE_OID = "12345678-d34d-b33f-f00d-000000000001";
+	private static final String USER_OID = "12345678-d34d-b33f-f00d-000000000002";
+
+	@BeforeSuite
+	public void setup() throws SchemaException, SAXException, IOException {
+		PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+	}
+
+	@Test
+	public void test100HitAndMiss() throws Exception {
+		TestUtil.displayTestTitle("test100HitAndMiss");
+		RoleStructureCache cache = new RoleStructureCache();
+		RepositoryService repository = mock(RepositoryService.class);
+		OperationResult result = new OperationResult("test100HitAndMiss");
+		when(repository.getObject(eq(RoleType.class), eq(ROLE_OID), any(), any())).thenReturn(createRole("1"));
+
+		PrismObject<RoleType> first = cache.getObject(RoleType.class, ROLE_OID, repository, result);
+		PrismObject<RoleType> second = cache.getObject(RoleType.class, ROLE_OID, repository, result);
+
+		verify(repository, times(1)).getObject(eq(RoleType.class), eq(ROLE_OID), any(), any());
+		assertSame("Cached object is not shared", first, second);
+		assertTrue("Cached object is mutable", second.isImmutable());
+		assertEquals("Wrong hits", 1, cache.getHits());
+		assertEquals("Wrong misses", 1, cache.getMisses());
+	}
+
+	@Test
+	public void test110VersionCheck() throws Exception {
+		TestUtil.displayTestTitle("test110VersionCheck");
+		RoleStructureCache cache = new RoleStructureCache();
+		cache.setTimeToLive(1);
+		RepositoryService repository = mock(RepositoryService.class);
+		OperationResult result = new OperationResult("test110VersionCheck");
+		when(repository.getObject(eq(RoleType.class), eq(ROLE_OID), any(), any())).thenReturn(createRole("1"));
+		when(repository.getVersion(RoleType.class, ROLE_OID, result)).thenReturn("1");
+
+		cache.getObject(RoleType.class, ROLE_OID, repository, result);
+		Thread.sleep(10);
+		cache.getObject(RoleType.class, ROLE_OID, repository, result);
+		verify(repository, times(1)).getObject(eq(RoleType.class), eq(ROLE_OID), any(), any());
+
+		// changed e.g. on other node
+		when(repository.getVersion(RoleType.class, ROLE_OID, result)).thenReturn("2");
+		when(repository.getObject(eq(RoleType.class), eq(ROLE_OID), any(), any())).thenReturn(createRole("2"));
+		Thread.sleep(10);
+		assertEquals("Stale object returned", "2", cache.getObject(RoleType.class, ROLE_OID, repository, result).getVersion());
+		verify(repository, times(2)).getObject(eq(RoleType.class), eq(ROLE_OID), any(), any());
+	}
+
+	@Test
+	public void test120NotCacheable() throws Exception {
+		TestUtil.displayTestTitle("test120NotCacheable");
+		RoleStructureCache cache = new RoleStructureCache();
+		RepositoryService repository = mock(RepositoryService.class);
+		OperationResult result = new OperationResult("test120NotCacheable");
+		PrismObject<UserType> user = new UserType(PrismTestUtil.getPrismContext()).asPrismObject();
+		user.setOid(USER_OID);
+		when(repository.getObject(eq(UserType.class), eq(USER_OID), any(), any())).thenReturn(user);
+
+		cache.getObject(UserType.class, USER_OID, repository, result);
+		cache.getObject(UserType.class, USER_OID, repository, result);
+
+		verify(repository, times(2)).getObject(eq(UserType.class), eq(USER_OID), any(), any());
+		assertEquals("User was cached", 0, cache.size());
+	}
+
+	@Test
+	public void test200Invalidate() throws Exception {
+		TestUtil.displayTestTitle("test200Invalidate");
+		RoleStructureCache cache = new RoleStructureCache();
+		RepositoryService repository = mock(RepositoryService.class);
+		OperationResult result = new OperationResult("test200Invalidate");
+		when(repository.getObject(eq(RoleType.class), eq(ROLE_OID), any(), any())).thenReturn(createRole("1"));
+		cache.getObject(RoleType.class, ROLE_OID, repository, result);
+
+		cache.invalidateCache(UserType.class, USER_OID);
+		assertEquals("User modification invalidated the role", 1, cache.size());
+
+		cache.invalidateCache(RoleType.class, ROLE_OID);
+		assertEquals("Role modification did not invalidate the role", 0, cache.size());
+	}
+
+	@Test
+	public void test300StaticFilter() throws Exception {
+		TestUtil.displayTestTitle("test300StaticFilter");
+		RoleStructureCache cache = new RoleStructureCache();
+		RepositoryService repository = mock(RepositoryService.class);
+		OperationResult result = new OperationResult("test300StaticFilter");
+		ObjectFilter filter = QueryBuilder.queryFor(RoleType.class, PrismTestUtil.getPrismContext())
+				.item(RoleType.F_NAME).eqPoly("role")
+				.buildFilter();
+		when(repository.searchObjects(eq(RoleType.class), any(), any(), any()))
+				.thenReturn(new SearchResultList<>(Collections.singletonList(createRole("1"))));
+
+		cache.searchObjects(RoleType.class, filter, repository, result);
+		List<PrismObject<RoleType>> roles = cache.searchObjects(RoleType.class, filter, repository, result);
+
+		assertEquals("Wrong number of roles", 1, roles.size());
+		verify(repository, times(1)).searchObjects(eq(RoleType.class), any(), any(), any());
+
+		cache.invalidateCache(RoleType.class, "12345678-d34d-b33f-f00d-000000000003");
+		cache.searchObjects(RoleType.class, filter, repository, result);
+		verify(repository, times(2)).searchObjects(eq(RoleType.class), any(), any(), any());
+	}
+
+	private PrismObject<RoleType> createRole(String version) {
+		RoleType role = new RoleType(PrismTestUtil.getPrismContext());
+		role.setOid(ROLE_OID);
+		role.setVersion(version);
+		role.setName(new PolyStringType("role"));
+		return role.asPrismObject();
+	}
+}
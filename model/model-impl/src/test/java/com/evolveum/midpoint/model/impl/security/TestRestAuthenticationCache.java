@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.model.impl.security;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertNotSame;
+
+import java.io.IOException;
+
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.security.api.MidPointPrincipal;
+import com.evolveum.midpoint.test.util.TestUtil;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ActivationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.CredentialsPolicyType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.CredentialsType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.MetadataType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.PasswordCredentialsPolicyType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.PasswordType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SecurityPolicyType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+
+/**
+ * Unit tests for the REST authentication cache. No Spring context is needed here.
+ */
+public class TestRestAuthenticationCache {
+
+	private static final String USER_JACK_OID = "c0c010c0-d34d-b33f-f00d-111111111111";
+	private static final String USER_GUYBRUSH_OID = "c0c010c0-d34d-b33f-f00d-111111111116";
+
+	@BeforeSuite
+	public void setup() throws SchemaException, SAXException, IOException {
+		PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+	}
+
+	@Test
+	public void test100DisabledByDefault() {
+		TestUtil.displayTestTitle("test100DisabledByDefault");
+		RestAuthenticationCache cache = new RestAuthenticationCache();
+
+		cache.put("jack", "deadmentellnotales", createPrincipal(USER_JACK_OID), cache.getGeneration());
+
+		assertNull("Disabled cache returned a principal", cache.get("jack", "deadmentellnotales"));
+		assertEquals("Wrong size", 0, cache.size());
+	}
+
+	@Test
+	public void test110HitAndMiss() {
+		TestUtil.displayTestTitle("test110HitAndMiss");
+		RestAuthenticationCache cache = createCache(60000L, 10);
+		MidPointPrincipal jack = createPrincipal(USER_JACK_OID);
+
+		cache.put("jack", "deadmentellnotales", jack, cache.getGeneration());
+
+		assertEquals("Wrong cached principal", jack.getOid(), cache.get("jack", "deadmentellnotales").getOid());
+		assertNull("Wrong password matched", cache.get("jack", "wrong"));
+		assertNull("Wrong username matched", cache.get("guybrush", "deadmentellnotales"));
+		assertEquals("Wrong hits", 1, cache.getHits());
+		assertEquals("Wrong misses", 2, cache.getMisses());
+	}
+
+	@Test
+	public void test120Expiration() throws Exception {
+		TestUtil.displayTestTitle("test120Expiration");
+		RestAuthenticationCache cache = createCache(50L, 10);
+
+		cache.put("jack", "deadmentellnotales", createPrincipal(USER_JACK_OID), cache.getGeneration());
+		Thread.sleep(100L);
+
+		assertNull("Expired entry returned", cache.get("jack", "deadmentellnotales"));
+		assertEquals("Wrong size", 0, cache.size());
+	}
+
+	@Test
+	public void test130MaxSize() {
+		TestUtil.displayTestTitle("test130MaxSize");
+		RestAuthenticationCache cache = createCache(60000L, 2);
+
+		cache.put("jack", "1", createPrincipal(USER_JACK_OID), cache.getGeneration());
+		cache.put("guybrush", "2", createPrincipal(USER_GUYBRUSH_OID), cache.getGeneration());
+		cache.get("jack", "1");
+		cache.put("jack", "3", createPrincipal(USER_JACK_OID), cache.getGeneration());
+
+		assertEquals("Wrong size", 2, cache.size());
+		assertNull("Least recently used entry was not evicted", cache.get("guybrush", "2"));
+	}
+
+	@Test
+	public void test140PrivateCopies() {
+		TestUtil.displayTestTitle("test140PrivateCopies");
+		RestAuthenticationCache cache = createCache(60000L, 10);
+		MidPointPrincipal jack = createPrincipal(USER_JACK_OID);
+		jack.getUser().setEmployeeNumber("1");
+
+		cache.put("jack", "deadmentellnotales", jack, cache.getGeneration());
+		jack.getUser().setEmployeeNumber("2");
+
+		MidPointPrincipal first = cache.get("jack", "deadmentellnotales");
+		MidPointPrincipal second = cache.get("jack", "deadmentellnotales");
+		assertNotSame("Same principal returned twice", first, second);
+		assertNotSame("Same user returned twice", first.getUser(), second.getUser());
+		assertEquals("Cached user affected by modification of the original", "1", first.getUser().getEmployeeNumber());
+
+		first.getUser().setEmployeeNumber("3");
+		assertEquals("Cached user affected by modification of returned copy", "1",
+				cache.get("jack", "deadmentellnotales").getUser().getEmployeeNumber());
+	}
+
+	@Test
+	public void test200InvalidateUser() {
+		TestUtil.displayTestTitle("test200InvalidateUser");
+		RestAuthenticationCache cache = createCache(60000L, 10);
+		MidPointPrincipal guybrush = createPrincipal(USER_GUYBRUSH_OID);
+		cache.put("jack", "deadmentellnotales", createPrincipal(USER_JACK_OID), cache.getGeneration());
+		cache.put("guybrush", "monkey", guybrush, cache.getGeneration());
+
+		cache.invalidateCache(ShadowType.class, USER_JACK_OID);
+		assertEquals("Unrelated type invalidated the cache", 2, cache.size());
+
+		cache.invalidateCache(UserType.class, USER_JACK_OID);
+
+		assertNull("Invalidated entry returned", cache.get("jack", "deadmentellnotales"));
+		assertEquals("Wrong cached principal", guybrush.getOid(), cache.get("guybrush", "monkey").getOid());
+		assertEquals("Wrong invalidations", 1, cache.getInvalidations());
+	}
+
+	@Test
+	public void test210InvalidateRole() {
+		TestUtil.displayTestTitle("test210InvalidateRole");
+		RestAuthenticationCache cache = createCache(60000L, 10);
+		cache.put("jack", "deadmentellnotales", createPrincipal(USER_JACK_OID), cache.getGeneration());
+		cache.put("guybrush", "monkey", createPrincipal(USER_GUYBRUSH_OID), cache.getGeneration());
+
+		cache.invalidateCache(RoleType.class, "12345678-d34d-b33f-f00d-987987987988");
+
+		assertEquals("Role modification did not clear the cache", 0, cache.size());
+	}
+
+	@Test
+	public void test220InvalidatedDuringAuthentication() {
+		TestUtil.displayTestTitle("test220InvalidatedDuringAuthentication");
+		RestAuthenticationCache cache = createCache(60000L, 10);
+		long generation = cache.getGeneration();
+
+		// e.g. the password was changed while the old one was being verified
+		cache.invalidateCache(UserType.class, USER_JACK_OID);
+		cache.put("jack", "deadmentellnotales", createPrincipal(USER_JACK_OID), generation);
+
+		assertNull("Principal authenticated before invalidation was cached", cache.get("jack", "deadmentellnotales"));
+		assertEquals("Wrong size", 0, cache.size());
+	}
+
+	@Test
+	public void test230LoginRecordedByAuthentication() {
+		TestUtil.displayTestTitle("test230LoginRecordedByAuthentication");
+		RestAuthenticationCache cache = createCache(60000L, 10);
+		long generation = cache.getGeneration();
+
+		MidPointPrincipal jack = cache.runAuthentication(() -> {
+			// recording of the login modifies the user
+			cache.invalidateCache(UserType.class, USER_JACK_OID);
+			return createPrincipal(USER_JACK_OID);
+		});
+		cache.put("jack", "deadmentellnotales", jack, generation);
+
+		assertNotNull("Principal was not cached", cache.get("jack", "deadmentellnotales"));
+	}
+
+	@Test
+	public void test240UserValidityExpired() throws Exception {
+		TestUtil.displayTestTitle("test240UserValidityExpired");
+		RestAuthenticationCache cache = createCache(60000L, 10);
+		MidPointPrincipal jack = createPrincipal(USER_JACK_OID);
+		ActivationType activation = new ActivationType();
+		activation.setValidTo(XmlTypeConverter.createXMLGregorianCalendar(System.currentTimeMillis() + 50L));
+		jack.getUser().setActivation(activation);
+
+		cache.put("jack", "deadmentellnotales", jack, cache.getGeneration());
+		assertNotNull("Principal was not cached", cache.get("jack", "deadmentellnotales"));
+		Thread.sleep(100L);
+
+		assertNull("Entry of user with expired validity returned", cache.get("jack", "deadmentellnotales"));
+	}
+
+	@Test
+	public void test250PasswordExpired() {
+		TestUtil.displayTestTitle("test250PasswordExpired");
+		RestAuthenticationCache cache = createCache(60000L, 10);
+		MidPointPrincipal jack = createPrincipal(USER_JACK_OID);
+		MetadataType metadata = new MetadataType();
+		metadata.setCreateTimestamp(XmlTypeConverter.createXMLGregorianCalendar(System.currentTimeMillis() - 7200000L));
+		PasswordType password = new PasswordType();
+		password.setMetadata(metadata);
+		CredentialsType credentials = new CredentialsType();
+		credentials.setPassword(password);
+		jack.getUser().setCredentials(credentials);
+		PasswordCredentialsPolicyType passwordPolicy = new PasswordCredentialsPolicyType();
+		passwordPolicy.setMaxAge(XmlTypeConverter.createDuration(3600000L));
+		CredentialsPolicyType credentialsPolicy = new CredentialsPolicyType();
+		credentialsPolicy.setPassword(passwordPolicy);
+		SecurityPolicyType securityPolicy = new SecurityPolicyType();
+		securityPolicy.setCredentials(credentialsPolicy);
+		jack.setApplicableSecurityPolicy(securityPolicy);
+
+		cache.put("jack", "deadmentellnotales", jack, cache.getGeneration());
+
+		assertNull("Principal with expired password was cached", cache.get("jack", "deadmentellnotales"));
+	}
+
+	private RestAuthenticationCache createCache(long ttl, int maxSize) {
+		RestAuthenticationCache cache = new RestAuthenticationCache();
+		cache.setTimeToLive(ttl);
+		cache.setMaxSize(maxSize);
+		return cache;
+	}
+
+	private MidPointPrincipal createPrincipal(String oid) {
+		UserType user = new UserType(PrismTestUtil.getPrismContext());
+		user.setOid(oid);
+		return new MidPointPrincipal(user);
+	}
+}
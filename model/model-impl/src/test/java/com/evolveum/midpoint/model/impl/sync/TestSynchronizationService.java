@@ -330,6 +330,60 @@ public class TestSynchronizationService extends AbstractInternalModelIntegration
         assertSuccess(result);
 	}
 
+	/**
+	 * Reconciliation with skipUnchanged option: the second reconciliation of unchanged account is skipped,
+	 * until the account changes.
+	 */
+	@Test
+    public void test032ReconcileSkipUnchanged() throws Exception {
+		final String TEST_NAME = "test032ReconcileSkipUnchanged";
+        displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        Task task = createTask(TEST_NAME);
+        task.setExtensionPropertyValueTransient(SchemaConstants.MODEL_EXTENSION_SKIP_UNCHANGED, true);
+        OperationResult result = task.getResult();
+
+		// WHEN (first reconciliation stores the fingerprint)
+        displayWhen(TEST_NAME);
+        LensContext<UserType> context = reconcileAccountJack(task, result);
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertNotNull("No resulting context for the first reconciliation", context);
+        String fingerprint = getShadowModelNoFetch(accountShadowJackDummyOid).asObjectable().getSynchronizationFingerprint();
+        assertNotNull("No fingerprint stored", fingerprint);
+
+        // WHEN (nothing has changed)
+        context = reconcileAccountJack(task, result);
+
+        // THEN
+        assertNull("Unchanged account was not skipped", context);
+        assertSituation(getShadowModelNoFetch(accountShadowJackDummyOid), SynchronizationSituationType.LINKED);
+
+        // WHEN (account has changed)
+        DummyAccount dummyAccount = getDummyResource().getAccountByUsername(ACCOUNT_JACK_DUMMY_USERNAME);
+        dummyAccount.replaceAttributeValue(DummyResourceContoller.DUMMY_ACCOUNT_ATTRIBUTE_GOSSIP_NAME, "Jack has a new compass");
+        context = reconcileAccountJack(task, result);
+
+        // THEN
+        assertNotNull("Changed account was skipped", context);
+        String newFingerprint = getShadowModelNoFetch(accountShadowJackDummyOid).asObjectable().getSynchronizationFingerprint();
+        assertFalse("Fingerprint was not updated", fingerprint.equals(newFingerprint));
+
+        assertSuccess(result);
+	}
+
+	private LensContext<UserType> reconcileAccountJack(Task task, OperationResult result) throws Exception {
+		setDebugListener();
+        ResourceObjectShadowChangeDescription change = new ResourceObjectShadowChangeDescription();
+        change.setCurrentShadow(provisioningService.getObject(ShadowType.class, accountShadowJackDummyOid, null, task, result));
+        change.setResource(getDummyResourceObject());
+        change.setSourceChannel(SchemaConstants.CHANGE_CHANNEL_RECON_URI);
+        synchronizationService.notifyChange(change, task, result);
+        return cleanDebugListener();
+	}
+
 	@Test
     public void test039DeletedAccountJack() throws Exception {
 		final String TEST_NAME = "test039DeletedAccountJack";
@@ -29,6 +29,7 @@ import com.evolveum.midpoint.prism.delta.builder.DeltaBuilder;
 import com.evolveum.midpoint.test.IntegrationTestTools;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ConflictResolutionActionType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TriggerType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -38,6 +39,7 @@ import org.testng.annotations.Test;
 import com.evolveum.midpoint.model.impl.trigger.TriggerHandlerRegistry;
 import com.evolveum.midpoint.model.intest.util.MockTriggerHandler;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.task.api.Task;
 import com.evolveum.midpoint.test.util.TestUtil;
@@ -210,6 +212,40 @@ public class TestTriggerTask extends AbstractInitializedModelIntegrationTest {
 		assertLastScanTimestamp(TASK_TRIGGER_SCANNER_OID, startCal, endCal);
 	}
 
+	@Test
+	public void test130TwoTriggersCoalesced() throws Exception {
+		final String TEST_NAME = "test130TwoTriggersCoalesced";
+		TestUtil.displayTestTitle(this, TEST_NAME);
+
+		// GIVEN
+		Task task = createTask(TestTriggerTask.class.getName() + "." + TEST_NAME);
+		OperationResult result = task.getResult();
+		testTriggerHandler.reset();
+		testTriggerHandler.setCoalesce(true);
+
+		XMLGregorianCalendar startCal = clock.currentTimeXMLGregorianCalendar();
+		XMLGregorianCalendar startCalPlus5ms = XmlTypeConverter.createXMLGregorianCalendar(startCal);
+		startCalPlus5ms.add(XmlTypeConverter.createDuration(5L));
+		addTriggers(USER_JACK_OID, Arrays.asList(startCal, startCalPlus5ms), MockTriggerHandler.HANDLER_URI);
+
+		/// WHEN
+		TestUtil.displayWhen(TEST_NAME);
+		waitForTaskNextRunAssertSuccess(TASK_TRIGGER_SCANNER_OID, true);
+
+		// THEN
+		TestUtil.displayThen(TEST_NAME);
+
+		XMLGregorianCalendar endCal = clock.currentTimeXMLGregorianCalendar();
+
+		assertNotNull("Trigger was not called", testTriggerHandler.getLastObject());
+		assertEquals("Trigger was called wrong number of times", 1, testTriggerHandler.getInvocationCount());
+		assertNoTrigger(UserType.class, USER_JACK_OID);
+
+		assertLastScanTimestamp(TASK_TRIGGER_SCANNER_OID, startCal, endCal);
+
+		testTriggerHandler.reset();
+	}
+
 	@Test
     public void test150NoTriggerAgain() throws Exception {
 		final String TEST_NAME = "test115NoTriggerAgain";
@@ -296,6 +332,57 @@ public class TestTriggerTask extends AbstractInitializedModelIntegrationTest {
 		assertLastScanTimestamp(TASK_TRIGGER_SCANNER_OID, startCal, endCal);
 	}
 
+	/**
+	 * Trigger claimed by another node is not fired until the claim expires.
+	 */
+	@Test
+	public void test170TriggerClaimedByOtherNode() throws Exception {
+		final String TEST_NAME = "test170TriggerClaimedByOtherNode";
+		TestUtil.displayTestTitle(this, TEST_NAME);
+
+		// GIVEN
+		Task task = createTask(TestTriggerTask.class.getName() + "." + TEST_NAME);
+		OperationResult result = task.getResult();
+		testTriggerHandler.reset();
+
+		XMLGregorianCalendar startCal = clock.currentTimeXMLGregorianCalendar();
+		TriggerType trigger = new TriggerType()
+				.timestamp(startCal)
+				.handlerUri(MockTriggerHandler.HANDLER_URI)
+				.firingStartTimestamp(startCal)
+				.firingNode("OtherNode");
+		repositoryService.modifyObject(UserType.class, USER_JACK_OID,
+				DeltaBuilder.deltaFor(UserType.class, prismContext)
+						.item(UserType.F_TRIGGER).replace(trigger)
+						.asItemDeltas(), result);
+
+		/// WHEN
+		TestUtil.displayWhen(TEST_NAME);
+		waitForTaskNextRunAssertSuccess(TASK_TRIGGER_SCANNER_OID, true);
+
+		// THEN
+		TestUtil.displayThen(TEST_NAME);
+
+		assertEquals("Trigger claimed by other node was called", 0, testTriggerHandler.getInvocationCount());
+		PrismObject<UserType> userAfter = getUser(USER_JACK_OID);
+		assertEquals("Wrong # of triggers found", 1, userAfter.asObjectable().getTrigger().size());
+
+		// -------------------- the claim expires
+
+		XMLGregorianCalendar expiredClaim = XmlTypeConverter.createXMLGregorianCalendar(startCal);
+		expiredClaim.add(XmlTypeConverter.createDuration("-PT2H"));
+		Long triggerId = userAfter.asObjectable().getTrigger().get(0).getId();
+		repositoryService.modifyObject(UserType.class, USER_JACK_OID,
+				DeltaBuilder.deltaFor(UserType.class, prismContext)
+						.item(UserType.F_TRIGGER, triggerId, TriggerType.F_FIRING_START_TIMESTAMP).replace(expiredClaim)
+						.asItemDeltas(), result);
+
+		waitForTaskNextRunAssertSuccess(TASK_TRIGGER_SCANNER_OID, true);
+
+		assertEquals("Trigger was called wrong number of times", 1, testTriggerHandler.getInvocationCount());
+		assertNoTrigger(UserType.class, USER_JACK_OID);
+	}
+
 	@Test
 	public void test200TwoDistantTriggers() throws Exception {
 		final String TEST_NAME = "test200TwoDistantTriggers";
@@ -380,4 +467,48 @@ public class TestTriggerTask extends AbstractInitializedModelIntegrationTest {
 	}
 
 	// trigger scanner task is suspended here; and handler is set to a delay of one day (reset will clear that)
+
+	/**
+	 * Trigger that is not due yet is found by the scan thanks to the look-ahead, and it is fired by the scheduler
+	 * when due, although the scanner task is suspended in the meantime.
+	 */
+	@Test
+	public void test300LookAheadTrigger() throws Exception {
+		final String TEST_NAME = "test300LookAheadTrigger";
+		TestUtil.displayTestTitle(this, TEST_NAME);
+
+		// GIVEN
+		Task task = createTask(TestTriggerTask.class.getName() + "." + TEST_NAME);
+		OperationResult result = task.getResult();
+		testTriggerHandler.reset();
+
+		Task scannerTask = taskManager.getTask(TASK_TRIGGER_SCANNER_OID, result);
+		scannerTask.setExtensionPropertyValue(SchemaConstants.MODEL_EXTENSION_TRIGGER_LOOK_AHEAD,
+				XmlTypeConverter.createDuration("PT1H"));
+		scannerTask.savePendingModifications(result);
+
+		XMLGregorianCalendar startCal = clock.currentTimeXMLGregorianCalendar();
+		XMLGregorianCalendar startCalPlus10s = XmlTypeConverter.createXMLGregorianCalendar(startCal);
+		startCalPlus10s.add(XmlTypeConverter.createDuration("PT10S"));
+		replaceTriggers(USER_JACK_OID, singleton(startCalPlus10s), MockTriggerHandler.HANDLER_URI);
+
+		taskManager.resumeTasks(singleton(TASK_TRIGGER_SCANNER_OID), result);
+		waitForTaskNextRunAssertSuccess(TASK_TRIGGER_SCANNER_OID, true);
+		boolean suspended = taskManager.suspendTasks(singleton(TASK_TRIGGER_SCANNER_OID), 20000L, result);
+		assertTrue("trigger scanner task was not suspended", suspended);
+		assertEquals("Trigger was called before it was due", 0, testTriggerHandler.getInvocationCount());
+
+		/// WHEN
+		TestUtil.displayWhen(TEST_NAME);
+		IntegrationTestTools.waitFor("Waiting for trigger handler invocation", () -> testTriggerHandler.getInvocationCount() > 0, 60000);
+
+		// THEN
+		TestUtil.displayThen(TEST_NAME);
+
+		long firedAt = clock.currentTimeMillis();
+		assertTrue("Trigger was fired before it was due", firedAt >= XmlTypeConverter.toMillis(startCalPlus10s));
+		assertNotNull("Trigger was not called", testTriggerHandler.getLastObject());
+		assertEquals("Trigger was called wrong number of times", 1, testTriggerHandler.getInvocationCount());
+		assertNoTrigger(UserType.class, USER_JACK_OID);
+	}
 }
@@ -101,6 +101,7 @@ public class TestScriptingBasic extends AbstractInitializedModelIntegrationTest
 	private static final File SCRIPTING_USERS_IN_BACKGROUND_ASSIGN_FILE = new File(TEST_DIR, "scripting-users-in-background-assign.xml");
 	private static final File SCRIPTING_USERS_IN_BACKGROUND_TASK_FILE = new File(TEST_DIR, "scripting-users-in-background-task.xml");
 	private static final File SCRIPTING_USERS_IN_BACKGROUND_ITERATIVE_TASK_FILE = new File(TEST_DIR, "scripting-users-in-background-iterative-task.xml");
+	private static final File SCRIPTING_USERS_IN_BACKGROUND_PARALLEL_TASK_FILE = new File(TEST_DIR, "scripting-users-in-background-parallel-task.xml");
 	private static final File START_TASKS_FROM_TEMPLATE_FILE = new File(TEST_DIR, "start-tasks-from-template.xml");
 	private static final File GENERATE_PASSWORDS_FILE = new File(TEST_DIR, "generate-passwords.xml");
 	private static final File GENERATE_PASSWORDS_2_FILE = new File(TEST_DIR, "generate-passwords-2.xml");
@@ -1136,6 +1137,31 @@ public class TestScriptingBasic extends AbstractInitializedModelIntegrationTest
 		assertTrue("Task is still suspended", taskAfter.asObjectable().getExecutionStatus() != TaskExecutionStatusType.SUSPENDED);
 	}
 
+	@Test
+	public void test580ParallelScriptingTask() throws Exception {
+		final String TEST_NAME = "test580ParallelScriptingTask";
+		TestUtil.displayTestTitle(this, TEST_NAME);
+
+		// GIVEN
+		Task task = createTask(DOT_CLASS + TEST_NAME);
+		OperationResult result = task.getResult();
+		String taskOid = repoAddObjectFromFile(SCRIPTING_USERS_IN_BACKGROUND_PARALLEL_TASK_FILE, result).getOid();
+
+		// WHEN
+		waitForTaskFinish(taskOid, false);
+
+		// THEN
+		PrismObject<TaskType> taskAfter = getTask(taskOid);
+		display("task after", taskAfter);
+		TestUtil.assertSuccess(taskAfter.asObjectable().getResult());
+		List<PrismObject<UserType>> users = repositoryService.searchObjects(UserType.class, null, null, result);
+		assertFalse("No users", users.isEmpty());
+		for (PrismObject<UserType> user : users) {
+			assertEquals("Wrong description of " + user, "parallel " + user.getName().getOrig(), user.asObjectable().getDescription());
+		}
+		assertEquals("Wrong progress of the task", Long.valueOf(users.size()), taskAfter.asObjectable().getProgress());
+	}
+
 	private void assertNoOutputData(ExecutionContext output) {
         assertTrue("Script returned unexpected data", output.getFinalOutput() == null || output.getFinalOutput().getData().isEmpty());
     }
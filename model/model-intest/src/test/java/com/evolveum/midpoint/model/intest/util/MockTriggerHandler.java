@@ -42,6 +42,7 @@ public class MockTriggerHandler implements TriggerHandler {
 	private AtomicInteger invocationCount = new AtomicInteger(0);
 	private long delay;
 	private boolean failOnNextInvocation;
+	private boolean coalesce;
 
 	public PrismObject<?> getLastObject() {
 		return lastObject;
@@ -67,6 +68,15 @@ public class MockTriggerHandler implements TriggerHandler {
 		this.failOnNextInvocation = failOnNextInvocation;
 	}
 
+	public void setCoalesce(boolean coalesce) {
+		this.coalesce = coalesce;
+	}
+
+	@Override
+	public boolean canCoalesce() {
+		return coalesce;
+	}
+
 	/* (non-Javadoc)
 	 * @see com.evolveum.midpoint.model.trigger.TriggerHandler#handle(com.evolveum.midpoint.prism.PrismObject)
 	 */
@@ -94,5 +104,6 @@ public class MockTriggerHandler implements TriggerHandler {
 		invocationCount.set(0);
 		delay = 0;
 		failOnNextInvocation = false;
+		coalesce = false;
 	}
 }
@@ -373,6 +373,7 @@ public class ReportFunctions {
         SearchResultList<WorkItemType> workItems = model.searchContainers(WorkItemType.class, query,
                 resolveItemsNamed(
                         WorkItemType.F_ASSIGNEE_REF,
+                        WorkItemType.F_CANDIDATE_REF,
                         new ItemPath(PrismConstants.T_PARENT, WfContextType.F_OBJECT_REF),
                         new ItemPath(PrismConstants.T_PARENT, WfContextType.F_TARGET_REF),
                         new ItemPath(PrismConstants.T_PARENT, WfContextType.F_REQUESTER_REF)), task, result);
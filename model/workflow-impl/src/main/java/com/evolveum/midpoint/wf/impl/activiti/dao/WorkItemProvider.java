@@ -17,6 +17,7 @@
 package com.evolveum.midpoint.wf.impl.activiti.dao;
 
 import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.PrismPropertyValue;
 import com.evolveum.midpoint.prism.PrismReferenceValue;
 import com.evolveum.midpoint.prism.PrismValue;
@@ -24,6 +25,7 @@ import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.query.*;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
 import com.evolveum.midpoint.schema.GetOperationOptions;
+import com.evolveum.midpoint.schema.RetrieveOption;
 import com.evolveum.midpoint.schema.SearchResultList;
 import com.evolveum.midpoint.schema.SelectorOptions;
 import com.evolveum.midpoint.schema.constants.ObjectTypes;
@@ -47,7 +49,12 @@ import com.evolveum.midpoint.wf.impl.processes.common.CommonProcessVariableNames
 import com.evolveum.midpoint.wf.impl.util.MiscDataUtil;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectReferenceType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkItemType;
+import org.activiti.engine.ManagementService;
+import org.activiti.engine.ProcessEngine;
 import org.activiti.engine.TaskService;
+import org.activiti.engine.impl.persistence.entity.VariableInstance;
+import org.activiti.engine.runtime.Execution;
+import org.activiti.engine.runtime.NativeExecutionQuery;
 import org.activiti.engine.task.IdentityLink;
 import org.activiti.engine.task.IdentityLinkType;
 import org.activiti.engine.task.Task;
@@ -58,7 +65,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static com.evolveum.midpoint.schema.constants.ObjectTypes.USER;
 import static com.evolveum.midpoint.schema.util.ObjectQueryUtil.FilterComponents;
@@ -89,6 +98,24 @@ public class WorkItemProvider {
 
     private static final String OPERATION_ACTIVITI_TASK_TO_WORK_ITEM = DOT_CLASS + "activitiTaskToWorkItem";
 
+	// maximal number of IDs in a single "IN" clause when fetching variables and executions in bulk
+	static final int MAX_IDS_IN_QUERY = 500;
+
+	/**
+	 * Data shared by conversion of more tasks to work items (e.g. in searchWorkItems), so that they are fetched
+	 * only once or in bulk.
+	 */
+	private static class ConversionContext {
+		// task ID -> all variables visible from the task (null if these are to be fetched one by one)
+		private final Map<String, Map<String, Object>> allVariables;
+		private final Map<String, com.evolveum.midpoint.task.api.Task> ownerTasks = new HashMap<>();
+		private final Map<String, PrismObject> resolvedObjects = new HashMap<>();
+
+		ConversionContext(Map<String, Map<String, Object>> allVariables) {
+			this.allVariables = allVariables;
+		}
+	}
+
 	public Integer countWorkItems(ObjectQuery query, Collection<SelectorOptions<GetOperationOptions>> options, OperationResult result) throws SchemaException {
 		TaskQuery taskQuery = createTaskQuery(query, false, options, result);
 		return taskQuery != null ? (int) taskQuery.count() : 0;
@@ -108,9 +135,27 @@ public class WorkItemProvider {
 		} else {
 			tasks = taskQuery.listPage(defaultIfNull(offset, 0), defaultIfNull(maxSize, Integer.MAX_VALUE));
 		}
-		boolean getAllVariables = true;				// TODO implement based on options
-		// there's no need to fill-in assignee details ; but candidates are necessary to fill-in; TODO implement based on options (resolve)
-		return tasksToWorkItems(tasks, null, false, false, true, getAllVariables, result);
+		// candidates are resolved unless explicitly opted out (for compatibility), assignees only if requested
+		boolean resolveCandidates = !isResolveDisabled(options, F_CANDIDATE_REF);
+		boolean resolveAssignee = isResolveRequested(options, F_ASSIGNEE_REF);
+		// process specific part and additional information are the only items that need all the variables
+		boolean fetchAllVariables = !isExcluded(options, F_PROCESS_SPECIFIC_PART) || !isExcluded(options, F_ADDITIONAL_INFORMATION);
+		return tasksToWorkItems(tasks, null, false, resolveAssignee, resolveCandidates, fetchAllVariables, result);
+	}
+
+	private static boolean isResolveRequested(Collection<SelectorOptions<GetOperationOptions>> options, QName itemName) {
+		return SelectorOptions.findOptionsForPath(options, new ItemPath(itemName)).stream()
+				.anyMatch(o -> GetOperationOptions.isResolve(o) || GetOperationOptions.isResolveNames(o));
+	}
+
+	private static boolean isResolveDisabled(Collection<SelectorOptions<GetOperationOptions>> options, QName itemName) {
+		return SelectorOptions.findOptionsForPath(options, new ItemPath(itemName)).stream()
+				.anyMatch(o -> Boolean.FALSE.equals(o.getResolve()) || GetOperationOptions.getRetrieve(o) == RetrieveOption.EXCLUDE);
+	}
+
+	private static boolean isExcluded(Collection<SelectorOptions<GetOperationOptions>> options, QName itemName) {
+		return SelectorOptions.findOptionsForPath(options, new ItemPath(itemName)).stream()
+				.anyMatch(o -> GetOperationOptions.getRetrieve(o) == RetrieveOption.EXCLUDE);
 	}
 
 	// primitive 'query interpreter'
@@ -244,15 +289,16 @@ public class WorkItemProvider {
                 .includeTaskLocalVariables()
                 .includeProcessVariables()
                 .singleResult();
-        return taskToWorkItem(task, null, false, false, false, false, result);
+        return taskToWorkItem(task, null, false, false, false, false, null, result);
     }
 
     private SearchResultList<WorkItemType> tasksToWorkItems(List<Task> tasks, Map<String, Object> processVariables,
             boolean resolveTask, boolean resolveAssignee, boolean resolveCandidates, boolean fetchAllVariables, OperationResult result) {
         SearchResultList<WorkItemType> retval = new SearchResultList<>(new ArrayList<WorkItemType>());
+        ConversionContext context = new ConversionContext(fetchAllVariables ? getAllVariables(activitiEngine.getProcessEngine(), tasks) : null);
         for (Task task : tasks) {
             try {
-                retval.add(taskToWorkItem(task, processVariables, resolveTask, resolveAssignee, resolveCandidates, fetchAllVariables, result));
+                retval.add(taskToWorkItem(task, processVariables, resolveTask, resolveAssignee, resolveCandidates, fetchAllVariables, context, result));
             } catch (RuntimeException e) {
 				// operation result already contains corresponding error record
                 LoggingUtils.logUnexpectedException(LOGGER, "Couldn't get information on activiti task {}", e, task.getId());
@@ -261,6 +307,88 @@ public class WorkItemProvider {
         return retval;
     }
 
+	/**
+	 * Returns all the variables visible from given tasks, i.e. the same as TaskService.getVariables would return
+	 * for each of them: task-local variables, plus variables of the task execution and all its parent executions
+	 * (the nearest one taking precedence). Instead of a handful of queries for each task, this uses a few queries
+	 * per execution tree level for all the tasks together.
+	 */
+	static Map<String, Map<String, Object>> getAllVariables(ProcessEngine processEngine, List<Task> tasks) {
+		Map<String, Map<String, Object>> rv = new HashMap<>();
+		if (tasks.isEmpty()) {
+			return rv;
+		}
+		Map<String, String> parents = new HashMap<>();                          // execution ID -> parent ID
+		Map<String, Map<String, Object>> executionVariables = new HashMap<>();  // execution ID -> its own variables
+		Set<String> visited = new HashSet<>();
+		Set<String> toFetch = tasks.stream().map(Task::getExecutionId).filter(Objects::nonNull).collect(Collectors.toSet());
+		while (!toFetch.isEmpty()) {
+			visited.addAll(toFetch);
+			for (List<String> chunk : partition(toFetch)) {
+				for (VariableInstance variable : processEngine.getRuntimeService().getVariableInstancesByExecutionIds(new HashSet<>(chunk))) {
+					if (variable.getTaskId() == null) {         // task-local variables are treated below
+						executionVariables.computeIfAbsent(variable.getExecutionId(), k -> new HashMap<>())
+								.put(variable.getName(), variable.getValue());
+					}
+				}
+				for (Execution execution : getExecutions(processEngine, chunk)) {
+					parents.put(execution.getId(), execution.getParentId());
+				}
+			}
+			Set<String> nextLevel = new HashSet<>();
+			for (String executionId : toFetch) {
+				String parentId = parents.get(executionId);
+				if (parentId != null && !visited.contains(parentId)) {
+					nextLevel.add(parentId);
+				}
+			}
+			toFetch = nextLevel;
+		}
+
+		Map<String, Map<String, Object>> taskLocalVariables = new HashMap<>();
+		Set<String> taskIds = tasks.stream().map(Task::getId).collect(Collectors.toSet());
+		for (List<String> chunk : partition(taskIds)) {
+			for (VariableInstance variable : processEngine.getTaskService().getVariableInstancesByTaskIds(new HashSet<>(chunk))) {
+				taskLocalVariables.computeIfAbsent(variable.getTaskId(), k -> new HashMap<>())
+						.put(variable.getName(), variable.getValue());
+			}
+		}
+
+		for (Task task : tasks) {
+			Map<String, Object> variables = new HashMap<>(taskLocalVariables.getOrDefault(task.getId(), Collections.emptyMap()));
+			String executionId = task.getExecutionId();
+			while (executionId != null) {
+				executionVariables.getOrDefault(executionId, Collections.emptyMap()).forEach(variables::putIfAbsent);
+				executionId = parents.get(executionId);
+			}
+			rv.put(task.getId(), variables);
+		}
+		return rv;
+	}
+
+	static List<Execution> getExecutions(ProcessEngine processEngine, List<String> executionIds) {
+		ManagementService managementService = processEngine.getManagementService();
+		StringBuilder sql = new StringBuilder("SELECT * FROM " + managementService.getTableName(Execution.class) + " WHERE ID_ IN (");
+		for (int i = 0; i < executionIds.size(); i++) {
+			sql.append(i > 0 ? ", " : "").append("#{id").append(i).append("}");
+		}
+		sql.append(")");
+		NativeExecutionQuery query = processEngine.getRuntimeService().createNativeExecutionQuery().sql(sql.toString());
+		for (int i = 0; i < executionIds.size(); i++) {
+			query = query.parameter("id" + i, executionIds.get(i));
+		}
+		return query.list();
+	}
+
+	private static List<List<String>> partition(Collection<String> ids) {
+		List<String> list = new ArrayList<>(ids);
+		List<List<String>> rv = new ArrayList<>();
+		for (int i = 0; i < list.size(); i += MAX_IDS_IN_QUERY) {
+			rv.add(list.subList(i, Math.min(i + MAX_IDS_IN_QUERY, list.size())));
+		}
+		return rv;
+	}
+
     @NotNull
 	public List<ObjectReferenceType> getMidpointAssignees(TaskExtract taskExtract) {
 		List<ObjectReferenceType> rv = new ArrayList<>();
@@ -411,12 +539,12 @@ public class WorkItemProvider {
     }
 
     private WorkItemType taskToWorkItem(Task task, Map<String, Object> processVariables, boolean resolveTask, boolean resolveAssignee,
-            boolean resolveCandidates, boolean fetchAllVariables, OperationResult result) {
+            boolean resolveCandidates, boolean fetchAllVariables, ConversionContext context, OperationResult result) {
     	if (task == null) {
     		return null;
 		}
 		TaskExtract taskExtract = new TaskExtract(task, processVariables, getTaskIdentityLinks(task.getId()));
-		return taskExtractToWorkItem(taskExtract, resolveTask, resolveAssignee, resolveCandidates, fetchAllVariables, result);
+		return taskExtractToWorkItem(taskExtract, resolveTask, resolveAssignee, resolveCandidates, fetchAllVariables, context, result);
     }
 
 	private List<IdentityLink> getTaskIdentityLinks(String taskId) {
@@ -431,6 +559,11 @@ public class WorkItemProvider {
 
     public WorkItemType taskExtractToWorkItem(TaskExtract task, boolean resolveTask, boolean resolveAssignee,
 			boolean resolveCandidates, boolean fetchAllVariables, OperationResult parentResult) {
+		return taskExtractToWorkItem(task, resolveTask, resolveAssignee, resolveCandidates, fetchAllVariables, null, parentResult);
+	}
+
+	private WorkItemType taskExtractToWorkItem(TaskExtract task, boolean resolveTask, boolean resolveAssignee,
+			boolean resolveCandidates, boolean fetchAllVariables, ConversionContext context, OperationResult parentResult) {
 		OperationResult result = parentResult.createSubresult(OPERATION_ACTIVITI_TASK_TO_WORK_ITEM);
 		result.addParam("activitiTaskId", task.getId());
 		result.addParam("resolveTask", resolveTask);
@@ -449,7 +582,7 @@ public class WorkItemProvider {
 			String taskOid = ActivitiUtil.getRequiredVariable(variables, CommonProcessVariableNames.VARIABLE_MIDPOINT_TASK_OID, String.class, null);
 			com.evolveum.midpoint.task.api.Task mpTask;
 			try {
-				mpTask = taskManager.getTask(taskOid, result);
+				mpTask = getOwnerTask(taskOid, context, result);
 				if (mpTask.getWorkflowContext() == null) {
 					throw new IllegalStateException("No workflow context in task " + mpTask + " that owns " + wi);
 				}
@@ -466,15 +599,27 @@ public class WorkItemProvider {
 				wi.setOriginalAssigneeRef(MiscDataUtil.stringToRef(originalAssigneeString));
 			}
 			if (resolveAssignee) {
-				miscDataUtil.resolveAndStoreObjectReferences(wi.getAssigneeRef(), result);
-				miscDataUtil.resolveAndStoreObjectReference(wi.getOriginalAssigneeRef(), result);
+				if (context != null) {
+					miscDataUtil.resolveAndStoreObjectReferences(wi.getAssigneeRef(), context.resolvedObjects, result);
+					if (wi.getOriginalAssigneeRef() != null) {
+						miscDataUtil.resolveAndStoreObjectReferences(Collections.singletonList(wi.getOriginalAssigneeRef()),
+								context.resolvedObjects, result);
+					}
+				} else {
+					miscDataUtil.resolveAndStoreObjectReferences(wi.getAssigneeRef(), result);
+					miscDataUtil.resolveAndStoreObjectReference(wi.getOriginalAssigneeRef(), result);
+				}
 			}
 
 			// candidates
 			task.getCandidateUsers().forEach(s -> wi.getCandidateRef().add(createObjectRef(s, USER)));
 			task.getCandidateGroups().forEach(s -> wi.getCandidateRef().add(MiscDataUtil.stringToRef(s)));
 			if (resolveCandidates) {
-				miscDataUtil.resolveAndStoreObjectReferences(wi.getCandidateRef(), result);
+				if (context != null) {
+					miscDataUtil.resolveAndStoreObjectReferences(wi.getCandidateRef(), context.resolvedObjects, result);
+				} else {
+					miscDataUtil.resolveAndStoreObjectReferences(wi.getCandidateRef(), result);
+				}
 			}
 
 			// other
@@ -493,7 +638,11 @@ public class WorkItemProvider {
 
 			// This is just because 'variables' switches in task query DO NOT fetch all required variables...
 			if (fetchAllVariables) {		// TODO can we do this e.g. in the task completion listener?
-				Map<String, Object> allVariables = activitiEngine.getTaskService().getVariables(task.getId());
+				Map<String, Object> allVariables = context != null && context.allVariables != null
+						? context.allVariables.get(task.getId()) : null;
+				if (allVariables == null) {
+					allVariables = activitiEngine.getTaskService().getVariables(task.getId());
+				}
 				wi.setProcessSpecificPart(pmi.extractProcessSpecificWorkItemPart(allVariables));
 				wi.getAdditionalInformation().addAll(pmi.getAdditionalInformation(allVariables));
 			}
@@ -507,4 +656,18 @@ public class WorkItemProvider {
 			result.computeStatusIfUnknown();
 		}
 	}
+
+	private com.evolveum.midpoint.task.api.Task getOwnerTask(String taskOid, ConversionContext context, OperationResult result)
+			throws ObjectNotFoundException, SchemaException {
+		if (context == null) {
+			return taskManager.getTask(taskOid, result);
+		}
+		com.evolveum.midpoint.task.api.Task cached = context.ownerTasks.get(taskOid);
+		if (cached != null) {
+			return cached;
+		}
+		com.evolveum.midpoint.task.api.Task task = taskManager.getTask(taskOid, result);
+		context.ownerTasks.put(taskOid, task);
+		return task;
+	}
 }
@@ -422,6 +422,29 @@ public class MiscDataUtil {
     	references.forEach(ref -> resolveObjectReference(ref, true, result));
 	}
 
+	/**
+	 * Resolves the references, reading each object only once. The cache (OID -> object or null if it couldn't
+	 * be resolved) is meant to be shared e.g. by all work items that are being retrieved at once.
+	 */
+	public void resolveAndStoreObjectReferences(@NotNull Collection<ObjectReferenceType> references,
+			@NotNull Map<String, PrismObject> cache, OperationResult result) {
+		for (ObjectReferenceType ref : references) {
+			if (ref == null || ref.getOid() == null || ref.asReferenceValue().getObject() != null) {
+				continue;
+			}
+			PrismObject object;
+			if (cache.containsKey(ref.getOid())) {
+				object = cache.get(ref.getOid());
+			} else {
+				object = resolveObjectReference(ref, false, result);
+				cache.put(ref.getOid(), object);
+			}
+			if (object != null) {
+				ref.asReferenceValue().setObject(object);
+			}
+		}
+	}
+
     private PrismObject resolveObjectReference(ObjectReferenceType ref, boolean storeBack, OperationResult result) {
         if (ref == null) {
             return null;
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.wf.impl.activiti.dao;
+
+import com.evolveum.midpoint.test.util.TestUtil;
+import org.activiti.engine.ProcessEngine;
+import org.activiti.engine.ProcessEngineConfiguration;
+import org.activiti.engine.runtime.Execution;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests bulk fetching of work item variables and executions (WorkItemProvider.getAllVariables and getExecutions)
+ * against an in-memory Activiti engine.
+ */
+public class TestWorkItemVariables {
+
+	private static final String PROCESS_PARALLEL = "parallel";
+	private static final String PROCESS_SIMPLE = "simple";
+
+	private static final String PROCESSES = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<definitions xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" targetNamespace=\"http://midpoint.evolveum.com/test\">\n"
+			+ "  <process id=\"" + PROCESS_PARALLEL + "\">\n"
+			+ "    <startEvent id=\"start\"/>\n"
+			+ "    <sequenceFlow id=\"f1\" sourceRef=\"start\" targetRef=\"fork\"/>\n"
+			+ "    <parallelGateway id=\"fork\"/>\n"
+			+ "    <sequenceFlow id=\"f2\" sourceRef=\"fork\" targetRef=\"taskA\"/>\n"
+			+ "    <sequenceFlow id=\"f3\" sourceRef=\"fork\" targetRef=\"taskB\"/>\n"
+			+ "    <sequenceFlow id=\"f4\" sourceRef=\"fork\" targetRef=\"taskC\"/>\n"
+			+ "    <userTask id=\"taskA\"/>\n"
+			+ "    <userTask id=\"taskB\"/>\n"
+			+ "    <userTask id=\"taskC\"/>\n"
+			+ "    <sequenceFlow id=\"f5\" sourceRef=\"taskA\" targetRef=\"join\"/>\n"
+			+ "    <sequenceFlow id=\"f6\" sourceRef=\"taskB\" targetRef=\"join\"/>\n"
+			+ "    <sequenceFlow id=\"f7\" sourceRef=\"taskC\" targetRef=\"join\"/>\n"
+			+ "    <parallelGateway id=\"join\"/>\n"
+			+ "    <sequenceFlow id=\"f8\" sourceRef=\"join\" targetRef=\"end\"/>\n"
+			+ "    <endEvent id=\"end\"/>\n"
+			+ "  </process>\n"
+			+ "  <process id=\"" + PROCESS_SIMPLE + "\">\n"
+			+ "    <startEvent id=\"start\"/>\n"
+			+ "    <sequenceFlow id=\"f1\" sourceRef=\"start\" targetRef=\"task\"/>\n"
+			+ "    <userTask id=\"task\"/>\n"
+			+ "    <sequenceFlow id=\"f2\" sourceRef=\"task\" targetRef=\"end\"/>\n"
+			+ "    <endEvent id=\"end\"/>\n"
+			+ "  </process>\n"
+			+ "</definitions>\n";
+
+	private ProcessEngine processEngine;
+
+	@BeforeClass
+	public void startEngine() {
+		processEngine = ProcessEngineConfiguration.createStandaloneInMemProcessEngineConfiguration()
+				.setJdbcUrl("jdbc:h2:mem:wf-work-item-variables;DB_CLOSE_DELAY=1000")
+				.setJobExecutorActivate(false)
+				.buildProcessEngine();
+		processEngine.getRepositoryService().createDeployment()
+				.addString("test-processes.bpmn20.xml", PROCESSES)
+				.deploy();
+	}
+
+	@AfterClass
+	public void stopEngine() {
+		if (processEngine != null) {
+			processEngine.close();
+		}
+	}
+
+	/**
+	 * Task-local variables override the variables of the task execution, which override the variables
+	 * of its parent (process instance) execution.
+	 */
+	@Test
+	public void test100VariablePrecedence() throws Exception {
+		final String TEST_NAME = "test100VariablePrecedence";
+		TestUtil.displayTestTitle(this, TEST_NAME);
+
+		Map<String, Object> processVariables = new HashMap<>();
+		processVariables.put("level", "process");
+		processVariables.put("processOnly", "p");
+		ProcessInstance instance = processEngine.getRuntimeService().startProcessInstanceByKey(PROCESS_PARALLEL, processVariables);
+		List<Task> tasks = processEngine.getTaskService().createTaskQuery().processInstanceId(instance.getId()).list();
+		assertEquals("Wrong # of tasks", 3, tasks.size());
+		Task taskA = findTask(tasks, "taskA");
+		Task taskB = findTask(tasks, "taskB");
+		Task taskC = findTask(tasks, "taskC");
+		assertTrue("Task B should run in a child execution", !instance.getId().equals(taskB.getExecutionId()));
+
+		processEngine.getTaskService().setVariableLocal(taskA.getId(), "level", "task");
+		processEngine.getTaskService().setVariableLocal(taskA.getId(), "taskOnly", "t");
+		processEngine.getRuntimeService().setVariableLocal(taskA.getExecutionId(), "level", "execution");
+		processEngine.getRuntimeService().setVariableLocal(taskB.getExecutionId(), "level", "execution");
+		processEngine.getRuntimeService().setVariableLocal(taskB.getExecutionId(), "executionOnly", "e");
+
+		// WHEN
+		Map<String, Map<String, Object>> variables = WorkItemProvider.getAllVariables(processEngine, tasks);
+
+		// THEN
+		assertEquals("Wrong # of entries", 3, variables.size());
+		assertEquals("Wrong 'level' in task A", "task", variables.get(taskA.getId()).get("level"));
+		assertEquals("Wrong 'taskOnly' in task A", "t", variables.get(taskA.getId()).get("taskOnly"));
+		assertEquals("Wrong 'level' in task B", "execution", variables.get(taskB.getId()).get("level"));
+		assertEquals("Wrong 'executionOnly' in task B", "e", variables.get(taskB.getId()).get("executionOnly"));
+		assertEquals("Wrong 'level' in task C", "process", variables.get(taskC.getId()).get("level"));
+		for (Task task : tasks) {
+			assertEquals("Wrong 'processOnly' in " + task.getTaskDefinitionKey(), "p", variables.get(task.getId()).get("processOnly"));
+			assertEquals("Variables differ from TaskService ones for " + task.getTaskDefinitionKey(),
+					processEngine.getTaskService().getVariables(task.getId()), variables.get(task.getId()));
+		}
+	}
+
+	/**
+	 * Executions are fetched by native "IN" query; IDs over MAX_IDS_IN_QUERY are split into more queries.
+	 */
+	@Test
+	public void test200BulkFetch() throws Exception {
+		final String TEST_NAME = "test200BulkFetch";
+		TestUtil.displayTestTitle(this, TEST_NAME);
+
+		int count = WorkItemProvider.MAX_IDS_IN_QUERY + 10;
+		List<String> instanceIds = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			instanceIds.add(processEngine.getRuntimeService()
+					.startProcessInstanceByKey(PROCESS_SIMPLE, Collections.singletonMap("index", i)).getId());
+		}
+		List<Task> tasks = processEngine.getTaskService().createTaskQuery().processDefinitionKey(PROCESS_SIMPLE).list();
+		assertEquals("Wrong # of tasks", count, tasks.size());
+
+		// WHEN
+		List<String> someIds = instanceIds.subList(0, 3);
+		List<Execution> executions = WorkItemProvider.getExecutions(processEngine, someIds);
+
+		// THEN
+		assertEquals("Wrong executions fetched", new HashSet<>(someIds),
+				executions.stream().map(Execution::getId).collect(Collectors.toSet()));
+
+		// WHEN
+		Map<String, Map<String, Object>> variables = WorkItemProvider.getAllVariables(processEngine, tasks);
+
+		// THEN
+		assertEquals("Wrong # of entries", count, variables.size());
+		for (Task task : tasks) {
+			int index = instanceIds.indexOf(task.getProcessInstanceId());
+			assertEquals("Wrong 'index' in task " + task.getId(), index, variables.get(task.getId()).get("index"));
+		}
+	}
+
+	private Task findTask(List<Task> tasks, String definitionKey) {
+		return tasks.stream()
+				.filter(t -> definitionKey.equals(t.getTaskDefinitionKey()))
+				.findFirst()
+				.orElseThrow(() -> new AssertionError("No task " + definitionKey));
+	}
+}
@@ -15,8 +15,10 @@
  */
 package com.evolveum.midpoint.provisioning.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.xml.namespace.QName;
@@ -50,12 +52,15 @@ import com.evolveum.midpoint.provisioning.ucf.api.PropertyModificationOperation;
 import com.evolveum.midpoint.provisioning.ucf.api.ShadowResultHandler;
 import com.evolveum.midpoint.provisioning.util.ProvisioningUtil;
 import com.evolveum.midpoint.schema.processor.ResourceAttribute;
+import com.evolveum.midpoint.schema.SearchResultMetadata;
 import com.evolveum.midpoint.schema.processor.ResourceAttributeContainer;
+import com.evolveum.midpoint.schema.processor.ResourceAttributeDefinition;
 import com.evolveum.midpoint.schema.processor.ResourceObjectIdentification;
 import com.evolveum.midpoint.schema.processor.SearchHierarchyConstraints;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.schema.util.ResourceTypeUtil;
 import com.evolveum.midpoint.schema.util.ShadowUtil;
+import com.evolveum.midpoint.util.QNameUtil;
 import com.evolveum.midpoint.util.exception.CommunicationException;
 import com.evolveum.midpoint.util.exception.ConfigurationException;
 import com.evolveum.midpoint.util.exception.ExpressionEvaluationException;
@@ -95,14 +100,44 @@ class EntitlementConverter {
 	@Autowired(required = true)
 	private MatchingRuleRegistry matchingRuleRegistry;
 
+	// Number of subjects read by a search after which entitlement-to-subject associations are resolved
+	// by an entitlement index instead of per-subject searches. Negative value switches the index off.
+	private int entitlementIndexThreshold = DEFAULT_ENTITLEMENT_INDEX_THRESHOLD;
+
+	private static final int DEFAULT_ENTITLEMENT_INDEX_THRESHOLD = 100;
+
+	public int getEntitlementIndexThreshold() {
+		return entitlementIndexThreshold;
+	}
+
+	// exists mainly because of testing
+	public void setEntitlementIndexThreshold(int entitlementIndexThreshold) {
+		this.entitlementIndexThreshold = entitlementIndexThreshold;
+	}
+
+	public EntitlementIndex createEntitlementIndex() {
+		return new EntitlementIndex(entitlementIndexThreshold);
+	}
+
 	//////////
 	// GET
 	/////////
 
 	public void postProcessEntitlementsRead(ProvisioningContext subjectCtx,
 			PrismObject<ShadowType> resourceObject, OperationResult parentResult) throws SchemaException, CommunicationException, ObjectNotFoundException, ConfigurationException, SecurityViolationException, ExpressionEvaluationException {
+		postProcessEntitlementsRead(subjectCtx, resourceObject, null, parentResult);
+	}
+
+	/**
+	 * @param entitlementIndex Index shared by all subjects read by one search, or null if the subject is read individually.
+	 */
+	public void postProcessEntitlementsRead(ProvisioningContext subjectCtx,
+			PrismObject<ShadowType> resourceObject, EntitlementIndex entitlementIndex, OperationResult parentResult) throws SchemaException, CommunicationException, ObjectNotFoundException, ConfigurationException, SecurityViolationException, ExpressionEvaluationException {
 		ResourceType resourceType = subjectCtx.getResource();
 		LOGGER.trace("Starting postProcessEntitlementRead");
+		if (entitlementIndex != null) {
+			entitlementIndex.recordSubject();
+		}
 		RefinedObjectClassDefinition objectClassDefinition = subjectCtx.getObjectClassDefinition();
 		Collection<RefinedAssociationDefinition> entitlementAssociationDefs = objectClassDefinition.getAssociationDefinitions();
 		if (entitlementAssociationDefs != null) {
@@ -133,7 +168,8 @@ class EntitlementConverter {
 									assocDefType.getResourceObjectAssociationType().getShortcutAssociationAttribute(),
 									assocDefType.getResourceObjectAssociationType().getShortcutValueAttribute(), parentResult);
 						} else {
-							postProcessEntitlementEntitlementToSubject(subjectCtx, resourceObject, assocDefType, entitlementCtx, attributesContainer, associationContainer, parentResult);
+							postProcessEntitlementEntitlementToSubject(subjectCtx, resourceObject, assocDefType, entitlementKind, entitlementIntent,
+									entitlementCtx, attributesContainer, associationContainer, entitlementIndex, parentResult);
 						}
 					} else {
 						throw new IllegalArgumentException("Unknown entitlement direction "+direction+" in association "+assocDefType+" in "+resourceType);
@@ -207,9 +243,10 @@ class EntitlementConverter {
     }
 
 	private <S extends ShadowType,T> void postProcessEntitlementEntitlementToSubject(ProvisioningContext subjectCtx, final PrismObject<S> resourceObject,
-			RefinedAssociationDefinition assocDefType, final ProvisioningContext entitlementCtx,
+			RefinedAssociationDefinition assocDefType, ShadowKindType entitlementKind, String entitlementIntent,
+			final ProvisioningContext entitlementCtx,
 			ResourceAttributeContainer attributesContainer, final PrismContainer<ShadowAssociationType> associationContainer,
-			OperationResult parentResult) throws SchemaException, CommunicationException, ObjectNotFoundException, ConfigurationException, SecurityViolationException, ExpressionEvaluationException {
+			EntitlementIndex entitlementIndex, OperationResult parentResult) throws SchemaException, CommunicationException, ObjectNotFoundException, ConfigurationException, SecurityViolationException, ExpressionEvaluationException {
 		ResourceType resourceType = subjectCtx.getResource();
 		final QName associationName = assocDefType.getName();
 		final RefinedObjectClassDefinition entitlementDef = entitlementCtx.getObjectClassDefinition();
@@ -255,18 +292,6 @@ class EntitlementConverter {
 
 		AttributesToReturn attributesToReturn = ProvisioningUtil.createAttributesToReturn(entitlementCtx);
 
-		SearchHierarchyConstraints searchHierarchyConstraints = null;
-		ResourceObjectReferenceType baseContextRef = entitlementDef.getBaseContext();
-		if (baseContextRef != null) {
-			// TODO: this should be done once per search. Not in every run of postProcessEntitlementEntitlementToSubject
-			// this has to go outside of this method
-			PrismObject<ShadowType> baseContextShadow = resourceObjectReferenceResolver.resolve(subjectCtx, baseContextRef,
-					null, "base context specification in "+entitlementDef, parentResult);
-			RefinedObjectClassDefinition baseContextObjectClassDefinition = subjectCtx.getRefinedSchema().determineCompositeObjectClassDefinition(baseContextShadow);
-			ResourceObjectIdentification baseContextIdentification =  ShadowUtil.getResourceObjectIdentification(baseContextShadow, baseContextObjectClassDefinition);
-			searchHierarchyConstraints = new SearchHierarchyConstraints(baseContextIdentification, null);
-		}
-
 		ShadowResultHandler handler = new ShadowResultHandler() {
 			@Override
 			public boolean handle(PrismObject<ShadowType> entitlementShadow) {
@@ -292,6 +317,40 @@ class EntitlementConverter {
 			}
 		};
 
+		//noinspection unchecked
+		MatchingRule<Object> matchingRule = getAssociationMatchingRule(assocDefType, assocAttrDef);
+		// the index buckets are determined by normalized values, so the index cannot be used for matching rules
+		// that match values with different normalized forms; the connector search is used for them
+		if (entitlementIndex != null && entitlementIndex.isActive() && matchingRule.isNormalizationConsistentWithMatch()
+				&& entitlementIndex.isUsable(associationName, entitlementKind, entitlementIntent)) {
+			Map<Object, List<EntitlementIndex.Entry>> index = entitlementIndex.getIndex(associationName, entitlementKind, entitlementIntent);
+			if (index == null) {
+				index = buildEntitlementIndex(subjectCtx, assocDefType, entitlementCtx, assocAttrDef, parentResult);
+				if (index != null) {
+					entitlementIndex.putIndex(associationName, entitlementKind, entitlementIntent, index);
+				} else {
+					entitlementIndex.markUnusable(associationName, entitlementKind, entitlementIntent);
+				}
+			}
+			if (index != null) {
+				Object value = convertAssociationValue(assocAttrDef, valueAttr);
+				// normalization finds the bucket, the matching rule decides
+				List<PrismObject<ShadowType>> entitlements = EntitlementIndex.lookup(index, matchingRule.normalize(value),
+						indexedValue -> matchingRule.match(indexedValue, value));
+				try {
+					for (PrismObject<ShadowType> entitlementShadow : entitlements) {
+						// the indexed shadow is shared by all the subjects, so each of them gets its own copy
+						handler.handle(entitlementShadow.clone());
+					}
+				} catch (TunnelException e) {
+					throw (SchemaException)e.getCause();
+				}
+				return;
+			}
+		}
+
+		SearchHierarchyConstraints searchHierarchyConstraints = getSearchHierarchyConstraints(subjectCtx, entitlementDef, parentResult);
+
 		ConnectorInstance connector = subjectCtx.getConnector(ReadCapabilityType.class, parentResult);
 		try {
 			if (LOGGER.isTraceEnabled()) {
@@ -310,12 +369,95 @@ class EntitlementConverter {
 
 	}
 
-    // precondition: valueAttr has exactly one value
-	private <TV,TA> ObjectQuery createQuery(RefinedAssociationDefinition assocDefType, RefinedAttributeDefinition<TA> assocAttrDef, ResourceAttribute<TV> valueAttr) throws SchemaException{
+	private SearchHierarchyConstraints getSearchHierarchyConstraints(ProvisioningContext subjectCtx,
+			RefinedObjectClassDefinition entitlementDef, OperationResult parentResult)
+			throws SchemaException, CommunicationException, ObjectNotFoundException, ConfigurationException,
+			SecurityViolationException, ExpressionEvaluationException {
+		ResourceObjectReferenceType baseContextRef = entitlementDef.getBaseContext();
+		if (baseContextRef == null) {
+			return null;
+		}
+		// TODO: this should be done once per search. Not in every run of postProcessEntitlementEntitlementToSubject
+		// this has to go outside of this method
+		PrismObject<ShadowType> baseContextShadow = resourceObjectReferenceResolver.resolve(subjectCtx, baseContextRef,
+				null, "base context specification in "+entitlementDef, parentResult);
+		RefinedObjectClassDefinition baseContextObjectClassDefinition = subjectCtx.getRefinedSchema().determineCompositeObjectClassDefinition(baseContextShadow);
+		ResourceObjectIdentification baseContextIdentification =  ShadowUtil.getResourceObjectIdentification(baseContextShadow, baseContextObjectClassDefinition);
+		return new SearchHierarchyConstraints(baseContextIdentification, null);
+	}
+
+	/**
+	 * Reads all entitlements of given kind and intent and indexes them by normalized values of the association attribute.
+	 * Returns null if the entitlements could not be read completely.
+	 */
+	private <TA> Map<Object, List<EntitlementIndex.Entry>> buildEntitlementIndex(ProvisioningContext subjectCtx,
+			RefinedAssociationDefinition assocDefType, ProvisioningContext entitlementCtx,
+			RefinedAttributeDefinition<TA> assocAttrDef, OperationResult parentResult)
+			throws SchemaException, CommunicationException, ObjectNotFoundException, ConfigurationException,
+			SecurityViolationException, ExpressionEvaluationException {
+		RefinedObjectClassDefinition entitlementDef = entitlementCtx.getObjectClassDefinition();
 		MatchingRule<TA> matchingRule = matchingRuleRegistry.getMatchingRule(assocDefType.getResourceObjectAssociationType().getMatchingRule(),
 				assocAttrDef.getTypeName());
-		PrismPropertyValue<TA> converted = PrismUtil.convertPropertyValue(valueAttr.getValue(0), valueAttr.getDefinition(), assocAttrDef);
-		TA normalizedRealValue = matchingRule.normalize(converted.getValue());
+
+		// the association attribute is needed for indexing even if it is not returned by default
+		AttributesToReturn attributesToReturn = ProvisioningUtil.createAttributesToReturn(entitlementCtx);
+		if (attributesToReturn == null) {
+			attributesToReturn = new AttributesToReturn();
+		}
+		Collection<ResourceAttributeDefinition> explicit = new ArrayList<>();
+		if (attributesToReturn.getAttributesToReturn() != null) {
+			explicit.addAll(attributesToReturn.getAttributesToReturn());
+		}
+		if (explicit.stream().noneMatch(def -> QNameUtil.match(def.getName(), assocAttrDef.getName()))) {
+			explicit.add(assocAttrDef);
+		}
+		attributesToReturn.setAttributesToReturn(explicit);
+
+		SearchHierarchyConstraints searchHierarchyConstraints = getSearchHierarchyConstraints(subjectCtx, entitlementDef, parentResult);
+
+		Map<Object, List<EntitlementIndex.Entry>> index = new HashMap<>();
+		ShadowResultHandler handler = entitlementShadow -> {
+			ResourceAttribute<TA> assocAttr = ShadowUtil.getAttributesContainer(entitlementShadow).findAttribute(assocAttrDef.getName());
+			if (assocAttr != null) {
+				try {
+					for (PrismPropertyValue<TA> assocAttrPVal : assocAttr.getValues()) {
+						EntitlementIndex.addToIndex(index, matchingRule.normalize(assocAttrPVal.getValue()), assocAttrPVal.getValue(),
+								entitlementShadow);
+					}
+				} catch (SchemaException e) {
+					throw new TunnelException(e);
+				}
+			}
+			return true;
+		};
+
+		LOGGER.trace("Building entitlement index for association {} in {}", assocDefType.getName(), entitlementDef);
+		ConnectorInstance connector = subjectCtx.getConnector(ReadCapabilityType.class, parentResult);
+		SearchResultMetadata metadata;
+		try {
+			try {
+				metadata = connector.search(entitlementDef, null, handler, attributesToReturn,
+						entitlementDef.getPagedSearches(subjectCtx.getResource()), searchHierarchyConstraints, subjectCtx, parentResult);
+			} catch (GenericFrameworkException e) {
+				throw new GenericConnectorException("Generic error in the connector " + connector + ". Reason: "
+						+ e.getMessage(), e);
+			}
+		} catch (TunnelException e) {
+			throw (SchemaException)e.getCause();
+		}
+		if (metadata != null && metadata.isPartialResults()) {
+			LOGGER.debug("Entitlements for association {} could not be read completely, not using the entitlement index",
+					assocDefType.getName());
+			return null;
+		}
+		LOGGER.debug("Built entitlement index for association {}: {} distinct association attribute values",
+				assocDefType.getName(), index.size());
+		return index;
+	}
+
+    // precondition: valueAttr has exactly one value
+	private <TV,TA> ObjectQuery createQuery(RefinedAssociationDefinition assocDefType, RefinedAttributeDefinition<TA> assocAttrDef, ResourceAttribute<TV> valueAttr) throws SchemaException{
+		TA normalizedRealValue = normalizeAssociationValue(assocDefType, assocAttrDef, valueAttr);
 		PrismPropertyValue<TA> normalized = new PrismPropertyValue<>(normalizedRealValue);
 		LOGGER.trace("Converted entitlement filter value: {} ({}) def={}", normalized, normalized.getValue().getClass(), assocAttrDef);
 		ObjectQuery query = QueryBuilder.queryFor(ShadowType.class, prismContext)
@@ -325,6 +467,24 @@ class EntitlementConverter {
 		return query;
 	}
 
+	// precondition: valueAttr has exactly one value
+	private <TV,TA> TA normalizeAssociationValue(RefinedAssociationDefinition assocDefType, RefinedAttributeDefinition<TA> assocAttrDef,
+			ResourceAttribute<TV> valueAttr) throws SchemaException {
+		return getAssociationMatchingRule(assocDefType, assocAttrDef).normalize(convertAssociationValue(assocAttrDef, valueAttr));
+	}
+
+	// precondition: valueAttr has exactly one value
+	private <TV,TA> TA convertAssociationValue(RefinedAttributeDefinition<TA> assocAttrDef, ResourceAttribute<TV> valueAttr) {
+		PrismPropertyValue<TA> converted = PrismUtil.convertPropertyValue(valueAttr.getValue(0), valueAttr.getDefinition(), assocAttrDef);
+		return converted.getValue();
+	}
+
+	private <TA> MatchingRule<TA> getAssociationMatchingRule(RefinedAssociationDefinition assocDefType,
+			RefinedAttributeDefinition<TA> assocAttrDef) throws SchemaException {
+		return matchingRuleRegistry.getMatchingRule(assocDefType.getResourceObjectAssociationType().getMatchingRule(),
+				assocAttrDef.getTypeName());
+	}
+
 	//////////
 	// ADD
 	/////////
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.provisioning.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowKindType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
+
+/**
+ * Entitlement-to-subject index used while reading many subjects in a single resource object search.
+ *
+ * Object-to-subject associations are normally resolved by a separate search for entitlements for each subject read.
+ * When a search returns a lot of subjects (e.g. import or reconciliation), this means one entitlement search per
+ * subject. This index is used to avoid that: when the number of subjects processed in the search exceeds a threshold,
+ * all entitlements of given association and intent are read at once and indexed by the (normalized) values of their
+ * association attribute. The subjects are then resolved by looking up the index. Normalization is used only to find
+ * the candidates: the original values in the bucket are then compared with the subject value by the matching rule.
+ *
+ * The index lives only for the duration of one search. If the entitlements could not be read completely
+ * (partial results), the index is marked as unusable and the per-subject searches are used instead.
+ *
+ * Not thread safe. Should NOT be used by any class other than ResourceObjectConverter and EntitlementConverter.
+ */
+class EntitlementIndex {
+
+	private final int threshold;
+	private int subjectsProcessed;
+
+	private final Map<List<Object>, Map<Object, List<Entry>>> indexes = new HashMap<>();
+	private final Map<List<Object>, Boolean> unusable = new HashMap<>();
+
+	EntitlementIndex(int threshold) {
+		this.threshold = threshold;
+	}
+
+	void recordSubject() {
+		subjectsProcessed++;
+	}
+
+	boolean isActive() {
+		return threshold >= 0 && subjectsProcessed > threshold;
+	}
+
+	boolean isUsable(QName associationName, ShadowKindType kind, String intent) {
+		return !unusable.containsKey(key(associationName, kind, intent));
+	}
+
+	void markUnusable(QName associationName, ShadowKindType kind, String intent) {
+		unusable.put(key(associationName, kind, intent), Boolean.TRUE);
+	}
+
+	/**
+	 * Returns the index (normalized association attribute value -> entitlements with the original values),
+	 * or null if it was not built yet.
+	 */
+	Map<Object, List<Entry>> getIndex(QName associationName, ShadowKindType kind, String intent) {
+		return indexes.get(key(associationName, kind, intent));
+	}
+
+	void putIndex(QName associationName, ShadowKindType kind, String intent, Map<Object, List<Entry>> index) {
+		indexes.put(key(associationName, kind, intent), index);
+	}
+
+	static void addToIndex(Map<Object, List<Entry>> index, Object normalizedValue, Object value, PrismObject<ShadowType> entitlement) {
+		index.computeIfAbsent(normalizedValue, k -> new ArrayList<>()).add(new Entry(value, entitlement));
+	}
+
+	/**
+	 * Returns entitlements from the bucket of given normalized value that have a value accepted by the matcher.
+	 * Each entitlement is returned at most once, even if more of its values match.
+	 */
+	static List<PrismObject<ShadowType>> lookup(Map<Object, List<Entry>> index, Object normalizedValue, ValueMatcher matcher)
+			throws SchemaException {
+		List<Entry> entries = index.get(normalizedValue);
+		if (entries == null) {
+			return Collections.emptyList();
+		}
+		List<PrismObject<ShadowType>> entitlements = new ArrayList<>();
+		for (Entry entry : entries) {
+			if (!containsSame(entitlements, entry.entitlement) && matcher.matches(entry.value)) {
+				entitlements.add(entry.entitlement);
+			}
+		}
+		return entitlements;
+	}
+
+	private static boolean containsSame(List<PrismObject<ShadowType>> entitlements, PrismObject<ShadowType> entitlement) {
+		for (PrismObject<ShadowType> e : entitlements) {
+			if (e == entitlement) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private List<Object> key(QName associationName, ShadowKindType kind, String intent) {
+		return Arrays.asList(associationName, kind, intent);
+	}
+
+	@FunctionalInterface
+	interface ValueMatcher {
+		boolean matches(Object indexedValue) throws SchemaException;
+	}
+
+	/**
+	 * Original (not normalized) value of the association attribute with the entitlement that has it.
+	 */
+	static class Entry {
+		private final Object value;
+		private final PrismObject<ShadowType> entitlement;
+
+		private Entry(Object value, PrismObject<ShadowType> entitlement) {
+			this.value = value;
+			this.entitlement = entitlement;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "EntitlementIndex(threshold=" + threshold + ", subjectsProcessed=" + subjectsProcessed
+				+ ", indexes=" + indexes.keySet() + ", unusable=" + unusable.keySet() + ")";
+	}
+}
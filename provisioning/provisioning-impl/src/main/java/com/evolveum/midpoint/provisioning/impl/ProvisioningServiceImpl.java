@@ -159,7 +159,7 @@ public class ProvisioningServiceImpl implements ProvisioningService {
 		OperationResult result = parentResult.createMinorSubresult(ProvisioningService.class.getName() + ".getObject");
 		result.addParam(OperationResult.PARAM_OID, oid);
 		result.addParam(OperationResult.PARAM_TYPE, type);
-		result.addArbitraryObjectCollectionAsParam("options", options);
+		result.addLazyParam("options", () -> options);
 		result.addContext(OperationResult.CONTEXT_IMPLEMENTATION_CLASS, ProvisioningServiceImpl.class);
 
 		GetOperationOptions rootOptions = SelectorOptions.findRootOptions(options);
@@ -283,7 +283,7 @@ public class ProvisioningServiceImpl implements ProvisioningService {
 
 		OperationResult result = parentResult.createSubresult(ProvisioningService.class.getName() + ".addObject");
 		result.addParam("object", object);
-		result.addArbitraryObjectAsParam("scripts", scripts);
+		result.addLazyParam("scripts", () -> scripts);
 		result.addContext(OperationResult.CONTEXT_IMPLEMENTATION_CLASS, ProvisioningServiceImpl.class);
 
 		String oid = null;
@@ -420,7 +420,7 @@ public class ProvisioningServiceImpl implements ProvisioningService {
 
 		OperationResult result = parentResult.createSubresult(ProvisioningService.class.getName() + ".searchObjects");
 		result.addParam("objectType", type);
-		result.addParam("query", query);
+		result.addLazyParam("query", () -> query);
 		result.addContext(OperationResult.CONTEXT_IMPLEMENTATION_CLASS, ProvisioningServiceImpl.class);
 
 		final SearchResultList<PrismObject<T>> objListType = new SearchResultList<>(new ArrayList<PrismObject<T>>());
@@ -613,10 +613,10 @@ public class ProvisioningServiceImpl implements ProvisioningService {
 		}
 
 		OperationResult result = parentResult.createSubresult(ProvisioningService.class.getName() + ".modifyObject");
-		result.addArbitraryObjectCollectionAsParam("modifications", modifications);
+		result.addLazyParam("modifications", () -> modifications);
 		result.addParam(OperationResult.PARAM_OID, oid);
-		result.addArbitraryObjectAsParam("scripts", scripts);
-		result.addArbitraryObjectAsParam("options", options);
+		result.addLazyParam("scripts", () -> scripts);
+		result.addLazyParam("options", () -> options);
 		result.addContext(OperationResult.CONTEXT_IMPLEMENTATION_CLASS, ProvisioningServiceImpl.class);
 
 		if (LOGGER.isTraceEnabled()) {
@@ -675,7 +675,7 @@ public class ProvisioningServiceImpl implements ProvisioningService {
 
 		OperationResult result = parentResult.createSubresult(ProvisioningService.class.getName() + ".deleteObject");
 		result.addParam("oid", oid);
-		result.addArbitraryObjectAsParam("scripts", scripts);
+		result.addLazyParam("scripts", () -> scripts);
 		result.addContext(OperationResult.CONTEXT_IMPLEMENTATION_CLASS, ProvisioningServiceImpl.class);
 
 		//TODO: is critical when shadow does not exits anymore?? do we need to log it?? if not, change null to allowNotFound options
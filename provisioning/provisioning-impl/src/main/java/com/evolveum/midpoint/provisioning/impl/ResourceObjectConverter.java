@@ -1249,6 +1249,15 @@ public class ResourceObjectConverter {
 		}
 	}
 
+	public int getEntitlementIndexThreshold() {
+		return entitlementConverter.getEntitlementIndexThreshold();
+	}
+
+	// exists mainly because of testing
+	public void setEntitlementIndexThreshold(int entitlementIndexThreshold) {
+		entitlementConverter.setEntitlementIndexThreshold(entitlementIndexThreshold);
+	}
+
 	public SearchResultMetadata searchResourceObjects(final ProvisioningContext ctx,
 			final ResultHandler<ShadowType> resultHandler, ObjectQuery query, final boolean fetchAssociations,
             final OperationResult parentResult) throws SchemaException,
@@ -1275,6 +1284,9 @@ public class ResourceObjectConverter {
 		}
 
 		ConnectorInstance connector = ctx.getConnector(ReadCapabilityType.class, parentResult);
+
+		// shared by all objects returned by this search
+		EntitlementIndex entitlementIndex = fetchAssociations ? entitlementConverter.createEntitlementIndex() : null;
 		
 		SearchResultMetadata metadata = null;
 		try {
@@ -1288,7 +1300,7 @@ public class ResourceObjectConverter {
 						
 						try {
 							try {
-								shadow = postProcessResourceObjectRead(ctx, shadow, fetchAssociations, objResult);
+								shadow = postProcessResourceObjectRead(ctx, shadow, fetchAssociations, entitlementIndex, objResult);
 							} catch (SchemaException | CommunicationException | ConfigurationException | SecurityViolationException | ObjectNotFoundException | ExpressionEvaluationException e) {
 								if (objResult.isUnknown()) {
 									objResult.recordFatalError(e);
@@ -1878,6 +1890,12 @@ public class ResourceObjectConverter {
 	 */
 	private PrismObject<ShadowType> postProcessResourceObjectRead(ProvisioningContext ctx,
 			PrismObject<ShadowType> resourceObject, boolean fetchAssociations,
+            OperationResult parentResult) throws SchemaException, CommunicationException, ObjectNotFoundException, ConfigurationException, SecurityViolationException, ExpressionEvaluationException {
+		return postProcessResourceObjectRead(ctx, resourceObject, fetchAssociations, null, parentResult);
+	}
+
+	private PrismObject<ShadowType> postProcessResourceObjectRead(ProvisioningContext ctx,
+			PrismObject<ShadowType> resourceObject, boolean fetchAssociations, EntitlementIndex entitlementIndex,
             OperationResult parentResult) throws SchemaException, CommunicationException, ObjectNotFoundException, ConfigurationException, SecurityViolationException, ExpressionEvaluationException {
 		if (resourceObject == null) {
 			return null;
@@ -1894,7 +1912,7 @@ public class ResourceObjectConverter {
 				
 		// Entitlements
         if (fetchAssociations) {
-            entitlementConverter.postProcessEntitlementsRead(ctx, resourceObject, parentResult);
+            entitlementConverter.postProcessEntitlementsRead(ctx, resourceObject, entitlementIndex, parentResult);
         }
 		
 		return resourceObject;
@@ -47,6 +47,7 @@ import com.evolveum.midpoint.schema.internals.InternalsConfig;
 import com.evolveum.midpoint.schema.processor.*;
 import com.evolveum.midpoint.schema.result.AsynchronousOperationResult;
 import com.evolveum.midpoint.schema.result.AsynchronousOperationReturnValue;
+import com.evolveum.midpoint.schema.result.OperationConstants;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.schema.result.OperationResultStatus;
 import com.evolveum.midpoint.schema.util.ObjectQueryUtil;
@@ -87,7 +88,9 @@ import javax.xml.namespace.QName;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Shadow cache is a facade that covers all the operations with shadows. It
@@ -110,6 +113,12 @@ public class ShadowCache {
 	public static String OP_DELAYED_OPERATION = ShadowCache.class.getName() + ".delayedOperation";
 	public static String OP_OPERATION_RETRY = ShadowCache.class.getName() + ".operationRetry";
 	public static String OP_RESOURCE_OPERATION = ShadowCache.class.getName() + ".resourceOperation";
+	public static String OP_LOOKUP_LIVE_SHADOWS = ShadowCache.class.getName() + ".lookupLiveShadows";
+
+	private static final int DEFAULT_SHADOW_LOOKUP_BATCH_SIZE = 50;
+
+	// cached shadows have to be held in memory until all of them are checked, so the search has to be bounded
+	private static final int MAX_CACHED_SEARCH_SIZE = 1000;
 
 	@Autowired
 	@Qualifier("cacheRepositoryService")
@@ -133,6 +142,9 @@ public class ShadowCache {
 
 	private static final Trace LOGGER = TraceManager.getTrace(ShadowCache.class);
 
+	// number of resource objects found by a search whose shadows are looked up in repository at once
+	private int shadowLookupBatchSize = DEFAULT_SHADOW_LOOKUP_BATCH_SIZE;
+
 	/**
 	 * Get the value of repositoryService.
 	 * 
@@ -149,6 +161,15 @@ public class ShadowCache {
 		return prismContext;
 	}
 
+	public int getShadowLookupBatchSize() {
+		return shadowLookupBatchSize;
+	}
+
+	// exists mainly because of testing
+	public void setShadowLookupBatchSize(int shadowLookupBatchSize) {
+		this.shadowLookupBatchSize = shadowLookupBatchSize;
+	}
+
 	public PrismObject<ShadowType> getShadow(String oid, PrismObject<ShadowType> repositoryShadow,
 			Collection<SelectorOptions<GetOperationOptions>> options, Task task, OperationResult parentResult)
 					throws ObjectNotFoundException, CommunicationException, SchemaException,
@@ -433,10 +454,10 @@ public class ShadowCache {
 			// NOTE: this is just for tombstone! Schroedinger's shadows (corpse) will still work as if they were alive.
 			return true;
 		}
-		long stalenessOption = GetOperationOptions.getStaleness(SelectorOptions.findRootOptions(options));
+		long staleness = ProvisioningUtil.getEffectiveStaleness(SelectorOptions.findRootOptions(options), resource);
 		PointInTimeType pit = GetOperationOptions.getPointInTimeType(SelectorOptions.findRootOptions(options));
 		if (pit == null) {
-			if (stalenessOption > 0) {
+			if (staleness > 0) {
 				pit = PointInTimeType.CACHED;
 			} else {
 				pit = PointInTimeType.CURRENT;
@@ -457,28 +478,35 @@ public class ShadowCache {
 	}
 	
 	private boolean isCachedShadowValid(Collection<SelectorOptions<GetOperationOptions>> options, PrismObject<ShadowType> repositoryShadow, ResourceType resource) throws ConfigurationException {
-		long stalenessOption = GetOperationOptions.getStaleness(SelectorOptions.findRootOptions(options));
-		if (stalenessOption == 0L) {
+		long staleness = ProvisioningUtil.getEffectiveStaleness(SelectorOptions.findRootOptions(options), resource);
+		if (staleness == 0L) {
 			return false;
 		}
 		CachingMetadataType cachingMetadata = repositoryShadow.asObjectable().getCachingMetadata();
 		if (cachingMetadata == null) {
-			if (stalenessOption == Long.MAX_VALUE) {
+			if (staleness == Long.MAX_VALUE) {
 				// We must return cached version but there is no cached version.
 				throw new ConfigurationException("Cached version of "+repositoryShadow+" requested, but there is no cached value");
 			}
 			return false;
 		}
-		if (stalenessOption == Long.MAX_VALUE) {
+		if (staleness == Long.MAX_VALUE) {
 			return true;
 		}
+		return isCachedDataFresh(repositoryShadow, staleness, clock.currentTimeMillis());
+	}
 
+	private boolean isCachedDataFresh(PrismObject<ShadowType> repositoryShadow, long staleness, long now) {
+		CachingMetadataType cachingMetadata = repositoryShadow.asObjectable().getCachingMetadata();
+		if (cachingMetadata == null) {
+			return false;
+		}
 		XMLGregorianCalendar retrievalTimestamp = cachingMetadata.getRetrievalTimestamp();
 		if (retrievalTimestamp == null) {
 			return false;
 		}
 		long retrievalTimestampMillis = XmlTypeConverter.toMillis(retrievalTimestamp);
-		return (clock.currentTimeMillis() - retrievalTimestampMillis < stalenessOption);
+		return (now - retrievalTimestampMillis < staleness);
 	}
 
 	private boolean isCompensate(GetOperationOptions rootOptions) {
@@ -1841,6 +1869,16 @@ public class ShadowCache {
 		if (ProvisioningUtil.shouldDoRepoSearch(rootOptions)) {
 			return searchObjectsIterativeRepository(ctx, query, options, handler, parentResult);
 		}
+		// Staleness alone does not allow a search to use cached data (MID-3481): we cannot tell whether the cache
+		// knows all the objects. The caller has to ask for cached point in time explicitly.
+		long staleness = GetOperationOptions.getStaleness(rootOptions);
+		if (staleness > 0 && GetOperationOptions.getPointInTimeType(rootOptions) == PointInTimeType.CACHED
+				&& ProvisioningUtil.getCachingStrategy(ctx) == CachingStategyType.PASSIVE) {
+			SearchResultMetadata cachedMetadata = searchObjectsIterativeCached(ctx, query, options, handler, staleness, parentResult);
+			if (cachedMetadata != null) {
+				return cachedMetadata;
+			}
+		}
 		boolean isDoDiscovery = ProvisioningUtil.isDoDiscovery(ctx.getResource(), rootOptions);
 
 		// We need to record the fetch down here. Now it is certain that we are
@@ -1850,111 +1888,256 @@ public class ShadowCache {
 
 		ObjectQuery attributeQuery = createAttributeQuery(query);
 
-		ResultHandler<ShadowType> resultHandler = (PrismObject<ShadowType> resourceShadow, OperationResult objResult) -> {
-				if (LOGGER.isTraceEnabled()) {
-					LOGGER.trace("Found resource object\n{}", resourceShadow.debugDump(1));
+		boolean fetchAssociations = SelectorOptions.hasToLoadPath(ShadowType.F_ASSOCIATION, options);
+
+		if (!readFromRepository || shadowLookupBatchSize <= 1) {
+			ResultHandler<ShadowType> resultHandler = (PrismObject<ShadowType> resourceShadow, OperationResult objResult) ->
+					processFoundResourceObject(ctx, resourceShadow, null, null, handler, readFromRepository,
+							isDoDiscovery, objResult, parentResult);
+			return resouceObjectConverter.searchResourceObjects(ctx, resultHandler, attributeQuery,
+					fetchAssociations, parentResult);
+		}
+
+		// Repository shadows are looked up for a batch of resource objects at once. The objects are passed
+		// to the handler (in the original order) when the batch is full or when the search is over.
+		FoundObjectsBatch batch = new FoundObjectsBatch(ctx, handler, isDoDiscovery, parentResult);
+		SearchResultMetadata metadata;
+		try {
+			metadata = resouceObjectConverter.searchResourceObjects(ctx, batch::add, attributeQuery,
+					fetchAssociations, parentResult);
+		} catch (Throwable t) {
+			// Objects found before the failure are processed, as they would be without the batching.
+			try {
+				batch.flush();
+			} catch (Throwable t2) {
+				t.addSuppressed(t2);
+			}
+			throw t;
+		}
+		batch.flush();
+		return metadata;
+	}
+
+	/**
+	 * Processes resource object found by a search: finds or creates its repository shadow, updates the shadow,
+	 * completes the object and passes it to the handler.
+	 *
+	 * @param shadowCtxIfKnown context with definitions reapplied, if already computed
+	 * @param repoShadowIfKnown live repository shadow, if already looked up
+	 */
+	private boolean processFoundResourceObject(ProvisioningContext ctx, PrismObject<ShadowType> resourceShadow,
+			ProvisioningContext shadowCtxIfKnown, PrismObject<ShadowType> repoShadowIfKnown, ResultHandler<ShadowType> handler,
+			boolean readFromRepository, boolean isDoDiscovery, OperationResult objResult, OperationResult parentResult) {
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Found resource object\n{}", resourceShadow.debugDump(1));
+		}
+		PrismObject<ShadowType> resultShadow;
+		try {
+			// The shadow does not have any kind or intent at this
+			// point.
+			// But at least locate the definition using object classes.
+			ProvisioningContext estimatedShadowCtx = shadowCtxIfKnown != null ?
+					shadowCtxIfKnown : shadowCaretaker.reapplyDefinitions(ctx, resourceShadow);
+			// Try to find shadow that corresponds to the resource
+			// object.
+			if (readFromRepository) {
+				PrismObject<ShadowType> repoShadow;
+				if (repoShadowIfKnown != null) {
+					repoShadow = repoShadowIfKnown;
+				} else {
+					repoShadow = lookupOrCreateLiveShadowInRepository(
+							estimatedShadowCtx, resourceShadow, true, isDoDiscovery, parentResult);
 				}
-			PrismObject<ShadowType> resultShadow;
-				try {
-					// The shadow does not have any kind or intent at this
-					// point.
-					// But at least locate the definition using object classes.
-					ProvisioningContext estimatedShadowCtx = shadowCaretaker.reapplyDefinitions(ctx, resourceShadow);
-					// Try to find shadow that corresponds to the resource
-					// object.
-					if (readFromRepository) {
-						PrismObject<ShadowType> repoShadow = lookupOrCreateLiveShadowInRepository(
-								estimatedShadowCtx, resourceShadow, true, isDoDiscovery, parentResult);
-
-						// This determines the definitions exactly. How the repo
-						// shadow should have proper kind/intent
-						ProvisioningContext shadowCtx = shadowCaretaker.applyAttributesDefinition(ctx, repoShadow);
-						// TODO: shadowState
-						repoShadow = shadowManager.updateShadow(shadowCtx, resourceShadow, repoShadow,
-								null, parentResult);
-						
-						resultShadow = completeShadow(shadowCtx, resourceShadow, repoShadow, isDoDiscovery, objResult);
-						
-						//check and fix kind/intent
-						ShadowType repoShadowType = repoShadow.asObjectable();
-						if (repoShadowType.getKind() == null || repoShadowType.getIntent() == null) { //TODO: check also empty?
-							fixKindIntentForShadow(repoShadow, ctx.getResource().asPrismObject(), false);
-						}
-						
-					} else {
-						resultShadow = resourceShadow;
-					}
 
-					validateShadow(resultShadow, readFromRepository);
-					
-				} catch (SchemaException e) {
-					objResult.recordFatalError("Schema error: " + e.getMessage(), e);
-					LOGGER.error("Schema error: {}", e.getMessage(), e);
-					return false;
-				} catch (ConfigurationException e) {
-					objResult.recordFatalError("Configuration error: " + e.getMessage(), e);
-					LOGGER.error("Configuration error: {}", e.getMessage(), e);
-					return false;
-				} catch (ObjectNotFoundException | ObjectAlreadyExistsException | CommunicationException
-						| SecurityViolationException | GenericConnectorException | ExpressionEvaluationException | EncryptionException e) {
-					objResult.recordFatalError(e.getMessage(), e);
-					LOGGER.error("{}", e.getMessage(), e);
-					return false;
+				// This determines the definitions exactly. How the repo
+				// shadow should have proper kind/intent
+				ProvisioningContext shadowCtx = shadowCaretaker.applyAttributesDefinition(ctx, repoShadow);
+				// TODO: shadowState
+				repoShadow = shadowManager.updateShadow(shadowCtx, resourceShadow, repoShadow,
+						null, parentResult);
+				
+				resultShadow = completeShadow(shadowCtx, resourceShadow, repoShadow, isDoDiscovery, objResult);
+				
+				//check and fix kind/intent
+				ShadowType repoShadowType = repoShadow.asObjectable();
+				if (repoShadowType.getKind() == null || repoShadowType.getIntent() == null) { //TODO: check also empty?
+					fixKindIntentForShadow(repoShadow, ctx.getResource().asPrismObject(), false);
 				}
+				
+			} else {
+				resultShadow = resourceShadow;
+			}
+
+			validateShadow(resultShadow, readFromRepository);
+			
+		} catch (SchemaException e) {
+			objResult.recordFatalError("Schema error: " + e.getMessage(), e);
+			LOGGER.error("Schema error: {}", e.getMessage(), e);
+			return false;
+		} catch (ConfigurationException e) {
+			objResult.recordFatalError("Configuration error: " + e.getMessage(), e);
+			LOGGER.error("Configuration error: {}", e.getMessage(), e);
+			return false;
+		} catch (ObjectNotFoundException | ObjectAlreadyExistsException | CommunicationException
+				| SecurityViolationException | GenericConnectorException | ExpressionEvaluationException | EncryptionException e) {
+			objResult.recordFatalError(e.getMessage(), e);
+			LOGGER.error("{}", e.getMessage(), e);
+			return false;
+		}
 
-				boolean doContinue;
+		boolean doContinue;
+		try {
+
+			doContinue = handler.handle(resultShadow, objResult);
+
+			objResult.computeStatus();
+			objResult.recordSuccessIfUnknown();
+
+			if (!objResult.isSuccess() && !objResult.isHandledError()) {
+				Collection<? extends ItemDelta> shadowModificationType = PropertyDelta
+						.createModificationReplacePropertyCollection(ShadowType.F_RESULT,
+								getResourceObjectShadowDefinition(), objResult.createOperationResultType());
 				try {
-					
-					doContinue =  handler.handle(resultShadow, objResult);
-					
-					objResult.computeStatus();
-					objResult.recordSuccessIfUnknown();
+					ConstraintsChecker.onShadowModifyOperation(shadowModificationType);
+					repositoryService.modifyObject(ShadowType.class, resultShadow.getOid(),
+							shadowModificationType, objResult);
+				} catch (ObjectNotFoundException ex) {
+					objResult.recordFatalError("Saving of result to " + resultShadow
+							+ " shadow failed: Not found: " + ex.getMessage(), ex);
+				} catch (ObjectAlreadyExistsException ex) {
+					objResult.recordFatalError("Saving of result to " + resultShadow
+							+ " shadow failed: Already exists: " + ex.getMessage(), ex);
+				} catch (SchemaException ex) {
+					objResult.recordFatalError("Saving of result to " + resultShadow
+							+ " shadow failed: Schema error: " + ex.getMessage(), ex);
+				} catch (RuntimeException e) {
+					objResult.recordFatalError("Saving of result to " + resultShadow
+							+ " shadow failed: " + e.getMessage(), e);
+					throw e;
+				}
+			}
+		} catch (RuntimeException | Error e) {
+			objResult.recordFatalError(e);
+			throw e;
+		} finally {
+			objResult.computeStatus();
+			objResult.recordSuccessIfUnknown();
+			// FIXME: hack. Hardcoded ugly summarization of successes. something like
+			// AbstractSummarizingResultHandler [lazyman]
+			if (objResult.isSuccess()) {
+				objResult.getSubresults().clear();
+			}
+			parentResult.summarize();
+		}
 
-                    if (!objResult.isSuccess() && !objResult.isHandledError()) {
-                        Collection<? extends ItemDelta> shadowModificationType = PropertyDelta
-                                .createModificationReplacePropertyCollection(ShadowType.F_RESULT,
-                                        getResourceObjectShadowDefinition(), objResult.createOperationResultType());
-                        try {
-							ConstraintsChecker.onShadowModifyOperation(shadowModificationType);
-							repositoryService.modifyObject(ShadowType.class, resultShadow.getOid(),
-                                    shadowModificationType, objResult);
-                        } catch (ObjectNotFoundException ex) {
-                        	objResult.recordFatalError("Saving of result to " + resultShadow
-                                    + " shadow failed: Not found: " + ex.getMessage(), ex);
-                        } catch (ObjectAlreadyExistsException ex) {
-                        	objResult.recordFatalError("Saving of result to " + resultShadow
-                                    + " shadow failed: Already exists: " + ex.getMessage(), ex);
-                        } catch (SchemaException ex) {
-                        	objResult.recordFatalError("Saving of result to " + resultShadow
-                                    + " shadow failed: Schema error: " + ex.getMessage(), ex);
-                        } catch (RuntimeException e) {
-                        	objResult.recordFatalError("Saving of result to " + resultShadow
-                                    + " shadow failed: " + e.getMessage(), e);
-                        	throw e;
-                        }
-                    }
-                } catch (RuntimeException | Error e) {
-                	objResult.recordFatalError(e);
-                	throw e;
-                } finally {
-                	objResult.computeStatus();
-                	objResult.recordSuccessIfUnknown();
-                    // FIXME: hack. Hardcoded ugly summarization of successes. something like
-                    // AbstractSummarizingResultHandler [lazyman]
-                    if (objResult.isSuccess()) {
-                    	objResult.getSubresults().clear();
-                    }
-                    parentResult.summarize();
-                }
-
-				return doContinue;
-			};
+		return doContinue;
+	}
 
-		boolean fetchAssociations = SelectorOptions.hasToLoadPath(ShadowType.F_ASSOCIATION, options);
+	/**
+	 * Resource objects found by a search that wait for the lookup of their repository shadows.
+	 * The shadows for the whole batch are looked up by a single repository search instead of one search per object.
+	 * Shadows that are not found in this way (e.g. new objects) are looked up (or created) individually.
+	 */
+	private class FoundObjectsBatch {
+
+		private final ProvisioningContext ctx;
+		private final ResultHandler<ShadowType> handler;
+		private final boolean isDoDiscovery;
+		private final OperationResult parentResult;
+
+		private final List<FoundObject> objects = new ArrayList<>();
+		private boolean stopped;
+
+		private FoundObjectsBatch(ProvisioningContext ctx, ResultHandler<ShadowType> handler, boolean isDoDiscovery,
+				OperationResult parentResult) {
+			this.ctx = ctx;
+			this.handler = handler;
+			this.isDoDiscovery = isDoDiscovery;
+			this.parentResult = parentResult;
+		}
 
-		return resouceObjectConverter.searchResourceObjects(ctx, resultHandler, attributeQuery,
-				fetchAssociations, parentResult);
+		private boolean add(PrismObject<ShadowType> resourceShadow, OperationResult objResult) {
+			if (stopped) {
+				return false;
+			}
+			// The object is processed later, under its own result. The result of the search callback would be
+			// summarized (or even stripped) in the meantime.
+			objResult.recordSuccessIfUnknown();
+			objects.add(new FoundObject(resourceShadow));
+			return objects.size() < shadowLookupBatchSize || flush();
+		}
+
+		private boolean flush() {
+			if (stopped || objects.isEmpty()) {
+				objects.clear();
+				return !stopped;
+			}
+			List<FoundObject> toProcess = new ArrayList<>(objects);
+			objects.clear();
+			lookupLiveShadows(toProcess);
+			for (FoundObject object : toProcess) {
+				OperationResult objResult = parentResult.createMinorSubresult(OperationConstants.OPERATION_SEARCH_RESULT);
+				if (!processFoundResourceObject(ctx, object.resourceShadow, object.shadowCtx, object.repoShadow, handler,
+						true, isDoDiscovery, objResult, parentResult)) {
+					stopped = true;
+					return false;
+				}
+			}
+			return true;
+		}
 
+		private void lookupLiveShadows(List<FoundObject> toProcess) {
+			Map<QName, List<FoundObject>> objectsByObjectClass = new LinkedHashMap<>();
+			for (FoundObject object : toProcess) {
+				QName objectClass = object.resourceShadow.asObjectable().getObjectClass();
+				if (objectClass == null) {
+					continue;
+				}
+				try {
+					object.shadowCtx = shadowCaretaker.reapplyDefinitions(ctx, object.resourceShadow);
+				} catch (SchemaException | ConfigurationException | ObjectNotFoundException | CommunicationException
+						| ExpressionEvaluationException | RuntimeException e) {
+					// The problem will be reported when the object is processed.
+					continue;
+				}
+				objectsByObjectClass.computeIfAbsent(objectClass, k -> new ArrayList<>()).add(object);
+			}
+			if (objectsByObjectClass.isEmpty()) {
+				return;
+			}
+			OperationResult result = parentResult.createMinorSubresult(OP_LOOKUP_LIVE_SHADOWS);
+			try {
+				for (List<FoundObject> group : objectsByObjectClass.values()) {
+					List<PrismObject<ShadowType>> resourceShadows = new ArrayList<>(group.size());
+					for (FoundObject object : group) {
+						resourceShadows.add(object.resourceShadow);
+					}
+					List<PrismObject<ShadowType>> repoShadows = shadowManager.lookupLiveShadowsInRepository(
+							group.get(0).shadowCtx, resourceShadows, result);
+					for (int i = 0; i < group.size(); i++) {
+						group.get(i).repoShadow = repoShadows.get(i);
+					}
+				}
+				result.computeStatus();
+			} catch (SchemaException | ConfigurationException | ObjectNotFoundException | CommunicationException
+					| ExpressionEvaluationException | RuntimeException e) {
+				// Not fatal. Shadows that were not found here are looked up one by one, and the problem
+				// (if it persists) is reported for the particular object.
+				LOGGER.debug("Lookup of shadows for {} resource objects failed, looking them up individually: {}",
+						toProcess.size(), e.getMessage(), e);
+				result.recordHandledError(e);
+			}
+		}
+	}
+
+	private static class FoundObject {
+		private final PrismObject<ShadowType> resourceShadow;
+		private ProvisioningContext shadowCtx;
+		private PrismObject<ShadowType> repoShadow;
+
+		private FoundObject(PrismObject<ShadowType> resourceShadow) {
+			this.resourceShadow = resourceShadow;
+		}
 	}
 
 	ObjectQuery createAttributeQuery(ObjectQuery query) throws SchemaException {
@@ -2053,6 +2236,74 @@ public class ShadowCache {
 		return attributeFilter;
 	}
 
+	/**
+	 * Serves the search from the repository if the cached data of all the shadows found are within the staleness bound.
+	 * Returns null if that is not the case, i.e. if the search has to go to the resource. The resource is searched also
+	 * if the repository view is known to be incomplete or different from the resource: partial repository results,
+	 * no shadows found, dead shadows or shadows with pending add operation.
+	 *
+	 * Note that objects that are not yet known to the repository (e.g. recently created on the resource) cannot be found
+	 * in this way. This is the price for the staleness, therefore searches use it only if it is explicitly requested
+	 * (cached point in time together with bounded staleness).
+	 *
+	 * The shadows cannot be passed to the handler before all of them are known to be fresh (otherwise we could not
+	 * fall back to the resource), so they are held in memory. Therefore only searches with paging maxSize of at most
+	 * MAX_CACHED_SEARCH_SIZE are served in this way.
+	 */
+	private SearchResultMetadata searchObjectsIterativeCached(ProvisioningContext ctx, ObjectQuery query,
+			Collection<SelectorOptions<GetOperationOptions>> options, ResultHandler<ShadowType> handler, long staleness,
+			OperationResult parentResult)
+					throws SchemaException, ConfigurationException, ObjectNotFoundException,
+					CommunicationException, ExpressionEvaluationException {
+
+		Integer maxSize = query != null && query.getPaging() != null ? query.getPaging().getMaxSize() : null;
+		if (maxSize == null || maxSize > MAX_CACHED_SEARCH_SIZE) {
+			LOGGER.trace("Search is not bounded by maxSize of at most {} (maxSize: {}), going to the resource",
+					MAX_CACHED_SEARCH_SIZE, maxSize);
+			return null;
+		}
+
+		long now = clock.currentTimeMillis();
+		List<PrismObject<ShadowType>> cachedShadows = new ArrayList<>(maxSize);
+		Holder<Boolean> allFresh = new Holder<>(true);
+		SearchResultMetadata metadata = searchObjectsIterativeRepository(ctx, query, options,
+				(shadow, objResult) -> {
+					if (!isCachedDataFresh(shadow, staleness, now) || ShadowUtil.isDead(shadow.asObjectable())
+							|| ProvisioningUtil.hasPendingAddOperation(shadow)) {
+						allFresh.setValue(false);
+						return false;
+					}
+					cachedShadows.add(shadow);
+					return true;
+				}, parentResult);
+		boolean partial = metadata != null && metadata.isPartialResults();
+		if (!allFresh.getValue() || cachedShadows.isEmpty() || partial) {
+			LOGGER.trace("Cached data are not usable for the search (all fresh: {}, cached shadows: {}, partial: {}), going to the resource",
+					allFresh.getValue(), cachedShadows.size(), partial);
+			return null;
+		}
+
+		LOGGER.trace("Returning {} cached (repository) shadows", cachedShadows.size());
+		for (PrismObject<ShadowType> shadow : cachedShadows) {
+			OperationResult objResult = parentResult.createMinorSubresult(OperationConstants.OPERATION_SEARCH_RESULT);
+			boolean doContinue;
+			try {
+				doContinue = handler.handle(shadow, objResult);
+			} catch (RuntimeException | Error e) {
+				objResult.recordFatalError(e);
+				throw e;
+			} finally {
+				objResult.computeStatus();
+				objResult.recordSuccessIfUnknown();
+				parentResult.summarize();
+			}
+			if (!doContinue) {
+				break;
+			}
+		}
+		return metadata;
+	}
+
 	private SearchResultMetadata searchObjectsIterativeRepository(final ProvisioningContext ctx,
 			ObjectQuery query, Collection<SelectorOptions<GetOperationOptions>> options,
 			final ResultHandler<ShadowType> shadowHandler, OperationResult parentResult)
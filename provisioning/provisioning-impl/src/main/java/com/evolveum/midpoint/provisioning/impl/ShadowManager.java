@@ -19,7 +19,10 @@ package com.evolveum.midpoint.provisioning.impl;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
@@ -198,6 +201,92 @@ public class ShadowManager {
 		if (liveShadow == null) {
 			return null;
 		}
+		return checkLiveShadow(resourceShadow, liveShadow, parentResult);
+	}
+
+	/**
+	 * Locates shadows that correspond to a batch of resource objects using a single repository search.
+	 * All the resource objects should belong to the object class of the provided context.
+	 *
+	 * @return list of live shadows, in the same order as the resource objects. Null item means that the shadow
+	 *         was not determined by this search: it does not exist, the resource object has no usable primary identifier,
+	 *         or the situation is not clear (e.g. more live shadows). Such objects have to be looked up by
+	 *         lookupLiveShadowInRepository, which also properly reports any problems.
+	 */
+	public List<PrismObject<ShadowType>> lookupLiveShadowsInRepository(ProvisioningContext ctx,
+			List<PrismObject<ShadowType>> resourceShadows, OperationResult parentResult)
+					throws SchemaException, ConfigurationException, ObjectNotFoundException, CommunicationException, ExpressionEvaluationException {
+
+		List<PrismObject<ShadowType>> liveShadows = new ArrayList<>(Collections.nCopies(resourceShadows.size(), null));
+		List<Object> identifierValues = new ArrayList<>(resourceShadows.size());
+		QName identifierName = null;
+		QName objectClassName = null;
+		S_FilterEntry q = QueryBuilder.queryFor(ShadowType.class, prismContext)
+				.block();
+		for (PrismObject<ShadowType> resourceShadow : resourceShadows) {
+			Object identifierValue = null;
+			ResourceAttributeContainer attributesContainer = ShadowUtil.getAttributesContainer(resourceShadow);
+			PrismProperty<?> identifier = attributesContainer != null ? attributesContainer.getPrimaryIdentifier() : null;
+			QName objectClass = resourceShadow.getPropertyRealValue(ShadowType.F_OBJECT_CLASS, QName.class);
+			if (identifier != null && identifier.size() == 1 && objectClass != null
+					&& (identifierName == null || identifierName.equals(identifier.getElementName()))
+					&& (objectClassName == null || objectClassName.equals(objectClass))) {
+				List<? extends PrismPropertyValue<?>> normalizedValues = getNormalizedValue(identifier, ctx.getObjectClassDefinition());
+				identifierValue = normalizedValues.get(0).getValue();
+				PrismPropertyDefinition def = identifier.getDefinition();
+				q = q.itemWithDef(def, ShadowType.F_ATTRIBUTES, def.getName()).eq(normalizedValues)
+						.or();
+				identifierName = identifier.getElementName();
+				objectClassName = objectClass;
+			}
+			identifierValues.add(identifierValue);
+		}
+		if (identifierName == null) {
+			return liveShadows;
+		}
+		ObjectQuery query = q.none().endBlock()
+				.and().item(ShadowType.F_OBJECT_CLASS).eq(objectClassName)
+				.and().item(ShadowType.F_RESOURCE_REF).ref(ctx.getResourceOid())
+				.build();
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Searching for shadows of {} resource objects using filter:\n{}", resourceShadows.size(), query.debugDump());
+		}
+
+		List<PrismObject<ShadowType>> foundShadows = repositoryService.searchObjects(ShadowType.class, query, null, parentResult);
+		MiscSchemaUtil.reduceSearchResult(foundShadows);
+
+		LOGGER.trace("lookupShadows found {} objects for {} resource objects", foundShadows.size(), resourceShadows.size());
+
+		Map<Object, List<PrismObject<ShadowType>>> shadowsByIdentifier = new HashMap<>();
+		for (PrismObject<ShadowType> foundShadow : foundShadows) {
+			PrismProperty<Object> foundIdentifier = foundShadow.findProperty(new ItemPath(ShadowType.F_ATTRIBUTES, identifierName));
+			if (foundIdentifier != null && foundIdentifier.size() == 1) {
+				shadowsByIdentifier.computeIfAbsent(foundIdentifier.getRealValue(), k -> new ArrayList<>()).add(foundShadow);
+			}
+		}
+
+		for (int i = 0; i < resourceShadows.size(); i++) {
+			List<PrismObject<ShadowType>> candidates = shadowsByIdentifier.get(identifierValues.get(i));
+			if (candidates == null) {
+				continue;
+			}
+			PrismObject<ShadowType> liveShadow = null;
+			int liveShadowsCount = 0;
+			for (PrismObject<ShadowType> candidate : candidates) {
+				if (!ShadowUtil.isDead(candidate.asObjectable())) {
+					liveShadow = candidate;
+					liveShadowsCount++;
+				}
+			}
+			if (liveShadowsCount == 1) {
+				liveShadows.set(i, checkLiveShadow(resourceShadows.get(i), liveShadow, parentResult));
+			}
+		}
+		return liveShadows;
+	}
+
+	private PrismObject<ShadowType> checkLiveShadow(PrismObject<ShadowType> resourceShadow, PrismObject<ShadowType> liveShadow,
+			OperationResult parentResult) throws SchemaException {
 		ShadowType repoShadowType = liveShadow.asObjectable();
 		if (ShadowUtil.isDead(repoShadowType)) {
 			// Note: never reset dead shadow flag. Once the shadow's dead, it stays dead.
@@ -20,6 +20,7 @@ import static java.util.Collections.emptyList;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -563,6 +564,22 @@ public class ProvisioningUtil {
 		return caching.getCachingStategy();
 	}
 
+	/**
+	 * Returns the staleness (in milliseconds) that is acceptable when reading a resource object.
+	 * Staleness specified in the options takes precedence. Otherwise the maximum staleness from the caching policy
+	 * of the resource is used (only for passive caching). Zero means that cached data cannot be used.
+	 */
+	public static long getEffectiveStaleness(GetOperationOptions rootOptions, ResourceType resource) {
+		if (rootOptions != null && rootOptions.getStaleness() != null) {
+			return rootOptions.getStaleness();
+		}
+		CachingPolicyType caching = resource.getCaching();
+		if (caching == null || caching.getCachingStategy() != CachingStategyType.PASSIVE || caching.getMaxStaleness() == null) {
+			return 0L;
+		}
+		return Math.max(caching.getMaxStaleness().getTimeInMillis(new Date()), 0L);
+	}
+
 	public static boolean shouldDoRepoSearch(GetOperationOptions rootOptions) {
 		return GetOperationOptions.isNoFetch(rootOptions) || GetOperationOptions.isMaxStaleness(rootOptions);
 	}
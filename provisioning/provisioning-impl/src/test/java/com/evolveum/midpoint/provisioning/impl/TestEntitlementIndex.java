@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.provisioning.impl;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.test.util.TestUtil;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
+
+/**
+ * Unit tests for the entitlement index. No Spring context is needed here.
+ */
+public class TestEntitlementIndex {
+
+	@BeforeSuite
+	public void setup() throws SchemaException, SAXException, IOException {
+		PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+	}
+
+	/**
+	 * Values that normalize to the same key are in the same bucket, but only those accepted by the matcher
+	 * (i.e. by the matching rule) are returned.
+	 */
+	@Test
+	public void test100LookupUsesMatcherInBucket() throws Exception {
+		TestUtil.displayTestTitle("test100LookupUsesMatcherInBucket");
+		PrismObject<ShadowType> upper = createShadow("upper");
+		PrismObject<ShadowType> lower = createShadow("lower");
+		Map<Object, List<EntitlementIndex.Entry>> index = new HashMap<>();
+		EntitlementIndex.addToIndex(index, "cn=pirates", "CN=Pirates", upper);
+		EntitlementIndex.addToIndex(index, "cn=pirates", "cn=pirates", lower);
+
+		List<PrismObject<ShadowType>> found = EntitlementIndex.lookup(index, "cn=pirates", "cn=pirates"::equals);
+
+		assertEquals("Wrong # of entitlements found", 1, found.size());
+		assertSame("Wrong entitlement found", lower, found.get(0));
+		assertTrue("Entitlement found for missing key", EntitlementIndex.lookup(index, "cn=sailors", v -> true).isEmpty());
+	}
+
+	/**
+	 * Entitlement with more matching values is returned only once.
+	 */
+	@Test
+	public void test110LookupReturnsEntitlementOnce() throws Exception {
+		TestUtil.displayTestTitle("test110LookupReturnsEntitlementOnce");
+		PrismObject<ShadowType> group = createShadow("group");
+		Map<Object, List<EntitlementIndex.Entry>> index = new HashMap<>();
+		EntitlementIndex.addToIndex(index, "cn=pirates", "CN=Pirates", group);
+		EntitlementIndex.addToIndex(index, "cn=pirates", "cn=pirates", group);
+
+		List<PrismObject<ShadowType>> found = EntitlementIndex.lookup(index, "cn=pirates",
+				v -> ((String) v).equalsIgnoreCase("cn=pirates"));
+
+		assertEquals("Wrong # of entitlements found", 1, found.size());
+		assertSame("Wrong entitlement found", group, found.get(0));
+	}
+
+	private PrismObject<ShadowType> createShadow(String name) throws SchemaException {
+		PrismObject<ShadowType> shadow = PrismTestUtil.getPrismContext().createObject(ShadowType.class);
+		shadow.asObjectable().setName(PrismTestUtil.createPolyStringType(name));
+		return shadow;
+	}
+}
@@ -39,6 +39,7 @@ import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
 
 import org.apache.commons.lang.ArrayUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.testng.AssertJUnit;
@@ -76,6 +77,8 @@ import com.evolveum.midpoint.provisioning.api.ItemComparisonResult;
 import com.evolveum.midpoint.provisioning.api.ProvisioningOperationOptions;
 import com.evolveum.midpoint.provisioning.api.ResourceObjectShadowChangeDescription;
 import com.evolveum.midpoint.provisioning.impl.ProvisioningTestUtil;
+import com.evolveum.midpoint.provisioning.impl.ResourceObjectConverter;
+import com.evolveum.midpoint.provisioning.impl.ShadowCache;
 import com.evolveum.midpoint.schema.GetOperationOptions;
 import com.evolveum.midpoint.schema.ResourceShadowDiscriminator;
 import com.evolveum.midpoint.schema.ResultHandler;
@@ -144,6 +147,9 @@ public class TestDummy extends AbstractBasicDummyTest {
 	protected static final long VALID_FROM_MILLIS = 12322342345435L;
 	protected static final long VALID_TO_MILLIS = 3454564324423L;
 
+	@Autowired private ResourceObjectConverter resourceObjectConverter;
+	@Autowired private ShadowCache shadowCache;
+
 	private static final String GROUP_CORSAIRS_NAME = "corsairs";
 
 	private static final Trace LOGGER = TraceManager.getTrace(TestDummy.class);
@@ -3185,6 +3191,110 @@ public class TestDummy extends AbstractBasicDummyTest {
 		assertSteadyResource();
     }
 
+	/**
+	 * Searches all the accounts, resolving group associations by the entitlement index
+	 * instead of per-account group searches.
+	 */
+	@Test
+	public void test227SearchAccountsEntitlementIndex() throws Exception {
+		final String TEST_NAME = "test227SearchAccountsEntitlementIndex";
+		displayTestTitle(TEST_NAME);
+
+		Task task = createTask(TEST_NAME);
+		OperationResult result = task.getResult();
+
+		ObjectQuery query = ObjectQueryUtil.createResourceAndObjectClassQuery(RESOURCE_DUMMY_OID,
+				ProvisioningTestUtil.getDefaultAccountObjectClass(resourceType), prismContext);
+
+		int originalThreshold = resourceObjectConverter.getEntitlementIndexThreshold();
+		resourceObjectConverter.setEntitlementIndexThreshold(0);
+		syncServiceMock.reset();
+
+		// WHEN
+		displayWhen(TEST_NAME);
+		SearchResultList<PrismObject<ShadowType>> resultList;
+		try {
+			resultList = provisioningService.searchObjects(ShadowType.class, query, null, task, result);
+		} finally {
+			resourceObjectConverter.setEntitlementIndexThreshold(originalThreshold);
+		}
+
+		// THEN
+		displayThen(TEST_NAME);
+		result.computeStatus();
+		display(result);
+		TestUtil.assertSuccess(result);
+
+		PrismObject<ShadowType> willShadow = null;
+		for (PrismObject<ShadowType> shadow : resultList) {
+			if (ACCOUNT_WILL_OID.equals(shadow.getOid())) {
+				willShadow = shadow;
+			}
+		}
+		assertNotNull("Account will was not found", willShadow);
+		display("Will", willShadow);
+
+		PrismObject<ShadowType> foolsShadow = findShadowByName(new QName(RESOURCE_DUMMY_NS, OBJECTCLAS_GROUP_LOCAL_NAME), "fools", resource, result);
+		assertNotNull("No shadow for group fools", foolsShadow);
+
+		assertEntitlementGroup(willShadow, GROUP_PIRATES_OID);
+		assertEntitlementGroup(willShadow, foolsShadow.getOid());
+		assertEntitlementPriv(willShadow, PRIVILEGE_PILLAGE_OID);
+		assertEntitlementPriv(willShadow, PRIVILEGE_BARGAIN_OID);
+
+		assertSteadyResource();
+	}
+
+	/**
+	 * Shadows of the accounts found are looked up in batches. The result should be the same as when
+	 * they are looked up one by one, and no new shadows should be created.
+	 */
+	@Test
+	public void test228SearchAccountsBatchedShadowLookup() throws Exception {
+		final String TEST_NAME = "test228SearchAccountsBatchedShadowLookup";
+		displayTestTitle(TEST_NAME);
+
+		Task task = createTask(TEST_NAME);
+		OperationResult result = task.getResult();
+
+		ObjectQuery query = ObjectQueryUtil.createResourceAndObjectClassQuery(RESOURCE_DUMMY_OID,
+				ProvisioningTestUtil.getDefaultAccountObjectClass(resourceType), prismContext);
+
+		int originalBatchSize = shadowCache.getShadowLookupBatchSize();
+		List<String> individualOids = new ArrayList<>();
+		List<String> batchedOids = new ArrayList<>();
+		int shadowsBefore;
+		try {
+			shadowCache.setShadowLookupBatchSize(1);
+			provisioningService.searchObjectsIterative(ShadowType.class, query, null,
+					(shadow, objResult) -> individualOids.add(shadow.getOid()), task, result);
+			shadowsBefore = repositoryService.countObjects(ShadowType.class, null, null, result);
+			shadowCache.setShadowLookupBatchSize(2);
+			syncServiceMock.reset();
+
+			// WHEN
+			displayWhen(TEST_NAME);
+			provisioningService.searchObjectsIterative(ShadowType.class, query, null,
+					(shadow, objResult) -> batchedOids.add(shadow.getOid()), task, result);
+		} finally {
+			shadowCache.setShadowLookupBatchSize(originalBatchSize);
+		}
+
+		// THEN
+		displayThen(TEST_NAME);
+		result.computeStatus();
+		display(result);
+		TestUtil.assertSuccess(result);
+
+		display("Shadows found", batchedOids);
+		assertTrue("Not enough accounts found: " + individualOids, individualOids.size() > 2);
+		assertEquals("Wrong shadows found with batched lookup", individualOids, batchedOids);
+		assertEquals("Unexpected shadows created", shadowsBefore,
+				repositoryService.countObjects(ShadowType.class, null, null, result));
+
+		assertSteadyResource();
+	}
+
 	@Test
 	public void test230DetitleAccountWillPirates() throws Exception {
 		final String TEST_NAME = "test230DetitleAccountWillPirates";
@@ -34,6 +34,7 @@ import com.evolveum.icf.dummy.resource.DummyAccount;
 import com.evolveum.midpoint.prism.Item;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.crypto.EncryptionException;
+import com.evolveum.midpoint.prism.query.ObjectPaging;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.provisioning.api.ItemComparisonResult;
 import com.evolveum.midpoint.provisioning.impl.ProvisioningTestUtil;
@@ -57,6 +58,7 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.CredentialsStorageTy
 import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationResultStatusType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationResultType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.PasswordType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.PointInTimeType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowKindType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
 import com.evolveum.prism.xml.ns._public.types_3.ProtectedStringType;
@@ -288,6 +290,78 @@ public class TestDummyCaching extends TestDummy {
 		assertSteadyResource();
 	}
 
+	/**
+	 * Search for all accounts with cached point in time and (high) bounded staleness option.
+	 * All the cached data are fresh enough, therefore the search is served from the repository.
+	 * With very low staleness the cached data are too old and the resource is searched.
+	 * (Staleness alone does not make the search use the cache, see test118.)
+	 * Searches that are not bounded by paging maxSize go to the resource as well.
+	 */
+	@Test
+	public void test119BSearchAllAccountsHighStaleness() throws Exception {
+		final String TEST_NAME = "test119BSearchAllAccountsHighStaleness";
+		displayTestTitle(TEST_NAME);
+		// GIVEN
+		OperationResult result = new OperationResult(TestDummy.class.getName()
+				+ "." + TEST_NAME);
+		ObjectQuery query = IntegrationTestTools.createAllShadowsQuery(resourceType,
+				SchemaTestConstants.ICF_ACCOUNT_OBJECT_CLASS_LOCAL_NAME, prismContext);
+		query.setPaging(ObjectPaging.createPaging(null, 100));
+
+		XMLGregorianCalendar startTs = clock.currentTimeXMLGregorianCalendar();
+
+		rememberCounter(InternalCounters.SHADOW_FETCH_OPERATION_COUNT);
+
+		// WHEN
+		displayWhen(TEST_NAME);
+		List<PrismObject<ShadowType>> allShadows = provisioningService.searchObjects(ShadowType.class,
+				query, SelectorOptions.createCollection(createCachedStaleness(1000000L)), null, result);
+
+		// THEN
+		displayThen(TEST_NAME);
+		assertSuccess(result);
+
+		display("Found " + allShadows.size() + " shadows");
+		assertEquals("Wrong number of results", 4, allShadows.size());
+		for (PrismObject<ShadowType> shadow: allShadows) {
+			assertCachingMetadata(shadow, true, null, startTs);
+		}
+		assertCounterIncrement(InternalCounters.SHADOW_FETCH_OPERATION_COUNT, 0);
+
+		// WHEN
+		displayWhen(TEST_NAME);
+		allShadows = provisioningService.searchObjects(ShadowType.class,
+				query, SelectorOptions.createCollection(createCachedStaleness(1L)), null, result);
+
+		// THEN
+		displayThen(TEST_NAME);
+		assertSuccess(result);
+
+		assertFalse("No shadows found", allShadows.isEmpty());
+		assertCounterIncrement(InternalCounters.SHADOW_FETCH_OPERATION_COUNT, 1);
+
+		// WHEN
+		displayWhen(TEST_NAME);
+		query.setPaging(null);
+		allShadows = provisioningService.searchObjects(ShadowType.class,
+				query, SelectorOptions.createCollection(createCachedStaleness(1000000L)), null, result);
+
+		// THEN
+		displayThen(TEST_NAME);
+		assertSuccess(result);
+
+		assertEquals("Wrong number of results", 4, allShadows.size());
+		assertCounterIncrement(InternalCounters.SHADOW_FETCH_OPERATION_COUNT, 1);
+
+		assertSteadyResource();
+	}
+
+	private GetOperationOptions createCachedStaleness(long staleness) {
+		GetOperationOptions options = GetOperationOptions.createStaleness(staleness);
+		options.setPointInTimeType(PointInTimeType.CACHED);
+		return options;
+	}
+
 	@Override
 	protected void checkRepoAccountShadowWill(PrismObject<ShadowType> shadowRepo, XMLGregorianCalendar start, XMLGregorianCalendar end) {
 		// Sometimes there are 6 and sometimes 7 attributes. Treasure is not returned by default. It is not normally in the cache.
@@ -138,6 +138,10 @@ public interface RepositoryService {
 	String ADVANCE_SEQUENCE = CLASS_NAME_WITH_DOT + "advanceSequence";
 	String RETURN_UNUSED_VALUES_TO_SEQUENCE = CLASS_NAME_WITH_DOT + "returnUnusedValuesToSequence";
 	String EXECUTE_QUERY_DIAGNOSTICS = CLASS_NAME_WITH_DOT + "executeQueryDiagnostics";
+	String COUNT_ASSIGNEES = CLASS_NAME_WITH_DOT + "countAssignees";
+	String TEST_ASSIGNEE_COUNT_CONSISTENCY = CLASS_NAME_WITH_DOT + "testAssigneeCountConsistency";
+	String RECORD_ALL_OBJECTS_REINDEXED = CLASS_NAME_WITH_DOT + "recordAllObjectsReindexed";
+	String UPDATE_TASK_STATISTICS = CLASS_NAME_WITH_DOT + "updateTaskStatistics";
 
 	String KEY_DIAG_DATA = "repositoryDiagData";			// see GetOperationOptions.attachDiagData
 
@@ -592,6 +596,54 @@ public interface RepositoryService {
      */
     void testOrgClosureConsistency(boolean repairIfNecessary, OperationResult testResult);
 
+    /**
+     * Returns the number of focal objects that have an assignment to given target with given relation
+     * (each object is counted once). The value is maintained by the repository along with the assignments,
+     * so it is much cheaper than counting objects by assignment/targetRef filter.
+     *
+     * Returns null if the repository does not maintain such counts; the caller should count the objects then.
+     */
+    Integer countAssignees(String targetOid, QName relation, OperationResult parentResult);
+
+    /**
+     * Checks the maintained assignee counts (see {@link #countAssignees(String, QName, OperationResult)}) against
+     * the assignments stored, repairing any problems found if requested. The repository can compact the data
+     * kept for the counts when repairing.
+     *
+     * @return Number of inconsistent counts found.
+     */
+    int testAssigneeCountConsistency(boolean repairIfNecessary, OperationResult testResult);
+
+    /**
+     * Stores progress, expected total and operation statistics of a (running) task without modifying the task
+     * object itself. This is much cheaper than modifyObject for big tasks, so it is meant for frequent updates
+     * of live statistics. The stored values are merged into the task when it is read; any later modification
+     * of the task makes them part of the task object.
+     *
+     * @return false if the repository does not support storing the statistics separately; the caller should
+     *         modify the task object then.
+     */
+    boolean updateTaskStatistics(String taskOid, Long progress, Long expectedTotal, OperationStatsType operationStats,
+		    OperationResult parentResult) throws ObjectNotFoundException, SchemaException;
+
+    /**
+     * Switches org closure bulk mode on or off. While the bulk mode is on, adding, modifying and deleting orgs
+     * does not update the closure. When it is switched off, the closure is rebuilt at once. This is meant
+     * for initial imports of large org structures, where per-object closure updates are the bottleneck.
+     *
+     * The bulk mode is local to the current node. Queries that depend on the org closure (e.g. org subtree
+     * searches) do not return correct results while it is on.
+     */
+    void setOrgClosureBulkMode(boolean bulkMode, OperationResult result);
+
+    /**
+     * Records that all objects in the repository were just reindexed, i.e. all the data the repository derives
+     * from objects were recomputed. The repository can then start relying on such data, e.g. on values of promoted
+     * extension items in SQL repository. It is called by the reindex task after a complete run over all objects
+     * without errors; it can also be called explicitly.
+     */
+    void recordAllObjectsReindexed(OperationResult result);
+
 	/**
 	 * A bit of hack - execute arbitrary query, e.g. hibernate query in case of SQL repository.
 	 * Use with all the care!
@@ -603,6 +603,59 @@ public class RepositoryCache implements RepositoryService {
 		}
     }
 
+    @Override
+    public Integer countAssignees(String targetOid, QName relation, OperationResult parentResult) {
+    	Long startTime = repoOpStart();
+		try {
+			return repositoryService.countAssignees(targetOid, relation, parentResult);
+		} finally {
+			repoOpEnd(startTime);
+		}
+    }
+
+    @Override
+    public boolean updateTaskStatistics(String taskOid, Long progress, Long expectedTotal, OperationStatsType operationStats,
+			OperationResult parentResult) throws ObjectNotFoundException, SchemaException {
+		Long startTime = repoOpStart();
+		try {
+			return repositoryService.updateTaskStatistics(taskOid, progress, expectedTotal, operationStats, parentResult);
+		} finally {
+			repoOpEnd(startTime);
+			// the task as read from the repository changes
+			invalidateCacheEntry(TaskType.class, taskOid);
+		}
+    }
+
+    @Override
+    public int testAssigneeCountConsistency(boolean repairIfNecessary, OperationResult testResult) {
+    	Long startTime = repoOpStart();
+		try {
+			return repositoryService.testAssigneeCountConsistency(repairIfNecessary, testResult);
+		} finally {
+			repoOpEnd(startTime);
+		}
+    }
+
+    @Override
+    public void setOrgClosureBulkMode(boolean bulkMode, OperationResult result) {
+    	Long startTime = repoOpStart();
+		try {
+			repositoryService.setOrgClosureBulkMode(bulkMode, result);
+		} finally {
+			repoOpEnd(startTime);
+		}
+    }
+
+    @Override
+    public void recordAllObjectsReindexed(OperationResult result) {
+    	Long startTime = repoOpStart();
+		try {
+			repositoryService.recordAllObjectsReindexed(result);
+		} finally {
+			repoOpEnd(startTime);
+		}
+    }
+
     private <T extends ObjectType> void cacheObject(Cache cache, PrismObject<T> object, boolean readOnly) {
 		if (cache != null) {
 			PrismObject<ObjectType> objectToCache;
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.repo.common;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.configuration.Configuration;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.evolveum.midpoint.common.configuration.api.MidpointConfiguration;
+import com.evolveum.midpoint.repo.api.CacheDispatcher;
+import com.evolveum.midpoint.repo.api.CacheListener;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+
+/**
+ * Common part of node-level caches that are invalidated via CacheDispatcher (object counts, definition views,
+ * REST authentication, role structure, ...).
+ *
+ * It provides:
+ * <ul>
+ *     <li>a map of entries bounded by maximum size, evicting least recently used entries first,</li>
+ *     <li>optional time to live of the entries (an entry can also get its own expiration time),</li>
+ *     <li>invalidation generation: a value computed while the cache was being invalidated must not be stored,
+ *     so the caller obtains the generation before it starts computing the value and hands it over to put(),</li>
+ *     <li>reading of time to live and maximum size from midpoint.system section of config.xml,</li>
+ *     <li>registration as a CacheListener and hit/miss statistics.</li>
+ * </ul>
+ * The subclasses decide what to invalidate (invalidateCache) and what the keys and values are.
+ *
+ * If timeToLiveProperty is null, the entries do not expire and the cache is enabled if maxSize is positive.
+ * Otherwise, the cache is enabled only if both time to live and maxSize are positive.
+ */
+public abstract class AbstractNodeCache<K, V> implements CacheListener {
+
+	private static final Trace LOGGER = TraceManager.getTrace(AbstractNodeCache.class);
+
+	@Autowired(required = false) private MidpointConfiguration midpointConfiguration;
+	@Autowired(required = false) private CacheDispatcher cacheDispatcher;
+
+	private final String timeToLiveProperty;
+	private final String maxSizeProperty;
+	private final int defaultMaxSize;
+
+	private volatile long timeToLive;           // in millis
+	private volatile int maxSize;
+
+	// Guarded by "this". Access order is used to evict least recently used entries first.
+	private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	// Guarded by "this". Incremented on each invalidation.
+	private long generation;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param defaultTimeToLive Default time to live in seconds (ignored if timeToLiveProperty is null).
+	 */
+	protected AbstractNodeCache(String timeToLiveProperty, long defaultTimeToLive, String maxSizeProperty, int defaultMaxSize) {
+		this.timeToLiveProperty = timeToLiveProperty;
+		this.maxSizeProperty = maxSizeProperty;
+		this.defaultMaxSize = defaultMaxSize;
+		this.timeToLive = timeToLiveProperty != null ? defaultTimeToLive * 1000L : 0;
+		this.maxSize = defaultMaxSize;
+	}
+
+	public static class Entry<V> {
+		private final V value;
+		private volatile long expiresAt;
+
+		private Entry(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		public V getValue() {
+			return value;
+		}
+
+		public boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+
+		public void setExpiresAt(long expiresAt) {
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	@PostConstruct
+	public void initialize() {
+		if (midpointConfiguration != null) {
+			Configuration config = midpointConfiguration.getConfiguration(MidpointConfiguration.SYSTEM_CONFIGURATION);
+			if (timeToLiveProperty != null) {
+				setTimeToLive(config.getLong(timeToLiveProperty, timeToLive / 1000L) * 1000L);
+			}
+			setMaxSize(config.getInt(maxSizeProperty, defaultMaxSize));
+		}
+		if (cacheDispatcher != null) {
+			cacheDispatcher.registerCacheListener(this);
+		}
+		LOGGER.debug("{} initialized, time to live={} ms, max size={}", getClass().getSimpleName(), timeToLive, maxSize);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (cacheDispatcher != null) {
+			cacheDispatcher.unregisterCacheListener(this);
+		}
+	}
+
+	public boolean isEnabled() {
+		return maxSize > 0 && (timeToLiveProperty == null || timeToLive > 0);
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	public void setTimeToLive(long timeToLive) {
+		this.timeToLive = Math.max(timeToLive, 0);
+		if (!isEnabled()) {
+			clear();
+		}
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = Math.max(maxSize, 0);
+		if (!isEnabled()) {
+			clear();
+		}
+	}
+
+	/**
+	 * Returns current invalidation generation. It has to be obtained before the value to be cached
+	 * starts to be computed (or read).
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Returns the value if it's cached and not expired.
+	 */
+	protected V get(K key) {
+		return get(key, value -> true);
+	}
+
+	/**
+	 * Returns the value if it's cached, not expired and still valid according to the predicate.
+	 * Expired entries are removed, entries that are not valid are left to be overwritten.
+	 */
+	protected V get(K key, Predicate<V> valid) {
+		V value = null;
+		if (isEnabled()) {
+			synchronized (this) {
+				Entry<V> entry = entries.get(key);
+				if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+					entries.remove(key);
+				} else if (entry != null) {
+					value = entry.value;
+				}
+			}
+		}
+		if (value != null && valid.test(value)) {
+			hits.incrementAndGet();
+			return value;
+		} else {
+			misses.incrementAndGet();
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the entry (even expired one), without updating the statistics. This is for subclasses that
+	 * are able to revalidate expired entries (see setExpiresAt); they should call recordHit/recordMiss themselves.
+	 */
+	protected synchronized Entry<V> getEntry(K key) {
+		return isEnabled() ? entries.get(key) : null;
+	}
+
+	protected void recordHit() {
+		hits.incrementAndGet();
+	}
+
+	protected void recordMiss() {
+		misses.incrementAndGet();
+	}
+
+	/**
+	 * Stores the value with the default time to live, unless the cache was invalidated since expectedGeneration
+	 * was obtained. Returns true if the value was stored.
+	 */
+	protected boolean put(K key, V value, long expectedGeneration) {
+		return put(key, value, getDefaultExpiration(), expectedGeneration);
+	}
+
+	/**
+	 * Stores the value that expires at given time, unless the cache was invalidated since expectedGeneration
+	 * was obtained. Returns true if the value was stored.
+	 */
+	protected boolean put(K key, V value, long expiresAt, long expectedGeneration) {
+		if (!isEnabled() || key == null || value == null) {
+			return false;
+		}
+		synchronized (this) {
+			if (generation != expectedGeneration) {
+				LOGGER.trace("Not caching value for {} in {}, the cache was invalidated in the meanwhile", key, this);
+				return false;
+			}
+			entries.put(key, new Entry<>(value, expiresAt));
+			evictIfNeeded();
+			return true;
+		}
+	}
+
+	/**
+	 * Stores the value, unless there is already one for given key. Returns the value that is cached now
+	 * (or the value itself if the cache is disabled).
+	 */
+	protected V putIfAbsent(K key, V value) {
+		if (!isEnabled()) {
+			return value;
+		}
+		synchronized (this) {
+			Entry<V> existing = entries.get(key);
+			if (existing != null && !existing.isExpired(System.currentTimeMillis())) {
+				return existing.value;
+			}
+			entries.put(key, new Entry<>(value, getDefaultExpiration()));
+			evictIfNeeded();
+			return value;
+		}
+	}
+
+	protected long getDefaultExpiration() {
+		return timeToLiveProperty != null ? System.currentTimeMillis() + timeToLive : Long.MAX_VALUE;
+	}
+
+	private void evictIfNeeded() {
+		Iterator<Entry<V>> iterator = entries.values().iterator();
+		while (entries.size() > maxSize && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Removes the entry. Values being computed concurrently are not stored afterwards.
+	 */
+	protected synchronized void invalidate(K key) {
+		generation++;
+		entries.remove(key);
+	}
+
+	/**
+	 * Removes the matching entries. Values being computed concurrently are not stored afterwards,
+	 * unless newGeneration is false.
+	 */
+	protected synchronized void invalidate(Predicate<V> matching, boolean newGeneration) {
+		if (newGeneration) {
+			generation++;
+		}
+		entries.values().removeIf(entry -> matching.test(entry.value));
+	}
+
+	public synchronized void clear() {
+		generation++;
+		entries.clear();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "(size=" + size() + ", hits=" + hits + ", misses=" + misses + ")";
+	}
+}
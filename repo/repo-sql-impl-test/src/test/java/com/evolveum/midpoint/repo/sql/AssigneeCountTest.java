@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.prism.delta.builder.DeltaBuilder;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AssignmentType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Tests maintenance of assignee counts (m_assignee_count).
+ */
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AssigneeCountTest extends BaseSQLRepoTest {
+
+    private static final String ROLE_OID = "9a4fd1d4-5d8c-4b0c-8d3c-3b5a1bcf1b01";
+    private static final String ROLE_CONCURRENT_OID = "9a4fd1d4-5d8c-4b0c-8d3c-3b5a1bcf1b02";
+
+    private static final int CONCURRENT_USERS = 10;
+
+    private String user1Oid;
+    private String user2Oid;
+
+    @Test
+    public void test100AddUsers() throws Exception {
+        OperationResult result = new OperationResult("test100AddUsers");
+
+        UserType user1 = new UserType(prismContext)
+                .name("user1")
+                .beginAssignment()
+                    .targetRef(ROLE_OID, RoleType.COMPLEX_TYPE)
+                .<UserType>end()
+                .beginAssignment()
+                    .targetRef(ROLE_OID, RoleType.COMPLEX_TYPE)         // the same target - counted once
+                    .description("second")
+                .end();
+        UserType user2 = new UserType(prismContext)
+                .name("user2")
+                .beginAssignment()
+                    .targetRef(ROLE_OID, RoleType.COMPLEX_TYPE)
+                .<UserType>end()
+                .beginAssignment()
+                    .targetRef(ROLE_OID, RoleType.COMPLEX_TYPE, SchemaConstants.ORG_MANAGER)
+                .end();
+
+        user1Oid = repositoryService.addObject(user1.asPrismObject(), null, result);
+        user2Oid = repositoryService.addObject(user2.asPrismObject(), null, result);
+
+        assertCounts(2, 1, result);
+    }
+
+    @Test
+    public void test110ModifyUser() throws Exception {
+        OperationResult result = new OperationResult("test110ModifyUser");
+
+        UserType user1 = repositoryService.getObject(UserType.class, user1Oid, null, result).asObjectable();
+        repositoryService.modifyObject(UserType.class, user1Oid,
+                DeltaBuilder.deltaFor(UserType.class, prismContext)
+                        .item(UserType.F_ASSIGNMENT).delete(user1.getAssignment().get(0).clone())
+                        .asItemDeltas(), result);
+        assertCounts(2, 1, result);
+
+        repositoryService.modifyObject(UserType.class, user1Oid,
+                DeltaBuilder.deltaFor(UserType.class, prismContext)
+                        .item(UserType.F_ASSIGNMENT).delete(user1.getAssignment().get(1).clone())
+                        .item(UserType.F_ASSIGNMENT).add(new AssignmentType(prismContext)
+                                .targetRef(ROLE_OID, RoleType.COMPLEX_TYPE, SchemaConstants.ORG_MANAGER))
+                        .asItemDeltas(), result);
+        assertCounts(1, 2, result);
+    }
+
+    @Test
+    public void test120DeleteUser() throws Exception {
+        OperationResult result = new OperationResult("test120DeleteUser");
+
+        repositoryService.deleteObject(UserType.class, user2Oid, result);
+        assertCounts(0, 1, result);
+    }
+
+    @Test
+    public void test200CheckAndRepair() throws Exception {
+        OperationResult result = new OperationResult("test200CheckAndRepair");
+
+        Session session = open();
+        Query query = session.createQuery("update RAssigneeCount c set c.assigneeCount = 42");
+        query.executeUpdate();
+        close(session);
+
+        assertEquals("Wrong # of problems found", 2, repositoryService.testAssigneeCountConsistency(false, result));
+        assertEquals("Wrong # of problems found", 2, repositoryService.testAssigneeCountConsistency(true, result));
+        assertEquals("Problems not repaired", 0, repositoryService.testAssigneeCountConsistency(false, result));
+        assertCounts(0, 1, result);
+
+        session = open();
+        Number rows = (Number) session.createQuery("select count(*) from RAssigneeCount").uniqueResult();
+        close(session);
+        assertEquals("Delta rows were not compacted", 1, rows.intValue());
+    }
+
+    /**
+     * Concurrent assignments of the same role must neither fail nor lose any count.
+     */
+    @Test
+    public void test300ConcurrentAssignments() throws Exception {
+        OperationResult result = new OperationResult("test300ConcurrentAssignments");
+
+        List<String> userOids = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_USERS; i++) {
+            userOids.add(repositoryService.addObject(new UserType(prismContext).name("concurrent" + i).asPrismObject(),
+                    null, result));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_USERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (String userOid : userOids) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                repositoryService.modifyObject(UserType.class, userOid,
+                        DeltaBuilder.deltaFor(UserType.class, prismContext)
+                                .item(UserType.F_ASSIGNMENT).add(new AssignmentType(prismContext)
+                                        .targetRef(ROLE_CONCURRENT_OID, RoleType.COMPLEX_TYPE))
+                                .asItemDeltas(), new OperationResult("assign"));
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();           // rethrows any failure of the modification
+        }
+        executor.shutdown();
+
+        assertEquals("Wrong # of assignees", (Integer) CONCURRENT_USERS,
+                repositoryService.countAssignees(ROLE_CONCURRENT_OID, null, result));
+        assertEquals("Wrong # of problems found", 0, repositoryService.testAssigneeCountConsistency(false, result));
+    }
+
+    private void assertCounts(int expectedDefault, int expectedManager, OperationResult result) {
+        assertEquals("Wrong # of default assignees", (Integer) expectedDefault,
+                repositoryService.countAssignees(ROLE_OID, null, result));
+        assertEquals("Wrong # of managers", (Integer) expectedManager,
+                repositoryService.countAssignees(ROLE_OID, SchemaConstants.ORG_MANAGER, result));
+    }
+}
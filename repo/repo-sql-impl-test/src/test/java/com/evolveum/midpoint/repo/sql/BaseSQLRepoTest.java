@@ -26,6 +26,7 @@ import com.evolveum.midpoint.prism.util.PrismTestUtil;
 import com.evolveum.midpoint.repo.api.RepositoryService;
 import com.evolveum.midpoint.repo.sql.data.common.dictionary.ExtItemDictionary;
 import com.evolveum.midpoint.repo.sql.helpers.BaseHelper;
+import com.evolveum.midpoint.repo.sql.helpers.PromotedExtensionItemsMarker;
 import com.evolveum.midpoint.repo.sql.util.HibernateToSqlTranslator;
 import com.evolveum.midpoint.repo.sql.util.RUtil;
 import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
@@ -75,6 +76,7 @@ public class BaseSQLRepoTest extends AbstractTestNGSpringContextTests {
     @Autowired protected RelationRegistry relationRegistry;
     @Autowired protected SessionFactory factory;
     @Autowired protected ExtItemDictionary extItemDictionary;
+    @Autowired protected PromotedExtensionItemsMarker promotedExtensionItemsMarker;
 
     protected static Set<Class> initializedClasses = new HashSet<>();
 
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.repo.sql.util.CompactOidSet;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+public class CompactOidSetTest {
+
+    @Test
+    public void test100UuidOids() {
+        CompactOidSet set = new CompactOidSet();
+        List<String> oids = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            oids.add(UUID.randomUUID().toString());
+        }
+        for (String oid : oids) {
+            assertTrue("OID " + oid + " not added", set.add(oid));
+        }
+        assertEquals("Wrong size", oids.size(), set.size());
+        for (String oid : oids) {
+            assertTrue("OID " + oid + " not found", set.contains(oid));
+            assertFalse("OID " + oid + " added twice", set.add(oid));
+        }
+        assertFalse("Unknown OID found", set.contains(UUID.randomUUID().toString()));
+        assertEquals("Wrong size", oids.size(), set.size());
+    }
+
+    @Test
+    public void test110NonCanonicalOids() {
+        CompactOidSet set = new CompactOidSet();
+        set.add("c0c010c0-d34d-b33f-f00d-111111111111");
+        set.add("00000000-0000-0000-0000-000000000000");
+        set.add("user-100000-00");
+
+        assertTrue(set.contains("c0c010c0-d34d-b33f-f00d-111111111111"));
+        assertTrue(set.contains("00000000-0000-0000-0000-000000000000"));
+        assertTrue(set.contains("user-100000-00"));
+        // uppercase variant is a different OID
+        assertFalse(set.contains("C0C010C0-D34D-B33F-F00D-111111111111"));
+        assertFalse(set.contains("user-100000-01"));
+        assertEquals("Wrong size", 3, set.size());
+    }
+
+    @Test
+    public void test120AddAll() {
+        CompactOidSet first = new CompactOidSet();
+        CompactOidSet second = new CompactOidSet();
+        first.add("c0c010c0-d34d-b33f-f00d-111111111111");
+        second.add("c0c010c0-d34d-b33f-f00d-111111111111");
+        second.add("c0c010c0-d34d-b33f-f00d-111111111116");
+        second.add("user-1");
+
+        first.addAll(second);
+
+        assertEquals("Wrong size", 3, first.size());
+        assertTrue(first.contains("c0c010c0-d34d-b33f-f00d-111111111116"));
+        assertTrue(first.contains("user-1"));
+    }
+}
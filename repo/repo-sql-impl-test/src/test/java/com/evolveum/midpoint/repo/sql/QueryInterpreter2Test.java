@@ -92,6 +92,7 @@ import static com.evolveum.midpoint.xml.ns._public.common.common_3.TaskType.F_WO
 import static com.evolveum.midpoint.xml.ns._public.common.common_3.TriggerType.F_TIMESTAMP;
 import static com.evolveum.midpoint.xml.ns._public.common.common_3.WfContextType.*;
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertTrue;
 import static org.testng.AssertJUnit.fail;
 
@@ -3027,6 +3028,120 @@ public class QueryInterpreter2Test extends BaseSQLRepoTest {
         }
     }
 
+    /**
+     * Columns are not filled-in yet, so the extension table has to be used.
+     */
+    @Test
+    public void test0624QueryGenericStringPromotedNotBackfilled() throws Exception {
+        SqlRepositoryConfiguration config = getConfiguration();
+        config.setPromotedExtensionItems(Collections.singletonList(STRING_TYPE_QNAME));
+        promotedExtensionItemsMarker.initialize();
+        Session session = open();
+        try {
+            ObjectQuery query = QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+                    .item(ObjectType.F_EXTENSION, STRING_TYPE_QNAME).eq("asdf")
+                    .build();
+            String real = getInterpretedQuery2(session, GenericObjectType.class, query);
+            String expected = "select\n" +
+                    "  g.oid, g.fullObject,\n" +
+                    "  g.stringsCount,\n" +
+                    "  g.longsCount,\n" +
+                    "  g.datesCount,\n" +
+                    "  g.referencesCount,\n" +
+                    "  g.polysCount,\n" +
+                    "  g.booleansCount\n" +
+                    "from\n" +
+                    "  RGenericObject g\n" +
+                    "    left join g.strings s with ( s.ownerType = :ownerType and s.itemId = :itemId )\n" +
+                    "where\n" +
+                    "  s.value = :value\n";
+            assertEqualsIgnoreWhitespace(expected, real);
+        } finally {
+            close(session);
+            config.setPromotedExtensionItems(Collections.emptyList());
+        }
+    }
+
+    @Test
+    public void test0625QueryGenericStringPromoted() throws Exception {
+        SqlRepositoryConfiguration config = getConfiguration();
+        config.setPromotedExtensionItems(Collections.singletonList(STRING_TYPE_QNAME));
+        promotedExtensionItemsMarker.initialize();
+        repositoryService.recordAllObjectsReindexed(new OperationResult("test0625QueryGenericStringPromoted"));
+        Session session = open();
+        try {
+            ObjectQuery query = QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+                    .item(ObjectType.F_EXTENSION, STRING_TYPE_QNAME).eq("asdf")
+                    .build();
+            String real = getInterpretedQuery2(session, GenericObjectType.class, query);
+            String expected = "select\n" +
+                    "  g.oid, g.fullObject,\n" +
+                    "  g.stringsCount,\n" +
+                    "  g.longsCount,\n" +
+                    "  g.datesCount,\n" +
+                    "  g.referencesCount,\n" +
+                    "  g.polysCount,\n" +
+                    "  g.booleansCount\n" +
+                    "from\n" +
+                    "  RGenericObject g\n" +
+                    "where\n" +
+                    "  g.promotedString1 = :promotedString1\n";
+            assertEqualsIgnoreWhitespace(expected, real);
+        } finally {
+            close(session);
+            config.setPromotedExtensionItems(Collections.emptyList());
+            promotedExtensionItemsMarker.initialize();
+        }
+    }
+
+    /**
+     * The marker recorded in test0625 is for a different list of items, so it must not be used.
+     */
+    @Test
+    public void test0626QueryGenericStringPromotedAfterConfigurationChange() throws Exception {
+        SqlRepositoryConfiguration config = getConfiguration();
+        config.setPromotedExtensionItems(Arrays.asList(new QName("http://example.com/p", "longType"), STRING_TYPE_QNAME));
+        promotedExtensionItemsMarker.initialize();
+        Session session = open();
+        try {
+            ObjectQuery query = QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+                    .item(ObjectType.F_EXTENSION, STRING_TYPE_QNAME).eq("asdf")
+                    .build();
+            String real = getInterpretedQuery2(session, GenericObjectType.class, query);
+            assertFalse("Promoted column used before backfill: " + real, real.contains("promotedString"));
+            assertTrue("Extension table not used: " + real, real.contains("left join g.strings s"));
+        } finally {
+            close(session);
+            config.setPromotedExtensionItems(Collections.emptyList());
+        }
+    }
+
+    @Test
+    public void test0630QueryOidRange() throws Exception {
+        Session session = open();
+        try {
+            ObjectQuery query = QueryBuilder.queryFor(UserType.class, prismContext).build();
+            ObjectPagingAfterOid paging = new ObjectPagingAfterOid();
+            paging.setOidGreaterThan("4");
+            paging.setOidLessThanOrEqual("8");
+            paging.setMaxSize(100);
+            query.setPaging(paging);
+
+            String real = getInterpretedQuery2(session, UserType.class, query);
+            String expected = "select\n" +
+                    "  u.oid, u.fullObject, u.stringsCount, u.longsCount, u.datesCount, u.referencesCount, u.polysCount, u.booleansCount\n" +
+                    "from\n" +
+                    "  RUser u\n" +
+                    "where\n" +
+                    "  u.oid > :oid and\n" +
+                    "  u.oid <= :oid2\n" +
+                    "order by u.oid asc\n";
+            assertEqualsIgnoreWhitespace(expected, real);
+        } finally {
+            close(session);
+        }
+    }
+
 //    @Test(enabled = false)
 //    public void atest100() throws Exception {
 //        Session session = open();
@@ -5135,7 +5250,8 @@ public class QueryInterpreter2Test extends BaseSQLRepoTest {
 			LOGGER.info("QUERY TYPE TO CONVERT :\n{}", (query.getFilter() != null ? query.getFilter().debugDump(3) : null));
 		}
 
-		QueryEngine2 engine = new QueryEngine2(baseHelper.getConfiguration(), extItemDictionary, prismContext, relationRegistry);
+		QueryEngine2 engine = new QueryEngine2(baseHelper.getConfiguration(), extItemDictionary, promotedExtensionItemsMarker,
+				prismContext, relationRegistry);
 		RQuery rQuery = engine.interpret(query, type, options, interpretCount, session);
 		//just test if DB will handle it or throws some exception
 		if (interpretCount) {
@@ -22,8 +22,10 @@ import com.evolveum.midpoint.prism.query.ObjectPaging;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.prism.query.builder.QueryBuilder;
 import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.schema.GetOperationOptions;
 import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
 import com.evolveum.midpoint.schema.ResultHandler;
+import com.evolveum.midpoint.schema.SelectorOptions;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.util.exception.ObjectAlreadyExistsException;
 import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
@@ -31,6 +33,7 @@ import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.util.exception.SystemException;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.IterationMethodType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
 import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
 import org.springframework.test.annotation.DirtiesContext;
@@ -39,6 +42,9 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 
 import static org.testng.AssertJUnit.assertEquals;
@@ -173,6 +179,161 @@ public class SearchIterativeTest extends BaseSQLRepoTest {
         assertObjects(objects, COUNT);
     }
 
+    @Test
+    public void test106OrderedIterationByKeysetPaging() throws Exception {
+        OperationResult result = new OperationResult("test106OrderedIterationByKeysetPaging");
+
+        final List<PrismObject<UserType>> objects = new ArrayList<>();
+
+        ResultHandler<UserType> handler = (object, parentResult) -> {
+            objects.add(object);
+            return true;
+        };
+
+        ObjectQuery query = QueryBuilder.queryFor(UserType.class, prismContext)
+                .desc(UserType.F_NAME)
+                .build();
+        repositoryService.searchObjectsIterative(UserType.class, query, handler, createSimplePagingOptions(), false, result);
+        result.recomputeStatus();
+
+        assertTrue(result.isSuccess());
+        assertObjects(objects, COUNT);
+        for (int i = 0; i < objects.size(); i++) {
+            assertEquals("Wrong object at position " + i, "user-" + (BASE + COUNT - 1 - i),
+                    objects.get(i).asObjectable().getName().getOrig());
+        }
+    }
+
+    @Test
+    public void test107OrderedIterationByKeysetPagingWithMaxSize() throws Exception {
+        OperationResult result = new OperationResult("test107OrderedIterationByKeysetPagingWithMaxSize");
+
+        final List<PrismObject<UserType>> objects = new ArrayList<>();
+
+        ResultHandler<UserType> handler = (object, parentResult) -> {
+            objects.add(object);
+            return true;
+        };
+
+        ObjectQuery query = QueryBuilder.queryFor(UserType.class, prismContext)
+                .asc(UserType.F_COST_CENTER)
+                .maxSize(150)
+                .build();
+        repositoryService.searchObjectsIterative(UserType.class, query, handler, createSimplePagingOptions(), false, result);
+        result.recomputeStatus();
+
+        assertTrue(result.isSuccess());
+        assertObjects(objects, 150);
+        for (int i = 0; i < objects.size(); i++) {
+            assertEquals("Wrong object at position " + i, String.valueOf(BASE + i), objects.get(i).asObjectable().getCostCenter());
+        }
+    }
+
+    /**
+     * Objects without value of the ordering item must not be lost, even if they are sorted after the first page.
+     */
+    @Test
+    public void test107aOrderedIterationWithMissingValues() throws Exception {
+        OperationResult result = new OperationResult("test107aOrderedIterationWithMissingValues");
+
+        List<String> noValueOids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            UserType user = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(UserType.class).instantiate().asObjectable();
+            user.setOid("user-no-cost-center-" + i);
+            user.setName(new PolyStringType(new PolyString("user-no-cost-center-" + i)));
+            noValueOids.add(repositoryService.addObject(user.asPrismObject(), null, result));
+        }
+
+        try {
+            final List<String> oids = new ArrayList<>();
+            ResultHandler<UserType> handler = (object, parentResult) -> {
+                oids.add(object.getOid());
+                return true;
+            };
+
+            for (ObjectQuery query : Arrays.asList(
+                    QueryBuilder.queryFor(UserType.class, prismContext).asc(UserType.F_COST_CENTER).build(),
+                    QueryBuilder.queryFor(UserType.class, prismContext).desc(UserType.F_COST_CENTER).build())) {
+                oids.clear();
+                repositoryService.searchObjectsIterative(UserType.class, query, handler, createSimplePagingOptions(), false, result);
+                result.recomputeStatus();
+
+                assertTrue(result.isSuccess());
+                assertEquals("Wrong # of objects for " + query, COUNT + noValueOids.size(), oids.size());
+                assertEquals("Wrong # of distinct objects for " + query, oids.size(), new HashSet<>(oids).size());
+                assertTrue("Objects without cost center are missing for " + query, oids.containsAll(noValueOids));
+            }
+        } finally {
+            for (String oid : noValueOids) {
+                repositoryService.deleteObject(UserType.class, oid, result);
+            }
+        }
+    }
+
+    @Test
+    public void test108SingleTransactionIterationWithParallelParsing() throws Exception {
+        OperationResult result = new OperationResult("test108SingleTransactionIterationWithParallelParsing");
+
+        final List<PrismObject<UserType>> objects = new ArrayList<>();
+
+        ResultHandler<UserType> handler = (object, parentResult) -> {
+            objects.add(object);
+            return true;
+        };
+
+        ObjectQuery query = QueryBuilder.queryFor(UserType.class, prismContext)
+                .asc(UserType.F_NAME)
+                .build();
+        getRepositoryConfiguration().setIterativeSearchParsingThreads(3);
+        try {
+            repositoryService.searchObjectsIterative(UserType.class, query, handler,
+                    SelectorOptions.createCollection(GetOperationOptions.createIterationMethod(IterationMethodType.SINGLE_TRANSACTION)),
+                    false, result);
+        } finally {
+            getRepositoryConfiguration().setIterativeSearchParsingThreads(0);
+        }
+        result.recomputeStatus();
+
+        assertTrue(result.isSuccess());
+        assertObjects(objects, COUNT);
+        for (int i = 0; i < objects.size(); i++) {
+            assertEquals("Wrong object at position " + i, "user-" + (BASE + i), objects.get(i).asObjectable().getName().getOrig());
+        }
+    }
+
+    @Test
+    public void test109PagedIterationWithParallelParsing() throws Exception {
+        OperationResult result = new OperationResult("test109PagedIterationWithParallelParsing");
+
+        final List<PrismObject<UserType>> objects = new ArrayList<>();
+
+        ResultHandler<UserType> handler = (object, parentResult) -> {
+            objects.add(object);
+            return true;
+        };
+
+        ObjectQuery query = QueryBuilder.queryFor(UserType.class, prismContext)
+                .asc(UserType.F_NAME)
+                .build();
+        getRepositoryConfiguration().setIterativeSearchParsingThreads(2);       // different from test108, so the pool is resized
+        try {
+            repositoryService.searchObjectsIterative(UserType.class, query, handler, createSimplePagingOptions(), false, result);
+        } finally {
+            getRepositoryConfiguration().setIterativeSearchParsingThreads(0);
+        }
+        result.recomputeStatus();
+
+        assertTrue(result.isSuccess());
+        assertObjects(objects, COUNT);
+        for (int i = 0; i < objects.size(); i++) {
+            assertEquals("Wrong object at position " + i, "user-" + (BASE + i), objects.get(i).asObjectable().getName().getOrig());
+        }
+    }
+
+    private Collection<SelectorOptions<GetOperationOptions>> createSimplePagingOptions() {
+        return SelectorOptions.createCollection(GetOperationOptions.createIterationMethod(IterationMethodType.SIMPLE_PAGING));
+    }
+
     private boolean[] assertObjects(List<PrismObject<UserType>> objects, Integer count) {
         if (count != null) {
             assertEquals("Wrong # of objects", count.intValue(), objects.size());
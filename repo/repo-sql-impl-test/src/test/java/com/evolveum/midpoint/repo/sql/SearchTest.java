@@ -617,6 +617,35 @@ public class SearchTest extends BaseSQLRepoTest {
 		assertEquals("Should find one object", 1, resources.size());
 	}
 
+	@Test
+	public void testPromotedExtensionProperty() throws Exception {
+		OperationResult result = new OperationResult("testPromotedExtensionProperty");
+		SqlRepositoryConfiguration configuration = ((SqlRepositoryServiceImpl) repositoryService).getConfiguration();
+		QName stringType = new QName("http://example.com/p", "stringType");
+		try {
+			configuration.setPromotedExtensionItems(Collections.singletonList(stringType));
+
+			ObjectQuery query = QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+					.item(ObjectType.F_EXTENSION, stringType).eq("some text in here")
+					.build();
+			assertEquals("Object found before reindexing", 0,
+					repositoryService.searchObjects(GenericObjectType.class, query, null, result).size());
+
+			repositoryService.modifyObject(GenericObjectType.class, "9999", emptySet(), createExecuteIfNoChanges(), result);
+
+			assertEquals("Should find one object", 1,
+					repositoryService.searchObjects(GenericObjectType.class, query, null, result).size());
+			ObjectQuery substringQuery = QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+					.item(ObjectType.F_EXTENSION, stringType).startsWith("some text")
+					.build();
+			assertEquals("Should find one object by prefix", 1,
+					repositoryService.searchObjects(GenericObjectType.class, substringQuery, null, result).size());
+		} finally {
+			configuration.setPromotedExtensionItems(Collections.emptyList());
+			repositoryService.modifyObject(GenericObjectType.class, "9999", emptySet(), createExecuteIfNoChanges(), result);
+		}
+	}
+
 	@Test
 	public void testRoleAttributes() throws SchemaException {
 		ObjectQuery query = QueryBuilder.queryFor(RoleType.class, prismContext)
@@ -785,6 +814,44 @@ public class SearchTest extends BaseSQLRepoTest {
 				distinct, 1);
     }
 
+    @Test
+    public void fullTextSearchWords() throws Exception {
+        OperationResult result = new OperationResult("fullTextSearchWords");
+        SqlRepositoryConfiguration configuration = ((SqlRepositoryServiceImpl) repositoryService).getConfiguration();
+
+        PrismObject<UserType> user = prismContext.createObjectable(UserType.class)
+                .name("full-text-words")
+                .description("Zygomorphic xylophone")
+                .asPrismObject();
+        String oid = repositoryService.addObject(user, null, result);        // indexed in chunks
+        try {
+            configuration.setFullTextIndexing(SqlRepositoryConfiguration.FullTextIndexing.WORDS);
+
+            assertUsersFound(QueryBuilder.queryFor(UserType.class, prismContext)
+                            .fullText("zygomorphic")
+                            .build(),
+                    true, 0);       // not reindexed yet
+
+            repositoryService.modifyObject(UserType.class, oid, emptySet(), createExecuteIfNoChanges(), result);
+
+            assertUsersFound(QueryBuilder.queryFor(UserType.class, prismContext)
+                            .fullText("zygomorphic")
+                            .build(),
+                    true, 1);
+            assertUsersFound(QueryBuilder.queryFor(UserType.class, prismContext)
+                            .fullText("Zygo xylo")
+                            .build(),
+                    true, 1);
+            assertUsersFound(QueryBuilder.queryFor(UserType.class, prismContext)
+                            .fullText("morphic")
+                            .build(),
+                    true, 0);       // only prefixes of words match
+        } finally {
+            configuration.setFullTextIndexing(SqlRepositoryConfiguration.FullTextIndexing.CHUNKS);
+            repositoryService.deleteObject(UserType.class, oid, result);
+        }
+    }
+
     @Test // MID-4932
     public void fullTextSearchModify() throws Exception {
 
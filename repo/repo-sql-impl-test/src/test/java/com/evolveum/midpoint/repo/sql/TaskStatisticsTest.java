@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.prism.delta.builder.DeltaBuilder;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.IterativeTaskInformationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationStatsType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskExecutionStatusType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskType;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Tests task statistics stored outside of the task object (m_task_statistics).
+ */
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class TaskStatisticsTest extends BaseSQLRepoTest {
+
+    private String taskOid;
+
+    @Test
+    public void test100UpdateStatistics() throws Exception {
+        OperationResult result = new OperationResult("test100UpdateStatistics");
+
+        TaskType task = new TaskType(prismContext)
+                .name("task1")
+                .taskIdentifier("task1")
+                .executionStatus(TaskExecutionStatusType.RUNNABLE)
+                .progress(10L);
+        taskOid = repositoryService.addObject(task.asPrismObject(), null, result);
+        String version = repositoryService.getVersion(TaskType.class, taskOid, result);
+
+        assertTrue("Statistics not stored",
+                repositoryService.updateTaskStatistics(taskOid, 20L, 100L, createStats(5), result));
+
+        TaskType loaded = repositoryService.getObject(TaskType.class, taskOid, null, result).asObjectable();
+        assertStatistics(loaded, 20L, 100L, 5);
+        assertEquals("Task object was modified", version, repositoryService.getVersion(TaskType.class, taskOid, result));
+        assertEquals("Wrong # of statistics rows", 1, countRows());
+    }
+
+    @Test
+    public void test110ModifyTask() throws Exception {
+        OperationResult result = new OperationResult("test110ModifyTask");
+
+        repositoryService.updateTaskStatistics(taskOid, 30L, 100L, createStats(7), result);
+        repositoryService.modifyObject(TaskType.class, taskOid,
+                DeltaBuilder.deltaFor(TaskType.class, prismContext)
+                        .item(TaskType.F_DESCRIPTION).replace("modified")
+                        .asItemDeltas(), result);
+
+        TaskType loaded = repositoryService.getObject(TaskType.class, taskOid, null, result).asObjectable();
+        assertStatistics(loaded, 30L, 100L, 7);
+        assertEquals("Statistics row not removed", 0, countRows());
+
+        repositoryService.updateTaskStatistics(taskOid, 40L, null, createStats(9), result);
+        loaded = repositoryService.getObject(TaskType.class, taskOid, null, result).asObjectable();
+        assertStatistics(loaded, 40L, null, 9);
+    }
+
+    @Test
+    public void test120DeleteTask() throws Exception {
+        OperationResult result = new OperationResult("test120DeleteTask");
+
+        repositoryService.deleteObject(TaskType.class, taskOid, result);
+        assertEquals("Statistics row not removed", 0, countRows());
+
+        try {
+            repositoryService.updateTaskStatistics(taskOid, 50L, null, null, result);
+            fail("Unexpected success");
+        } catch (ObjectNotFoundException e) {
+            // expected
+        }
+        assertEquals("Statistics row created for non-existing task", 0, countRows());
+    }
+
+    private OperationStatsType createStats(int successCount) {
+        IterativeTaskInformationType info = new IterativeTaskInformationType();
+        info.setTotalSuccessCount(successCount);
+        OperationStatsType stats = new OperationStatsType();
+        stats.setIterativeTaskInformation(info);
+        return stats;
+    }
+
+    private void assertStatistics(TaskType task, Long progress, Long expectedTotal, int successCount) {
+        assertEquals("Wrong progress", progress, task.getProgress());
+        assertEquals("Wrong expected total", expectedTotal, task.getExpectedTotal());
+        assertNotNull("No operation stats", task.getOperationStats());
+        assertEquals("Wrong success count", successCount,
+                task.getOperationStats().getIterativeTaskInformation().getTotalSuccessCount());
+    }
+
+    private int countRows() {
+        Session session = open();
+        Query query = session.createQuery("select count(*) from RTaskStatistics");
+        int count = ((Number) query.uniqueResult()).intValue();
+        close(session);
+        return count;
+    }
+}
@@ -74,7 +74,7 @@ import static org.testng.AssertJUnit.assertTrue;
 public abstract class AbstractOrgClosureTest extends BaseSQLRepoTest {
 
 	@Autowired
-	private OrgClosureManager closureManager;
+	protected OrgClosureManager closureManager;
 
     private static final Trace LOGGER = TraceManager.getTrace(AbstractOrgClosureTest.class);
 
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.closure;
+
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.test.util.TestUtil;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Checks that org structure loaded in closure bulk mode gets correct closure when the bulk mode is switched off.
+ */
+@ContextConfiguration(locations = {"../../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class OrgClosureBulkModeTest extends AbstractOrgClosureTest {
+
+    private static final int[] ORG_CHILDREN_IN_LEVEL  = { 1, 2, 3 };
+    private static final int[] USER_CHILDREN_IN_LEVEL = { 0, 1, 2 };
+    private static final int[] PARENTS_IN_LEVEL       = { 0, 1, 2 };
+
+    private OrgClosureTestConfiguration configuration;
+
+    public OrgClosureBulkModeTest() {
+        configuration = new OrgClosureTestConfiguration();
+        configuration.setCheckChildrenSets(true);
+        configuration.setCheckClosureMatrix(true);
+        configuration.setOrgChildrenInLevel(ORG_CHILDREN_IN_LEVEL);
+        configuration.setUserChildrenInLevel(USER_CHILDREN_IN_LEVEL);
+        configuration.setParentsInLevel(PARENTS_IN_LEVEL);
+    }
+
+    @Test
+    public void test100LoadInBulkMode() throws Exception {
+        OperationResult result = new OperationResult("===[ test100LoadInBulkMode ]===");
+
+        repositoryService.setOrgClosureBulkMode(true, result);
+        assertTrue("Bulk mode is not on", closureManager.isBulkMode());
+
+        _test100LoadOrgStructure();
+        assertEquals("Closure was maintained in bulk mode", 0, countClosureRows());
+
+        repositoryService.setOrgClosureBulkMode(false, result);
+        result.computeStatus();
+        TestUtil.assertSuccess(result);
+        assertFalse("Bulk mode is still on", closureManager.isBulkMode());
+
+        _test150CheckClosure();
+    }
+
+    private long countClosureRows() {
+        try (Session session = openSession()) {
+            Query q = session.createNativeQuery("select count(*) from m_org_closure");
+            return Long.parseLong(q.list().get(0).toString());
+        }
+    }
+
+    @Override
+    public OrgClosureTestConfiguration getConfiguration() {
+        return configuration;
+    }
+}
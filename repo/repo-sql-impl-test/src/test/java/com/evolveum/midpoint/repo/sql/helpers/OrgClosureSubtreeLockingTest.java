@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.repo.sql.BaseSQLRepoTest;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectReferenceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OrgType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Checks which parts of the org closure are locked when an org is moved with subtree locking.
+ *
+ * Structure used:
+ * <pre>
+ *     A          X
+ *    / \         |
+ *   B   D        E
+ *   |
+ *   C
+ *   |
+ *   F
+ * </pre>
+ */
+@ContextConfiguration(locations = {"../../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class OrgClosureSubtreeLockingTest extends BaseSQLRepoTest {
+
+    private static final String ORG_A_OID = "a0000000-0000-0000-0000-000000000000";
+    private static final String ORG_B_OID = "b0000000-0000-0000-0000-000000000000";
+    private static final String ORG_C_OID = "c0000000-0000-0000-0000-000000000000";
+    private static final String ORG_D_OID = "d0000000-0000-0000-0000-000000000000";
+    private static final String ORG_E_OID = "e0000000-0000-0000-0000-000000000000";
+    private static final String ORG_F_OID = "f0000000-0000-0000-0000-000000000000";
+    private static final String ORG_X_OID = "10000000-0000-0000-0000-000000000000";
+
+    @Autowired
+    private OrgClosureManager closureManager;
+
+    @Test
+    public void test100AddOrgs() throws Exception {
+        OperationResult result = createResult("test100AddOrgs");
+
+        addOrg(ORG_A_OID, "A", result);
+        addOrg(ORG_X_OID, "X", result);
+        addOrg(ORG_B_OID, "B", result, ORG_A_OID);
+        addOrg(ORG_D_OID, "D", result, ORG_A_OID);
+        addOrg(ORG_E_OID, "E", result, ORG_X_OID);
+        addOrg(ORG_C_OID, "C", result, ORG_B_OID);
+        addOrg(ORG_F_OID, "F", result, ORG_C_OID);
+
+        result.computeStatus();
+        assertSuccess(result);
+    }
+
+    /**
+     * Moving C from B to E: the subtree of C (C, F) and the ancestors of B (B, A) and of E (E, X) are locked.
+     * Sibling D is not.
+     */
+    @Test
+    public void test110LockForMove() {
+        Set<String> locked;
+        Session session = open();
+        try {
+            locked = closureManager.lockAffectedSubtrees(ORG_C_OID,
+                    new HashSet<>(Arrays.asList(ORG_B_OID, ORG_E_OID)), session);
+        } finally {
+            close(session);
+        }
+
+        assertEquals("Wrong locked orgs", new HashSet<>(Arrays.asList(ORG_C_OID, ORG_F_OID, ORG_B_OID, ORG_A_OID,
+                ORG_E_OID, ORG_X_OID)), locked);
+    }
+
+    /**
+     * Only the subtree of the org is locked if no parents are affected.
+     */
+    @Test
+    public void test120LockWithoutParents() {
+        Set<String> locked;
+        Session session = open();
+        try {
+            locked = closureManager.lockAffectedSubtrees(ORG_B_OID, Collections.emptySet(), session);
+        } finally {
+            close(session);
+        }
+
+        assertEquals("Wrong locked orgs", new HashSet<>(Arrays.asList(ORG_B_OID, ORG_C_OID, ORG_F_OID)), locked);
+    }
+
+    private void addOrg(String oid, String name, OperationResult result, String... parentOids) throws Exception {
+        OrgType org = new OrgType();
+        org.setOid(oid);
+        org.setName(new PolyStringType(new PolyString(name)));
+        for (String parentOid : parentOids) {
+            ObjectReferenceType ref = new ObjectReferenceType();
+            ref.setOid(parentOid);
+            ref.setType(OrgType.COMPLEX_TYPE);
+            org.getParentOrgRef().add(ref);
+        }
+        prismContext.adopt(org);
+        PrismObject<OrgType> object = org.asPrismObject();
+        repositoryService.addObject(object, null, result);
+    }
+}
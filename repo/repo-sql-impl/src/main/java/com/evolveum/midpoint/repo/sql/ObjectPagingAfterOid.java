@@ -19,6 +19,10 @@ package com.evolveum.midpoint.repo.sql;
 import com.evolveum.midpoint.prism.query.ObjectPaging;
 import com.evolveum.midpoint.util.DebugUtil;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
 /**
  * @author Pavol
  */
@@ -26,10 +30,19 @@ import com.evolveum.midpoint.util.DebugUtil;
 // Temporary hack. Represents special paging object that means
 // "give me objects with OID greater than specified one, sorted by OID ascending".
 //
+// It can be used also as a keyset (seek) cursor for ordered searches: if ordering instructions are present,
+// the objects are sorted by them and then by OID ascending, and the paging means "give me objects that come
+// after the one with specified ordering values and OID". Ordering values are real values of the ordering
+// items of the last object seen, in the order of ordering instructions. They must not be null.
+//
+// Optionally, the OIDs can be limited from above (oidLessThanOrEqual), e.g. to iterate over a range of OIDs.
+//
 // TODO: replace by using cookie that is part of the standard ObjectPaging
 // (but think out all consequences, e.g. conflicts with the other use of the cookie)
 public class ObjectPagingAfterOid extends ObjectPaging {
     private String oidGreaterThan;
+    private String oidLessThanOrEqual;
+    private List<Object> orderingValues;
 
     public String getOidGreaterThan() {
         return oidGreaterThan;
@@ -39,9 +52,27 @@ public class ObjectPagingAfterOid extends ObjectPaging {
         this.oidGreaterThan = oidGreaterThan;
     }
 
+    public String getOidLessThanOrEqual() {
+        return oidLessThanOrEqual;
+    }
+
+    public void setOidLessThanOrEqual(String oidLessThanOrEqual) {
+        this.oidLessThanOrEqual = oidLessThanOrEqual;
+    }
+
+    public List<Object> getOrderingValues() {
+        return orderingValues;
+    }
+
+    public void setOrderingValues(List<Object> orderingValues) {
+        this.orderingValues = orderingValues;
+    }
+
     @Override
     public String toString() {
-        return super.toString() + ", after OID: " + oidGreaterThan;
+        return super.toString() + ", after OID: " + oidGreaterThan
+                + (oidLessThanOrEqual != null ? ", up to OID: " + oidLessThanOrEqual : "")
+                + (orderingValues != null ? ", after values: " + orderingValues : "");
     }
 
     @Override
@@ -54,6 +85,8 @@ public class ObjectPagingAfterOid extends ObjectPaging {
     private void copyTo(ObjectPagingAfterOid clone) {
         super.copyTo(clone);
         clone.oidGreaterThan = this.oidGreaterThan;
+        clone.oidLessThanOrEqual = this.oidLessThanOrEqual;
+        clone.orderingValues = this.orderingValues != null ? new ArrayList<>(this.orderingValues) : null;
     }
 
 	@Override
@@ -63,6 +96,16 @@ public class ObjectPagingAfterOid extends ObjectPaging {
 		sb.append("\n");
 		DebugUtil.indentDebugDump(sb, indent + 1);
 		sb.append("Oid greater than: ").append(oidGreaterThan);
+		if (oidLessThanOrEqual != null) {
+			sb.append("\n");
+			DebugUtil.indentDebugDump(sb, indent + 1);
+			sb.append("Oid less than or equal: ").append(oidLessThanOrEqual);
+		}
+		if (orderingValues != null) {
+			sb.append("\n");
+			DebugUtil.indentDebugDump(sb, indent + 1);
+			sb.append("Ordering values: ").append(orderingValues);
+		}
 		return sb.toString();
 	}
 
@@ -76,13 +119,17 @@ public class ObjectPagingAfterOid extends ObjectPaging {
 
 		ObjectPagingAfterOid that = (ObjectPagingAfterOid) o;
 
-		return oidGreaterThan != null ? oidGreaterThan.equals(that.oidGreaterThan) : that.oidGreaterThan == null;
+		return Objects.equals(oidGreaterThan, that.oidGreaterThan)
+				&& Objects.equals(oidLessThanOrEqual, that.oidLessThanOrEqual)
+				&& Objects.equals(orderingValues, that.orderingValues);
 	}
 
 	@Override
 	public int hashCode() {
 		int result = super.hashCode();
 		result = 31 * result + (oidGreaterThan != null ? oidGreaterThan.hashCode() : 0);
+		result = 31 * result + (oidLessThanOrEqual != null ? oidLessThanOrEqual.hashCode() : 0);
+		result = 31 * result + (orderingValues != null ? orderingValues.hashCode() : 0);
 		return result;
 	}
 }
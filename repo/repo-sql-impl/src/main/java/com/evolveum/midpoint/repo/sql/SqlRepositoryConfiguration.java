@@ -17,9 +17,11 @@
 package com.evolveum.midpoint.repo.sql;
 
 import com.evolveum.midpoint.repo.api.RepositoryServiceFactoryException;
+import com.evolveum.midpoint.repo.sql.data.common.any.PromotedExtensionItems;
 import com.evolveum.midpoint.repo.sql.helpers.OrgClosureManager;
 import com.evolveum.midpoint.repo.sql.util.*;
 import com.evolveum.midpoint.util.MiscUtil;
+import com.evolveum.midpoint.util.QNameUtil;
 import com.evolveum.midpoint.util.exception.SystemException;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
@@ -31,7 +33,9 @@ import org.hibernate.dialect.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import javax.xml.namespace.QName;
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -138,6 +142,45 @@ public class SqlRepositoryConfiguration {
 	    }
     }
 
+	/**
+	 * How full text search index (m_object_text_info) is stored and searched.
+	 */
+	public enum FullTextIndexing {
+		/**
+		 * Words are concatenated into rows of up to 255 characters. Each query word matches any substring
+		 * of these rows (like '%word%'), so the search cannot use an index. This is the default.
+		 */
+		CHUNKS("chunks"),
+		/**
+		 * Each word is stored in its own row, i.e. the table is an inverted index (word -> objects).
+		 * Each query word matches words starting with it (like 'word%'), so the search can use the index on the text column.
+		 * Objects indexed in the other mode have to be reindexed after switching to this one.
+		 */
+		WORDS("words");
+
+		private String value;
+
+		FullTextIndexing(String value) {
+			this.value = value;
+		}
+
+		public String getValue() {
+			return value;
+		}
+
+		public static FullTextIndexing fromValue(String text) {
+			if (StringUtils.isEmpty(text)) {
+				return null;
+			}
+			for (FullTextIndexing a : values()) {
+				if (text.equals(a.value)) {
+					return a;
+				}
+			}
+			throw new IllegalArgumentException("Unknown FullTextIndexing: " + text);
+		}
+	}
+
 	/**
 	 * What to do if the DB schema is missing.
 	 */
@@ -297,12 +340,16 @@ public class SqlRepositoryConfiguration {
     public static final String PROPERTY_ITERATIVE_SEARCH_BY_PAGING = "iterativeSearchByPaging";
     public static final String PROPERTY_ITERATIVE_SEARCH_BY_PAGING_BATCH_SIZE = "iterativeSearchByPagingBatchSize";
     public static final String PROPERTY_MAX_OBJECTS_FOR_IMPLICIT_FETCH_ALL_ITERATION_METHOD = "maxObjectsForImplicitFetchAllIterationMethod";
+    public static final String PROPERTY_ITERATIVE_SEARCH_PARSING_THREADS = "iterativeSearchParsingThreads";
+    public static final String PROPERTY_FULL_TEXT_INDEXING = "fullTextIndexing";
+    public static final String PROPERTY_PROMOTED_EXTENSION_ITEMS = "promotedExtensionItems";
 
     //closure
     public static final String PROPERTY_IGNORE_ORG_CLOSURE = "ignoreOrgClosure";
     public static final String PROPERTY_ORG_CLOSURE_STARTUP_ACTION = "orgClosureStartupAction";
     public static final String PROPERTY_SKIP_ORG_CLOSURE_STRUCTURE_CHECK = "skipOrgClosureStructureCheck";
     public static final String PROPERTY_STOP_ON_ORG_CLOSURE_STARTUP_FAILURE = "stopOnOrgClosureStartupFailure";
+    public static final String PROPERTY_ORG_CLOSURE_LOCKING = "orgClosureLocking";
 
 	public static final String PROPERTY_SKIP_EXPLICIT_SCHEMA_VALIDATION = "skipExplicitSchemaValidation";
 	public static final String PROPERTY_MISSING_SCHEMA_ACTION = "missingSchemaAction";
@@ -368,6 +415,9 @@ public class SqlRepositoryConfiguration {
     private boolean defaultIterativeSearchByPaging;
     private int defaultIterativeSearchByPagingBatchSize;
 	private final int maxObjectsForImplicitFetchAllIterationMethod;
+	private int iterativeSearchParsingThreads;                  // not final only because of testing
+	private FullTextIndexing fullTextIndexing;                  // not final only because of testing
+	@NotNull private List<QName> promotedExtensionItems;        // not final only because of testing
 
     private final boolean iterativeSearchByPaging;
     private int iterativeSearchByPagingBatchSize;               // not final only because of testing
@@ -376,6 +426,7 @@ public class SqlRepositoryConfiguration {
     private final OrgClosureManager.StartupAction orgClosureStartupAction;
     private final boolean skipOrgClosureStructureCheck;
     private final boolean stopOnOrgClosureStartupFailure;
+    private final OrgClosureManager.LockingStrategy orgClosureLocking;
 
     private final long initializationFailTimeout;
 
@@ -478,6 +529,10 @@ public class SqlRepositoryConfiguration {
         iterativeSearchByPagingBatchSize = configuration.getInt(PROPERTY_ITERATIVE_SEARCH_BY_PAGING_BATCH_SIZE, defaultIterativeSearchByPagingBatchSize);
         maxObjectsForImplicitFetchAllIterationMethod = configuration.getInt(PROPERTY_MAX_OBJECTS_FOR_IMPLICIT_FETCH_ALL_ITERATION_METHOD,
 		        DEFAULT_MAX_OBJECTS_FOR_IMPLICIT_FETCH_ALL_ITERATION_METHOD);
+        iterativeSearchParsingThreads = configuration.getInt(PROPERTY_ITERATIVE_SEARCH_PARSING_THREADS, 0);
+        fullTextIndexing = defaultIfNull(FullTextIndexing.fromValue(configuration.getString(PROPERTY_FULL_TEXT_INDEXING)),
+                FullTextIndexing.CHUNKS);
+        promotedExtensionItems = parsePromotedExtensionItems(configuration.getStringArray(PROPERTY_PROMOTED_EXTENSION_ITEMS));
 
         ignoreOrgClosure = configuration.getBoolean(PROPERTY_IGNORE_ORG_CLOSURE, false);
         orgClosureStartupAction = OrgClosureManager.StartupAction.fromValue(
@@ -485,6 +540,8 @@ public class SqlRepositoryConfiguration {
 				        OrgClosureManager.StartupAction.REBUILD_IF_NEEDED.toString()));
         skipOrgClosureStructureCheck = configuration.getBoolean(PROPERTY_SKIP_ORG_CLOSURE_STRUCTURE_CHECK, false);
         stopOnOrgClosureStartupFailure = configuration.getBoolean(PROPERTY_STOP_ON_ORG_CLOSURE_STARTUP_FAILURE, true);
+        orgClosureLocking = OrgClosureManager.LockingStrategy.fromValue(
+                configuration.getString(PROPERTY_ORG_CLOSURE_LOCKING, OrgClosureManager.LockingStrategy.TABLE.toString()));
 
         skipExplicitSchemaValidation = configuration.getBoolean(PROPERTY_SKIP_EXPLICIT_SCHEMA_VALIDATION,
 		        isAutoUpdate(hibernateHbm2ddl) || isValidate(hibernateHbm2ddl));
@@ -702,6 +759,23 @@ public class SqlRepositoryConfiguration {
         if (minPoolSize > maxPoolSize) {
             throw new RepositoryServiceFactoryException("Max. pool size must be greater than min. pool size.");
         }
+
+        if (promotedExtensionItems.size() > PromotedExtensionItems.MAX_ITEMS) {
+            throw new RepositoryServiceFactoryException("At most " + PromotedExtensionItems.MAX_ITEMS
+                    + " extension items can be promoted, configured: " + promotedExtensionItems);
+        }
+    }
+
+    // items are specified as URIs, e.g. http://example.com/xml/ns/mySchema#costCenter
+    @NotNull
+    private static List<QName> parsePromotedExtensionItems(String[] values) {
+        List<QName> rv = new ArrayList<>();
+        for (String value : values) {
+            if (StringUtils.isNotBlank(value)) {
+                rv.add(QNameUtil.uriToQName(value.trim(), true));
+            }
+        }
+        return rv;
     }
 
     @SuppressWarnings("SameParameterValue")
@@ -853,6 +927,42 @@ public class SqlRepositoryConfiguration {
 		return maxObjectsForImplicitFetchAllIterationMethod;
 	}
 
+	/**
+	 * Number of threads used to parse objects fetched by single-transaction iterative search.
+	 * Zero means that objects are parsed by the thread that executes the search.
+	 */
+	public int getIterativeSearchParsingThreads() {
+		return iterativeSearchParsingThreads;
+	}
+
+	// exists because of testing
+	public void setIterativeSearchParsingThreads(int iterativeSearchParsingThreads) {
+		this.iterativeSearchParsingThreads = iterativeSearchParsingThreads;
+	}
+
+	@NotNull
+	public FullTextIndexing getFullTextIndexing() {
+		return fullTextIndexing;
+	}
+
+	// exists because of testing
+	public void setFullTextIndexing(@NotNull FullTextIndexing fullTextIndexing) {
+		this.fullTextIndexing = fullTextIndexing;
+	}
+
+	/**
+	 * Extension items whose values are stored in dedicated columns of m_object. See PromotedExtensionItems.
+	 */
+	@NotNull
+	public List<QName> getPromotedExtensionItems() {
+		return promotedExtensionItems;
+	}
+
+	// exists because of testing
+	public void setPromotedExtensionItems(@NotNull List<QName> promotedExtensionItems) {
+		this.promotedExtensionItems = promotedExtensionItems;
+	}
+
 	public String getDataSource() {
         return dataSource;
     }
@@ -921,6 +1031,10 @@ public class SqlRepositoryConfiguration {
         return skipOrgClosureStructureCheck;
     }
 
+    public OrgClosureManager.LockingStrategy getOrgClosureLocking() {
+        return orgClosureLocking;
+    }
+
     public Database getDatabase() {
         return database;
     }
@@ -42,6 +42,7 @@ import com.evolveum.midpoint.repo.sql.helpers.*;
 import com.evolveum.midpoint.repo.sql.query2.matcher.DefaultMatcher;
 import com.evolveum.midpoint.repo.sql.query2.matcher.PolyStringMatcher;
 import com.evolveum.midpoint.repo.sql.query2.matcher.StringMatcher;
+import com.evolveum.midpoint.repo.sql.util.CompactOidSet;
 import com.evolveum.midpoint.schema.*;
 import com.evolveum.midpoint.schema.internals.InternalMonitor;
 import com.evolveum.midpoint.schema.internals.InternalsConfig;
@@ -120,6 +121,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
     @Autowired private ObjectUpdater objectUpdater;
     @Autowired private OrgClosureManager closureManager;
     @Autowired private BaseHelper baseHelper;
+    @Autowired private PromotedExtensionItemsMarker promotedExtensionItemsMarker;
     @Autowired private MatchingRuleRegistry matchingRuleRegistry;
     @Autowired private MidpointConfiguration midpointConfiguration;
     @Autowired private PrismContext prismContext;
@@ -295,7 +297,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
 
         OperationResult subResult = result.createSubresult(SEARCH_OBJECTS);
         subResult.addParam("type", type.getName());
-        subResult.addParam("query", query);
+        subResult.addLazyParam("query", () -> query);
 
         return executeQueryAttempts(query, "searchObjects", "searching", subResult,
                 () -> new SearchResultList<>(new ArrayList<PrismObject<T>>(0)),
@@ -334,7 +336,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
 
         OperationResult result = parentResult.createSubresult(SEARCH_CONTAINERS);
         result.addParam("type", type.getName());
-        result.addParam("query", query);
+        result.addLazyParam("query", () -> query);
 
         return executeQueryAttempts(query, "searchContainers", "searching", result,
                 () -> new SearchResultList<>(new ArrayList<T>(0)),
@@ -354,7 +356,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
 
         OperationResult result = parentResult.createSubresult(COUNT_CONTAINERS);
         result.addParam("type", type.getName());
-        result.addParam("query", query);
+        result.addLazyParam("query", () -> query);
 
         return executeQueryAttemptsNoSchemaException(query, "countContainers", "counting", result,
                 () -> 0,
@@ -488,7 +490,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
 
         OperationResult subResult = result.createMinorSubresult(COUNT_OBJECTS);
         subResult.addParam("type", type.getName());
-        subResult.addParam("query", query);
+        subResult.addLazyParam("query", () -> query);
 
         return executeQueryAttemptsNoSchemaException(query, "countObjects", "counting", subResult,
                 () -> 0,
@@ -527,7 +529,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         OperationResult subResult = result.createSubresult(MODIFY_OBJECT);
         subResult.addParam("type", type.getName());
         subResult.addParam("oid", oid);
-        subResult.addArbitraryObjectCollectionAsParam("modifications", modifications);
+        subResult.addLazyParam("modifications", () -> modifications);
 
         if (modifications.isEmpty() && !RepoModifyOptions.isExecuteIfNoChanges(options)) {
             LOGGER.debug("Modification list is empty, nothing was modified.");
@@ -762,6 +764,77 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         getClosureManager().checkAndOrRebuild(true, repairIfNecessary, false, false, testResult);
     }
 
+    @Override
+    public Integer countAssignees(String targetOid, QName relation, OperationResult result) {
+        Validate.notEmpty(targetOid, "Target oid must not be null or empty.");
+        Validate.notNull(result, "Operation result must not be null.");
+
+        OperationResult subResult = result.createMinorSubresult(COUNT_ASSIGNEES);
+        subResult.addParam("targetOid", targetOid);
+        subResult.addParam("relation", relation);
+
+        try {
+            return executeAttempts(targetOid, "countAssignees", "counting assignees",
+                    subResult, () -> objectRetriever.countAssigneesAttempt(targetOid, relation, subResult));
+        } catch (ObjectNotFoundException | SchemaException e) {
+            throw new AssertionError("Should not occur", e);
+        }
+    }
+
+    @Override
+    public boolean updateTaskStatistics(String taskOid, Long progress, Long expectedTotal, OperationStatsType operationStats,
+            OperationResult result) throws ObjectNotFoundException, SchemaException {
+        Validate.notEmpty(taskOid, "Task oid must not be null or empty.");
+        Validate.notNull(result, "Operation result must not be null.");
+
+        OperationResult subResult = result.createMinorSubresult(UPDATE_TASK_STATISTICS);
+        subResult.addParam("taskOid", taskOid);
+        subResult.addParam("progress", progress);
+
+        executeAttempts(taskOid, "updateTaskStatistics", "updating statistics of",
+                subResult, () -> {
+                    objectUpdater.updateTaskStatisticsAttempt(taskOid, progress, expectedTotal, operationStats, subResult);
+                    return null;
+                });
+        return true;
+    }
+
+    @Override
+    public int testAssigneeCountConsistency(boolean repairIfNecessary, OperationResult result) {
+        OperationResult subResult = result.createSubresult(TEST_ASSIGNEE_COUNT_CONSISTENCY);
+        subResult.addParam("repairIfNecessary", repairIfNecessary);
+
+        int problems;
+        try {
+            problems = executeAttempts(null, "testAssigneeCountConsistency", "checking assignee counts",
+                    subResult, () -> objectUpdater.testAssigneeCountConsistencyAttempt(repairIfNecessary, subResult));
+        } catch (ObjectNotFoundException | SchemaException e) {
+            throw new AssertionError("Should not occur", e);
+        }
+        if (problems > 0 && subResult.isSuccess()) {
+            subResult.recordWarning("Found " + problems + " inconsistent assignee count(s)"
+                    + (repairIfNecessary ? "; they were repaired" : ""));
+        }
+        return problems;
+    }
+
+    @Override
+    public void setOrgClosureBulkMode(boolean bulkMode, OperationResult result) {
+        getClosureManager().setBulkMode(bulkMode, result);
+    }
+
+    @Override
+    public void recordAllObjectsReindexed(OperationResult result) {
+        OperationResult subResult = result.createSubresult(RECORD_ALL_OBJECTS_REINDEXED);
+        try {
+            promotedExtensionItemsMarker.recordBackfilled(subResult);
+            subResult.computeStatus();
+        } catch (RuntimeException e) {
+            subResult.recordFatalError(e);
+            throw e;
+        }
+    }
+
     @Override
     public <T extends ObjectType> String getVersion(Class<T> type, String oid, OperationResult parentResult)
             throws ObjectNotFoundException, SchemaException {
@@ -896,7 +969,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
 		/*
 		 * Here we store OIDs that were already sent to the client during previous attempts.
 		 */
-		Set<String> retrievedOids = new HashSet<>();
+		CompactOidSet retrievedOids = new CompactOidSet();
 
 		//        turned off until resolved 'unfinished operation' warning
 		//        SqlPerformanceMonitor pm = getPerformanceMonitor();
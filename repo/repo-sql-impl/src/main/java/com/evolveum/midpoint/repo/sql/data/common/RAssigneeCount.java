@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.repo.sql.data.common;
+
+import com.evolveum.midpoint.repo.sql.data.common.id.RAssigneeCountId;
+import com.evolveum.midpoint.repo.sql.helpers.modify.Ignore;
+import com.evolveum.midpoint.repo.sql.query2.definition.NotQueryable;
+import com.evolveum.midpoint.repo.sql.util.RUtil;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Change of the number of focal objects having an assignment to given target with given (normalized) relation.
+ * Each transaction that changes the assignments inserts its own row (identified by a random deltaId), so that
+ * concurrent assignments of the same target do not update the same row. The number of assignees is the sum of
+ * all rows for the target and relation; the rows are compacted by the consistency check.
+ *
+ * There is intentionally no foreign key to m_object: assignments to non-existing targets are counted as well.
+ */
+@Ignore
+@IdClass(RAssigneeCountId.class)
+@Entity
+@Table(name = RAssigneeCount.TABLE_NAME)
+@NotQueryable
+public class RAssigneeCount implements Serializable {
+
+    public static final String TABLE_NAME = "m_assignee_count";
+
+    private String targetOid;
+    private String relation;
+    private String deltaId;
+    private int assigneeCount;
+
+    public RAssigneeCount() {
+    }
+
+    public RAssigneeCount(String targetOid, String relation, String deltaId, int assigneeCount) {
+        this.targetOid = targetOid;
+        this.relation = relation;
+        this.deltaId = deltaId;
+        this.assigneeCount = assigneeCount;
+    }
+
+    @Id
+    @Column(name = "targetOid", length = RUtil.COLUMN_LENGTH_OID)
+    public String getTargetOid() {
+        return targetOid;
+    }
+
+    public void setTargetOid(String targetOid) {
+        this.targetOid = targetOid;
+    }
+
+    @Id
+    @Column(name = "relation", length = RUtil.COLUMN_LENGTH_QNAME)
+    public String getRelation() {
+        return relation;
+    }
+
+    public void setRelation(String relation) {
+        this.relation = relation;
+    }
+
+    @Id
+    @Column(name = "deltaId", length = RUtil.COLUMN_LENGTH_OID)
+    public String getDeltaId() {
+        return deltaId;
+    }
+
+    public void setDeltaId(String deltaId) {
+        this.deltaId = deltaId;
+    }
+
+    @Column(name = "assigneeCount", nullable = false)
+    public int getAssigneeCount() {
+        return assigneeCount;
+    }
+
+    public void setAssigneeCount(int assigneeCount) {
+        this.assigneeCount = assigneeCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        RAssigneeCount that = (RAssigneeCount) o;
+
+        if (targetOid != null ? !targetOid.equals(that.targetOid) : that.targetOid != null) return false;
+        if (relation != null ? !relation.equals(that.relation) : that.relation != null) return false;
+        if (deltaId != null ? !deltaId.equals(that.deltaId) : that.deltaId != null) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = targetOid != null ? targetOid.hashCode() : 0;
+        result = 31 * result + (relation != null ? relation.hashCode() : 0);
+        result = 31 * result + (deltaId != null ? deltaId.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "RAssigneeCount{target='" + targetOid + "', relation='" + relation + "', deltaId='" + deltaId + "', count=" + assigneeCount + "}";
+    }
+}
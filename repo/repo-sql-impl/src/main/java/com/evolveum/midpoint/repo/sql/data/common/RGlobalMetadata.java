@@ -31,6 +31,7 @@ public class RGlobalMetadata {
 
     public static final String TABLE_NAME = "m_global_metadata";
     public static final String DATABASE_SCHEMA_VERSION = "databaseSchemaVersion";
+    public static final String PROMOTED_EXTENSION_ITEMS = "promotedExtensionItems";
 
     private String name;
     private String value;
@@ -20,6 +20,7 @@ import com.evolveum.midpoint.prism.Item;
 import com.evolveum.midpoint.prism.PrismContainerValue;
 import com.evolveum.midpoint.prism.PrismContext;
 import com.evolveum.midpoint.repo.sql.data.RepositoryContext;
+import com.evolveum.midpoint.repo.sql.data.common.any.PromotedExtensionItems;
 import com.evolveum.midpoint.repo.sql.data.common.any.RAnyConverter;
 import com.evolveum.midpoint.repo.sql.data.common.any.RAnyValue;
 import com.evolveum.midpoint.repo.sql.data.common.any.ROExtBoolean;
@@ -81,6 +82,7 @@ import java.util.Set;
         @NamedQuery(name = "get.focusPhoto", query = "select p.photo from RFocusPhoto p where p.ownerOid = :oid"),
         @NamedQuery(name = "get.taskResult", query = "select t.fullResult from RTask t where t.oid = :oid"),
         @NamedQuery(name = "get.taskStatus", query = "select t.status from RTask t where t.oid = :oid"),
+        @NamedQuery(name = "get.taskStatistics", query = "select s.progress, s.expectedTotal, s.operationStats from RTaskStatistics s where s.taskOid = :oid"),
         @NamedQuery(name = "get.object", query = "select o.oid, o.fullObject, o.stringsCount, o.longsCount, o.datesCount, o.referencesCount, o.polysCount, o.booleansCount from RObject as o where o.oid=:oid"),
         @NamedQuery(name = "searchShadowOwner.getShadow", query = "select s.oid from RShadow as s where s.oid = :oid"),
         @NamedQuery(name = "searchShadowOwner.getOwner", query = "select o.oid, o.fullObject, o.stringsCount, o.longsCount, o.datesCount, o.referencesCount, o.polysCount, o.booleansCount from RFocus as o left join o.linkRef as ref where ref.targetOid = :oid"),
@@ -134,7 +136,11 @@ import java.util.Set;
         @Index(name = "iObjectNameNorm", columnList = "name_norm"),
         @Index(name = "iObjectTypeClass", columnList = "objectTypeClass"),
         @Index(name = "iObjectCreateTimestamp", columnList = "createTimestamp"),
-        @Index(name = "iObjectLifecycleState", columnList = "lifecycleState")})
+        @Index(name = "iObjectLifecycleState", columnList = "lifecycleState"),
+        @Index(name = "iObjectPromotedString1", columnList = "promotedString1"),
+        @Index(name = "iObjectPromotedString2", columnList = "promotedString2"),
+        @Index(name = "iObjectPromotedString3", columnList = "promotedString3"),
+        @Index(name = "iObjectPromotedString4", columnList = "promotedString4")})
 @Inheritance(strategy = InheritanceType.JOINED)
 @Persister(impl = MidPointJoinedPersister.class)
 public abstract class RObject<T extends ObjectType> implements Metadata<RObjectReference<RFocus>>, EntityState, Serializable {
@@ -182,6 +188,11 @@ public abstract class RObject<T extends ObjectType> implements Metadata<RObjectR
     private Set<ROExtReference> references;
     private Set<ROExtPolyString> polys;
     private Set<ROExtBoolean> booleans;
+    //values of promoted extension items, see PromotedExtensionItems
+    private String promotedString1;
+    private String promotedString2;
+    private String promotedString3;
+    private String promotedString4;
 
     private Set<RObjectTextInfo> textInfoItems;
 
@@ -572,6 +583,52 @@ public abstract class RObject<T extends ObjectType> implements Metadata<RObjectR
         this.booleans = booleans;
     }
 
+    @NotQueryable
+    public String getPromotedString1() {
+        return promotedString1;
+    }
+
+    public void setPromotedString1(String promotedString1) {
+        this.promotedString1 = promotedString1;
+    }
+
+    @NotQueryable
+    public String getPromotedString2() {
+        return promotedString2;
+    }
+
+    public void setPromotedString2(String promotedString2) {
+        this.promotedString2 = promotedString2;
+    }
+
+    @NotQueryable
+    public String getPromotedString3() {
+        return promotedString3;
+    }
+
+    public void setPromotedString3(String promotedString3) {
+        this.promotedString3 = promotedString3;
+    }
+
+    @NotQueryable
+    public String getPromotedString4() {
+        return promotedString4;
+    }
+
+    public void setPromotedString4(String promotedString4) {
+        this.promotedString4 = promotedString4;
+    }
+
+    public void setPromotedString(int index, String value) {
+        switch (index) {
+            case 0: setPromotedString1(value); break;
+            case 1: setPromotedString2(value); break;
+            case 2: setPromotedString3(value); break;
+            case 3: setPromotedString4(value); break;
+            default: throw new IllegalArgumentException("Wrong promoted string index: " + index);
+        }
+    }
+
     @NotQueryable
     @OneToMany(mappedBy = "owner", orphanRemoval = true)
     @Cascade({org.hibernate.annotations.CascadeType.ALL})
@@ -726,6 +783,7 @@ public abstract class RObject<T extends ObjectType> implements Metadata<RObjectR
         if (jaxb.getExtension() != null) {
             copyFromJAXB(jaxb.getExtension().asPrismContainerValue(), repo, repositoryContext, RObjectExtensionType.EXTENSION, generatorResult);
         }
+        PromotedExtensionItems.copyFromJAXB(jaxb, repo, repositoryContext);
 
         repo.getTextInfoItems().addAll(RObjectTextInfo.createItemsSet(jaxb, repo, repositoryContext));
         for (OperationExecutionType opExec : jaxb.getOperationExecution()) {
@@ -22,6 +22,8 @@ import com.evolveum.midpoint.prism.PrismPropertyValue;
 import com.evolveum.midpoint.prism.PrismValue;
 import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.repo.sql.SqlBaseService;
+import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration.FullTextIndexing;
 import com.evolveum.midpoint.repo.sql.data.RepositoryContext;
 import com.evolveum.midpoint.repo.sql.data.common.id.RObjectTextInfoId;
 import com.evolveum.midpoint.repo.sql.helpers.modify.Ignore;
@@ -40,6 +42,7 @@ import java.io.Serializable;
 import java.util.*;
 import java.util.Objects;
 
+import static com.evolveum.midpoint.repo.sql.data.common.RObjectTextInfo.F_TEXT;
 import static com.evolveum.midpoint.repo.sql.data.common.RObjectTextInfo.TABLE_NAME;
 
 /**
@@ -48,7 +51,9 @@ import static com.evolveum.midpoint.repo.sql.data.common.RObjectTextInfo.TABLE_N
 @Ignore
 @Entity
 @IdClass(RObjectTextInfoId.class)
-@Table(name = TABLE_NAME)
+@Table(name = TABLE_NAME, indexes = {
+        @Index(name = "iTextInfoText", columnList = F_TEXT)
+})
 public class RObjectTextInfo implements Serializable {
 
 	private static final Trace LOGGER = TraceManager.getTrace(RObjectTextInfo.class);
@@ -166,9 +171,34 @@ public class RObjectTextInfo implements Serializable {
 			}
 		}
 		LOGGER.trace("Indexing {}:\n  items: {}\n  values: {}\n  words:  {}", object, paths, values, allWords);
-		return createItemsSet(repo, allWords);
+		if (getFullTextIndexing(repositoryContext) == FullTextIndexing.WORDS) {
+			return createWordItemsSet(repo, allWords);
+		} else {
+			return createItemsSet(repo, allWords);
+		}
     }
 
+	private static FullTextIndexing getFullTextIndexing(RepositoryContext repositoryContext) {
+		if (repositoryContext.repositoryService instanceof SqlBaseService) {
+			return ((SqlBaseService) repositoryContext.repositoryService).getConfiguration().getFullTextIndexing();
+		} else {
+			return FullTextIndexing.CHUNKS;
+		}
+	}
+
+	// One row per word: the table then works as an inverted index (text -> owner), searchable by word prefix.
+	private static Set<RObjectTextInfo> createWordItemsSet(RObject repo, List<String> allWords) {
+		Set<RObjectTextInfo> rv = new HashSet<>();
+		for (String word : allWords) {
+			if (word.length() > MAX_TEXT_SIZE) {
+				LOGGER.warn("Word too long to be fully indexed, only its prefix will be searchable: {}", word);
+				word = word.substring(0, MAX_TEXT_SIZE);
+			}
+			rv.add(new RObjectTextInfo(repo, word));
+		}
+		return rv;
+	}
+
 	private static Set<RObjectTextInfo> createItemsSet(RObject repo, List<String> allWords) {
 		Set<RObjectTextInfo> rv = new HashSet<>();
 		StringBuilder sb = new StringBuilder();
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.repo.sql.data.common;
+
+import com.evolveum.midpoint.repo.sql.helpers.modify.Ignore;
+import com.evolveum.midpoint.repo.sql.query2.definition.NotQueryable;
+import com.evolveum.midpoint.repo.sql.util.RUtil;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Live progress and operation statistics of a task, stored separately from the task full object.
+ *
+ * Running tasks update these values frequently. Writing this small row is much cheaper than re-serializing
+ * (and re-compressing) the whole task object. The values are merged into the task when it is read; when the task
+ * object itself is modified, they become part of its full object and the row is removed.
+ *
+ * There is intentionally no foreign key to m_task: the row is removed explicitly when the task is deleted.
+ */
+@Ignore
+@Entity
+@Table(name = RTaskStatistics.TABLE_NAME)
+@NotQueryable
+public class RTaskStatistics implements Serializable {
+
+    public static final String TABLE_NAME = "m_task_statistics";
+
+    private String taskOid;
+    private Long progress;
+    private Long expectedTotal;
+    private byte[] operationStats;
+
+    @Id
+    @Column(name = "taskOid", length = RUtil.COLUMN_LENGTH_OID)
+    public String getTaskOid() {
+        return taskOid;
+    }
+
+    public void setTaskOid(String taskOid) {
+        this.taskOid = taskOid;
+    }
+
+    public Long getProgress() {
+        return progress;
+    }
+
+    public void setProgress(Long progress) {
+        this.progress = progress;
+    }
+
+    public Long getExpectedTotal() {
+        return expectedTotal;
+    }
+
+    public void setExpectedTotal(Long expectedTotal) {
+        this.expectedTotal = expectedTotal;
+    }
+
+    /**
+     * Compressed XML serialization of OperationStatsType.
+     */
+    @Lob
+    public byte[] getOperationStats() {
+        return operationStats;
+    }
+
+    public void setOperationStats(byte[] operationStats) {
+        this.operationStats = operationStats;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        RTaskStatistics that = (RTaskStatistics) o;
+
+        if (taskOid != null ? !taskOid.equals(that.taskOid) : that.taskOid != null) return false;
+        if (progress != null ? !progress.equals(that.progress) : that.progress != null) return false;
+        if (expectedTotal != null ? !expectedTotal.equals(that.expectedTotal) : that.expectedTotal != null) return false;
+        return Arrays.equals(operationStats, that.operationStats);
+    }
+
+    @Override
+    public int hashCode() {
+        return taskOid != null ? taskOid.hashCode() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RTaskStatistics{task='" + taskOid + "', progress=" + progress + ", expectedTotal=" + expectedTotal + "}";
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.repo.sql.data.common.any;
+
+import com.evolveum.midpoint.prism.ItemDefinition;
+import com.evolveum.midpoint.prism.PrismContainer;
+import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.prism.PrismPropertyDefinition;
+import com.evolveum.midpoint.repo.sql.SqlBaseService;
+import com.evolveum.midpoint.repo.sql.data.RepositoryContext;
+import com.evolveum.midpoint.repo.sql.data.common.RObject;
+import com.evolveum.midpoint.util.DOMUtil;
+import com.evolveum.midpoint.util.QNameUtil;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.jetbrains.annotations.NotNull;
+
+import javax.xml.namespace.QName;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Support for "promoted" extension items (configured by promotedExtensionItems repository property).
+ *
+ * Values of promoted items are stored in dedicated indexed columns of m_object (promotedString1, promotedString2, ...),
+ * in the order of configuration, in addition to the usual m_object_ext_string rows. Filters on such items
+ * (extension/item = value, substring, greater/less) are then interpreted as conditions on the column,
+ * without the join to the extension table.
+ *
+ * Only single-valued string items of the object extension can be promoted. Other items (or object extensions
+ * having more values, e.g. because of dynamic definitions) are queried via extension tables as usual.
+ *
+ * Columns of existing objects are filled-in when the objects are modified or reindexed (e.g. by reindex task),
+ * so the reindexing has to be run after the list of promoted items is changed. Queries use the columns only after
+ * a complete reindex is recorded for the current list of items (see PromotedExtensionItemsMarker); until then,
+ * extension tables are used.
+ */
+public final class PromotedExtensionItems {
+
+    public static final int MAX_ITEMS = 4;
+
+    private PromotedExtensionItems() {
+    }
+
+    public static String getColumnProperty(int index) {
+        return "promotedString" + (index + 1);
+    }
+
+    /**
+     * Returns the index of the column the item is promoted to, or -1 if the item is not promoted (or cannot be).
+     */
+    public static int getIndex(@NotNull List<QName> promotedItems, ItemDefinition definition) {
+        if (!isPromotable(definition)) {
+            return -1;
+        }
+        for (int i = 0; i < promotedItems.size() && i < MAX_ITEMS; i++) {
+            if (QNameUtil.match(promotedItems.get(i), definition.getName())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Value stored in m_global_metadata after the backfill. It identifies the list of items (including the order),
+     * and it is hashed because the list need not fit into the value column.
+     */
+    @NotNull
+    public static String getMarkerValue(@NotNull List<QName> promotedItems) {
+        StringBuilder sb = new StringBuilder();
+        for (QName item : promotedItems) {
+            sb.append(QNameUtil.qNameToUri(item)).append('\n');
+        }
+        return DigestUtils.sha1Hex(sb.toString());
+    }
+
+    private static boolean isPromotable(ItemDefinition definition) {
+        return definition instanceof PrismPropertyDefinition && definition.isSingleValue()
+                && DOMUtil.XSD_STRING.equals(definition.getTypeName());
+    }
+
+    /**
+     * Sets promoted columns from the object extension. Columns not used by current configuration are cleared.
+     */
+    public static void copyFromJAXB(ObjectType jaxb, RObject<?> repo, RepositoryContext repositoryContext) {
+        List<QName> promotedItems = getPromotedItems(repositoryContext);
+        PrismContainer<?> extension = jaxb.asPrismObject().getExtension();
+        for (int i = 0; i < MAX_ITEMS; i++) {
+            String value = null;
+            if (i < promotedItems.size() && extension != null) {
+                value = getValue(extension.findProperty(promotedItems.get(i)));
+            }
+            repo.setPromotedString(i, value);
+        }
+    }
+
+    private static String getValue(PrismProperty<?> property) {
+        if (property == null || property.size() != 1 || !isPromotable(property.getDefinition())) {
+            return null;
+        }
+        Object realValue = property.getRealValue();
+        return realValue instanceof String ? (String) realValue : null;
+    }
+
+    @NotNull
+    private static List<QName> getPromotedItems(RepositoryContext repositoryContext) {
+        if (repositoryContext.repositoryService instanceof SqlBaseService) {
+            return ((SqlBaseService) repositoryContext.repositoryService).getConfiguration().getPromotedExtensionItems();
+        } else {
+            return Collections.emptyList();
+        }
+    }
+}
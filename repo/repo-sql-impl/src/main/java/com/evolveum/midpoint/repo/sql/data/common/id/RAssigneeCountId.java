@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.repo.sql.data.common.id;
+
+import java.io.Serializable;
+
+public class RAssigneeCountId implements Serializable {
+
+    private String targetOid;
+    private String relation;
+    private String deltaId;
+
+    public String getTargetOid() {
+        return targetOid;
+    }
+
+    public void setTargetOid(String targetOid) {
+        this.targetOid = targetOid;
+    }
+
+    public String getRelation() {
+        return relation;
+    }
+
+    public void setRelation(String relation) {
+        this.relation = relation;
+    }
+
+    public String getDeltaId() {
+        return deltaId;
+    }
+
+    public void setDeltaId(String deltaId) {
+        this.deltaId = deltaId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        RAssigneeCountId that = (RAssigneeCountId) o;
+
+        if (targetOid != null ? !targetOid.equals(that.targetOid) : that.targetOid != null) return false;
+        if (relation != null ? !relation.equals(that.relation) : that.relation != null) return false;
+        if (deltaId != null ? !deltaId.equals(that.deltaId) : that.deltaId != null) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = targetOid != null ? targetOid.hashCode() : 0;
+        result = 31 * result + (relation != null ? relation.hashCode() : 0);
+        result = 31 * result + (deltaId != null ? deltaId.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "RAssigneeCountId{" +
+                "targetOid='" + targetOid + '\'' +
+                ", relation='" + relation + '\'' +
+                ", deltaId='" + deltaId + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.repo.sql.data.common.RAssigneeCount;
+import com.evolveum.midpoint.repo.sql.data.common.other.RAssignmentOwner;
+import com.evolveum.midpoint.repo.sql.util.RUtil;
+import com.evolveum.midpoint.schema.RelationRegistry;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AssignmentType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.FocusType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectReferenceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Maintains m_assignee_count table, i.e. the number of focal objects assigned to each target (per relation).
+ *
+ * Counts are changed within the transaction that changes the assignments. For each (target, relation) pair
+ * an object is counted once, regardless of how many assignments to the target it has. The table is append-only:
+ * each change is inserted as a separate delta row, and the count is the sum of the rows. So concurrent assignments
+ * of the same (popular) target do not contend for a single counter row. The delta rows are compacted
+ * by {@link #checkAndRepair(Session, boolean)}.
+ */
+@Component
+public class AssigneeCountHelper {
+
+    private static final Trace LOGGER = TraceManager.getTrace(AssigneeCountHelper.class);
+
+    @Autowired private RelationRegistry relationRegistry;
+
+    /**
+     * Returns the (sorted) set of targets with relations the object is assigned to. Empty for non-focal objects.
+     */
+    @NotNull
+    public SortedSet<Key> getKeys(PrismObject<? extends ObjectType> object) {
+        SortedSet<Key> keys = new TreeSet<>();
+        if (object == null || !(object.asObjectable() instanceof FocusType)) {
+            return keys;
+        }
+        for (AssignmentType assignment : ((FocusType) object.asObjectable()).getAssignment()) {
+            ObjectReferenceType targetRef = assignment.getTargetRef();
+            if (targetRef != null && targetRef.getOid() != null) {
+                keys.add(new Key(targetRef.getOid(), normalizeRelation(targetRef.getRelation())));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the set of targets with relations the stored object is assigned to, as currently present in the database.
+     */
+    @NotNull
+    public SortedSet<Key> getStoredKeys(Session session, String ownerOid) {
+        Query query = session.createQuery("select distinct a.targetRef.targetOid, a.targetRef.relation from RAssignment a "
+                + "where a.ownerOid = :oid and a.assignmentOwner = :owner and a.targetRef.targetOid is not null");
+        query.setParameter("oid", ownerOid);
+        query.setParameter("owner", RAssignmentOwner.FOCUS);
+        SortedSet<Key> keys = new TreeSet<>();
+        for (Object[] row : (List<Object[]>) query.list()) {
+            keys.add(new Key((String) row[0], (String) row[1]));
+        }
+        return keys;
+    }
+
+    /**
+     * Updates the counters after the object's assignments changed from oldKeys to newKeys.
+     */
+    public void updateCounts(Session session, @NotNull SortedSet<Key> oldKeys, @NotNull SortedSet<Key> newKeys) {
+        SortedSet<Key> all = new TreeSet<>(oldKeys);
+        all.addAll(newKeys);
+        for (Key key : all) {
+            boolean inOld = oldKeys.contains(key);
+            boolean inNew = newKeys.contains(key);
+            if (inOld != inNew) {
+                updateCount(session, key, inNew ? 1 : -1);
+            }
+        }
+    }
+
+    private void updateCount(Session session, Key key, int delta) {
+        LOGGER.trace("Updating assignee count for {} by {}", key, delta);
+        session.save(new RAssigneeCount(key.targetOid, key.relation, createDeltaId(), delta));
+    }
+
+    private String createDeltaId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Returns the number of focal objects assigned to given target with given relation.
+     */
+    public int countAssignees(Session session, String targetOid, QName relation) {
+        Query query = session.createQuery("select sum(c.assigneeCount) from RAssigneeCount c "
+                + "where c.targetOid = :targetOid and c.relation = :relation");
+        query.setParameter("targetOid", targetOid);
+        query.setParameter("relation", normalizeRelation(relation));
+        Number count = (Number) query.uniqueResult();
+        return count != null ? Math.max(count.intValue(), 0) : 0;
+    }
+
+    /**
+     * Compares the counts with the values computed from m_assignment table. When repairing, the delta rows
+     * are also compacted, i.e. replaced by a single row for each target and relation (or by none for zero counts).
+     *
+     * @return Number of counts that were found inconsistent (and repaired, if requested).
+     */
+    public int checkAndRepair(Session session, boolean repair) {
+        Query expectedQuery = session.createQuery("select a.targetRef.targetOid, a.targetRef.relation, count(distinct a.ownerOid) "
+                + "from RAssignment a where a.assignmentOwner = :owner and a.targetRef.targetOid is not null "
+                + "group by a.targetRef.targetOid, a.targetRef.relation");
+        expectedQuery.setParameter("owner", RAssignmentOwner.FOCUS);
+        Map<Key, Integer> expected = new HashMap<>();
+        for (Object[] row : (List<Object[]>) expectedQuery.list()) {
+            expected.put(new Key((String) row[0], (String) row[1]), ((Number) row[2]).intValue());
+        }
+
+        Map<Key, List<RAssigneeCount>> actual = new TreeMap<>();
+        Query actualQuery = session.createQuery("from RAssigneeCount");
+        for (RAssigneeCount row : (List<RAssigneeCount>) actualQuery.list()) {
+            actual.computeIfAbsent(new Key(row.getTargetOid(), row.getRelation()), k -> new ArrayList<>()).add(row);
+        }
+
+        int problems = 0;
+        for (Map.Entry<Key, List<RAssigneeCount>> entry : actual.entrySet()) {
+            Key key = entry.getKey();
+            List<RAssigneeCount> rows = entry.getValue();
+            int actualValue = rows.stream().mapToInt(RAssigneeCount::getAssigneeCount).sum();
+            Integer expectedCount = expected.remove(key);
+            int expectedValue = expectedCount != null ? expectedCount : 0;
+            if (actualValue != expectedValue) {
+                LOGGER.warn("Wrong assignee count for target {} and relation {}: expected {}, found {}",
+                        key.targetOid, key.relation, expectedValue, actualValue);
+                problems++;
+            }
+            if (repair && (actualValue != expectedValue || rows.size() > 1 || expectedValue == 0)) {
+                // only the rows read here are deleted; rows inserted concurrently are kept
+                rows.forEach(session::delete);
+                if (expectedValue != 0) {
+                    session.save(new RAssigneeCount(key.targetOid, key.relation, createDeltaId(), expectedValue));
+                }
+            }
+        }
+        for (Map.Entry<Key, Integer> missing : expected.entrySet()) {
+            LOGGER.warn("Missing assignee count for {}: expected {}", missing.getKey(), missing.getValue());
+            problems++;
+            if (repair) {
+                session.save(new RAssigneeCount(missing.getKey().targetOid, missing.getKey().relation, createDeltaId(),
+                        missing.getValue()));
+            }
+        }
+        return problems;
+    }
+
+    private String normalizeRelation(QName relation) {
+        return RUtil.qnameToString(relationRegistry.normalizeRelation(relation));
+    }
+
+    public static final class Key implements Comparable<Key> {
+        private final String targetOid;
+        private final String relation;
+
+        Key(String targetOid, String relation) {
+            this.targetOid = targetOid;
+            this.relation = relation;
+        }
+
+        @Override
+        public int compareTo(@NotNull Key o) {
+            int c = targetOid.compareTo(o.targetOid);
+            return c != 0 ? c : String.valueOf(relation).compareTo(String.valueOf(o.relation));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return targetOid.equals(key.targetOid) && Objects.equals(relation, key.relation);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(targetOid, relation);
+        }
+
+        @Override
+        public String toString() {
+            return targetOid + "/" + relation;
+        }
+    }
+}
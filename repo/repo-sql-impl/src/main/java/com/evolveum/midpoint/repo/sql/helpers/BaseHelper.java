@@ -17,6 +17,7 @@
 package com.evolveum.midpoint.repo.sql.helpers;
 
 import com.evolveum.midpoint.repo.sql.*;
+import com.evolveum.midpoint.repo.sql.data.common.RTaskStatistics;
 import com.evolveum.midpoint.repo.sql.util.RUtil;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.schema.util.ExceptionUtil;
@@ -301,7 +302,17 @@ public class BaseHelper {
 
 	private static final Pattern[] okPatterns = new Pattern[] {
 			Pattern.compile(".*Duplicate entry '.*' for key 'iExtItemDefinition'.*"),               // MySQL
-			Pattern.compile(".*ORA-00001:.*\\.IEXTITEMDEFINITION\\).*")                             // Oracle
+			Pattern.compile(".*ORA-00001:.*\\.IEXTITEMDEFINITION\\).*"),                            // Oracle
+
+			// concurrent creation of the same task statistics row
+			Pattern.compile(".*ORA-00001:.*\\.M_TASK_STATISTICS_PK\\).*")                           // Oracle
+	};
+
+	// MySQL reports all primary key violations as "for key 'PRIMARY'", so the table is determined from the failed statement
+	private static final Pattern MYSQL_PRIMARY_KEY_VIOLATION = Pattern.compile(".*Duplicate entry '.*' for key 'PRIMARY'.*", Pattern.DOTALL);
+
+	private static final String[] okMySqlPrimaryKeyTables = new String[] {
+			RTaskStatistics.TABLE_NAME
 	};
 
 	private static final String[] okStrings = new String[] {
@@ -309,6 +320,11 @@ public class BaseHelper {
 		"Violation of UNIQUE KEY constraint 'iExtItemDefinition'",                  // SQL Server
 		"duplicate key value violates unique constraint \"iextitemdefinition\"",    // PostgreSQL
 
+		// concurrent creation of the same task statistics row
+		"Unique index or primary key violation: \"PRIMARY KEY ON PUBLIC.M_TASK_STATISTICS",   // H2
+		"duplicate key value violates unique constraint \"m_task_statistics_pkey\"",        // PostgreSQL
+		"Violation of PRIMARY KEY constraint 'M_TASK_STATISTICS_PK'",                       // SQL Server
+
 		// SQL Server
 		"Violation of PRIMARY KEY constraint 'PK__m_org_cl__",
 		"Violation of PRIMARY KEY constraint 'PK__m_refere__",
@@ -379,6 +395,23 @@ public class BaseHelper {
 					return true;
 				}
 			}
+			if ((MYSQL_PRIMARY_KEY_VIOLATION.matcher(msg1).matches() || MYSQL_PRIMARY_KEY_VIOLATION.matcher(msg2).matches())
+					&& isInsertInto(cve.getSQL(), okMySqlPrimaryKeyTables)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isInsertInto(String sql, String[] tables) {
+		if (sql == null) {
+			return false;
+		}
+		String normalized = sql.trim().toLowerCase();
+		for (String table : tables) {
+			if (normalized.startsWith("insert into " + table.toLowerCase() + " ")) {
+				return true;
+			}
 		}
 		return false;
 	}
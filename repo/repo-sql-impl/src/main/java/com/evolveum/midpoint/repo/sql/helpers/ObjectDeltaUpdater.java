@@ -353,6 +353,10 @@ public class ObjectDeltaUpdater {
 
         handleObjectTextInfoChanges(type, modifications, prismObject, object);
 
+        // values of promoted extension items are simply recomputed; unchanged columns are not updated by hibernate
+        PromotedExtensionItems.copyFromJAXB(prismObject.asObjectable(), object,
+                new RepositoryContext(repositoryService, prismContext, relationRegistry, extItemDictionary));
+
         // generate ids for containers that weren't handled in previous step (not processed by repository)
         idGenerator.generate(prismObject);
 
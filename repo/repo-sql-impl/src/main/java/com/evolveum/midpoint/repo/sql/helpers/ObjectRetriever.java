@@ -19,6 +19,8 @@ package com.evolveum.midpoint.repo.sql.helpers;
 import com.evolveum.midpoint.common.crypto.CryptoUtil;
 import com.evolveum.midpoint.prism.*;
 import com.evolveum.midpoint.prism.marshaller.XNodeProcessorEvaluationMode;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.query.ObjectOrdering;
 import com.evolveum.midpoint.prism.query.ObjectPaging;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.repo.api.RepositoryObjectDiagnosticData;
@@ -59,10 +61,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.xml.namespace.QName;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.commons.lang3.ArrayUtils.getLength;
 import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
@@ -79,6 +89,8 @@ public class ObjectRetriever {
     private static final Trace LOGGER = TraceManager.getTrace(ObjectRetriever.class);
     private static final Trace LOGGER_PERFORMANCE = TraceManager.getTrace(SqlRepositoryServiceImpl.PERFORMANCE_LOG_NAME);
 
+    private static final int PARSING_QUEUE_SIZE_PER_THREAD = 4;
+
     @Autowired private LookupTableHelper lookupTableHelper;
 	@Autowired private CertificationCaseHelper caseHelper;
 	@Autowired private CaseManagementHelper caseManagementHelper;
@@ -87,10 +99,18 @@ public class ObjectRetriever {
 	@Autowired private PrismContext prismContext;
 	@Autowired private RelationRegistry relationRegistry;
 	@Autowired private ExtItemDictionary extItemDictionary;
+	@Autowired private PromotedExtensionItemsMarker promotedExtensionItemsMarker;
+	@Autowired private AssigneeCountHelper assigneeCountHelper;
+	@Autowired private TaskStatisticsHelper taskStatisticsHelper;
 	@Autowired
 	@Qualifier("repositoryService")
 	private RepositoryService repositoryService;
 
+	private ThreadPoolExecutor parsingExecutor;         // guarded by this; created on first use
+
+	// set while a page of iterative search by paging is being retrieved, so the page is parsed in parallel
+	private final ThreadLocal<Boolean> parallelPageParsing = new ThreadLocal<>();
+
     public <T extends ObjectType> PrismObject<T> getObjectAttempt(Class<T> type, String oid,
 			Collection<SelectorOptions<GetOperationOptions>> options, OperationResult result)
             throws ObjectNotFoundException, SchemaException {
@@ -321,7 +341,7 @@ public class ObjectRetriever {
                 longCount = (Number) sqlQuery.uniqueResult();
             } else {
                 RQuery rQuery;
-				QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, prismContext, relationRegistry);
+				QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, promotedExtensionItemsMarker, prismContext, relationRegistry);
 				rQuery = engine.interpret(query, type, options, true, session);
 
                 longCount = (Number) rQuery.uniqueResult();
@@ -353,7 +373,7 @@ public class ObjectRetriever {
 		try {
 			session = baseHelper.beginReadOnlyTransaction();
 
-			QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, prismContext, relationRegistry);
+			QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, promotedExtensionItemsMarker, prismContext, relationRegistry);
 			RQuery rQuery = engine.interpret(query, type, options, true, session);
 			Number longCount = (Number) rQuery.uniqueResult();
 			LOGGER.trace("Found {} objects.", longCount);
@@ -377,14 +397,20 @@ public class ObjectRetriever {
             session = baseHelper.beginReadOnlyTransaction();
             RQuery rQuery;
 
-			QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, prismContext, relationRegistry);
+			QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, promotedExtensionItemsMarker, prismContext, relationRegistry);
 			rQuery = engine.interpret(query, type, options, false, session);
 
 			@SuppressWarnings({"unchecked", "raw"})
 			List<GetObjectResult> queryResult = rQuery.list();
             LOGGER.trace("Found {} objects, translating to JAXB.", queryResult != null ? queryResult.size() : 0);
 
-			List<PrismObject<T>> list = queryResultToPrismObjects(queryResult, type, options, session, result);
+			List<PrismObject<T>> list;
+			if (Boolean.TRUE.equals(parallelPageParsing.get()) && getConfiguration().getIterativeSearchParsingThreads() > 0
+					&& queryResult != null && queryResult.size() > 1) {
+				list = queryResultToPrismObjectsParallel(queryResult, type, options, session, result);
+			} else {
+				list = queryResultToPrismObjects(queryResult, type, options, session, result);
+			}
             session.getTransaction().commit();
 			return new SearchResultList<>(list);
 
@@ -425,6 +451,41 @@ public class ObjectRetriever {
 		return rv;
 	}
 
+	/**
+	 * Variant of queryResultToPrismObjects that parses the objects using the parsing thread pool. The session-dependent
+	 * part of object loading is executed in this thread, in the original order.
+	 */
+	private <T extends ObjectType> List<PrismObject<T>> queryResultToPrismObjectsParallel(List<GetObjectResult> objects,
+			Class<T> type, Collection<SelectorOptions<GetOperationOptions>> options, Session session, OperationResult result) {
+		ExecutorService executor = getParsingExecutor();
+		List<PendingObject<T>> pending = new ArrayList<>(objects.size());
+		for (GetObjectResult row : objects) {
+			pending.add(new PendingObject<>(row, executor.submit(() -> parseLoadedObject(row, type, row.getOid(), options))));
+		}
+		List<PrismObject<T>> rv = new ArrayList<>(objects.size());
+		try {
+			for (PendingObject<T> next : pending) {
+				String oid = next.row.getOid();
+				PrismObject<T> prismObject;
+				try {
+					prismObject = updateParsedObject(next.getParsedObject(), next.row, type, options, null, session);
+				} catch (Throwable t) {
+					prismObject = prismContext.createObject(type);
+					prismObject.setOid(oid);
+					prismObject.asObjectable().setName(PolyStringType.fromOrig("Unreadable object"));
+					result.recordFatalError("Couldn't retrieve " + type + " " + oid + ": " + t.getMessage(), t);
+					prismObject.asObjectable().setFetchResult(result.createOperationResultType());
+				}
+				rv.add(prismObject);
+			}
+		} finally {
+			for (PendingObject<T> remaining : pending) {
+				remaining.future.cancel(false);
+			}
+		}
+		return rv;
+	}
+
 	public <C extends Containerable> SearchResultList<C> searchContainersAttempt(Class<C> type, ObjectQuery query,
 			Collection<SelectorOptions<GetOperationOptions>> options, OperationResult result) throws SchemaException {
 
@@ -441,7 +502,7 @@ public class ObjectRetriever {
         try {
             session = baseHelper.beginReadOnlyTransaction();
 
-            QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, prismContext, relationRegistry);
+            QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, promotedExtensionItemsMarker, prismContext, relationRegistry);
             RQuery rQuery = engine.interpret(query, type, options, false, session);
 
             if (cases) {
@@ -504,7 +565,16 @@ public class ObjectRetriever {
     		String oid, Collection<SelectorOptions<GetOperationOptions>> options,
 			Holder<PrismObject<T>> partialValueHolder,
 			Session session, OperationResult operationResult) throws SchemaException {
+		PrismObject<T> prismObject = parseLoadedObject(result, type, oid, options);
+		return updateParsedObject(prismObject, result, type, options, partialValueHolder, session);
+	}
 
+	/**
+	 * The part of loaded object processing that does not need the session. It is therefore safe to execute it
+	 * in a thread other than the one that owns the session.
+	 */
+	private <T extends ObjectType> PrismObject<T> parseLoadedObject(GetObjectResult result, Class<T> type,
+			String oid, Collection<SelectorOptions<GetOperationOptions>> options) throws SchemaException {
 		byte[] fullObject = result.getFullObject();
 		String xml = RUtil.getXmlFromByteArray(fullObject, getConfiguration().isUseZip());
         PrismObject<T> prismObject;
@@ -527,6 +597,12 @@ public class ObjectRetriever {
             throw e;
         }
         attachDiagDataIfRequested(prismObject, fullObject, options);
+        return prismObject;
+    }
+
+	private <T extends ObjectType> PrismObject<T> updateParsedObject(PrismObject<T> prismObject, GetObjectResult result,
+			Class<T> type, Collection<SelectorOptions<GetOperationOptions>> options, Holder<PrismObject<T>> partialValueHolder,
+			Session session) throws SchemaException {
         if (FocusType.class.isAssignableFrom(prismObject.getCompileTimeClass())) {
             if (SelectorOptions.hasToLoadPath(FocusType.F_JPEG_PHOTO, options)) {
                 //todo improve, use user.hasPhoto flag and take options into account [lazyman]
@@ -566,6 +642,7 @@ public class ObjectRetriever {
         } else if (AccessCertificationCampaignType.class.equals(prismObject.getCompileTimeClass())) {
             caseHelper.updateLoadedCampaign(prismObject, options, session);
         } else if (TaskType.class.equals(prismObject.getCompileTimeClass())) {
+            taskStatisticsHelper.updateLoadedTask((PrismObject<TaskType>) prismObject, session);
             if (SelectorOptions.hasToLoadPath(TaskType.F_RESULT, options)) {
                 Query query = session.getNamedQuery("get.taskResult");
                 query.setParameter("oid", prismObject.getOid());
@@ -732,44 +809,62 @@ public class ObjectRetriever {
         return version;
     }
 
+    public int countAssigneesAttempt(String targetOid, QName relation, OperationResult result) {
+        int count = 0;
+        Session session = null;
+        try {
+            session = baseHelper.beginReadOnlyTransaction();
+            count = assigneeCountHelper.countAssignees(session, targetOid, relation);
+            session.getTransaction().commit();
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, result);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, result);
+        }
+        return count;
+    }
+
     public <T extends ObjectType> void searchObjectsIterativeAttempt(Class<T> type, ObjectQuery query, ResultHandler<T> handler,
-			Collection<SelectorOptions<GetOperationOptions>> options, OperationResult result, Set<String> retrievedOids)
+			Collection<SelectorOptions<GetOperationOptions>> options, OperationResult result, CompactOidSet retrievedOids)
 			throws SchemaException {
-		Set<String> newlyRetrievedOids = new HashSet<>();
+		CompactOidSet newlyRetrievedOids = new CompactOidSet();
         Session session = null;
         try {
             session = baseHelper.beginReadOnlyTransaction();
             RQuery rQuery;
-			QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, prismContext, relationRegistry);
+			QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, promotedExtensionItemsMarker, prismContext, relationRegistry);
 			rQuery = engine.interpret(query, type, options, false, session);
 
             ScrollableResults results = rQuery.scroll(ScrollMode.FORWARD_ONLY);
             try {
                 Iterator<GetObjectResult> iterator = new ScrollableResultsIterator<>(results);
-                while (iterator.hasNext()) {
-                    GetObjectResult object = iterator.next();
-
-                    if (retrievedOids.contains(object.getOid())) {
-                    	continue;
-					}
-
-					// TODO treat exceptions encountered within the next call
-					PrismObject<T> prismObject = updateLoadedObject(object, type, null, options, null, session, result);
-
-					/*
-					 *  We DO NOT store OIDs directly into retrievedOids, because this would mean that any duplicated results
-					 *  would get eliminated from processing. While this is basically OK, it would break existing behavior,
-					 *  and would lead to inconsistencies between e.g. "estimated total" vs "progress" in iterative tasks.
-					 *  Such inconsistencies could happen also in the current approach with retrievedOids/newlyRetrievedOids,
-					 *  but are much less likely.
-					 *  TODO reconsider this in the future - i.e. if it would not be beneficial to skip duplicate processing of objects
-					 *  TODO what about memory requirements of this data structure (consider e.g. millions of objects)
-					 */
-					newlyRetrievedOids.add(object.getOid());
-
-                    if (!handler.handle(prismObject, result)) {
-                        break;
-                    }
+                if (getConfiguration().getIterativeSearchParsingThreads() > 0) {
+                	processRowsPipelined(iterator, type, handler, options, session, result, retrievedOids, newlyRetrievedOids);
+                } else {
+	                while (iterator.hasNext()) {
+	                    GetObjectResult object = iterator.next();
+
+	                    if (retrievedOids.contains(object.getOid())) {
+	                        continue;
+	                    }
+
+	                    // TODO treat exceptions encountered within the next call
+	                    PrismObject<T> prismObject = updateLoadedObject(object, type, null, options, null, session, result);
+
+	                    /*
+	                     *  We DO NOT store OIDs directly into retrievedOids, because this would mean that any duplicated results
+	                     *  would get eliminated from processing. While this is basically OK, it would break existing behavior,
+	                     *  and would lead to inconsistencies between e.g. "estimated total" vs "progress" in iterative tasks.
+	                     *  Such inconsistencies could happen also in the current approach with retrievedOids/newlyRetrievedOids,
+	                     *  but are much less likely.
+	                     *  TODO reconsider this in the future - i.e. if it would not be beneficial to skip duplicate processing of objects
+	                     */
+	                    newlyRetrievedOids.add(object.getOid());
+
+	                    if (!handler.handle(prismObject, result)) {
+	                        break;
+	                    }
+	                }
                 }
             } finally {
                 if (results != null) {
@@ -786,6 +881,114 @@ public class ObjectRetriever {
         }
     }
 
+	/**
+	 * Pipelined variant of the row processing: this thread only reads rows from the result set, while parsing
+	 * of the objects (which is the most expensive part) is done by a thread pool. Objects are passed to the
+	 * handler in the original order and from this thread. The session-dependent part of object loading
+	 * (e.g. fetching of photos or lookup table rows) is executed also in this thread.
+	 *
+	 * At most (parsing threads * PARSING_QUEUE_SIZE_PER_THREAD) objects are read ahead.
+	 */
+	private <T extends ObjectType> void processRowsPipelined(Iterator<GetObjectResult> iterator, Class<T> type,
+			ResultHandler<T> handler, Collection<SelectorOptions<GetOperationOptions>> options, Session session,
+			OperationResult result, CompactOidSet retrievedOids, CompactOidSet newlyRetrievedOids) throws SchemaException {
+		int threads = getConfiguration().getIterativeSearchParsingThreads();
+		ExecutorService executor = getParsingExecutor();
+		int maxPending = threads * PARSING_QUEUE_SIZE_PER_THREAD;
+		Deque<PendingObject<T>> pending = new ArrayDeque<>(maxPending);
+		try {
+			for (;;) {
+				while (pending.size() < maxPending && iterator.hasNext()) {
+					GetObjectResult row = iterator.next();
+					if (!retrievedOids.contains(row.getOid())) {
+						pending.addLast(new PendingObject<>(row,
+								executor.submit(() -> parseLoadedObject(row, type, row.getOid(), options))));
+					}
+				}
+				PendingObject<T> next = pending.pollFirst();
+				if (next == null) {
+					break;
+				}
+				PrismObject<T> prismObject = updateParsedObject(next.getParsedObject(), next.row, type, options, null, session);
+				newlyRetrievedOids.add(next.row.getOid());        // see the comment in searchObjectsIterativeAttempt
+				if (!handler.handle(prismObject, result)) {
+					break;
+				}
+			}
+		} finally {
+			for (PendingObject<T> remaining : pending) {
+				remaining.future.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * The pool is sized according to the current configuration. If the configured number of threads changes,
+	 * the existing pool is resized.
+	 */
+	private synchronized ExecutorService getParsingExecutor() {
+		int threads = getConfiguration().getIterativeSearchParsingThreads();
+		if (parsingExecutor == null) {
+			AtomicInteger counter = new AtomicInteger();
+			parsingExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+					r -> {
+						Thread thread = new Thread(r, "repo-object-parser-" + counter.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+			LOGGER.debug("Started {} thread(s) for parsing objects in iterative searches", threads);
+		} else if (parsingExecutor.getCorePoolSize() != threads) {
+			// maximum pool size must never be lower than the core size
+			if (threads > parsingExecutor.getMaximumPoolSize()) {
+				parsingExecutor.setMaximumPoolSize(threads);
+				parsingExecutor.setCorePoolSize(threads);
+			} else {
+				parsingExecutor.setCorePoolSize(threads);
+				parsingExecutor.setMaximumPoolSize(threads);
+			}
+			LOGGER.debug("Resized the pool for parsing objects in iterative searches to {} thread(s)", threads);
+		}
+		return parsingExecutor;
+	}
+
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (parsingExecutor != null) {
+			parsingExecutor.shutdownNow();
+			parsingExecutor = null;
+		}
+	}
+
+	private static class PendingObject<T extends ObjectType> {
+		private final GetObjectResult row;
+		private final Future<PrismObject<T>> future;
+
+		private PendingObject(GetObjectResult row, Future<PrismObject<T>> future) {
+			this.row = row;
+			this.future = future;
+		}
+
+		private PrismObject<T> getParsedObject() throws SchemaException {
+			try {
+				return future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SystemException("Interrupted while waiting for object " + row.getOid() + " to be parsed", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof SchemaException) {
+					throw (SchemaException) cause;
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				} else {
+					throw new SystemException("Couldn't parse object " + row.getOid() + ": " + cause.getMessage(), cause);
+				}
+			}
+		}
+	}
+
     public <T extends ObjectType> void searchObjectsIterativeByPaging(Class<T> type, ObjectQuery query,
 		    ResultHandler<T> handler, Collection<SelectorOptions<GetOperationOptions>> options, OperationResult result)
             throws SchemaException {
@@ -799,21 +1002,32 @@ public class ObjectRetriever {
 
             ObjectPaging paging = pagedQuery.getPaging();
 
+            int processed = 0;
+            if (isKeysetPagingApplicable(paging)) {
+                Integer keysetProcessed = searchObjectsIterativeByKeysetPaging(type, pagedQuery, handler, options, result);
+                if (keysetProcessed == null) {
+                    return;
+                }
+                processed = keysetProcessed;
+                LOGGER.debug("Couldn't continue iterative search by keyset paging after {} object(s), switching to offset paging. "
+                        + "Type: {}, query: {}", processed, type, query);
+            }
+
             if (paging == null) {
                 paging = ObjectPaging.createPaging(0, 0);        // counts will be filled-in later
                 pagedQuery.setPaging(paging);
-                offset = 0;
-                remaining = repositoryService.countObjects(type, query, options, result);
+                offset = processed;
+                remaining = repositoryService.countObjects(type, query, options, result) - processed;
             } else {
-                offset = paging.getOffset() != null ? paging.getOffset() : 0;
-                remaining = paging.getMaxSize() != null ? paging.getMaxSize() : repositoryService.countObjects(type, query, options, result) - offset;
+                offset = (paging.getOffset() != null ? paging.getOffset() : 0) + processed;
+                remaining = paging.getMaxSize() != null ? paging.getMaxSize() - processed : repositoryService.countObjects(type, query, options, result) - offset;
             }
 
 main:       while (remaining > 0) {
                 paging.setOffset(offset);
                 paging.setMaxSize(remaining < batchSize ? remaining : batchSize);
 
-                List<PrismObject<T>> objects = repositoryService.searchObjects(type, pagedQuery, options, result);
+                List<PrismObject<T>> objects = searchPage(type, pagedQuery, options, result);
 
                 for (PrismObject<T> object : objects) {
                     if (!handler.handle(object, result)) {
@@ -836,6 +1050,114 @@ main:       while (remaining > 0) {
         }
     }
 
+    /**
+     * Retrieves one page of iterative search by paging. The page is parsed in parallel if parsing threads are configured.
+     * (The handler is not called from within, so nested searches are not affected.)
+     */
+    private <T extends ObjectType> List<PrismObject<T>> searchPage(Class<T> type, ObjectQuery pagedQuery,
+            Collection<SelectorOptions<GetOperationOptions>> options, OperationResult result) throws SchemaException {
+        parallelPageParsing.set(Boolean.TRUE);
+        try {
+            return repositoryService.searchObjects(type, pagedQuery, options, result);
+        } finally {
+            parallelPageParsing.remove();
+        }
+    }
+
+    private boolean isKeysetPagingApplicable(ObjectPaging paging) {
+        if (paging == null) {
+            return true;
+        }
+        if (paging.hasGrouping() || paging.getOffset() != null && paging.getOffset() != 0) {
+            return false;
+        }
+        if (!paging.hasOrdering()) {
+            return true;
+        }
+        for (ObjectOrdering ordering : paging.getOrderingInstructions()) {
+            if (!isNonNullableOrderingItem(ordering.getOrderBy())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Seek predicate never matches rows with NULL value of an ordering item, and databases differ in where
+     * they sort NULLs. Objects without the value could be silently skipped after the first page. So keyset paging
+     * is used only for ordering by items that every object in repository has.
+     */
+    private boolean isNonNullableOrderingItem(ItemPath path) {
+        return path != null && path.equivalent(new ItemPath(ObjectType.F_NAME));
+    }
+
+    /**
+     * Paged search that uses keyset (seek) paging instead of offsets: objects are ordered by the requested ordering
+     * (if any) and then by OID, and each page starts right after the last object of the previous one. Therefore
+     * each page costs the same regardless of how deep in the result set it is, and no initial count is needed.
+     *
+     * Only non-nullable ordering items are allowed here (see isKeysetPagingApplicable). Just to be safe:
+     * the cursor cannot be positioned after an object that has no value of an ordering item. In such case
+     * the iteration stops and the number of objects processed so far is returned, so the caller can continue
+     * by using offset paging. Otherwise (i.e. when all objects were processed or the handler stopped the
+     * iteration) null is returned.
+     */
+    private <T extends ObjectType> Integer searchObjectsIterativeByKeysetPaging(Class<T> type, ObjectQuery query,
+            ResultHandler<T> handler, Collection<SelectorOptions<GetOperationOptions>> options, OperationResult result)
+            throws SchemaException {
+
+        ObjectPaging originalPaging = query.getPaging();
+        Integer maxSize = originalPaging != null ? originalPaging.getMaxSize() : null;
+        List<ObjectOrdering> orderings = originalPaging != null && originalPaging.hasOrdering()
+                ? originalPaging.getOrderingInstructions() : Collections.emptyList();
+
+        ObjectQuery pagedQuery = query.clone();
+        ObjectPagingAfterOid paging = new ObjectPagingAfterOid();
+        paging.setOrdering(orderings);
+        pagedQuery.setPaging(paging);
+
+        final int batchSize = getConfiguration().getIterativeSearchByPagingBatchSize();
+        int processed = 0;
+        for (;;) {
+            int pageSize = Math.min(batchSize, maxSize != null ? maxSize - processed : Integer.MAX_VALUE);
+            if (pageSize <= 0) {
+                return null;
+            }
+            paging.setMaxSize(pageSize);
+
+            List<PrismObject<T>> objects = searchPage(type, pagedQuery, options, result);
+
+            for (PrismObject<T> object : objects) {
+                List<Object> orderingValues = getOrderingValues(object, orderings);     // before the handler has a chance to change the object
+                processed++;
+                if (!handler.handle(object, result)) {
+                    return null;
+                }
+                if (orderingValues == null) {
+                    return processed;
+                }
+                paging.setOidGreaterThan(object.getOid());
+                paging.setOrderingValues(orderingValues);
+            }
+            if (objects.size() < pageSize) {
+                return null;
+            }
+        }
+    }
+
+    private List<Object> getOrderingValues(PrismObject<?> object, List<ObjectOrdering> orderings) {
+        List<Object> values = new ArrayList<>(orderings.size());
+        for (ObjectOrdering ordering : orderings) {
+            PrismProperty<?> property = object.findProperty(ordering.getOrderBy());
+            Object value = property != null ? property.getRealValue() : null;
+            if (value == null) {
+                return null;
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
     /**
      * Strictly-sequential version of paged search.
      *
@@ -969,7 +1291,7 @@ main:       for (;;) {
 			final org.hibernate.Query query;
 			final boolean isMidpointQuery = request.getImplementationLevelQuery() == null;
 			if (isMidpointQuery) {
-				QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, prismContext, relationRegistry);
+				QueryEngine2 engine = new QueryEngine2(getConfiguration(), extItemDictionary, promotedExtensionItemsMarker, prismContext, relationRegistry);
 				RQueryImpl rQuery = (RQueryImpl) engine.interpret(request.getQuery(), request.getType(), request.getOptions(), false, session);
 				query = rQuery.getQuery();
 				implementationLevelQuery = query.getQueryString();
@@ -82,6 +82,8 @@ public class ObjectUpdater {
     @Autowired private LookupTableHelper lookupTableHelper;
     @Autowired private CertificationCaseHelper caseHelper;
     @Autowired private OrgClosureManager closureManager;
+    @Autowired private AssigneeCountHelper assigneeCountHelper;
+    @Autowired private TaskStatisticsHelper taskStatisticsHelper;
     @Autowired private ObjectDeltaUpdater objectDeltaUpdater;
     @Autowired private PrismContext prismContext;
     @Autowired private RelationRegistry relationRegistry;
@@ -201,6 +203,10 @@ public class ObjectUpdater {
         RObject merged = objectDeltaUpdater.update(object, rObject, session);
         lookupTableHelper.addLookupTableRows(session, rObject, oldObject != null);
         caseHelper.addCertificationCampaignCases(session, rObject, oldObject != null);
+        assigneeCountHelper.updateCounts(session, assigneeCountHelper.getKeys(oldObject), assigneeCountHelper.getKeys(object));
+        if (oldObject != null && TaskType.class.isAssignableFrom(object.getCompileTimeClass())) {
+            taskStatisticsHelper.deleteStatistics(session, originalOid);
+        }
 
         if (closureManager.isEnabled()) {
             OrgClosureManager.Operation operation;
@@ -291,6 +297,7 @@ public class ObjectUpdater {
         String oid = (String) session.save(rObject);
         lookupTableHelper.addLookupTableRows(session, rObject, false);
         caseHelper.addCertificationCampaignCases(session, rObject, false);
+        assigneeCountHelper.updateCounts(session, Collections.emptySortedSet(), assigneeCountHelper.getKeys(object));
 
         if (closureManager.isEnabled()) {
             Collection<ReferenceDelta> modifications = createAddParentRefDelta(object);
@@ -326,6 +333,9 @@ public class ObjectUpdater {
             closureContext = closureManager.onBeginTransactionDelete(session, actualType, oid);
             closureManager.updateOrgClosure(null, null, session, oid, actualType, OrgClosureManager.Operation.DELETE, closureContext);
 
+            if (FocusType.class.isAssignableFrom(actualType)) {
+                assigneeCountHelper.updateCounts(session, assigneeCountHelper.getStoredKeys(session, oid), Collections.emptySortedSet());
+            }
             session.delete(object);
             if (LookupTableType.class.equals(actualType)) {
                 lookupTableHelper.deleteLookupTableRows(session, oid);
@@ -333,6 +343,9 @@ public class ObjectUpdater {
             if (AccessCertificationCampaignType.class.equals(actualType)) {
                 caseHelper.deleteCertificationCampaignCases(session, oid);
             }
+            if (TaskType.class.equals(actualType)) {
+                taskStatisticsHelper.deleteStatistics(session, oid);
+            }
 
             session.getTransaction().commit();
         } catch (ObjectNotFoundException ex) {
@@ -407,6 +420,7 @@ public class ObjectUpdater {
                 if (closureManager.isEnabled()) {
                     originalObject = prismObject.clone();
                 }
+                SortedSet<AssigneeCountHelper.Key> originalAssigneeKeys = assigneeCountHelper.getKeys(prismObject);
 
                 boolean shouldPhotoBeRemoved;
                 if (reindex) {
@@ -449,6 +463,7 @@ public class ObjectUpdater {
                 if (closureManager.isEnabled()) {
                     closureManager.updateOrgClosure(originalObject, modifications, session, oid, type, OrgClosureManager.Operation.MODIFY, closureContext);
                 }
+                assigneeCountHelper.updateCounts(session, originalAssigneeKeys, assigneeCountHelper.getKeys(prismObject));
 
                 // JpegPhoto cleanup: As said before, if a focus has to have no photo (after modifications are applied),
                 // we have to remove the photo manually.
@@ -466,6 +481,10 @@ public class ObjectUpdater {
             if (AccessCertificationCampaignType.class.isAssignableFrom(type)) {
                 caseHelper.updateCampaignCases(session, oid, campaignCaseModifications, modifyOptions);
             }
+            if (TaskType.class.isAssignableFrom(type)) {
+                // separately stored statistics were merged into the object when it was loaded, so they are in the full object now
+                taskStatisticsHelper.deleteStatistics(session, oid);
+            }
 
             LOGGER.trace("Before commit...");
             session.getTransaction().commit();
@@ -495,6 +514,43 @@ public class ObjectUpdater {
         }
     }
 
+    public void updateTaskStatisticsAttempt(String taskOid, Long progress, Long expectedTotal,
+            OperationStatsType operationStats, OperationResult result) throws ObjectNotFoundException, SchemaException {
+        Session session = null;
+        try {
+            session = baseHelper.beginTransaction();
+            Query query = session.createQuery("select count(*) from RTask t where t.oid = :oid");
+            query.setParameter("oid", taskOid);
+            if (((Number) query.uniqueResult()).longValue() == 0) {
+                throw new ObjectNotFoundException("Task with oid '" + taskOid + "' was not found.", null, taskOid);
+            }
+            taskStatisticsHelper.storeStatistics(session, taskOid, progress, expectedTotal, operationStats);
+            session.getTransaction().commit();
+        } catch (ObjectNotFoundException | SchemaException ex) {
+            baseHelper.rollbackTransaction(session, ex, result, true);
+            throw ex;
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, result);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, result);
+        }
+    }
+
+    public int testAssigneeCountConsistencyAttempt(boolean repairIfNecessary, OperationResult result) {
+        int problems = 0;
+        Session session = null;
+        try {
+            session = baseHelper.beginTransaction();
+            problems = assigneeCountHelper.checkAndRepair(session, repairIfNecessary);
+            session.getTransaction().commit();
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, result);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, result);
+        }
+        return problems;
+    }
+
     private <T extends ObjectType> boolean containsPhotoModification(Collection<? extends ItemDelta> modifications) {
         ItemPath photoPath = new ItemPath(FocusType.F_JPEG_PHOTO);
         for (ItemDelta delta : modifications) {
@@ -88,10 +88,14 @@ public class OrgClosureManager {
     private static final boolean COUNT_CLOSURE_RECORDS = false;
     private static final String CLOSURE_TABLE_NAME = "m_org_closure";
     private static final String TEMP_DELTA_TABLE_NAME_FOR_ORACLE = "m_org_closure_temp_delta";
+    private static final int MAX_SUBTREE_LOCK_ITERATIONS = 5;
 
     // only for single-thread performance testing
     private long lastOperationDuration;
 
+    // In bulk mode the closure is not maintained by individual operations; it is rebuilt when bulk mode is switched off.
+    private volatile boolean bulkMode;
+
     //region Public interface
     /**
      * Main method called from SQL repository service to update the closure table during an operation.
@@ -107,7 +111,7 @@ public class OrgClosureManager {
     public <T extends ObjectType> void updateOrgClosure(PrismObject<? extends ObjectType> originalObject,
 		    Collection<? extends ItemDelta> modifications, Session session, String oid, Class<T> type, Operation operation,
 		    Context closureContext) {
-        if (!isEnabled() || !OrgType.class.isAssignableFrom(type)) {
+        if (!isEnabled() || bulkMode || !OrgType.class.isAssignableFrom(type)) {
             return;
         }
         session.flush();
@@ -145,15 +149,16 @@ public class OrgClosureManager {
      *  This will be perhaps unified in the future.
      */
     public <T extends ObjectType> Context onBeginTransactionAdd(Session session, PrismObject<T> object, boolean overwrite) {
-        if (!isEnabled() || !(OrgType.class.isAssignableFrom(object.getCompileTimeClass()))) {
+        if (!isEnabled() || bulkMode || !(OrgType.class.isAssignableFrom(object.getCompileTimeClass()))) {
             return null;
         }
         // we have to be ready for closure-related operation even if there are no known parents (because there may be orphans pointing to this org!)
-        return onBeginTransaction(session);
+        // Note that the table lock is needed even with subtree locking, because there is no row to be locked for the new org yet.
+        return onBeginTransaction(session, true);
     }
 
     public <T extends ObjectType> Context onBeginTransactionModify(Session session, Class<T> type, String oid, Collection<? extends ItemDelta> modifications) {
-        if (!isEnabled()) {
+        if (!isEnabled() || bulkMode) {
             return null;
         }
         if (!(OrgType.class.isAssignableFrom(type))) {
@@ -162,19 +167,20 @@ public class OrgClosureManager {
         if (filterParentRefDeltas(modifications).isEmpty()) {
             return null;
         }
-        return onBeginTransaction(session);
+        // with subtree locking, the affected rows are locked later, in handleModify
+        return onBeginTransaction(session, !isSubtreeLocking());
     }
 
     public <T extends ObjectType> Context onBeginTransactionDelete(Session session, Class<T> type, String oid) {
-        if (!isEnabled() || !(OrgType.class.isAssignableFrom(type))) {
+        if (!isEnabled() || bulkMode || !(OrgType.class.isAssignableFrom(type))) {
             return null;
         }
-        return onBeginTransaction(session);
+        return onBeginTransaction(session, true);
     }
 
-    private Context onBeginTransaction(Session session) {
+    private Context onBeginTransaction(Session session, boolean lockTable) {
         // table locking
-        if (isH2() || isOracle() || isSQLServer()) {
+        if (lockTable && (isH2() || isOracle() || isSQLServer())) {
             lockClosureTable(session);
         }
         // other
@@ -256,6 +262,38 @@ public class OrgClosureManager {
         return !baseHelper.getConfiguration().isIgnoreOrgClosure();
     }
 
+    public boolean isBulkMode() {
+        return bulkMode;
+    }
+
+    /**
+     * Switches bulk mode on or off. In bulk mode, add/modify/delete operations on orgs do not update the closure table.
+     * This is meant for initial imports of large org structures. When bulk mode is switched off, the closure
+     * is rebuilt from scratch (once for the whole import, instead of once per each org).
+     *
+     * Note that the bulk mode is local to this node and that the closure table is not usable while it is on.
+     */
+    public void setBulkMode(boolean bulkMode, OperationResult result) {
+        if (!isEnabled()) {
+            result.recordWarning("Organizational closure processing is disabled.");
+            return;
+        }
+        if (this.bulkMode == bulkMode) {
+            LOGGER.debug("Org closure bulk mode is already {}", bulkMode ? "on" : "off");
+            result.recordSuccess();
+            return;
+        }
+        if (bulkMode) {
+            LOGGER.info("Switching org closure bulk mode on; the closure table will not be maintained until it is switched off");
+            this.bulkMode = true;
+            result.recordSuccess();
+        } else {
+            LOGGER.info("Switching org closure bulk mode off; rebuilding the closure table");
+            this.bulkMode = false;
+            checkAndOrRebuild(false, true, false, false, result);
+        }
+    }
+
     /**
      * Does a consistency check (either quick or thorough one) and rebuilds the closure table if necessary.
      *
@@ -281,7 +319,7 @@ public class OrgClosureManager {
             session.getTransaction().begin();
             if (rebuild || (check && !quickCheckOnly)) {
                 // thorough check requires the temporary table as well
-                context = onBeginTransaction(session);
+                context = onBeginTransaction(session, true);
             }
 
             if (quickCheckOnly) {
@@ -874,6 +912,12 @@ public class OrgClosureManager {
         Set<String> parentsToDelete = getParentOidsToDelete(modifications, originalObject);
         Set<String> parentsToAdd = getParentOidsToAdd(modifications, originalObject);
 
+        if (isSubtreeLocking()) {
+            Set<String> affectedParents = new HashSet<>(parentsToDelete);
+            affectedParents.addAll(parentsToAdd);
+            lockAffectedSubtrees(oid, affectedParents, session);
+        }
+
         Collection<String> livingParentsToDelete = retainExistingOids(parentsToDelete, session);
         Collection<String> livingParentsToAdd = retainExistingOids(parentsToAdd, session);
 
@@ -910,6 +954,69 @@ public class OrgClosureManager {
 
     }
 
+    private boolean isSubtreeLocking() {
+        // H2 locks the whole table on SELECT ... FOR UPDATE anyway; PostgreSQL and MySQL do not lock the table at all.
+        return baseHelper.getConfiguration().getOrgClosureLocking() == LockingStrategy.SUBTREE && (isOracle() || isSQLServer());
+    }
+
+    /**
+     * Locks the part of the closure that is read or written when edges between "oid" and "parents" are added or removed.
+     *
+     * Adding or removing edge (D, A) reads closure rows with ancestor=D and descendant=A, and writes rows (d, a) where
+     * d is in the subtree of D and a is among ancestors of A. It is sufficient to lock self-records (x, x) for all such
+     * "d" and "a" nodes: any two operations that read/write the same rows have at least one of these nodes in common.
+     *
+     * While waiting for the locks, the structure could have been changed by the lock holder. So we repeat the locking
+     * until no new node appears. (If it would take too long, we fall back to locking the whole table.)
+     *
+     * Package-private only to be usable from tests.
+     *
+     * @return OIDs of orgs whose self-records were locked
+     */
+    Set<String> lockAffectedSubtrees(String oid, Set<String> parents, Session session) {
+        long start = System.currentTimeMillis();
+        Set<String> locked = new HashSet<>();
+        for (int iteration = 1; iteration <= MAX_SUBTREE_LOCK_ITERATIONS; iteration++) {
+            List<String> nodes = lockSelfRecords(oid, parents, session);
+            if (locked.containsAll(nodes)) {
+                LOGGER.trace("Locked {} closure self-records in {} iteration(s), {} ms", locked.size(), iteration,
+                        System.currentTimeMillis() - start);
+                return locked;
+            }
+            locked.addAll(nodes);
+        }
+        LOGGER.debug("Closure subtree locking for {} did not stabilize after {} iterations, locking the whole table",
+                oid, MAX_SUBTREE_LOCK_ITERATIONS);
+        lockClosureTable(session);
+        return locked;
+    }
+
+    // Rows are locked in the order of OIDs, so two concurrent lockers with overlapping sets of nodes cannot deadlock.
+    private List<String> lockSelfRecords(String oid, Set<String> parents, Session session) {
+        String affectedNodes = "select descendant_oid from " + CLOSURE_TABLE_NAME + " where ancestor_oid = :oid";
+        if (!parents.isEmpty()) {
+            affectedNodes += " or descendant_oid in (select ancestor_oid from " + CLOSURE_TABLE_NAME + " where descendant_oid in (:parents))";
+        }
+        String queryText;
+        if (isSQLServer()) {
+            queryText = "select cl.descendant_oid from " + CLOSURE_TABLE_NAME + " cl with (updlock, rowlock) " +
+                    "where cl.descendant_oid = cl.ancestor_oid and cl.descendant_oid in (" + affectedNodes + ") " +
+                    "order by cl.descendant_oid";
+        } else {
+            queryText = "select cl.descendant_oid from " + CLOSURE_TABLE_NAME + " cl " +
+                    "where cl.descendant_oid = cl.ancestor_oid and cl.descendant_oid in (" + affectedNodes + ") " +
+                    "order by cl.descendant_oid for update";
+        }
+        NativeQuery query = session.createNativeQuery(queryText)
+                .addScalar("descendant_oid", StringType.INSTANCE);
+        query.setParameter("oid", oid);
+        if (!parents.isEmpty()) {
+            query.setParameterList("parents", parents);
+        }
+        //noinspection unchecked
+        return query.list();
+    }
+
     // returns table name
     private String computeDeltaTable(List<Edge> edges, Context context, Session session) {
 
@@ -1312,6 +1419,37 @@ public class OrgClosureManager {
         }
     }
 
+    /**
+     * How concurrent updates of the closure table are serialized (on Oracle and SQL Server).
+     *
+     * TABLE: whole closure table is locked for each org add/modify/delete.
+     * SUBTREE: org modifications (moves) lock only the affected parts of the closure. Adds and deletes still lock the table.
+     */
+    public static enum LockingStrategy {
+
+        TABLE("table"), SUBTREE("subtree");
+
+        private String value;
+
+        LockingStrategy(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+
+        public static LockingStrategy fromValue(String v) {
+            for (LockingStrategy s: LockingStrategy.values()) {
+                if (s.value.equals(v)) {
+                    return s;
+                }
+            }
+            throw new IllegalArgumentException(v);
+        }
+    }
+
     public static class Context {
         String temporaryTableName;
     }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.repo.sql.data.common.RGlobalMetadata;
+import com.evolveum.midpoint.repo.sql.data.common.any.PromotedExtensionItems;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.xml.namespace.QName;
+import java.util.List;
+
+/**
+ * Keeps track of whether promoted extension columns of m_object are filled-in for all objects.
+ *
+ * Until the backfill (i.e. full reindex) is recorded in m_global_metadata for the currently configured list
+ * of promoted items, queries have to use extension tables, because columns of objects not touched since
+ * the configuration change are empty. The marker is persistent, so it survives restarts and is shared
+ * among cluster nodes. Nodes that have not seen it yet re-check the database at most once per CHECK_INTERVAL.
+ *
+ * @see PromotedExtensionItems
+ */
+@Component
+public class PromotedExtensionItemsMarker {
+
+    private static final Trace LOGGER = TraceManager.getTrace(PromotedExtensionItemsMarker.class);
+
+    private static final long CHECK_INTERVAL = 60000L;
+
+    @Autowired private BaseHelper baseHelper;
+
+    private volatile boolean backfilled;
+    private volatile long lastCheck;
+
+    @PostConstruct
+    public void initialize() {
+        backfilled = false;
+        lastCheck = 0;
+    }
+
+    /**
+     * Can queries rely on the promoted columns?
+     */
+    public boolean isBackfilled() {
+        if (backfilled) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastCheck >= CHECK_INTERVAL) {
+            lastCheck = now;
+            backfilled = readMarker();
+        }
+        return backfilled;
+    }
+
+    /**
+     * Records that the promoted columns of all objects were computed using the current configuration.
+     */
+    public void recordBackfilled(OperationResult result) {
+        List<QName> promotedItems = baseHelper.getConfiguration().getPromotedExtensionItems();
+        if (promotedItems.isEmpty()) {
+            return;
+        }
+        Session session = null;
+        try {
+            session = baseHelper.beginTransaction();
+            RGlobalMetadata marker = new RGlobalMetadata();
+            marker.setName(RGlobalMetadata.PROMOTED_EXTENSION_ITEMS);
+            marker.setValue(PromotedExtensionItems.getMarkerValue(promotedItems));
+            session.merge(marker);
+            session.getTransaction().commit();
+            backfilled = true;
+            LOGGER.info("Recorded that promoted extension items {} are filled-in for all objects", promotedItems);
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralException(ex, session, result);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+    }
+
+    private boolean readMarker() {
+        List<QName> promotedItems = baseHelper.getConfiguration().getPromotedExtensionItems();
+        if (promotedItems.isEmpty()) {
+            return false;
+        }
+        Session session = null;
+        try {
+            session = baseHelper.beginReadOnlyTransaction();
+            RGlobalMetadata marker = session.get(RGlobalMetadata.class, RGlobalMetadata.PROMOTED_EXTENSION_ITEMS);
+            session.getTransaction().commit();
+            boolean matches = marker != null
+                    && PromotedExtensionItems.getMarkerValue(promotedItems).equals(marker.getValue());
+            LOGGER.debug("Promoted extension items marker: {}, matches current configuration: {}", marker, matches);
+            return matches;
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Couldn't read promoted extension items marker, extension tables will be used: {}", ex.getMessage(), ex);
+            baseHelper.rollbackTransaction(session, ex, null, false);
+            return false;
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.repo.sql.data.common.RTaskStatistics;
+import com.evolveum.midpoint.repo.sql.util.RUtil;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationStatsType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskType;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maintains m_task_statistics table, i.e. live progress and operation statistics of tasks stored outside
+ * of the task full object. See {@link RTaskStatistics}.
+ */
+@Component
+public class TaskStatisticsHelper {
+
+    private static final Trace LOGGER = TraceManager.getTrace(TaskStatisticsHelper.class);
+
+    @Autowired private PrismContext prismContext;
+
+    public void storeStatistics(Session session, String taskOid, Long progress, Long expectedTotal,
+            OperationStatsType operationStats) throws SchemaException {
+        byte[] data = null;
+        if (operationStats != null) {
+            String xml = prismContext.xmlSerializer().serializeRealValue(operationStats, TaskType.F_OPERATION_STATS);
+            data = RUtil.getByteArrayFromXml(xml, true);
+        }
+        Query query = session.createQuery("update RTaskStatistics s set s.progress = :progress, "
+                + "s.expectedTotal = :expectedTotal, s.operationStats = :operationStats where s.taskOid = :oid");
+        query.setParameter("progress", progress);
+        query.setParameter("expectedTotal", expectedTotal);
+        query.setParameter("operationStats", data);
+        query.setParameter("oid", taskOid);
+        if (query.executeUpdate() == 0) {
+            RTaskStatistics statistics = new RTaskStatistics();
+            statistics.setTaskOid(taskOid);
+            statistics.setProgress(progress);
+            statistics.setExpectedTotal(expectedTotal);
+            statistics.setOperationStats(data);
+            session.save(statistics);
+            session.flush();        // to detect (and retry) conflicting inserts right here
+        }
+        LOGGER.trace("Stored statistics for task {}: progress={}, expectedTotal={}", taskOid, progress, expectedTotal);
+    }
+
+    /**
+     * Replaces progress, expected total and operation statistics of the loaded task with the separately
+     * stored values (if there are any).
+     */
+    public void updateLoadedTask(PrismObject<TaskType> task, Session session) throws SchemaException {
+        Query query = session.getNamedQuery("get.taskStatistics");
+        query.setParameter("oid", task.getOid());
+        Object[] row = (Object[]) query.uniqueResult();
+        if (row == null) {
+            return;
+        }
+        TaskType taskBean = task.asObjectable();
+        taskBean.setProgress((Long) row[0]);
+        taskBean.setExpectedTotal((Long) row[1]);
+        byte[] data = (byte[]) row[2];
+        if (data != null) {
+            String xml = RUtil.getXmlFromByteArray(data, true);
+            taskBean.setOperationStats(prismContext.parserFor(xml).parseRealValue(OperationStatsType.class));
+        } else {
+            taskBean.setOperationStats(null);
+        }
+    }
+
+    /**
+     * Removes separately stored statistics, e.g. because they were written into the task full object.
+     */
+    public void deleteStatistics(Session session, String taskOid) {
+        Query query = session.createQuery("delete from RTaskStatistics s where s.taskOid = :oid");
+        query.setParameter("oid", taskOid);
+        query.executeUpdate();
+    }
+}
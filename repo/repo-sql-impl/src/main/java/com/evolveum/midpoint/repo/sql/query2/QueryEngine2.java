@@ -21,6 +21,7 @@ import com.evolveum.midpoint.prism.PrismContext;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration;
 import com.evolveum.midpoint.repo.sql.data.common.dictionary.ExtItemDictionary;
+import com.evolveum.midpoint.repo.sql.helpers.PromotedExtensionItemsMarker;
 import com.evolveum.midpoint.repo.sql.query.QueryException;
 import com.evolveum.midpoint.repo.sql.query.RQuery;
 import com.evolveum.midpoint.repo.sql.query2.hqm.RootHibernateQuery;
@@ -44,13 +45,16 @@ public class QueryEngine2 {
 
     private SqlRepositoryConfiguration repoConfiguration;
     private ExtItemDictionary extItemDictionary;
+    private PromotedExtensionItemsMarker promotedExtensionItemsMarker;
     private PrismContext prismContext;
     private final RelationRegistry relationRegistry;
 
-    public QueryEngine2(SqlRepositoryConfiguration config, ExtItemDictionary extItemDictionary, PrismContext prismContext,
+    public QueryEngine2(SqlRepositoryConfiguration config, ExtItemDictionary extItemDictionary,
+            PromotedExtensionItemsMarker promotedExtensionItemsMarker, PrismContext prismContext,
             RelationRegistry relationRegistry) {
         this.repoConfiguration = config;
         this.extItemDictionary = extItemDictionary;
+        this.promotedExtensionItemsMarker = promotedExtensionItemsMarker;
         this.prismContext = prismContext;
         this.relationRegistry = relationRegistry;
     }
@@ -59,7 +63,7 @@ public class QueryEngine2 {
             Collection<SelectorOptions<GetOperationOptions>> options,
             boolean countingObjects, Session session) throws QueryException {
 
-        QueryInterpreter2 interpreter = new QueryInterpreter2(repoConfiguration, extItemDictionary);
+        QueryInterpreter2 interpreter = new QueryInterpreter2(repoConfiguration, extItemDictionary, promotedExtensionItemsMarker);
         RootHibernateQuery hibernateQuery = interpreter.interpret(query, type, options, prismContext, relationRegistry, countingObjects, session);
         Query hqlQuery = hibernateQuery.getAsHqlQuery(session);
 
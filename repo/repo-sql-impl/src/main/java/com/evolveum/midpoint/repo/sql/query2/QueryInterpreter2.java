@@ -20,17 +20,25 @@ import com.evolveum.midpoint.prism.Containerable;
 import com.evolveum.midpoint.prism.ItemDefinition;
 import com.evolveum.midpoint.prism.PrismContext;
 import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.path.NameItemPathSegment;
 import com.evolveum.midpoint.prism.polystring.PolyString;
 import com.evolveum.midpoint.prism.query.*;
+import com.evolveum.midpoint.prism.query.builder.QueryBuilder;
+import com.evolveum.midpoint.prism.query.builder.S_ConditionEntry;
+import com.evolveum.midpoint.prism.query.builder.S_MatchingRuleEntry;
 import com.evolveum.midpoint.repo.sql.ObjectPagingAfterOid;
 import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration;
+import com.evolveum.midpoint.repo.sql.data.common.RObject;
+import com.evolveum.midpoint.repo.sql.data.common.any.PromotedExtensionItems;
 import com.evolveum.midpoint.repo.sql.data.common.dictionary.ExtItemDictionary;
 import com.evolveum.midpoint.repo.sql.data.common.embedded.RPolyString;
+import com.evolveum.midpoint.repo.sql.helpers.PromotedExtensionItemsMarker;
 import com.evolveum.midpoint.repo.sql.query.QueryException;
 import com.evolveum.midpoint.repo.sql.query2.definition.*;
 import com.evolveum.midpoint.repo.sql.query2.hqm.CountProjectionElement;
 import com.evolveum.midpoint.repo.sql.query2.hqm.RootHibernateQuery;
 import com.evolveum.midpoint.repo.sql.query2.hqm.condition.Condition;
+import com.evolveum.midpoint.repo.sql.query2.hqm.condition.OrCondition;
 import com.evolveum.midpoint.repo.sql.query2.matcher.DefaultMatcher;
 import com.evolveum.midpoint.repo.sql.query2.matcher.Matcher;
 import com.evolveum.midpoint.repo.sql.query2.matcher.PolyStringMatcher;
@@ -47,10 +55,12 @@ import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.AccessCertificationCaseType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.AccessCertificationWorkItemType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.CaseWorkItemType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Session;
 import org.jetbrains.annotations.NotNull;
 
+import javax.xml.namespace.QName;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -99,10 +109,13 @@ public class QueryInterpreter2 {
 
     private SqlRepositoryConfiguration repoConfiguration;
     private ExtItemDictionary extItemDictionary;
+    private PromotedExtensionItemsMarker promotedExtensionItemsMarker;
 
-    public QueryInterpreter2(SqlRepositoryConfiguration repoConfiguration, ExtItemDictionary extItemDictionary) {
+    public QueryInterpreter2(SqlRepositoryConfiguration repoConfiguration, ExtItemDictionary extItemDictionary,
+            PromotedExtensionItemsMarker promotedExtensionItemsMarker) {
         this.repoConfiguration = repoConfiguration;
         this.extItemDictionary = extItemDictionary;
+        this.promotedExtensionItemsMarker = promotedExtensionItemsMarker;
     }
 
     public SqlRepositoryConfiguration getRepoConfiguration() {
@@ -282,6 +295,11 @@ public class QueryInterpreter2 {
             ItemPath path = valFilter.getFullPath();
             ItemDefinition definition = valFilter.getDefinition();
 
+            int promotedIndex = getPromotedExtensionItemIndex(valFilter, baseEntityDefinition);
+            if (promotedIndex >= 0) {
+                return new PromotedExtensionRestriction(context, valFilter, baseEntityDefinition, parent, promotedIndex);
+            }
+
             ProperDataSearchResult<JpaPropertyDefinition> propDefRes = resolver.findProperDataDefinition(baseEntityDefinition, path, definition, JpaPropertyDefinition.class,
                     context.getPrismContext());
             if (propDefRes == null) {
@@ -301,31 +319,115 @@ public class QueryInterpreter2 {
         }
     }
 
+    // only object extension items (not e.g. assignment extension ones) compared to constant values can use promoted columns;
+    // and only after the columns were filled-in for all objects
+    private int getPromotedExtensionItemIndex(PropertyValueFilter filter, JpaEntityDefinition baseEntityDefinition) {
+        List<QName> promotedItems = repoConfiguration.getPromotedExtensionItems();
+        ItemPath path = filter.getFullPath();
+        if (promotedItems.isEmpty() || filter.getRightHandSidePath() != null
+                || !RObject.class.isAssignableFrom(baseEntityDefinition.getJpaClass())
+                || path.size() != 2 || !path.startsWithName(ObjectType.F_EXTENSION)
+                || !(path.last() instanceof NameItemPathSegment)) {
+            return -1;
+        }
+        int index = PromotedExtensionItems.getIndex(promotedItems, filter.getDefinition());
+        if (index >= 0 && !promotedExtensionItemsMarker.isBackfilled()) {
+            LOGGER.trace("Promoted extension items are not backfilled yet, using extension table for {}", path);
+            return -1;
+        }
+        return index;
+    }
+
     private void interpretPagingAndSorting(InterpretationContext context, ObjectQuery query, boolean countingObjects) throws QueryException {
         RootHibernateQuery hibernateQuery = context.getHibernateQuery();
-        String rootAlias = hibernateQuery.getPrimaryEntityAlias();
 
         if (query != null && query.getPaging() instanceof ObjectPagingAfterOid) {
             ObjectPagingAfterOid paging = (ObjectPagingAfterOid) query.getPaging();
             if (paging.getOidGreaterThan() != null) {
-                Condition c = hibernateQuery.createSimpleComparisonCondition(rootAlias + ".oid", paging.getOidGreaterThan(), ">");
-                hibernateQuery.addCondition(c);
+                hibernateQuery.addCondition(createAfterOidCondition(context, paging));
+            }
+            if (paging.getOidLessThanOrEqual() != null) {
+                hibernateQuery.addCondition(hibernateQuery.createSimpleComparisonCondition(
+                        hibernateQuery.getPrimaryEntityAlias() + ".oid", paging.getOidLessThanOrEqual(), "<="));
             }
         }
 
         if (!countingObjects && query != null && query.getPaging() != null) {
             if (query.getPaging() instanceof ObjectPagingAfterOid) {
-                updatePagingAndSortingByOid(hibernateQuery, (ObjectPagingAfterOid) query.getPaging());                // very special case - ascending ordering by OID (nothing more)
+                updatePagingAndSortingByOid(context, (ObjectPagingAfterOid) query.getPaging());                // very special case - ordering by OID (optionally preceded by custom ordering)
             } else {
                 updatePagingAndSorting(context, query.getPaging());
             }
         }
     }
 
-    private void updatePagingAndSortingByOid(RootHibernateQuery hibernateQuery, ObjectPagingAfterOid paging) {
+    /**
+     * Creates a "seek" condition selecting objects that come after the cursor position, i.e. for orderings o1..on
+     * with values v1..vn and last OID x:
+     *
+     * (o1 > v1) or (o1 = v1 and o2 > v2) or ... or (o1 = v1 and ... and on = vn and oid > x)
+     *
+     * (with "<" instead of ">" for descending orderings). Comparisons of ordering items are created as standard
+     * property filters, so the values are converted to their repository representation in the usual way.
+     */
+    private Condition createAfterOidCondition(InterpretationContext context, ObjectPagingAfterOid paging) throws QueryException {
+        RootHibernateQuery hibernateQuery = context.getHibernateQuery();
+        String oidPath = hibernateQuery.getPrimaryEntityAlias() + ".oid";
+        if (!paging.hasOrdering()) {
+            return hibernateQuery.createSimpleComparisonCondition(oidPath, paging.getOidGreaterThan(), ">");
+        }
+
+        List<ObjectOrdering> orderings = paging.getOrderingInstructions();
+        List<Object> values = paging.getOrderingValues();
+        if (values == null || values.size() != orderings.size()) {
+            throw new QueryException("Ordering values " + values + " do not correspond to ordering instructions " + orderings);
+        }
+        OrCondition disjunction = hibernateQuery.createOr();
+        for (int i = 0; i <= orderings.size(); i++) {
+            List<Condition> conjuncts = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                conjuncts.add(createOrderingValueCondition(context, orderings.get(j), values.get(j), true));
+            }
+            if (i < orderings.size()) {
+                conjuncts.add(createOrderingValueCondition(context, orderings.get(i), values.get(i), false));
+            } else {
+                conjuncts.add(hibernateQuery.createSimpleComparisonCondition(oidPath, paging.getOidGreaterThan(), ">"));
+            }
+            disjunction.add(hibernateQuery.createAnd(conjuncts));
+        }
+        return disjunction;
+    }
+
+    private Condition createOrderingValueCondition(InterpretationContext context, ObjectOrdering ordering, Object value,
+            boolean equal) throws QueryException {
+        if (value == null) {
+            throw new QueryException("Null ordering values are not supported in paging after OID: " + ordering);
+        }
+        S_ConditionEntry item = QueryBuilder.queryFor(context.getType(), context.getPrismContext())
+                .item(ordering.getOrderBy());
+        S_MatchingRuleEntry entry;
+        if (equal) {
+            entry = item.eq(value);
+        } else if (ordering.getDirection() == OrderDirection.DESCENDING) {
+            entry = item.lt(value);
+        } else {
+            entry = item.gt(value);
+        }
+        // polystrings are ordered by their orig value (see addOrdering)
+        ObjectFilter filter = value instanceof PolyString ? entry.matchingOrig().buildFilter() : entry.buildFilter();
+        return interpretFilter(context, filter, null);
+    }
+
+    private void updatePagingAndSortingByOid(InterpretationContext context, ObjectPagingAfterOid paging) throws QueryException {
+        RootHibernateQuery hibernateQuery = context.getHibernateQuery();
         String rootAlias = hibernateQuery.getPrimaryEntityAlias();
-        if (paging.getOrderBy() != null || paging.getDirection() != null || paging.getOffset() != null) {
-            throw new IllegalArgumentException("orderBy, direction nor offset is allowed on ObjectPagingAfterOid");
+        if (paging.getOffset() != null || paging.hasGrouping()) {
+            throw new IllegalArgumentException("Neither offset nor grouping is allowed on ObjectPagingAfterOid");
+        }
+        if (paging.hasOrdering()) {
+            for (ObjectOrdering ordering : paging.getOrderingInstructions()) {
+                addOrdering(context, ordering);
+            }
         }
         if (repoConfiguration.isUsingOracle()) {
 	        hibernateQuery.addOrdering("NLSSORT(" + rootAlias + ".oid, 'NLS_SORT=BINARY_AI')", OrderDirection.ASCENDING);
@@ -17,6 +17,7 @@
 package com.evolveum.midpoint.repo.sql.query2.restriction;
 
 import com.evolveum.midpoint.prism.query.FullTextFilter;
+import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration.FullTextIndexing;
 import com.evolveum.midpoint.repo.sql.data.common.RObjectTextInfo;
 import com.evolveum.midpoint.repo.sql.query.QueryException;
 import com.evolveum.midpoint.repo.sql.query2.InterpretationContext;
@@ -63,6 +64,12 @@ public class FullTextRestriction extends Restriction<FullTextFilter> {
 	private Condition createWordQuery(String word) throws QueryException {
 		String textInfoItemsAlias = getItemPathResolver().addTextInfoJoin(getBaseHqlEntity().getHqlPath());
 		String textPath = textInfoItemsAlias + "." + RObjectTextInfo.F_TEXT;
-		return getContext().getHibernateQuery().createLike(textPath, word, MatchMode.ANYWHERE, false);
+		// with one word per row, prefix matching can use the index on the text column
+		MatchMode matchMode = getFullTextIndexing() == FullTextIndexing.WORDS ? MatchMode.START : MatchMode.ANYWHERE;
+		return getContext().getHibernateQuery().createLike(textPath, word, matchMode, false);
+	}
+
+	private FullTextIndexing getFullTextIndexing() {
+		return getContext().getInterpreter().getRepoConfiguration().getFullTextIndexing();
 	}
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.repo.sql.query2.restriction;
+
+import com.evolveum.midpoint.prism.query.PropertyValueFilter;
+import com.evolveum.midpoint.repo.sql.data.common.any.PromotedExtensionItems;
+import com.evolveum.midpoint.repo.sql.data.common.any.RAnyConverter;
+import com.evolveum.midpoint.repo.sql.query.QueryException;
+import com.evolveum.midpoint.repo.sql.query2.InterpretationContext;
+import com.evolveum.midpoint.repo.sql.query2.definition.JpaEntityDefinition;
+import com.evolveum.midpoint.repo.sql.query2.hqm.condition.Condition;
+
+/**
+ * Restriction on a promoted extension item: it is evaluated against the dedicated column of the object entity,
+ * so no join to the extension table is needed.
+ */
+public class PromotedExtensionRestriction extends ItemValueRestriction<PropertyValueFilter> {
+
+    private final int index;
+
+    public PromotedExtensionRestriction(InterpretationContext context, PropertyValueFilter filter,
+            JpaEntityDefinition baseEntityDefinition, Restriction parent, int index) {
+        super(context, filter, baseEntityDefinition, parent);
+        this.index = index;
+    }
+
+    @Override
+    public Condition interpret() throws QueryException {
+        // no item path resolution here, as it would create the join to the extension table
+        return interpretInternal();
+    }
+
+    @Override
+    public Condition interpretInternal() throws QueryException {
+        String propertyPath = getBaseHqlEntity().getHqlPath() + "." + PromotedExtensionItems.getColumnProperty(index);
+        Object value = RAnyConverter.getAggregatedRepoObject(getValue(filter));
+        Condition condition = createPropertyVsConstantCondition(propertyPath, value, filter);
+        return addIsNotNullIfNecessary(condition, propertyPath);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.util;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Memory-efficient set of OIDs, used to remember objects already returned by an iterative search.
+ *
+ * OIDs in the canonical UUID form (36 characters, lowercase hexadecimal digits) are stored as two longs
+ * in an open-addressing hash table. This takes 32 bytes per OID (at the maximum load factor of 0.5),
+ * instead of approx. 150 bytes taken by a String in a HashSet. Other OIDs are stored in a plain HashSet.
+ *
+ * Not thread safe.
+ */
+public class CompactOidSet {
+
+	private static final int INITIAL_CAPACITY = 64;        // number of slots, must be a power of two
+
+	// each slot takes two consecutive longs; slot with both longs zero is free
+	private long[] table = new long[2 * INITIAL_CAPACITY];
+	private int uuidCount;
+	private boolean containsZeroUuid;
+
+	private final Set<String> otherOids = new HashSet<>();
+
+	public boolean contains(String oid) {
+		if (oid == null) {
+			return false;
+		}
+		long[] uuid = parseUuid(oid);
+		if (uuid == null) {
+			return otherOids.contains(oid);
+		} else if (uuid[0] == 0 && uuid[1] == 0) {
+			return containsZeroUuid;
+		} else {
+			int slot = findSlot(table, uuid[0], uuid[1]);
+			return table[slot] != 0 || table[slot + 1] != 0;
+		}
+	}
+
+	public boolean add(String oid) {
+		if (oid == null) {
+			return false;
+		}
+		long[] uuid = parseUuid(oid);
+		if (uuid == null) {
+			return otherOids.add(oid);
+		} else if (uuid[0] == 0 && uuid[1] == 0) {
+			boolean added = !containsZeroUuid;
+			containsZeroUuid = true;
+			return added;
+		} else {
+			return addUuid(uuid[0], uuid[1]);
+		}
+	}
+
+	public void addAll(CompactOidSet other) {
+		for (int i = 0; i < other.table.length; i += 2) {
+			if (other.table[i] != 0 || other.table[i + 1] != 0) {
+				addUuid(other.table[i], other.table[i + 1]);
+			}
+		}
+		containsZeroUuid |= other.containsZeroUuid;
+		otherOids.addAll(other.otherOids);
+	}
+
+	public int size() {
+		return uuidCount + (containsZeroUuid ? 1 : 0) + otherOids.size();
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	private boolean addUuid(long high, long low) {
+		int slot = findSlot(table, high, low);
+		if (table[slot] != 0 || table[slot + 1] != 0) {
+			return false;
+		}
+		table[slot] = high;
+		table[slot + 1] = low;
+		uuidCount++;
+		if (uuidCount > table.length / 4) {     // i.e. more than half of the slots used
+			rehash();
+		}
+		return true;
+	}
+
+	private void rehash() {
+		long[] newTable = new long[2 * table.length];
+		for (int i = 0; i < table.length; i += 2) {
+			if (table[i] != 0 || table[i + 1] != 0) {
+				int slot = findSlot(newTable, table[i], table[i + 1]);
+				newTable[slot] = table[i];
+				newTable[slot + 1] = table[i + 1];
+			}
+		}
+		table = newTable;
+	}
+
+	// returns index of the slot containing given UUID, or of the free slot where it should be placed
+	private static int findSlot(long[] table, long high, long low) {
+		int mask = table.length / 2 - 1;
+		long hash = (high ^ low) * 0x9E3779B97F4A7C15L;
+		int slot = (int) (hash ^ (hash >>> 32)) & mask;
+		for (;;) {
+			int index = 2 * slot;
+			if (table[index] == high && table[index + 1] == low || table[index] == 0 && table[index + 1] == 0) {
+				return index;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	// returns null if the OID is not a UUID in canonical form (so it could not be restored from the two longs)
+	private static long[] parseUuid(String oid) {
+		if (oid.length() != 36) {
+			return null;
+		}
+		long high = 0, low = 0;
+		int digits = 0;
+		for (int i = 0; i < 36; i++) {
+			char c = oid.charAt(i);
+			if (i == 8 || i == 13 || i == 18 || i == 23) {
+				if (c != '-') {
+					return null;
+				}
+				continue;
+			}
+			int value;
+			if (c >= '0' && c <= '9') {
+				value = c - '0';
+			} else if (c >= 'a' && c <= 'f') {
+				value = c - 'a' + 10;
+			} else {
+				return null;
+			}
+			if (digits < 16) {
+				high = (high << 4) | value;
+			} else {
+				low = (low << 4) | value;
+			}
+			digits++;
+		}
+		return new long[] { high, low };
+	}
+
+	@Override
+	public String toString() {
+		return "CompactOidSet(size=" + size() + ")";
+	}
+}
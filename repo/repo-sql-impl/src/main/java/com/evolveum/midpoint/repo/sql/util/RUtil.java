@@ -231,6 +231,7 @@ public final class RUtil {
     public static void fixCompositeIDHandling(SessionFactory sessionFactory) {
         fixCompositeIdentifierInMetaModel(sessionFactory, RObjectDeltaOperation.class);
         fixCompositeIdentifierInMetaModel(sessionFactory, ROrgClosure.class);
+        fixCompositeIdentifierInMetaModel(sessionFactory, RAssigneeCount.class);
 
         fixCompositeIdentifierInMetaModel(sessionFactory, ROExtDate.class);
         fixCompositeIdentifierInMetaModel(sessionFactory, ROExtString.class);
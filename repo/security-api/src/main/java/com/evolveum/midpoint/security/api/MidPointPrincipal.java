@@ -221,7 +221,15 @@ public class MidPointPrincipal implements UserDetails,  DebugDumpable, ShortDump
 	 * Semi-shallow clone.
 	 */
 	public MidPointPrincipal clone() {
-		MidPointPrincipal clone = new MidPointPrincipal(this.user);
+		return cloneWithUser(this.user);
+	}
+
+	/**
+	 * Semi-shallow clone that uses provided user object instead of the original one
+	 * (e.g. a private copy of it).
+	 */
+	public MidPointPrincipal cloneWithUser(@NotNull UserType user) {
+		MidPointPrincipal clone = new MidPointPrincipal(user);
 		clone.adminGuiConfiguration = this.adminGuiConfiguration;
 		clone.applicableSecurityPolicy = this.applicableSecurityPolicy;
 		clone.authorizations = cloneAuthorities();
@@ -104,6 +104,14 @@ public class AuthorizationParameters<O extends ObjectType, T extends ObjectType>
 		return orderConstraints;
 	}
 
+	/**
+	 * True if there is nothing that the authorization decision may depend on, except for the operation and phase.
+	 */
+	public boolean isEmpty() {
+		return odo == null && target == null && relation == null
+				&& (orderConstraints == null || orderConstraints.isEmpty());
+	}
+
 	@Override
 	public String toString() {
 		return "AuthorizationParameters(odo=" + odo + ", target=" + target
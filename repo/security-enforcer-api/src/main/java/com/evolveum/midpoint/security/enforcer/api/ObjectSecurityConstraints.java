@@ -20,6 +20,10 @@ import com.evolveum.midpoint.util.DebugDumpable;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.AuthorizationDecisionType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.AuthorizationPhaseType;
 
+/**
+ * Security constraints compiled for a particular object. Implementations are expected to provide value-based
+ * equals() and hashCode(), as compiled constraints may be used as parts of cache keys.
+ */
 public interface ObjectSecurityConstraints extends DebugDumpable {
 
 	/**
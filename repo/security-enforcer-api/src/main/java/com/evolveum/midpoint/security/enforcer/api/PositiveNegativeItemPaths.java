@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 
 import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.path.ItemPath.CompareResult;
@@ -124,6 +125,23 @@ public class PositiveNegativeItemPaths implements ShortDumpable {
 	}
 	
 
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		PositiveNegativeItemPaths that = (PositiveNegativeItemPaths) o;
+		return allItems == that.allItems && includedItems.equals(that.includedItems) && excludedItems.equals(that.excludedItems);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(includedItems, excludedItems, allItems);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
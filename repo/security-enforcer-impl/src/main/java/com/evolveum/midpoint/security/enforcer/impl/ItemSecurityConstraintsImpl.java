@@ -15,6 +15,8 @@
  */
 package com.evolveum.midpoint.security.enforcer.impl;
 
+import java.util.Objects;
+
 import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.security.api.Authorization;
 import com.evolveum.midpoint.security.enforcer.api.ItemSecurityConstraints;
@@ -69,6 +71,23 @@ public class ItemSecurityConstraintsImpl implements ItemSecurityConstraints {
 		return null;
 	}
 	
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof ItemSecurityConstraintsImpl)) {
+			return false;
+		}
+		ItemSecurityConstraintsImpl that = (ItemSecurityConstraintsImpl) o;
+		return allowedItems.equals(that.allowedItems) && deniedItems.equals(that.deniedItems);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(allowedItems, deniedItems);
+	}
+
 	@Override
 	public String debugDump(int indent) {
 		StringBuilder sb = DebugUtil.createTitleStringBuilderLn(ItemSecurityConstraintsImpl.class, indent);
@@ -156,6 +156,26 @@ public class ObjectSecurityConstraintsImpl implements ObjectSecurityConstraints
 		return decision;
 	}
 
+	/**
+	 * Two instances are equal if they were compiled from equivalent authorizations, i.e. they provide the same decisions.
+	 * This allows using compiled constraints as (parts of) cache keys.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof ObjectSecurityConstraintsImpl)) {
+			return false;
+		}
+		return actionMap.equals(((ObjectSecurityConstraintsImpl) o).actionMap);
+	}
+
+	@Override
+	public int hashCode() {
+		return actionMap.hashCode();
+	}
+
 	@Override
 	public String debugDump(int indent) {
 		StringBuilder sb = DebugUtil.createTitleStringBuilderLn(ObjectSecurityConstraintsImpl.class, indent);
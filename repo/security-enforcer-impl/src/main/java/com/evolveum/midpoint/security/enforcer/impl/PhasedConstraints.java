@@ -15,6 +15,8 @@
  */
 package com.evolveum.midpoint.security.enforcer.impl;
 
+import java.util.Objects;
+
 import com.evolveum.midpoint.util.DebugDumpable;
 import com.evolveum.midpoint.util.DebugUtil;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.AuthorizationPhaseType;
@@ -47,6 +49,23 @@ public class PhasedConstraints implements DebugDumpable {
 		}
 	}
 	
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof PhasedConstraints)) {
+			return false;
+		}
+		PhasedConstraints that = (PhasedConstraints) o;
+		return requestConstraints.equals(that.requestConstraints) && execConstraints.equals(that.execConstraints);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(requestConstraints, execConstraints);
+	}
+
 	@Override
 	public String debugDump(int indent) {
 		StringBuilder sb = DebugUtil.createTitleStringBuilderLn(PhasedConstraints.class, indent);
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.security.enforcer.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.evolveum.midpoint.security.api.Authorization;
+import com.evolveum.midpoint.security.api.AuthorizationConstants;
+import com.evolveum.midpoint.security.enforcer.api.AccessDecision;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AuthorizationPhaseType;
+
+/**
+ * Data that SecurityEnforcer computes from authorizations of a single principal and that can be re-used
+ * for all the authorization checks of that principal.
+ *
+ * There are two parts:
+ * <ul>
+ *     <li>Authorizations indexed by action URL. Evaluation of an operation needs to look only at the authorizations
+ *     that contain that action (or the "all" action) instead of walking all authorizations of the principal.
+ *     The original order of authorizations is maintained.</li>
+ *     <li>Decisions for object-less operations (e.g. GUI page and action authorizations). Such decisions depend only on
+ *     the authorizations of the principal, the action and the phase. The GUI evaluates them over and over again,
+ *     e.g. for every row of a table.</li>
+ * </ul>
+ *
+ * The cache is bound to a principal instance. A refreshed principal is a new instance, therefore it gets a new cache.
+ * Just to be on the safe side, the cache remembers the authorization objects it was computed from and it is reset
+ * when the authorization collection of the principal no longer contains the very same objects in the same order.
+ */
+class PrincipalAuthorizationCache {
+
+	private final Collection<Authorization> authorizations;
+	private volatile List<Authorization> snapshot;
+
+	private volatile Map<List<String>, List<Authorization>> authorizationsByActions = new ConcurrentHashMap<>();
+	private volatile Map<DecisionKey, AccessDecision> decisions = new ConcurrentHashMap<>();
+
+	PrincipalAuthorizationCache(Collection<Authorization> authorizations) {
+		this.authorizations = authorizations;
+		this.snapshot = createSnapshot(authorizations);
+	}
+
+	/**
+	 * Returns all the authorizations of the principal, in the original order.
+	 */
+	List<Authorization> getAuthorizations() {
+		checkValidity();
+		return snapshot;
+	}
+
+	/**
+	 * Returns authorizations that are applicable to specified action, in the original order.
+	 */
+	List<Authorization> getAuthorizations(String actionUrl) {
+		return getAuthorizations(Collections.singletonList(actionUrl));
+	}
+
+	/**
+	 * Returns authorizations that are applicable to any of the specified actions, in the original order.
+	 */
+	List<Authorization> getAuthorizations(String[] actionUrls) {
+		return getAuthorizations(Arrays.asList(actionUrls));
+	}
+
+	private List<Authorization> getAuthorizations(List<String> actionUrls) {
+		checkValidity();
+		return authorizationsByActions.computeIfAbsent(actionUrls, this::selectAuthorizations);
+	}
+
+	AccessDecision getDecision(String actionUrl, AuthorizationPhaseType phase) {
+		checkValidity();
+		return decisions.get(new DecisionKey(actionUrl, phase));
+	}
+
+	void putDecision(String actionUrl, AuthorizationPhaseType phase, AccessDecision decision) {
+		decisions.put(new DecisionKey(actionUrl, phase), decision);
+	}
+
+	int getCachedDecisionsCount() {
+		return decisions.size();
+	}
+
+	private synchronized void checkValidity() {
+		if (!isSnapshotOf(authorizations)) {
+			snapshot = createSnapshot(authorizations);
+			authorizationsByActions = new ConcurrentHashMap<>();
+			decisions = new ConcurrentHashMap<>();
+		}
+	}
+
+	private boolean isSnapshotOf(Collection<Authorization> current) {
+		if (current.size() != snapshot.size()) {
+			return false;
+		}
+		Iterator<Authorization> snapshotIterator = snapshot.iterator();
+		for (Authorization autz : current) {
+			if (autz != snapshotIterator.next()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static List<Authorization> createSnapshot(Collection<Authorization> authorizations) {
+		return Collections.unmodifiableList(new ArrayList<>(authorizations));
+	}
+
+	private List<Authorization> selectAuthorizations(List<String> actionUrls) {
+		List<Authorization> selected = new ArrayList<>();
+		for (Authorization autz : snapshot) {
+			List<String> actions = autz.getAction();
+			if (actions.contains(AuthorizationConstants.AUTZ_ALL_URL) || !Collections.disjoint(actions, actionUrls)) {
+				selected.add(autz);
+			}
+		}
+		return Collections.unmodifiableList(selected);
+	}
+
+	private static class DecisionKey {
+		private final String actionUrl;
+		private final AuthorizationPhaseType phase;
+
+		private DecisionKey(String actionUrl, AuthorizationPhaseType phase) {
+			this.actionUrl = actionUrl;
+			this.phase = phase;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof DecisionKey)) {
+				return false;
+			}
+			DecisionKey that = (DecisionKey) o;
+			return Objects.equals(actionUrl, that.actionUrl) && phase == that.phase;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(actionUrl, phase);
+		}
+	}
+}
@@ -17,7 +17,10 @@ package com.evolveum.midpoint.security.enforcer.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.function.Consumer;
 
 import javax.xml.namespace.QName;
@@ -139,6 +142,11 @@ public class SecurityEnforcerImpl implements SecurityEnforcer {
 	@Qualifier("securityContextManager")
 	private SecurityContextManager securityContextManager;
 
+	// Principals do not override equals/hashCode, so this is in fact an identity map. Entries of principals
+	// that are no longer used (e.g. refreshed or logged out) are discarded by garbage collector.
+	private final Map<MidPointPrincipal, PrincipalAuthorizationCache> authorizationCaches =
+			Collections.synchronizedMap(new WeakHashMap<>());
+
 	@Override
 	public <O extends ObjectType, T extends ObjectType> boolean isAuthorized(String operationUrl, AuthorizationPhaseType phase,
 			AuthorizationParameters<O,T> params, OwnerResolver ownerResolver, Task task, OperationResult result)
@@ -174,13 +182,27 @@ public class SecurityEnforcerImpl implements SecurityEnforcer {
 		if (phase == null) {
 			throw new IllegalArgumentException("No phase");
 		}
+		PrincipalAuthorizationCache authorizationCache = getAuthorizationCache(midPointPrincipal);
+		// Decisions for operations without any object, target or other parameters depend only on the authorizations
+		// of the principal. These are typically GUI authorizations that are checked over and over again.
+		boolean cacheableDecision = authorizationCache != null && applicableAutzConsumer == null && params.isEmpty();
+		if (cacheableDecision) {
+			AccessDecision cachedDecision = authorizationCache.getDecision(operationUrl, phase);
+			if (cachedDecision != null) {
+				LOGGER.trace("AUTZ: cached decision principal={}, op={}, phase={}: {}",
+						getUsername(midPointPrincipal), operationUrl, phase, cachedDecision);
+				return cachedDecision;
+			}
+		}
+
 		AccessDecision decision = AccessDecision.DEFAULT;
 		if (LOGGER.isTraceEnabled()) {
 			LOGGER.trace("AUTZ: evaluating authorization principal={}, op={}, phase={}, {}",
 				getUsername(midPointPrincipal), operationUrl, phase, params.shortDump());
 		}
 		final AutzItemPaths allowedItems = new AutzItemPaths();
-		Collection<Authorization> authorities = getAuthorities(midPointPrincipal);
+		Collection<Authorization> authorities = authorizationCache != null ?
+				authorizationCache.getAuthorizations(operationUrl) : getAuthorities(midPointPrincipal);
 		if (authorities != null) {
 			for (GrantedAuthority authority: authorities) {
 				if (authority instanceof Authorization) {
@@ -301,6 +323,9 @@ public class SecurityEnforcerImpl implements SecurityEnforcer {
 			LOGGER.trace("AUTZ result: principal={}, operation={}: {}",
 					getUsername(midPointPrincipal), prettyActionUrl(operationUrl), decision);
 		}
+		if (cacheableDecision) {
+			authorizationCache.putDecision(operationUrl, phase, decision);
+		}
 		return decision;
 	}
 	
@@ -1027,6 +1052,14 @@ public class SecurityEnforcerImpl implements SecurityEnforcer {
 		return (MidPointPrincipal)principal;
 	}
 
+	private PrincipalAuthorizationCache getAuthorizationCache(MidPointPrincipal principal) {
+		if (principal == null || principal.getAuthorities() == null) {
+			// Anonymous access. Authorizations are taken from the authentication, there is nothing to bind the cache to.
+			return null;
+		}
+		return authorizationCaches.computeIfAbsent(principal, p -> new PrincipalAuthorizationCache(p.getAuthorities()));
+	}
+
 	private Collection<Authorization> getAuthorities(MidPointPrincipal principal) {
 		if (principal == null) {
 			// Anonymous access, possibly with elevated privileges
@@ -1055,7 +1088,9 @@ public class SecurityEnforcerImpl implements SecurityEnforcer {
 			LOGGER.trace("AUTZ: evaluating security constraints principal={}, object={}", getUsername(principal), object);
 		}
 		ObjectSecurityConstraintsImpl objectSecurityConstraints = new ObjectSecurityConstraintsImpl();
-		Collection<Authorization> authorities = getAuthorities(principal);
+		PrincipalAuthorizationCache authorizationCache = getAuthorizationCache(principal);
+		Collection<Authorization> authorities = authorizationCache != null ?
+				authorizationCache.getAuthorizations() : getAuthorities(principal);
 		if (authorities != null) {
 			for (Authorization autz: authorities) {
 				String autzHumanReadableDesc = autz.getHumanReadableDesc();
@@ -1167,7 +1202,9 @@ public class SecurityEnforcerImpl implements SecurityEnforcer {
 			AuthorizationPhaseType phase, boolean includeNullPhase,
 			Class<T> objectType, PrismObject<O> object, boolean includeSpecial, ObjectFilter origFilter, String limitAuthorizationAction, String desc, Task task, OperationResult result) throws SchemaException, ObjectNotFoundException, ExpressionEvaluationException, CommunicationException, ConfigurationException, SecurityViolationException {
 
-		Collection<Authorization> authorities = getAuthorities(principal);
+		PrincipalAuthorizationCache authorizationCache = getAuthorizationCache(principal);
+		Collection<Authorization> authorities = authorizationCache != null ?
+				authorizationCache.getAuthorizations(operationUrls) : getAuthorities(principal);
 
 		ObjectFilter securityFilterAllow = null;
 		ObjectFilter securityFilterDeny = null;
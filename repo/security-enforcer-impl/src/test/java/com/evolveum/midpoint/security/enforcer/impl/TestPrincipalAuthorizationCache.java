@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.security.enforcer.impl;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXException;
+
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.security.api.Authorization;
+import com.evolveum.midpoint.security.api.AuthorizationConstants;
+import com.evolveum.midpoint.security.enforcer.api.AccessDecision;
+import com.evolveum.midpoint.test.util.TestUtil;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AuthorizationPhaseType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AuthorizationType;
+
+/**
+ * Unit tests for the per-principal authorization cache. No Spring context is needed here.
+ */
+public class TestPrincipalAuthorizationCache {
+
+	private static final String ACTION_READ = "http://midpoint.evolveum.com/xml/ns/test/authorization#read";
+	private static final String ACTION_SEARCH = "http://midpoint.evolveum.com/xml/ns/test/authorization#search";
+	private static final String ACTION_DELETE = "http://midpoint.evolveum.com/xml/ns/test/authorization#delete";
+
+	@BeforeSuite
+	public void setup() throws SchemaException, SAXException, IOException {
+		PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+	}
+
+	@Test
+	public void test100SelectByAction() {
+		TestUtil.displayTestTitle("test100SelectByAction");
+		Authorization read = createAuthorization(ACTION_READ);
+		Authorization all = createAuthorization(AuthorizationConstants.AUTZ_ALL_URL);
+		Authorization search = createAuthorization(ACTION_SEARCH);
+		Authorization delete = createAuthorization(ACTION_DELETE);
+		PrincipalAuthorizationCache cache = new PrincipalAuthorizationCache(Arrays.asList(read, all, search, delete));
+
+		assertEquals("Wrong authorizations for read", Arrays.asList(read, all), cache.getAuthorizations(ACTION_READ));
+		assertEquals("Wrong authorizations for read+search", Arrays.asList(read, all, search),
+				cache.getAuthorizations(new String[] { ACTION_SEARCH, ACTION_READ }));
+		assertEquals("Wrong authorizations for all actions", Arrays.asList(read, all, search, delete),
+				cache.getAuthorizations());
+	}
+
+	@Test
+	public void test110DecisionCached() {
+		TestUtil.displayTestTitle("test110DecisionCached");
+		PrincipalAuthorizationCache cache = new PrincipalAuthorizationCache(Arrays.asList(createAuthorization(ACTION_READ)));
+
+		cache.putDecision(ACTION_READ, AuthorizationPhaseType.REQUEST, AccessDecision.ALLOW);
+
+		assertEquals("Wrong cached decision", AccessDecision.ALLOW, cache.getDecision(ACTION_READ, AuthorizationPhaseType.REQUEST));
+		assertNull("Decision cached for wrong phase", cache.getDecision(ACTION_READ, AuthorizationPhaseType.EXECUTION));
+	}
+
+	/**
+	 * Authorization replaced by a different one, the number of authorizations stays the same.
+	 */
+	@Test
+	public void test200ReplacedAuthorization() {
+		TestUtil.displayTestTitle("test200ReplacedAuthorization");
+		List<Authorization> authorizations = new ArrayList<>();
+		authorizations.add(createAuthorization(ACTION_READ));
+		PrincipalAuthorizationCache cache = new PrincipalAuthorizationCache(authorizations);
+		cache.putDecision(ACTION_READ, AuthorizationPhaseType.REQUEST, AccessDecision.ALLOW);
+		assertEquals("Wrong authorizations for read", 1, cache.getAuthorizations(ACTION_READ).size());
+
+		Authorization delete = createAuthorization(ACTION_DELETE);
+		authorizations.set(0, delete);
+
+		assertNull("Stale decision returned", cache.getDecision(ACTION_READ, AuthorizationPhaseType.REQUEST));
+		assertEquals("Stale authorizations returned for read", 0, cache.getAuthorizations(ACTION_READ).size());
+		assertEquals("Wrong authorizations for delete", Arrays.asList(delete), cache.getAuthorizations(ACTION_DELETE));
+	}
+
+	@Test
+	public void test210ReorderedAuthorizations() {
+		TestUtil.displayTestTitle("test210ReorderedAuthorizations");
+		Authorization read = createAuthorization(ACTION_READ);
+		Authorization all = createAuthorization(AuthorizationConstants.AUTZ_ALL_URL);
+		List<Authorization> authorizations = new ArrayList<>(Arrays.asList(read, all));
+		PrincipalAuthorizationCache cache = new PrincipalAuthorizationCache(authorizations);
+		assertEquals("Wrong authorizations for read", Arrays.asList(read, all), cache.getAuthorizations(ACTION_READ));
+
+		authorizations.set(0, all);
+		authorizations.set(1, read);
+
+		assertEquals("Order of authorizations not updated", Arrays.asList(all, read), cache.getAuthorizations(ACTION_READ));
+	}
+
+	private Authorization createAuthorization(String action) {
+		AuthorizationType authorizationType = new AuthorizationType();
+		authorizationType.getAction().add(action);
+		return new Authorization(authorizationType);
+	}
+}
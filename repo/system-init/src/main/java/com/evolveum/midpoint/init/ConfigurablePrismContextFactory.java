@@ -34,6 +34,7 @@ public class ConfigurablePrismContextFactory extends MidPointPrismContextFactory
 
 	private static final Trace LOGGER = TraceManager.getTrace(ConfigurablePrismContextFactory.class);
     private static final String EXTENSION_DIR = "extensionDir";
+    private static final String SCHEMA_SNAPSHOT_FILE = "schemaSnapshotFile";
     private MidpointConfiguration configuration;
 
     // This is a hack to facilitate having separate extension schema directories for individual tests.
@@ -99,4 +100,23 @@ public class ConfigurablePrismContextFactory extends MidPointPrismContextFactory
             throw new SchemaException(ex.getMessage(), ex);
         }
     }
+
+    /**
+     * Snapshot of parsed schemas is used only if midpoint.global/schemaSnapshotFile is set. Relative paths
+     * are resolved against midpoint.home.
+     */
+    @Override
+    protected File getSchemaSnapshotFile() {
+        Configuration config = configuration.getConfiguration(MidpointConfiguration.GLOBAL_CONFIGURATION);
+        String snapshotFile = config != null ? config.getString(SCHEMA_SNAPSHOT_FILE) : null;
+        if (StringUtils.isEmpty(snapshotFile)) {
+            return null;
+        }
+        File file = new File(snapshotFile);
+        if (!file.isAbsolute() && StringUtils.isNotEmpty(configuration.getMidpointHome())) {
+            file = new File(configuration.getMidpointHome(), snapshotFile);
+        }
+        LOGGER.info("Using schema snapshot file '{}'.", file);
+        return file;
+    }
 }
@@ -1153,6 +1153,9 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware {
                 throw new IllegalStateException("Handler for lightweight task " + task + " couldn't be started because the task's state is " + task.getExecutionStatus());
             }
 
+            // lightweight subtasks record operation results in the same way as the thread that starts them
+            OperationResultRecordingLevelType recordingLevel = OperationResult.getThreadRecordingLevel();
+
             Runnable r = () -> {
                 LOGGER.debug("Lightweight task handler shell starting execution; task = {}", task);
 
@@ -1164,6 +1167,7 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware {
                     throw new SystemException(e.getMessage(), e);
 				}
 
+                OperationResultRecordingLevelType previousRecordingLevel = OperationResult.setThreadRecordingLevel(recordingLevel);
                 try {
                     task.setLightweightHandlerExecuting(true);
                     lightweightTaskHandler.run(task);
@@ -1171,6 +1175,7 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware {
                     LoggingUtils.logUnexpectedException(LOGGER, "Lightweight task handler has thrown an exception; task = {}", t, task);
                 } finally {
                     task.setLightweightHandlerExecuting(false);
+                    OperationResult.setThreadRecordingLevel(previousRecordingLevel);
                 }
                 LOGGER.debug("Lightweight task handler shell finishing; task = {}", task);
                 try {
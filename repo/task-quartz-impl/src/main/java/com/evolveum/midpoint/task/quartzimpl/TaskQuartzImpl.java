@@ -109,6 +109,10 @@ public class TaskQuartzImpl implements Task {
 
 	public static final long DEFAULT_OPERATION_STATS_UPDATE_INTERVAL = 3000L;
 
+	// items that can be stored outside of the task object (see RepositoryService.updateTaskStatistics)
+	private static final List<ItemPath> STATISTICS_PATHS = Arrays.asList(new ItemPath(TaskType.F_PROGRESS),
+			new ItemPath(TaskType.F_EXPECTED_TOTAL), new ItemPath(TaskType.F_OPERATION_STATS));
+
 	private Long lastOperationStatsUpdateTimestamp;
 
 	private long operationStatsUpdateInterval = DEFAULT_OPERATION_STATS_UPDATE_INTERVAL;
@@ -1343,6 +1347,14 @@ public class TaskQuartzImpl implements Task {
 		return taskPrism.asObjectable().getThreadStopAction();
 	}
 
+	/*
+	 * ResultRecordingLevel (currently set only via repository)
+	 */
+
+	public OperationResultRecordingLevelType getResultRecordingLevel() {
+		return taskPrism.asObjectable().getResultRecordingLevel();
+	}
+
 	@Override
 	public void setThreadStopAction(ThreadStopActionType value) {
 		processModificationBatched(setThreadStopActionAndPrepareDelta(value));
@@ -3137,13 +3149,34 @@ public class TaskQuartzImpl implements Task {
 			storeOperationStatsDeferred();
 			processModificationBatched(createProgressDelta(getProgress()));
 			processModificationBatched(createExpectedTotalDelta(getExpectedTotal()));
-			savePendingModifications(new OperationResult(DOT_INTERFACE + ".storeOperationStats"));    // TODO fixme
+			OperationResult result = new OperationResult(DOT_INTERFACE + ".storeOperationStats");    // TODO fixme
+			if (!storeOperationStatsSeparately(result)) {
+				savePendingModifications(result);
+			}
 			lastOperationStatsUpdateTimestamp = System.currentTimeMillis();
 		} catch (SchemaException | ObjectNotFoundException | ObjectAlreadyExistsException | RuntimeException e) {
 			LoggingUtils.logUnexpectedException(LOGGER, "Couldn't store statistical information into task {}", e, this);
 		}
 	}
 
+	/**
+	 * Stores the statistics without rewriting the whole task object, if there is nothing else to be saved.
+	 * Pending modifications are kept: they are written into the task object on the next regular save.
+	 */
+	private boolean storeOperationStatsSeparately(OperationResult result) throws SchemaException, ObjectNotFoundException {
+		if (!isPersistent()) {
+			return false;
+		}
+		synchronized (pendingModifications) {
+			for (ItemDelta<?, ?> modification : pendingModifications) {
+				if (STATISTICS_PATHS.stream().noneMatch(path -> path.equivalent(modification.getPath()))) {
+					return false;
+				}
+			}
+		}
+		return repositoryService.updateTaskStatistics(getOid(), getProgress(), getExpectedTotal(), getStoredOperationStats(), result);
+	}
+
 	@Override
 	public void storeOperationStatsIfNeeded() {
 		if (lastOperationStatsUpdateTimestamp == null ||
@@ -210,6 +210,8 @@ public class NodeRegistrar {
             List<ItemDelta<?, ?>> modifications = DeltaBuilder.deltaFor(NodeType.class, getPrismContext())
                     .item(NodeType.F_RUNNING).replace(false)
                     .item(NodeType.F_LAST_CHECK_IN_TIME).replace(getCurrentTime())
+                    .item(NodeType.F_SCHEDULER_STATUS).replaceRealValues(Collections.emptySet())
+                    .item(NodeType.F_RUNNING_TASK_OID).replaceRealValues(Collections.emptySet())
                     .asItemDeltas();
             getRepositoryService().modifyObject(NodeType.class, nodeOid, modifications, result);
             LOGGER.trace("Node shutdown successfully registered.");
@@ -225,16 +227,25 @@ public class NodeRegistrar {
 
     /**
      * Updates registration of this node (runs periodically within ClusterManager thread).
+     *
+     * Besides the check-in time, the status of the scheduler and the list of running tasks are published, so other
+     * nodes can display the cluster status without contacting this node via JMX.
      */
     void updateNodeObject(OperationResult result) {
         String nodeOid = getLocalNodeObjectOid();
         String nodeName = taskManager.getNodeId();
         LOGGER.trace("Updating this node registration:\n{}", cachedLocalNodeObject.debugDumpLazily());
+        Set<String> runningTaskOids = taskManager.getExecutionManager().getLocallyRunningTaskOids();
+        // if the running tasks are unknown, we publish no status, so others would ask this node directly
+        NodeExecutionStatusType schedulerStatus = runningTaskOids != null ?
+                taskManager.getExecutionManager().getLocalNodeExecutionStatus() : null;
         try {
             List<ItemDelta<?, ?>> modifications = DeltaBuilder.deltaFor(NodeType.class, getPrismContext())
                     .item(NodeType.F_HOSTNAME).replace(getMyHostname())
                     .item(NodeType.F_IP_ADDRESS).replaceRealValues(getMyIpAddresses())
                     .item(NodeType.F_LAST_CHECK_IN_TIME).replace(getCurrentTime())
+                    .item(NodeType.F_SCHEDULER_STATUS).replace(schedulerStatus)
+                    .item(NodeType.F_RUNNING_TASK_OID).replaceRealValues(runningTaskOids != null ? runningTaskOids : Collections.emptySet())
                     .asItemDeltas();
             getRepositoryService().modifyObject(NodeType.class, nodeOid, modifications, result);
             LOGGER.trace("Node registration successfully updated.");
@@ -30,6 +30,7 @@ import com.evolveum.midpoint.util.exception.SystemException;
 import com.evolveum.midpoint.util.logging.LoggingUtils;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.NodeExecutionStatusType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.NodeType;
 
 import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskExecutionLimitationsType;
@@ -156,10 +157,10 @@ public class ExecutionManager {
 
         if (clusterwide) {
             for (PrismObject<NodeType> node : taskManager.getClusterManager().getAllNodes(result)) {
-                addNodeAndTaskInformation(retval, node, result);
+                addNodeAndTaskInformation(retval, node, allowCached, result);
             }
         } else {
-            addNodeAndTaskInformation(retval, taskManager.getClusterManager().getLocalNodeObject(), result);
+            addNodeAndTaskInformation(retval, taskManager.getClusterManager().getLocalNodeObject(), allowCached, result);
         }
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("cluster state information = {}", retval.dump());
@@ -172,7 +173,13 @@ public class ExecutionManager {
         return retval;
     }
 
-    private void addNodeAndTaskInformation(ClusterStatusInformation info, PrismObject<NodeType> node, OperationResult parentResult) {
+    /**
+     * @param allowPublished If true, the status of a remote node can be taken from its Node object (published there
+     *                       by the node itself at each check-in) instead of asking the node via JMX. This is OK for
+     *                       informational purposes, but not when the status is used to control the tasks.
+     */
+    private void addNodeAndTaskInformation(ClusterStatusInformation info, PrismObject<NodeType> node, boolean allowPublished,
+            OperationResult parentResult) {
 
         OperationResult result = parentResult.createSubresult(ExecutionManager.class.getName() + ".addNodeAndTaskInformation");
         result.addParam("node", node);
@@ -191,6 +198,19 @@ public class ExecutionManager {
 
             info.addNodeAndTaskInfo(node.asObjectable(), taskInfoList);
 
+        } else if (allowPublished && isPublishedStatusUsable(node.asObjectable())) {
+
+            NodeType nodeInfo = node.asObjectable();
+            LOGGER.trace("Getting node and task info for remote node ({}) from its published status", nodeInfo.getNodeIdentifier());
+
+            List<ClusterStatusInformation.TaskInfo> taskInfoList = new ArrayList<>();
+            for (String taskOid : nodeInfo.getRunningTaskOid()) {
+                taskInfoList.add(new ClusterStatusInformation.TaskInfo(taskOid));
+            }
+            nodeInfo.setExecutionStatus(nodeInfo.getSchedulerStatus());
+
+            info.addNodeAndTaskInfo(nodeInfo, taskInfoList);
+
         } else {    // if remote
 
             LOGGER.debug("Getting running task info from remote node ({}, {})", node.asObjectable().getNodeIdentifier(), node.asObjectable().getHostname());
@@ -200,6 +220,14 @@ public class ExecutionManager {
         result.recordSuccessIfUnknown();
     }
 
+    /**
+     * Published status is usable if the node is up (i.e. it has checked in recently) and it has published
+     * its status at all (nodes running older versions do not do that).
+     */
+    private boolean isPublishedStatusUsable(NodeType node) {
+        return node.getSchedulerStatus() != null && taskManager.getClusterManager().isUp(node);
+    }
+
 
     /*
      * ==================== TASK-LEVEL METHODS ====================
@@ -540,6 +568,17 @@ public class ExecutionManager {
 
     }
 
+    /**
+     * @return null if the list cannot be determined
+     */
+    public Set<String> getLocallyRunningTaskOids() {
+        return localNodeManager.getLocallyRunningTaskOids();
+    }
+
+    public NodeExecutionStatusType getLocalNodeExecutionStatus() {
+        return localNodeManager.getLocalNodeExecutionStatus();
+    }
+
     public void initializeLocalScheduler() throws TaskManagerInitializationException {
         localNodeManager.initializeScheduler();
     }
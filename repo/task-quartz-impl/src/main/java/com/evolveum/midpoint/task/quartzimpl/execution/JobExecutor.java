@@ -657,12 +657,25 @@ mainCycle:
 		    task.setResultTransient(task.createUnnamedTaskResult());
 	    }
 
+	    // results created by the handler in this thread (and subresults of the task result) use the level set for the task;
+	    // the task result is persistent, so its original level is restored afterwards
+	    OperationResultRecordingLevelType recordingLevel = task.getResultRecordingLevel();
+	    OperationResultRecordingLevelType previousRecordingLevel = OperationResult.setThreadRecordingLevel(recordingLevel);
+	    OperationResult taskResult = task.getResult();
+	    OperationResultRecordingLevelType previousTaskResultRecordingLevel = taskResult.getRecordingLevel();
+	    taskResult.setRecordingLevel(recordingLevel);
+
 	    TaskRunResult runResult;
-		if (handler instanceof WorkBucketAwareTaskHandler) {
-			runResult = executeWorkBucketAwareTaskHandler((WorkBucketAwareTaskHandler) handler, executionResult);
-		} else {
-			runResult = executePlainTaskHandler(handler);
-		}
+	    try {
+		    if (handler instanceof WorkBucketAwareTaskHandler) {
+			    runResult = executeWorkBucketAwareTaskHandler((WorkBucketAwareTaskHandler) handler, executionResult);
+		    } else {
+			    runResult = executePlainTaskHandler(handler);
+		    }
+	    } finally {
+		    OperationResult.setThreadRecordingLevel(previousRecordingLevel);
+		    taskResult.setRecordingLevel(previousTaskResultRecordingLevel);
+	    }
 
         waitForTransientChildrenAndCloseThem(executionResult);
         return runResult;
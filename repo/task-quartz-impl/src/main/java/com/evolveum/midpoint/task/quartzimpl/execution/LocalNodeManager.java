@@ -487,6 +487,27 @@ public class LocalNodeManager {
         return retval;
     }
 
+    /**
+     * Returns OIDs of the currently executing tasks. Unlike getLocallyRunningTasks, the tasks are not fetched
+     * from the repository.
+     *
+     * @return null if the list cannot be determined
+     */
+    Set<String> getLocallyRunningTaskOids() {
+        List<JobExecutionContext> jecs;
+        try {
+            jecs = getQuartzScheduler().getCurrentlyExecutingJobs();
+        } catch (SchedulerException e) {
+            LoggingUtils.logUnexpectedException(LOGGER, "Cannot get the list of currently executing jobs on local node.", e);
+            return null;
+        }
+        Set<String> retval = new HashSet<>();
+        for (JobExecutionContext jec : jecs) {
+            retval.add(jec.getJobDetail().getKey().getName());
+        }
+        return retval;
+    }
+
     /*
      * Various auxiliary methods
      */
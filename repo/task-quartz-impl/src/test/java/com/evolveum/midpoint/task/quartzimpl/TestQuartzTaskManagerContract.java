@@ -34,6 +34,7 @@ import com.evolveum.midpoint.schema.result.OperationResultStatus;
 import com.evolveum.midpoint.schema.util.ObjectTypeUtil;
 import com.evolveum.midpoint.task.api.*;
 import com.evolveum.midpoint.task.quartzimpl.cluster.ClusterManager;
+import com.evolveum.midpoint.task.quartzimpl.cluster.ClusterStatusInformation;
 import com.evolveum.midpoint.task.quartzimpl.execution.JobExecutor;
 import com.evolveum.midpoint.task.quartzimpl.handlers.NoOpTaskHandler;
 import com.evolveum.midpoint.test.Checker;
@@ -63,6 +64,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static com.evolveum.midpoint.schema.GetOperationOptions.retrieveItemsNamed;
 import static com.evolveum.midpoint.test.IntegrationTestTools.display;
@@ -83,6 +85,8 @@ public class TestQuartzTaskManagerContract extends AbstractTaskManagerTest {
     private static final String TASK_OWNER2_FILENAME = "src/test/resources/basic/owner2.xml";
     private static final String TASK_OWNER2_OID = "c0c010c0-d34d-b33f-f00d-111111111112";
     private static final String NS_WHATEVER = "http://myself.me/schemas/whatever";
+    private static final String FAKE_REMOTE_NODE_ID = "FakeRemoteNode";
+    private static final String FAKE_REMOTE_TASK_OID = "91919191-76e0-59e2-86d6-fa4e0000140a";
 
     private static String taskFilename(String test) {
     	return "src/test/resources/basic/task-" + test.substring(4) + ".xml";
@@ -1499,6 +1503,65 @@ public class TestQuartzTaskManagerContract extends AbstractTaskManagerTest {
 		taskManager.suspendTasks(Collections.singleton(task.getOid()), 1000L, result);
 	}
 
+    /**
+     * The node publishes its scheduler status and running tasks in its node object. The cached cluster status
+     * uses this published information for remote nodes instead of contacting them via JMX.
+     */
+    @Test
+    public void test140PublishedNodeStatus() throws Exception {
+        final String TEST_NAME = "test140PublishedNodeStatus";
+        final OperationResult result = createResult(TEST_NAME, LOGGER);
+
+        TaskType task = (TaskType) addObjectFromFile(taskFilename(TEST_NAME)).asObjectable();
+        String taskOid = task.getOid();
+        waitForTaskStart(taskOid, result, 10000, 500);
+
+        // the node object is updated in each node registration cycle
+        String localNodeOid = taskManager.getClusterManager().getLocalNodeObject().getOid();
+        waitFor("Waiting for the node to publish the running task", () ->
+                repositoryService.getObject(NodeType.class, localNodeOid, null, result).asObjectable()
+                        .getRunningTaskOid().contains(taskOid), 30000, 500);
+
+        NodeType localNode = repositoryService.getObject(NodeType.class, localNodeOid, null, result).asObjectable();
+        display("Local node", localNode);
+        assertEquals("Wrong published scheduler status", NodeExecutionStatusType.RUNNING, localNode.getSchedulerStatus());
+
+        // a remote node that is up and has published its status; as it does not exist, it cannot be asked via JMX
+        // (the cluster manager thread is stopped meanwhile, as it would stop this non-clustered node because of it)
+        taskManager.getClusterManager().stopClusterManagerThread(10000L, result);
+        NodeType remoteNode = new NodeType(prismContext);
+        remoteNode.setName(PrismTestUtil.createPolyStringType(FAKE_REMOTE_NODE_ID));
+        remoteNode.setNodeIdentifier(FAKE_REMOTE_NODE_ID);
+        remoteNode.setHostname("fake-remote-node.invalid");
+        remoteNode.setJmxPort(1);
+        remoteNode.setClustered(true);
+        remoteNode.setRunning(true);
+        remoteNode.setLastCheckInTime(XmlTypeConverter.createXMLGregorianCalendar(System.currentTimeMillis()));
+        remoteNode.setSchedulerStatus(NodeExecutionStatusType.RUNNING);
+        remoteNode.getRunningTaskOid().add(FAKE_REMOTE_TASK_OID);
+        String remoteNodeOid = repositoryService.addObject(remoteNode.asPrismObject(), null, result);
+        try {
+            Thread.sleep(2000);         // not to get cluster status information cached before the node was added
+
+            // WHEN
+            ClusterStatusInformation info = taskManager.getExecutionManager().getClusterStatusInformation(true, true, result);
+
+            // THEN
+            display("Cluster status information", info.dump());
+            NodeType remoteNodeInfo = info.findNodeById(FAKE_REMOTE_NODE_ID);
+            assertNotNull("No information on the remote node", remoteNodeInfo);
+            assertEquals("Wrong execution status of the remote node", NodeExecutionStatusType.RUNNING, remoteNodeInfo.getExecutionStatus());
+            assertEquals("Wrong tasks on the remote node", Collections.singletonList(FAKE_REMOTE_TASK_OID),
+                    info.getTasksOnNode(FAKE_REMOTE_NODE_ID).stream().map(ClusterStatusInformation.TaskInfo::getOid).collect(Collectors.toList()));
+            assertTrue("Test task is not among tasks on the local node",
+                    info.getTasksOnNode(taskManager.getNodeId()).stream().anyMatch(ti -> taskOid.equals(ti.getOid())));
+        } finally {
+            repositoryService.deleteObject(NodeType.class, remoteNodeOid, result);
+            taskManager.getClusterManager().startClusterManagerThread();
+            taskManager.suspendTasks(Collections.singleton(taskOid), 1000L, result);
+        }
+    }
+
 	@Test
     public void test999CheckingLeftovers() throws Exception {
         String TEST_NAME = "test999CheckingLeftovers";
@@ -1531,6 +1594,7 @@ public class TestQuartzTaskManagerContract extends AbstractTaskManagerTest {
         checkLeftover(leftovers, "test110", "a", result);
 		checkLeftover(leftovers, "test120", result);
 		checkLeftover(leftovers, "test130", result);
+		checkLeftover(leftovers, "test140", result);
 
         StringBuilder message = new StringBuilder("Leftover task(s) found:");
         for (String leftover : leftovers) {
@@ -37,6 +37,7 @@ import javax.xml.namespace.QName;
 import com.evolveum.midpoint.prism.Referencable;
 import com.evolveum.midpoint.prism.crypto.EncryptionException;
 import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.model.impl.security.RestAuthenticationCache;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
 import com.evolveum.midpoint.repo.api.RepoAddOptions;
 import com.evolveum.midpoint.util.exception.*;
@@ -308,6 +309,47 @@ public abstract class TestAbstractRestService extends RestServiceInitializer {
 		getDummyAuditService().assertFailedLogin(SchemaConstants.CHANNEL_REST_URI);
 	}
 
+	/**
+	 * Cached authentication must still be audited and must not share the principal between requests.
+	 */
+	@Test
+	public void test008GetUserAdministratorCachedAuthentication() {
+		final String TEST_NAME = "test008GetUserAdministratorCachedAuthentication";
+		displayTestTitle(this, TEST_NAME);
+
+		RestAuthenticationCache cache = applicationContext.getBean(RestAuthenticationCache.class);
+		cache.setTimeToLive(60000L);
+		try {
+			long hitsBefore = cache.getHits();
+
+			for (int i = 0; i < 2; i++) {
+				WebClient client = prepareClient();
+				client.path("/users/" + SystemObjectsType.USER_ADMINISTRATOR.value());
+
+				getDummyAuditService().clear();
+
+				displayWhen(TEST_NAME);
+				Response response = client.get();
+
+				displayThen(TEST_NAME);
+				assertStatus(response, 200);
+				display("Audit", getDummyAuditService());
+				getDummyAuditService().assertRecords(2);
+				getDummyAuditService().assertLoginLogout(SchemaConstants.CHANNEL_REST_URI);
+			}
+
+			if (isAuthenticationCacheable()) {
+				assertTrue("Second request was not served from the authentication cache", cache.getHits() > hitsBefore);
+			}
+		} finally {
+			cache.setTimeToLive(0L);
+		}
+	}
+
+	protected boolean isAuthenticationCacheable() {
+		return true;
+	}
+
 	@Test
 	public void test016GetAuthBadPassword() {
 		final String TEST_NAME = "test016GetAuthBadPassword";
@@ -20,6 +20,11 @@ import org.apache.cxf.jaxrs.client.WebClient;
 
 public class TestRestServiceJsonSecQ extends TestRestServiceJson{
 
+	@Override
+	protected boolean isAuthenticationCacheable() {
+		// Security question answers are never cached.
+		return false;
+	}
 
 	@Override
 	protected void createAuthorizationHeader(WebClient client, String username, String password) {
@@ -15,19 +15,106 @@
  */
 package com.evolveum.midpoint.ninja.action;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import com.evolveum.midpoint.ninja.action.worker.ExportConsumerWorker;
+import com.evolveum.midpoint.ninja.action.worker.PartitionExportWorker;
+import com.evolveum.midpoint.ninja.action.worker.ProgressReporterWorker;
 import com.evolveum.midpoint.ninja.impl.NinjaContext;
+import com.evolveum.midpoint.ninja.impl.NinjaException;
 import com.evolveum.midpoint.ninja.opts.ExportOptions;
+import com.evolveum.midpoint.ninja.util.NinjaUtils;
 import com.evolveum.midpoint.ninja.util.OperationStatus;
+import com.evolveum.midpoint.ninja.util.ShardManifest;
 import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.query.ObjectFilter;
+import com.evolveum.midpoint.schema.constants.ObjectTypes;
+import com.evolveum.midpoint.schema.result.OperationResult;
 
 /**
  * Created by Viliam Repan (lazyman).
  */
 public class ExportRepositoryAction extends AbstractRepositorySearchAction<ExportOptions> {
 
+    private static final int MAX_PARTITIONS = 4096;
+
+    @Override
+    public void execute() throws Exception {
+        if (options.getPartitions() <= 0) {
+            super.execute();
+            return;
+        }
+
+        executePartitioned();
+    }
+
+    /**
+     * Each selected type is split to OID partitions, every partition is exported by its own worker to its own
+     * compressed shard in the output directory. Manifest listing successfully exported shards is written at the end.
+     */
+    private void executePartitioned() throws Exception {
+        File directory = options.getOutput();
+        if (directory == null) {
+            throw new NinjaException("Output directory has to be specified for partitioned export");
+        }
+        if (directory.exists()) {
+            String[] files = directory.list();
+            if (files == null || files.length > 0) {
+                throw new NinjaException("Output '" + directory.getPath() + "' is not an empty directory");
+            }
+        } else if (!directory.mkdirs()) {
+            throw new NinjaException("Couldn't create output directory '" + directory.getPath() + "'");
+        }
+        if (options.getOid() != null) {
+            throw new NinjaException("Partitioned export can't be used together with oid option");
+        }
+
+        int partitions = Math.min(options.getPartitions(), MAX_PARTITIONS);
+        List<String> boundaries = NinjaUtils.createOidPartitionBoundaries(partitions);
+
+        OperationResult result = new OperationResult(getOperationName());
+        OperationStatus operation = new OperationStatus(context, result);
+
+        ObjectFilter filter = NinjaUtils.createObjectFilter(options.getFilter(), context);
+        ShardManifest manifest = new ShardManifest();
+
+        List<PartitionExportWorker> workers = new ArrayList<>();
+        for (ObjectTypes type : NinjaUtils.getTypes(options.getType())) {
+            for (int i = 0; i < partitions; i++) {
+                String from = i > 0 ? boundaries.get(i - 1) : null;
+                String to = i < boundaries.size() ? boundaries.get(i) : null;
+                File shard = new File(directory, String.format("%s-%03d.zip", type.getRestType(), i));
+
+                ObjectFilter partitionFilter = filter != null ? filter.clone() : null;
+                workers.add(new PartitionExportWorker(context, options, null, operation, workers, type,
+                        partitionFilter, from, to, shard, manifest));
+            }
+        }
+
+        // "+ 1" will be used for progress reporter
+        ExecutorService executor = Executors.newFixedThreadPool(options.getMultiThread() + 1);
+
+        log.info("Starting " + getOperationShortName() + " of {} partitions", workers.size());
+        operation.start();
+
+        executor.execute(new ProgressReporterWorker(context, options, new LinkedBlockingQueue<>(), operation));
+        workers.forEach(w -> executor.execute(w));
+
+        executor.shutdown();
+        executor.awaitTermination(NinjaUtils.WAIT_FOR_EXECUTOR_FINISH, TimeUnit.DAYS);
+
+        manifest.write(directory, context.getCharset());
+
+        handleResultOnFinish(operation, "Finished " + getOperationShortName());
+    }
+
     @Override
 	protected String getOperationShortName() {
 		return "export";
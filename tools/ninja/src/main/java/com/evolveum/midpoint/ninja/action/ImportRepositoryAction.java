@@ -2,18 +2,27 @@ package com.evolveum.midpoint.ninja.action;
 
 import com.evolveum.midpoint.ninja.action.worker.ImportConsumerWorker;
 import com.evolveum.midpoint.ninja.action.worker.ImportProducerWorker;
+import com.evolveum.midpoint.ninja.action.worker.ImportShardWorker;
 import com.evolveum.midpoint.ninja.action.worker.ProgressReporterWorker;
 import com.evolveum.midpoint.ninja.impl.LogTarget;
+import com.evolveum.midpoint.ninja.impl.NinjaException;
 import com.evolveum.midpoint.ninja.opts.ImportOptions;
+import com.evolveum.midpoint.ninja.util.ImportCheckpoint;
 import com.evolveum.midpoint.ninja.util.NinjaUtils;
 import com.evolveum.midpoint.ninja.util.OperationStatus;
+import com.evolveum.midpoint.ninja.util.ShardManifest;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.query.InOidFilter;
 import com.evolveum.midpoint.prism.query.ObjectFilter;
+import com.evolveum.midpoint.repo.api.RepoAddOptions;
+import com.evolveum.midpoint.repo.api.RepositoryService;
 import com.evolveum.midpoint.schema.result.OperationResult;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.*;
 
 /**
@@ -30,6 +39,28 @@ public class ImportRepositoryAction extends RepositoryAction<ImportOptions> {
 
     @Override
     public void execute() throws Exception {
+        if (!options.isOrgClosureBulkMode()) {
+            executeImport();
+            return;
+        }
+
+        RepositoryService repository = context.getRepository();
+        OperationResult result = new OperationResult(OPERATION_IMPORT);
+        repository.setOrgClosureBulkMode(true, result);
+        try {
+            executeImport();
+        } finally {
+            log.info("Rebuilding org closure");
+            repository.setOrgClosureBulkMode(false, result);
+        }
+    }
+
+    private void executeImport() throws Exception {
+        if (options.getInput() != null && options.getInput().isDirectory()) {
+            executeShards();
+            return;
+        }
+
         OperationResult result = new OperationResult(OPERATION_IMPORT);
         OperationStatus progress = new OperationStatus(context, result);
 
@@ -62,6 +93,87 @@ public class ImportRepositoryAction extends RepositoryAction<ImportOptions> {
         handleResultOnFinish(progress, "Import finished");
     }
 
+    /**
+     * Imports output of partitioned export. Shards listed in the manifest are imported in parallel (one worker
+     * per shard). Completed shards are recorded in the checkpoint file (see ImportCheckpoint). When import is resumed (explicitly,
+     * by resume option), shards that were already imported completely are skipped and objects from partially
+     * imported shards may already exist in repository, therefore they are overwritten. Otherwise the checkpoint
+     * is reset, as it may come from an import into another repository.
+     */
+    private void executeShards() throws Exception {
+        File directory = options.getInput();
+        if (!ShardManifest.exists(directory)) {
+            throw new NinjaException("Input directory '" + directory.getPath() + "' doesn't contain manifest file "
+                    + ShardManifest.FILE_NAME);
+        }
+
+        ShardManifest manifest = ShardManifest.read(directory, context.getCharset());
+
+        ImportCheckpoint checkpoint = new ImportCheckpoint(options.getCheckpoint(), directory, context.getCharset());
+        boolean resume = options.isResume();
+        Set<String> completed;
+        if (resume) {
+            if (!checkpoint.exists()) {
+                log.info("Checkpoint file {} doesn't exist, importing all shards", checkpoint.getFile().getPath());
+            } else if (!checkpoint.isForInput()) {
+                log.info("Checkpoint file {} belongs to another input, importing all shards", checkpoint.getFile().getPath());
+            }
+            completed = checkpoint.load();
+            checkpoint.init();
+        } else {
+            if (checkpoint.exists()) {
+                log.info("Resume was not requested, ignoring existing checkpoint file {}", checkpoint.getFile().getPath());
+            }
+            completed = new HashSet<>();
+            checkpoint.reset();
+        }
+
+        RepoAddOptions addOptions = ImportConsumerWorker.createRepoAddOptions(options);
+        if (resume) {
+            addOptions.setOverwrite(true);
+        }
+
+        OperationResult result = new OperationResult(OPERATION_IMPORT);
+        OperationStatus progress = new OperationStatus(context, result);
+
+        ObjectFilter filter;
+        if (options.getOid() != null) {
+            filter = InOidFilter.createInOid(options.getOid());
+        } else {
+            filter = NinjaUtils.createObjectFilter(options.getFilter(), context);
+        }
+
+        List<ImportShardWorker> workers = new ArrayList<>();
+        for (ShardManifest.Shard shard : manifest.getShards()) {
+            if (completed.contains(shard.getFile())) {
+                log.info("Skipping shard {}, it was already imported", shard.getFile());
+                continue;
+            }
+
+            ObjectFilter shardFilter = filter != null ? filter.clone() : null;
+            workers.add(new ImportShardWorker(context, options, null, progress, workers, shardFilter,
+                    new File(directory, shard.getFile()), checkpoint, addOptions));
+        }
+
+        if (workers.isEmpty()) {
+            log.info("All shards were already imported");
+            return;
+        }
+
+        // "+ 1" will be used for progress reporter
+        ExecutorService executor = Executors.newFixedThreadPool(options.getMultiThread() + 1);
+
+        progress.start();
+
+        executor.execute(new ProgressReporterWorker(context, options, new LinkedBlockingQueue<>(), progress));
+        workers.forEach(w -> executor.execute(w));
+
+        executor.shutdown();
+        executor.awaitTermination(NinjaUtils.WAIT_FOR_EXECUTOR_FINISH, TimeUnit.DAYS);
+
+        handleResultOnFinish(progress, "Import finished");
+    }
+
     @Override
     public LogTarget getInfoLogTarget() {
         if (options.getInput() != null) {
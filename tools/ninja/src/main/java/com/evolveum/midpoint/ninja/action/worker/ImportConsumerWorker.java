@@ -55,14 +55,7 @@ public class ImportConsumerWorker extends BaseWorker<ImportOptions, PrismObject>
                         continue;
                     }
 
-                    RepoAddOptions opts = createRepoAddOptions(options);
-
-                    if (!opts.isAllowUnencryptedValues()) {
-                        CryptoUtil.encryptValues(protector, object);
-                    }
-
-                    RepositoryService repository = context.getRepository();
-                    repository.addObject(object, opts, new OperationResult("Import object"));
+                    importObject(context, protector, object, createRepoAddOptions(options));
 
                     operation.incrementTotal();
                 } catch (Exception ex) {
@@ -79,11 +72,21 @@ public class ImportConsumerWorker extends BaseWorker<ImportOptions, PrismObject>
         }
     }
 
-    private RepoAddOptions createRepoAddOptions(ImportOptions options) {
+    public static RepoAddOptions createRepoAddOptions(ImportOptions options) {
         RepoAddOptions opts = new RepoAddOptions();
         opts.setOverwrite(options.isOverwrite());
         opts.setAllowUnencryptedValues(options.isAllowUnencryptedValues());
 
         return opts;
     }
+
+    public static void importObject(NinjaContext context, Protector protector, PrismObject object, RepoAddOptions opts)
+            throws Exception {
+        if (!opts.isAllowUnencryptedValues()) {
+            CryptoUtil.encryptValues(protector, object);
+        }
+
+        RepositoryService repository = context.getRepository();
+        repository.addObject(object, opts, new OperationResult("Import object"));
+    }
 }
\ No newline at end of file
@@ -40,6 +40,7 @@ import org.w3c.dom.Node;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -49,12 +50,26 @@ import java.util.zip.ZipInputStream;
  */
 public class ImportProducerWorker extends BaseWorker<ImportOptions, PrismObject> {
 
+    /**
+     * Processes objects read from the input (after filtering).
+     */
+    protected interface ObjectProcessor {
+
+        void process(PrismObject object) throws Exception;
+    }
+
     private ObjectFilter filter;
     private boolean stopAfterFound;
 
     public ImportProducerWorker(NinjaContext context, ImportOptions options, BlockingQueue queue, OperationStatus operation,
                                 ObjectFilter filter, boolean stopAfterFound) {
-        super(context, options, queue, operation);
+        this(context, options, queue, operation, null, filter, stopAfterFound);
+    }
+
+    protected ImportProducerWorker(NinjaContext context, ImportOptions options, BlockingQueue queue,
+                                   OperationStatus operation, List<? extends BaseWorker> workers,
+                                   ObjectFilter filter, boolean stopAfterFound) {
+        super(context, options, queue, operation, workers);
 
         this.filter = filter;
         this.stopAfterFound = stopAfterFound;
@@ -71,20 +86,7 @@ public class ImportProducerWorker extends BaseWorker<ImportOptions, PrismObject>
             if (!options.isZip()) {
                 processStream(input);
             } else {
-                ZipInputStream zis = new ZipInputStream(input);
-                ZipEntry entry;
-                while ((entry = zis.getNextEntry()) != null) {
-                    if (entry.isDirectory()) {
-                        continue;
-                    }
-
-                    if (!StringUtils.endsWith(entry.getName().toLowerCase(), ".xml")) {
-                        continue;
-                    }
-
-                    log.info("Processing file {}", entry.getName());
-                    processStream(zis);
-                }
+                processZipStream(input, object -> queue.put(object));
             }
         } catch (IOException ex) {
             log.error("Unexpected error occurred, reason: {}", ex, ex.getMessage());
@@ -118,7 +120,28 @@ public class ImportProducerWorker extends BaseWorker<ImportOptions, PrismObject>
         return is;
     }
 
+    protected void processZipStream(InputStream input, ObjectProcessor processor) throws IOException {
+        ZipInputStream zis = new ZipInputStream(input);
+        ZipEntry entry;
+        while ((entry = zis.getNextEntry()) != null) {
+            if (entry.isDirectory()) {
+                continue;
+            }
+
+            if (!StringUtils.endsWith(entry.getName().toLowerCase(), ".xml")) {
+                continue;
+            }
+
+            context.getLog().info("Processing file {}", entry.getName());
+            processStream(zis, processor);
+        }
+    }
+
     private void processStream(InputStream input) throws IOException {
+        processStream(input, object -> queue.put(object));
+    }
+
+    protected void processStream(InputStream input, ObjectProcessor processor) throws IOException {
         ApplicationContext appContext = context.getApplicationContext();
         PrismContext prismContext = appContext.getBean(PrismContext.class);
         MatchingRuleRegistry matchingRuleRegistry = appContext.getBean(MatchingRuleRegistry.class);
@@ -152,7 +175,7 @@ public class ImportProducerWorker extends BaseWorker<ImportOptions, PrismObject>
                         return EventResult.skipObject("Type doesn't match");
                     }
 
-                    queue.put(object);
+                    processor.process(object);
                 } catch (Exception ex) {
                     throw new NinjaException("Couldn't import object, reason: " + ex.getMessage(), ex);
                 }
@@ -162,7 +185,7 @@ public class ImportProducerWorker extends BaseWorker<ImportOptions, PrismObject>
 
             @Override
             public void handleGlobalError(OperationResult currentResult) {
-                operation.finish();
+                onGlobalError();
             }
         };
 
@@ -176,6 +199,13 @@ public class ImportProducerWorker extends BaseWorker<ImportOptions, PrismObject>
         validator.validate(new ReaderInputStream(reader, charset), result, result.getOperation());
     }
 
+    /**
+     * Called when the input can't be processed any further (e.g. it's not well-formed).
+     */
+    protected void onGlobalError() {
+        operation.finish();
+    }
+
     private boolean matchSelectedType(Class clazz) {
         if (options.getType().isEmpty()) {
             return true;
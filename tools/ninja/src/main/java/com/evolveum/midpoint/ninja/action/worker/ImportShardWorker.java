@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.ninja.action.worker;
+
+import com.evolveum.midpoint.ninja.impl.NinjaContext;
+import com.evolveum.midpoint.ninja.opts.ImportOptions;
+import com.evolveum.midpoint.ninja.util.ImportCheckpoint;
+import com.evolveum.midpoint.ninja.util.Log;
+import com.evolveum.midpoint.ninja.util.OperationStatus;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.crypto.Protector;
+import com.evolveum.midpoint.prism.query.ObjectFilter;
+import com.evolveum.midpoint.repo.api.RepoAddOptions;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Imports one shard of partitioned export. Objects are parsed and added in the same thread, so shards
+ * are imported in parallel without the shared queue. Shard imported without errors is recorded
+ * in the import checkpoint.
+ */
+public class ImportShardWorker extends ImportProducerWorker {
+
+    private File shard;
+    private ImportCheckpoint checkpoint;
+    private RepoAddOptions addOptions;
+
+    private volatile boolean failed;
+
+    public ImportShardWorker(NinjaContext context, ImportOptions options, BlockingQueue queue,
+                             OperationStatus operation, List<ImportShardWorker> workers, ObjectFilter filter,
+                             File shard, ImportCheckpoint checkpoint, RepoAddOptions addOptions) {
+        super(context, options, queue, operation, workers, filter, false);
+
+        this.shard = shard;
+        this.checkpoint = checkpoint;
+        this.addOptions = addOptions;
+    }
+
+    @Override
+    public void run() {
+        Log log = context.getLog();
+
+        Protector protector = context.getApplicationContext().getBean(Protector.class);
+
+        AtomicBoolean errors = new AtomicBoolean();
+        try (InputStream input = new FileInputStream(shard)) {
+            log.info("Importing shard {}", shard.getName());
+
+            processZipStream(input, object -> importObject(object, protector, errors));
+
+            if (failed) {
+                log.error("Couldn't parse shard {}", shard.getName());
+                operation.incrementError();
+            } else if (!errors.get()) {
+                checkpoint.markCompleted(shard.getName());
+            }
+        } catch (Exception ex) {
+            log.error("Couldn't import shard {}, reason: {}", ex, shard.getName(), ex.getMessage());
+            operation.incrementError();
+        } finally {
+            markDone();
+
+            if (isWorkersDone()) {
+                if (!operation.isFinished()) {
+                    operation.finish();
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void onGlobalError() {
+        // only this shard is affected, other workers continue
+        failed = true;
+    }
+
+    private void importObject(PrismObject object, Protector protector, AtomicBoolean errors) {
+        try {
+            ImportConsumerWorker.importObject(context, protector, object, addOptions);
+
+            operation.incrementTotal();
+        } catch (Exception ex) {
+            context.getLog().error("Couldn't add object {}, reason: {}", ex, object, ex.getMessage());
+            operation.incrementError();
+            errors.set(true);
+        }
+    }
+}
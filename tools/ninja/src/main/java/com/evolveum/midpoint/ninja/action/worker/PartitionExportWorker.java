@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.ninja.action.worker;
+
+import com.evolveum.midpoint.ninja.impl.NinjaContext;
+import com.evolveum.midpoint.ninja.opts.ExportOptions;
+import com.evolveum.midpoint.ninja.util.Log;
+import com.evolveum.midpoint.ninja.util.NinjaUtils;
+import com.evolveum.midpoint.ninja.util.OperationStatus;
+import com.evolveum.midpoint.ninja.util.ShardManifest;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismSerializer;
+import com.evolveum.midpoint.prism.SerializationOptions;
+import com.evolveum.midpoint.prism.query.ObjectFilter;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.repo.sql.ObjectPagingAfterOid;
+import com.evolveum.midpoint.schema.GetOperationOptions;
+import com.evolveum.midpoint.schema.SelectorOptions;
+import com.evolveum.midpoint.schema.constants.ObjectTypes;
+import com.evolveum.midpoint.schema.result.OperationResult;
+
+import java.io.File;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Exports one OID partition of one object type to its own compressed shard. Objects are read in pages ordered
+ * by OID (keyset paging, i.e. oid > last exported OID), so each worker uses its own short queries and there is
+ * no need for long running iterative search. Search and serialization is done in the same thread, there's
+ * no consumer. Shard that wasn't exported without errors is deleted, so that only shards listed in the manifest
+ * remain in the output directory.
+ */
+public class PartitionExportWorker extends BaseWorker<ExportOptions, PrismObject> {
+
+    private static final String DOT_CLASS = PartitionExportWorker.class.getName() + ".";
+
+    private static final String OPERATION_EXPORT_PARTITION = DOT_CLASS + "exportPartition";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private ObjectTypes type;
+    private ObjectFilter filter;
+    private String oidGreaterThan;
+    private String oidLessThanOrEqual;
+    private File shard;
+    private ShardManifest manifest;
+
+    public PartitionExportWorker(NinjaContext context, ExportOptions options, BlockingQueue<PrismObject> queue,
+                                 OperationStatus operation, List<PartitionExportWorker> workers,
+                                 ObjectTypes type, ObjectFilter filter, String oidGreaterThan,
+                                 String oidLessThanOrEqual, File shard, ShardManifest manifest) {
+        super(context, options, queue, operation, workers);
+
+        this.type = type;
+        this.filter = filter;
+        this.oidGreaterThan = oidGreaterThan;
+        this.oidLessThanOrEqual = oidLessThanOrEqual;
+        this.shard = shard;
+        this.manifest = manifest;
+    }
+
+    @Override
+    public void run() {
+        Log log = context.getLog();
+
+        boolean success = false;
+        int count = 0;
+        try (Writer writer = NinjaUtils.createWriter(shard, context.getCharset(), true)) {
+            PrismSerializer<String> serializer = context.getPrismContext()
+                    .xmlSerializer()
+                    .options(SerializationOptions.createSerializeForExport());
+
+            Collection<SelectorOptions<GetOperationOptions>> opts = new ArrayList<>();
+            if (options.isRaw()) {
+                opts = GetOperationOptions.createRawCollection();
+            }
+            NinjaUtils.addIncludeOptionsForExport(opts, type.getClassDefinition());
+
+            ObjectPagingAfterOid paging = new ObjectPagingAfterOid();
+            paging.setOidGreaterThan(oidGreaterThan);
+            paging.setOidLessThanOrEqual(oidLessThanOrEqual);
+            paging.setMaxSize(BATCH_SIZE);
+
+            ObjectQuery query = ObjectQuery.createObjectQuery(filter);
+            query.setPaging(paging);
+
+            writer.write(NinjaUtils.XML_OBJECTS_PREFIX);
+
+            RepositoryService repository = context.getRepository();
+            OperationResult result = new OperationResult(OPERATION_EXPORT_PARTITION);
+
+            boolean errors = false;
+            List<PrismObject<?>> objects;
+            do {
+                objects = new ArrayList<>(repository.searchObjects(type.getClassDefinition(), query, opts, result));
+                for (PrismObject<?> object : objects) {
+                    try {
+                        writer.write(serializer.serialize(object));
+                        count++;
+                        operation.incrementTotal();
+                    } catch (Exception ex) {
+                        log.error("Couldn't store object {}, reason: {}", ex, object, ex.getMessage());
+                        operation.incrementError();
+                        errors = true;
+                    }
+                }
+
+                if (!objects.isEmpty()) {
+                    paging.setOidGreaterThan(objects.get(objects.size() - 1).getOid());
+                }
+            } while (objects.size() == BATCH_SIZE);
+
+            writer.write(NinjaUtils.XML_OBJECTS_SUFFIX);
+
+            success = !errors;
+        } catch (Exception ex) {
+            log.error("Couldn't export shard {}, reason: {}", ex, shard.getName(), ex.getMessage());
+            operation.incrementError();
+        } finally {
+            if (success) {
+                manifest.addShard(new ShardManifest.Shard(shard.getName(), type.getRestType(), count));
+            } else if (shard.exists() && !shard.delete()) {
+                // shard is not listed in manifest, so it won't be imported anyway
+                log.warn("Couldn't delete incomplete shard {}", shard.getPath());
+            }
+
+            markDone();
+
+            if (isWorkersDone()) {
+                if (!operation.isFinished()) {
+                    operation.finish();
+                }
+            }
+        }
+    }
+}
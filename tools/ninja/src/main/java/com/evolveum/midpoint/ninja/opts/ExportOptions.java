@@ -29,12 +29,18 @@ public class ExportOptions extends BaseImportExportOptions {
     public static final String P_OUTPUT = "-O";
     public static final String P_OUTPUT_LONG = "--output";
 
+    public static final String P_PARTITIONS = "-N";
+    public static final String P_PARTITIONS_LONG = "--partitions";
+
     public static final String P_SPLIT = "-n";
     public static final String P_SPLIT_LONG = "-split";
 
     @Parameter(names = {P_OUTPUT, P_OUTPUT_LONG}, descriptionKey = "export.output")
     private File output;
 
+    @Parameter(names = {P_PARTITIONS, P_PARTITIONS_LONG}, descriptionKey = "export.partitions")
+    private int partitions;
+
 //    @Parameter(names = {P_SPLIT, P_SPLIT_LONG}, descriptionKey = "export.split")
 //    private boolean split;
 
@@ -42,6 +48,10 @@ public class ExportOptions extends BaseImportExportOptions {
         return output;
     }
 
+    public int getPartitions() {
+        return partitions;
+    }
+
 //    public boolean isSplit() {
 //        return split;
 //    }
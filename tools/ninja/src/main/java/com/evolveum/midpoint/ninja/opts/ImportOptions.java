@@ -20,6 +20,12 @@ public class ImportOptions extends BaseImportExportOptions {
     public static final String P_ALLOW_UNENCRYPTED_VALUES = "-e";
     public static final String P_ALLOW_UNENCRYPTED_VALUES_LONG = "--allowUnencryptedValues";
 
+    public static final String P_ORG_CLOSURE_BULK_MODE_LONG = "--orgClosureBulkMode";
+
+    public static final String P_RESUME_LONG = "--resume";
+
+    public static final String P_CHECKPOINT_LONG = "--checkpoint";
+
     @Parameter(names = {P_INPUT, P_INPUT_LONG}, descriptionKey = "import.input")
     private File input;
 
@@ -30,6 +36,15 @@ public class ImportOptions extends BaseImportExportOptions {
             descriptionKey = "import.allowUnencryptedValues")
     private boolean allowUnencryptedValues;
 
+    @Parameter(names = {P_ORG_CLOSURE_BULK_MODE_LONG}, descriptionKey = "import.orgClosureBulkMode")
+    private boolean orgClosureBulkMode;
+
+    @Parameter(names = {P_RESUME_LONG}, descriptionKey = "import.resume")
+    private boolean resume;
+
+    @Parameter(names = {P_CHECKPOINT_LONG}, descriptionKey = "import.checkpoint")
+    private File checkpoint;
+
     public File getInput() {
         return input;
     }
@@ -41,4 +56,16 @@ public class ImportOptions extends BaseImportExportOptions {
     public boolean isAllowUnencryptedValues() {
         return allowUnencryptedValues;
     }
+
+    public boolean isOrgClosureBulkMode() {
+        return orgClosureBulkMode;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public File getCheckpoint() {
+        return checkpoint;
+    }
 }
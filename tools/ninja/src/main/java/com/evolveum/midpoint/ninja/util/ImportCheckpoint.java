@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.ninja.util;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps track of shards already imported from partitioned export. Names of completed shards are appended
+ * to a checkpoint file (by default import-checkpoint.txt in the working directory, as the input directory may be
+ * read-only), so that interrupted import can skip them when started again with resume option. The first line
+ * of the file identifies the input directory; checkpoint of another input is not used. The file knows nothing
+ * about the target repository, therefore it's used only when resume is requested explicitly.
+ */
+public class ImportCheckpoint {
+
+    public static final String FILE_NAME = "import-checkpoint.txt";
+
+    private static final String HEADER_PREFIX = "# input: ";
+
+    private final File file;
+    private final String header;
+    private final Charset charset;
+
+    /**
+     * @param file checkpoint file, null means the default one
+     */
+    public ImportCheckpoint(File file, File inputDirectory, Charset charset) throws IOException {
+        this.file = file != null ? file : new File(FILE_NAME);
+        this.header = HEADER_PREFIX + inputDirectory.getCanonicalPath();
+        this.charset = charset;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean exists() {
+        return file.isFile();
+    }
+
+    /**
+     * Returns true if the checkpoint file exists and belongs to the current input directory.
+     */
+    public boolean isForInput() throws IOException {
+        if (!file.isFile()) {
+            return false;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), charset))) {
+            return header.equals(reader.readLine());
+        }
+    }
+
+    /**
+     * Returns completed shards, or empty set if the checkpoint doesn't exist or belongs to another input.
+     */
+    public Set<String> load() throws IOException {
+        Set<String> completed = new HashSet<>();
+        if (!isForInput()) {
+            return completed;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), charset))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty() && !line.startsWith("#")) {
+                    completed.add(line.trim());
+                }
+            }
+        }
+
+        return completed;
+    }
+
+    /**
+     * Makes sure the checkpoint file exists and belongs to the current input directory.
+     */
+    public void init() throws IOException {
+        if (!isForInput()) {
+            reset();
+        }
+    }
+
+    /**
+     * Forgets all completed shards, i.e. creates a checkpoint file containing only the header.
+     */
+    public void reset() throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), charset)) {
+            writer.write(header);
+            writer.write('\n');
+        }
+    }
+
+    public synchronized void markCompleted(String shard) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), charset)) {
+            writer.write(shard);
+            writer.write('\n');
+        }
+    }
+}
@@ -134,6 +134,20 @@ public class NinjaUtils {
         return null;
     }
 
+    /**
+     * Splits the OID space into given number of partitions. Returns upper boundaries (inclusive) of all partitions
+     * except the last one, i.e. partition i contains OIDs in (boundary[i-1], boundary[i]]. Boundaries are prefixes
+     * of hexadecimal OIDs, however each OID belongs to exactly one partition, whatever its format is.
+     */
+    public static List<String> createOidPartitionBoundaries(int count) {
+        List<String> boundaries = new ArrayList<>();
+        for (int i = 1; i < count; i++) {
+            boundaries.add(String.format("%03x", i * 4096 / count));
+        }
+
+        return boundaries;
+    }
+
     public static Writer createWriter(File output, Charset charset, boolean zip) throws IOException {
         OutputStream os;
         if (output != null) {
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2010-2018 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.ninja.util;
+
+import com.evolveum.midpoint.ninja.impl.NinjaException;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Manifest of partitioned export. It's a text file (manifest.txt) in the output directory, containing one line
+ * per shard: file name, object type and number of objects, separated by tab. Only shards exported without
+ * errors are listed.
+ */
+public class ShardManifest {
+
+    public static final String FILE_NAME = "manifest.txt";
+
+    private static final String HEADER = "# midPoint ninja partitioned export";
+
+    private static final String SEPARATOR = "\t";
+
+    public static class Shard {
+
+        private final String file;
+        private final String type;
+        private final int objects;
+
+        public Shard(String file, String type, int objects) {
+            this.file = file;
+            this.type = type;
+            this.objects = objects;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getObjects() {
+            return objects;
+        }
+    }
+
+    private final List<Shard> shards = new ArrayList<>();
+
+    public synchronized void addShard(Shard shard) {
+        shards.add(shard);
+    }
+
+    public synchronized List<Shard> getShards() {
+        return Collections.unmodifiableList(new ArrayList<>(shards));
+    }
+
+    public static boolean exists(File directory) {
+        return new File(directory, FILE_NAME).isFile();
+    }
+
+    public synchronized void write(File directory, Charset charset) throws IOException {
+        List<Shard> sorted = new ArrayList<>(shards);
+        sorted.sort((s1, s2) -> s1.getFile().compareTo(s2.getFile()));
+
+        File file = new File(directory, FILE_NAME);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), charset)) {
+            writer.write(HEADER);
+            writer.write('\n');
+
+            for (Shard shard : sorted) {
+                writer.write(shard.getFile() + SEPARATOR + shard.getType() + SEPARATOR + shard.getObjects());
+                writer.write('\n');
+            }
+        }
+    }
+
+    public static ShardManifest read(File directory, Charset charset) throws IOException {
+        File file = new File(directory, FILE_NAME);
+        if (!file.isFile()) {
+            throw new NinjaException("Manifest file '" + file.getPath() + "' doesn't exist");
+        }
+
+        ShardManifest manifest = new ShardManifest();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), charset))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (StringUtils.isBlank(line) || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] parts = line.split(SEPARATOR);
+                if (parts.length != 3) {
+                    throw new NinjaException("Invalid line in manifest file '" + file.getPath() + "': " + line);
+                }
+
+                manifest.addShard(new Shard(parts[0], parts[1], Integer.parseInt(parts[2])));
+            }
+        }
+
+        return manifest;
+    }
+}
@@ -4,6 +4,9 @@ import com.beust.jcommander.JCommander;
 import com.evolveum.midpoint.ninja.impl.NinjaContext;
 import com.evolveum.midpoint.ninja.opts.ConnectionOptions;
 import com.evolveum.midpoint.ninja.util.NinjaUtils;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
@@ -67,6 +70,31 @@ public class BaseTest {
         return TARGET_HOME.getAbsolutePath();
     }
 
+    /**
+     * Returns empty directory for partitioned export, outside of midpoint home (which is deleted by setup).
+     */
+    protected File setupExportDirectory(String name) throws IOException {
+        File directory = new File("./target/export/" + name);
+        FileUtils.deleteDirectory(directory);
+
+        return directory;
+    }
+
+    protected void addUsers(NinjaContext context, int count) throws Exception {
+        OperationResult result = new OperationResult("add users");
+        for (int i = 0; i < count; i++) {
+            UserType user = new UserType(context.getPrismContext());
+            user.setName(new PolyStringType("user" + i));
+
+            context.getRepository().addObject(user.asPrismObject(), null, result);
+        }
+    }
+
+    protected int countUsers(NinjaContext context) throws Exception {
+        OperationResult result = new OperationResult("count users");
+        return context.getRepository().countObjects(UserType.class, null, null, result);
+    }
+
     protected NinjaContext setupNinjaContext(String[] input) {
         JCommander jc = NinjaUtils.setupCommandLineParser();
         jc.parse(input);
@@ -1,11 +1,21 @@
 package com.evolveum.midpoint.ninja;
 
+import com.evolveum.midpoint.ninja.util.ShardManifest;
+import org.testng.AssertJUnit;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.lang.reflect.Method;
+
 /**
  * Created by Viliam Repan (lazyman).
  */
-public class ExportRepositoryTest {
+public class ExportRepositoryTest extends BaseTest {
+
+    @Override
+    protected void beforeMethodInternal(Method method) throws Exception {
+        setupMidpointHome();
+    }
 
     @Test
     public void exportByOid() throws Exception {
@@ -26,4 +36,30 @@ public class ExportRepositoryTest {
     public void exportToZipFileByFilterAllowOverwrite() throws Exception {
 
     }
+
+    @Test
+    public void exportPartitioned() throws Exception {
+        File directory = setupExportDirectory("exportPartitioned");
+
+        String[] input = new String[]{"-m", getMidpointHome(), "export", "-t", "user", "-N", "4",
+                "-O", directory.getPath()};
+
+        executeTest(null,
+                context -> addUsers(context, 10),
+                context -> {
+                    AssertJUnit.assertTrue("Manifest not written", ShardManifest.exists(directory));
+
+                    ShardManifest manifest = ShardManifest.read(directory, context.getCharset());
+                    AssertJUnit.assertEquals(4, manifest.getShards().size());
+
+                    int objects = 0;
+                    for (ShardManifest.Shard shard : manifest.getShards()) {
+                        AssertJUnit.assertTrue("Shard " + shard.getFile() + " doesn't exist",
+                                new File(directory, shard.getFile()).isFile());
+                        objects += shard.getObjects();
+                    }
+                    AssertJUnit.assertEquals(10, objects);
+                },
+                false, false, input);
+    }
 }
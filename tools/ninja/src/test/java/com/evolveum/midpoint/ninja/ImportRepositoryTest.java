@@ -1,5 +1,7 @@
 package com.evolveum.midpoint.ninja;
 
+import com.evolveum.midpoint.ninja.util.ImportCheckpoint;
+import com.evolveum.midpoint.ninja.util.ShardManifest;
 import com.evolveum.midpoint.repo.api.RepositoryService;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
@@ -8,7 +10,9 @@ import org.testng.AssertJUnit;
 import org.testng.annotations.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -66,4 +70,102 @@ public class ImportRepositoryTest extends BaseTest {
     public void importFromZipFileByFilterAllowOverwrite() throws Exception {
 
     }
+
+    @Test
+    public void importPartitioned() throws Exception {
+        File directory = exportPartitioned("importPartitioned");
+        File checkpointFile = getCheckpointFile(directory);
+
+        String[] input = new String[]{"-m", getMidpointHome(), "import", "-i", directory.getPath(),
+                "--checkpoint", checkpointFile.getPath()};
+
+        executeTest(null,
+                context -> AssertJUnit.assertEquals(0, countUsers(context)),
+                context -> {
+                    AssertJUnit.assertEquals(10, countUsers(context));
+
+                    ImportCheckpoint checkpoint = new ImportCheckpoint(checkpointFile, directory, context.getCharset());
+                    AssertJUnit.assertEquals(4, checkpoint.load().size());
+                },
+                false, false, input);
+    }
+
+    /**
+     * Checkpoint left by import into another repository must not cause shards to be skipped.
+     */
+    @Test
+    public void importPartitionedIgnoresCheckpointWithoutResume() throws Exception {
+        File directory = exportPartitioned("importPartitionedIgnoresCheckpoint");
+        File checkpointFile = getCheckpointFile(directory);
+        markAllShardsCompleted(checkpointFile, directory, directory);
+
+        String[] input = new String[]{"-m", getMidpointHome(), "import", "-i", directory.getPath(),
+                "--checkpoint", checkpointFile.getPath()};
+
+        executeTest(null,
+                context -> AssertJUnit.assertEquals(0, countUsers(context)),
+                context -> AssertJUnit.assertEquals(10, countUsers(context)),
+                false, false, input);
+    }
+
+    @Test
+    public void importPartitionedResume() throws Exception {
+        File directory = exportPartitioned("importPartitionedResume");
+        File checkpointFile = getCheckpointFile(directory);
+        markAllShardsCompleted(checkpointFile, directory, directory);
+
+        String[] input = new String[]{"-m", getMidpointHome(), "import", "-i", directory.getPath(), "--resume",
+                "--checkpoint", checkpointFile.getPath()};
+
+        executeTest(null,
+                context -> AssertJUnit.assertEquals(0, countUsers(context)),
+                context -> AssertJUnit.assertEquals("Completed shards were not skipped", 0, countUsers(context)),
+                false, false, input);
+    }
+
+    /**
+     * Shards with the same names from another input directory must not be skipped.
+     */
+    @Test
+    public void importPartitionedResumeIgnoresCheckpointOfAnotherInput() throws Exception {
+        File directory = exportPartitioned("importPartitionedResumeAnotherInput");
+        File checkpointFile = getCheckpointFile(directory);
+        markAllShardsCompleted(checkpointFile, new File(directory.getParentFile(), "another"), directory);
+
+        String[] input = new String[]{"-m", getMidpointHome(), "import", "-i", directory.getPath(), "--resume",
+                "--checkpoint", checkpointFile.getPath()};
+
+        executeTest(null,
+                context -> AssertJUnit.assertEquals(0, countUsers(context)),
+                context -> AssertJUnit.assertEquals(10, countUsers(context)),
+                false, false, input);
+    }
+
+    /**
+     * Exports 10 users to 4 partitions and starts again with empty midpoint home.
+     */
+    private File exportPartitioned(String name) throws Exception {
+        File directory = setupExportDirectory(name);
+
+        String[] input = new String[]{"-m", getMidpointHome(), "export", "-t", "user", "-N", "4",
+                "-O", directory.getPath()};
+        executeTest(null, context -> addUsers(context, 10), null, false, false, input);
+
+        setupMidpointHome();
+
+        return directory;
+    }
+
+    private File getCheckpointFile(File directory) {
+        return new File(directory.getParentFile(), directory.getName() + "-" + ImportCheckpoint.FILE_NAME);
+    }
+
+    private void markAllShardsCompleted(File checkpointFile, File checkpointInput, File directory) throws Exception {
+        ShardManifest manifest = ShardManifest.read(directory, StandardCharsets.UTF_8);
+        ImportCheckpoint checkpoint = new ImportCheckpoint(checkpointFile, checkpointInput, StandardCharsets.UTF_8);
+        checkpoint.reset();
+        for (ShardManifest.Shard shard : manifest.getShards()) {
+            checkpoint.markCompleted(shard.getFile());
+        }
+    }
 }